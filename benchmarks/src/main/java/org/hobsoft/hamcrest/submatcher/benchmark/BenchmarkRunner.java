@@ -0,0 +1,80 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hobsoft.hamcrest.submatcher.benchmark;
+
+import java.io.IOException;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks, writing JSON results and allocation rates unless otherwise specified on the command line.
+ */
+public final class BenchmarkRunner
+{
+	// ----------------------------------------------------------------------------------------------------------------
+	// constants
+	// ----------------------------------------------------------------------------------------------------------------
+
+	private static final String DEFAULT_RESULT = "jmh-result.json";
+	
+	// ----------------------------------------------------------------------------------------------------------------
+	// constructors
+	// ----------------------------------------------------------------------------------------------------------------
+
+	private BenchmarkRunner()
+	{
+		throw new AssertionError();
+	}
+
+	// ----------------------------------------------------------------------------------------------------------------
+	// public methods
+	// ----------------------------------------------------------------------------------------------------------------
+
+	public static void main(String[] args) throws CommandLineOptionException, IOException, RunnerException
+	{
+		CommandLineOptions commandLineOptions = new CommandLineOptions(args);
+		
+		if (commandLineOptions.shouldHelp())
+		{
+			commandLineOptions.showHelp();
+			return;
+		}
+		
+		ChainedOptionsBuilder options = new OptionsBuilder().parent(commandLineOptions);
+		
+		if (!commandLineOptions.getResultFormat().hasValue())
+		{
+			options.resultFormat(ResultFormatType.JSON);
+		}
+		
+		if (!commandLineOptions.getResult().hasValue())
+		{
+			options.result(DEFAULT_RESULT);
+		}
+		
+		if (commandLineOptions.getProfilers().isEmpty())
+		{
+			options.addProfiler(GCProfiler.class);
+		}
+		
+		new Runner(options.build()).run();
+	}
+}
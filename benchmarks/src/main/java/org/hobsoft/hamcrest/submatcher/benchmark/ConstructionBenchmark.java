@@ -0,0 +1,106 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hobsoft.hamcrest.submatcher.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.hamcrest.Matcher;
+import org.hobsoft.hamcrest.submatcher.SubmatcherRuntime;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import static org.hamcrest.CoreMatchers.allOf;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hobsoft.hamcrest.submatcher.HasValueMatcher.hasValue;
+import static org.hobsoft.hamcrest.submatcher.HasValueMatcher.on;
+
+/**
+ * Benchmarks the cost of constructing matchers with {@code on} and {@code hasValue}, with and without the matcher
+ * cache.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ConstructionBenchmark
+{
+	// ----------------------------------------------------------------------------------------------------------------
+	// fields
+	// ----------------------------------------------------------------------------------------------------------------
+
+	@Param({"0", "1024"})
+	private int matcherCacheSize;
+	
+	private Matcher<String> sharedSubmatcher;
+	
+	// ----------------------------------------------------------------------------------------------------------------
+	// public methods
+	// ----------------------------------------------------------------------------------------------------------------
+
+	@Setup
+	public void setUp()
+	{
+		SubmatcherRuntime.setMatcherCacheMaximumSize(matcherCacheSize);
+		sharedSubmatcher = equalTo("x");
+	}
+	
+	@TearDown
+	public void tearDown()
+	{
+		SubmatcherRuntime.setMatcherCacheMaximumSize(0);
+	}
+	
+	@Benchmark
+	public Matcher<Person> single()
+	{
+		return hasValue(on(Person.class).getName(), equalTo("x"));
+	}
+	
+	@Benchmark
+	public Matcher<Person> nested()
+	{
+		Matcher<Address> city = hasValue(on(Address.class).getCity(), equalTo("x"));
+		
+		return hasValue(on(Person.class).getAddress(), city);
+	}
+	
+	@Benchmark
+	public Matcher<Person> nestedWithSharedSubmatcher()
+	{
+		Matcher<Address> city = hasValue(on(Address.class).getCity(), sharedSubmatcher);
+		
+		return hasValue(on(Person.class).getAddress(), city);
+	}
+	
+	@Benchmark
+	public Matcher<Person> allOfValues()
+	{
+		Matcher<Person> name = hasValue(on(Person.class).getName(), equalTo("x"));
+		Matcher<Person> age = hasValue(on(Person.class).getAge(), equalTo(1));
+		
+		return allOf(name, age);
+	}
+}
@@ -0,0 +1,192 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hobsoft.hamcrest.submatcher.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.hamcrest.Matcher;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import static org.hamcrest.CoreMatchers.allOf;
+import static org.hamcrest.CoreMatchers.anyOf;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hobsoft.hamcrest.submatcher.AdaptiveAllOfMatcher.adaptiveAllOf;
+import static org.hobsoft.hamcrest.submatcher.HasIntValueMatcher.hasIntValue;
+import static org.hobsoft.hamcrest.submatcher.HasValueMatcher.hasFieldValue;
+import static org.hobsoft.hamcrest.submatcher.HasValueMatcher.hasValue;
+import static org.hobsoft.hamcrest.submatcher.HasValueMatcher.on;
+import static org.hobsoft.hamcrest.submatcher.PrimitiveMatchers.intEqualTo;
+
+/**
+ * Benchmarks the throughput of {@code matches} for simple and composed matchers, including composed mismatches, for
+ * field values, for boxed and unboxed primitive values, and for composed mismatches on the last declared matcher with
+ * and without adaptive ordering, and for null intermediate values along chained and nested method values.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MatchesBenchmark
+{
+	// ----------------------------------------------------------------------------------------------------------------
+	// fields
+	// ----------------------------------------------------------------------------------------------------------------
+
+	private Person person;
+	
+	private Matcher<Person> single;
+	
+	private Matcher<Person> fieldValue;
+	
+	private Matcher<Person> nested;
+	
+	private Matcher<Person> allOfValues;
+	
+	private Matcher<Person> anyOfMismatches;
+	
+	private Person elderPerson;
+	
+	private Matcher<Person> boxedValue;
+	
+	private Matcher<Person> intValue;
+	
+	private Matcher<Person> allOfLastMismatch;
+	
+	private Matcher<Person> adaptiveAllOfLastMismatch;
+	
+	private Person homelessPerson;
+	
+	private Matcher<Person> chained;
+	
+	// ----------------------------------------------------------------------------------------------------------------
+	// JMH methods
+	// ----------------------------------------------------------------------------------------------------------------
+
+	@Setup
+	public void setUp()
+	{
+		person = new Person("x", 1, new Address("y"));
+		
+		single = hasValue(on(Person.class).getName(), equalTo("x"));
+		fieldValue = hasFieldValue(on(Person.class).getName(), equalTo("x"));
+		
+		Matcher<Address> city = hasValue(on(Address.class).getCity(), equalTo("y"));
+		nested = hasValue(on(Person.class).getAddress(), city);
+		
+		Matcher<Person> age = hasValue(on(Person.class).getAge(), equalTo(1));
+		allOfValues = allOf(single, age, nested);
+		
+		Matcher<Person> otherName = hasValue(on(Person.class).getName(), equalTo("z"));
+		Matcher<Person> otherAge = hasValue(on(Person.class).getAge(), equalTo(2));
+		anyOfMismatches = anyOf(otherName, otherAge);
+		
+		// age outside the Integer cache so that boxing allocates
+		elderPerson = new Person("x", 1000, new Address("y"));
+		boxedValue = hasValue(on(Person.class).getAge(), equalTo(1000));
+		intValue = hasIntValue(on(Person.class).getAge(), intEqualTo(1000));
+		
+		allOfLastMismatch = allOf(nested, single, otherAge);
+		adaptiveAllOfLastMismatch = adaptiveAllOf(nested, single, otherAge);
+		
+		homelessPerson = new Person("x", 1, null);
+		chained = hasValue(on(Person.class).getAddress().getCity(), equalTo("y"));
+	}
+	
+	// ----------------------------------------------------------------------------------------------------------------
+	// public methods
+	// ----------------------------------------------------------------------------------------------------------------
+
+	@Benchmark
+	public boolean single()
+	{
+		return single.matches(person);
+	}
+	
+	@Benchmark
+	public boolean fieldValue()
+	{
+		return fieldValue.matches(person);
+	}
+	
+	@Benchmark
+	public boolean nested()
+	{
+		return nested.matches(person);
+	}
+	
+	@Benchmark
+	public boolean allOfValues()
+	{
+		return allOfValues.matches(person);
+	}
+	
+	@Benchmark
+	public boolean anyOfMismatches()
+	{
+		return anyOfMismatches.matches(person);
+	}
+	
+	@Benchmark
+	public boolean boxedValue()
+	{
+		return boxedValue.matches(elderPerson);
+	}
+	
+	@Benchmark
+	public boolean intValue()
+	{
+		return intValue.matches(elderPerson);
+	}
+	
+	@Benchmark
+	public boolean allOfLastMismatch()
+	{
+		return allOfLastMismatch.matches(person);
+	}
+	
+	@Benchmark
+	public boolean adaptiveAllOfLastMismatch()
+	{
+		return adaptiveAllOfLastMismatch.matches(person);
+	}
+	
+	@Benchmark
+	public boolean chained()
+	{
+		return chained.matches(person);
+	}
+	
+	@Benchmark
+	public boolean chainedNull()
+	{
+		return chained.matches(homelessPerson);
+	}
+	
+	@Benchmark
+	public boolean nestedNull()
+	{
+		return nested.matches(homelessPerson);
+	}
+}
@@ -0,0 +1,99 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hobsoft.hamcrest.submatcher.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.hamcrest.Matcher;
+import org.hamcrest.StringDescription;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hobsoft.hamcrest.submatcher.HasValueMatcher.hasValue;
+import static org.hobsoft.hamcrest.submatcher.HasValueMatcher.on;
+
+/**
+ * Benchmarks the cost of describing mismatches.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MismatchDescriptionBenchmark
+{
+	// ----------------------------------------------------------------------------------------------------------------
+	// fields
+	// ----------------------------------------------------------------------------------------------------------------
+
+	private Person person;
+	
+	private Matcher<Person> single;
+	
+	private Matcher<Person> nested;
+	
+	// ----------------------------------------------------------------------------------------------------------------
+	// JMH methods
+	// ----------------------------------------------------------------------------------------------------------------
+
+	@Setup
+	public void setUp()
+	{
+		person = new Person("x", 1, new Address("y"));
+		
+		single = hasValue(on(Person.class).getName(), equalTo("z"));
+		
+		Matcher<Address> city = hasValue(on(Address.class).getCity(), equalTo("z"));
+		nested = hasValue(on(Person.class).getAddress(), city);
+	}
+	
+	// ----------------------------------------------------------------------------------------------------------------
+	// public methods
+	// ----------------------------------------------------------------------------------------------------------------
+
+	@Benchmark
+	public String single()
+	{
+		return describeMismatch(single);
+	}
+	
+	@Benchmark
+	public String nested()
+	{
+		return describeMismatch(nested);
+	}
+	
+	// ----------------------------------------------------------------------------------------------------------------
+	// private methods
+	// ----------------------------------------------------------------------------------------------------------------
+
+	private String describeMismatch(Matcher<Person> matcher)
+	{
+		StringDescription description = new StringDescription();
+		
+		matcher.describeMismatch(person, description);
+		
+		return description.toString();
+	}
+}
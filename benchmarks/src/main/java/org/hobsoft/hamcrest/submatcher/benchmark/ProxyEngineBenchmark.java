@@ -0,0 +1,132 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hobsoft.hamcrest.submatcher.benchmark;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+import org.hobsoft.hamcrest.submatcher.ProxyEngine;
+import org.hobsoft.hamcrest.submatcher.ProxyFactory;
+import org.hobsoft.hamcrest.submatcher.SpyInterceptor;
+import org.hobsoft.hamcrest.submatcher.Submatchable;
+import org.hobsoft.hamcrest.submatcher.SubmatcherRuntime;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks each proxy engine for the interface and class target types that it supports.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+@Submatchable({Contact.class, Account.class})
+public class ProxyEngineBenchmark
+{
+	// ----------------------------------------------------------------------------------------------------------------
+	// fields
+	// ----------------------------------------------------------------------------------------------------------------
+
+	@Param({"generated:interface", "cglib:interface", "jdk:interface", "generated:class", "cglib:class"})
+	private String engineAndTarget;
+	
+	private ProxyEngine engine;
+	
+	private Class<?> type;
+	
+	private ProxyFactory factory;
+	
+	private SpyInterceptor interceptor;
+	
+	private Contact proxy;
+	
+	// ----------------------------------------------------------------------------------------------------------------
+	// JMH methods
+	// ----------------------------------------------------------------------------------------------------------------
+
+	@Setup
+	public void setUp()
+	{
+		String[] names = engineAndTarget.split(":");
+		engine = getEngine(names[0]);
+		type = "class".equals(names[1]) ? Account.class : Contact.class;
+		
+		if (!engine.supports(type))
+		{
+			throw new IllegalStateException("Engine does not support type: " + engineAndTarget);
+		}
+		
+		factory = engine.createFactory(type);
+		
+		interceptor = new SpyInterceptor()
+		{
+			public Object intercept(Method method, Object[] arguments)
+			{
+				return null;
+			}
+		};
+		
+		proxy = (Contact) factory.newInstance(interceptor);
+	}
+	
+	// ----------------------------------------------------------------------------------------------------------------
+	// public methods
+	// ----------------------------------------------------------------------------------------------------------------
+
+	@Benchmark
+	public ProxyFactory createFactory()
+	{
+		return engine.createFactory(type);
+	}
+	
+	@Benchmark
+	public Object newInstance()
+	{
+		return factory.newInstance(interceptor);
+	}
+	
+	@Benchmark
+	public String invoke()
+	{
+		return proxy.getName();
+	}
+	
+	// ----------------------------------------------------------------------------------------------------------------
+	// private methods
+	// ----------------------------------------------------------------------------------------------------------------
+
+	private static ProxyEngine getEngine(String name)
+	{
+		for (ProxyEngine engine : SubmatcherRuntime.getProxyEngines())
+		{
+			if (engine.getName().equals(name))
+			{
+				return engine;
+			}
+		}
+		
+		throw new IllegalArgumentException("Unknown proxy engine: " + name);
+	}
+}
@@ -0,0 +1,368 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hobsoft.hamcrest.submatcher.processor;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.ExecutableType;
+import javax.lang.model.type.PrimitiveType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+
+import org.hobsoft.hamcrest.submatcher.GeneratedSpy;
+import org.hobsoft.hamcrest.submatcher.SpyInterceptor;
+
+/**
+ * Writes the source of a spy for a type.
+ * <p>
+ * The spy overrides every method that can be overridden, other than those of {@code Object}, to pass the invocation
+ * to its interceptor. Primitive return values default to zero when the interceptor returns {@code null}. Generic types
+ * are spied through their erasure.
+ */
+final class SpySourceWriter
+{
+	// ----------------------------------------------------------------------------------------------------------------
+	// constants
+	// ----------------------------------------------------------------------------------------------------------------
+
+	private static final String METHOD_TYPE_NAME = "java.lang.reflect.Method";
+	
+	private static final String OBJECT_TYPE_NAME = "java.lang.Object";
+
+	// ----------------------------------------------------------------------------------------------------------------
+	// fields
+	// ----------------------------------------------------------------------------------------------------------------
+
+	private final Elements elements;
+	
+	private final Types types;
+	
+	private final TypeElement type;
+	
+	private final String packageName;
+	
+	private final String simpleName;
+
+	// ----------------------------------------------------------------------------------------------------------------
+	// constructors
+	// ----------------------------------------------------------------------------------------------------------------
+
+	public SpySourceWriter(ProcessingEnvironment processingEnvironment, TypeElement type)
+	{
+		elements = processingEnvironment.getElementUtils();
+		types = processingEnvironment.getTypeUtils();
+		this.type = type;
+		packageName = elements.getPackageOf(type).getQualifiedName().toString();
+		
+		String binaryName = elements.getBinaryName(type).toString();
+		String binarySimpleName = packageName.isEmpty() ? binaryName : binaryName.substring(packageName.length() + 1);
+		simpleName = binarySimpleName + GeneratedSpy.NAME_SUFFIX;
+	}
+
+	// ----------------------------------------------------------------------------------------------------------------
+	// public methods
+	// ----------------------------------------------------------------------------------------------------------------
+
+	public String getQualifiedName()
+	{
+		return packageName.isEmpty() ? simpleName : packageName + "." + simpleName;
+	}
+	
+	public void write(Writer writer) throws IOException
+	{
+		List<ExecutableElement> methods = getInterceptableMethods();
+		StringBuilder source = new StringBuilder();
+		
+		appendDeclaration(source);
+		appendFields(source, methods);
+		
+		if (type.getKind() == ElementKind.CLASS)
+		{
+			appendConstructor(source);
+		}
+		
+		appendSetInterceptor(source);
+		
+		for (int index = 0; index < methods.size(); index++)
+		{
+			appendMethod(source, methods.get(index), index);
+		}
+		
+		appendMethodLookup(source);
+		source.append("}\n");
+		
+		writer.write(source.toString());
+	}
+	
+	public static ExecutableElement getConstructor(TypeElement type)
+	{
+		for (ExecutableElement constructor : ElementFilter.constructorsIn(type.getEnclosedElements()))
+		{
+			if (!constructor.getModifiers().contains(Modifier.PRIVATE))
+			{
+				return constructor;
+			}
+		}
+		
+		return null;
+	}
+
+	// ----------------------------------------------------------------------------------------------------------------
+	// private methods
+	// ----------------------------------------------------------------------------------------------------------------
+
+	private List<ExecutableElement> getInterceptableMethods()
+	{
+		Map<String, ExecutableElement> methodsBySignature = new LinkedHashMap<String, ExecutableElement>();
+		
+		for (ExecutableElement method : ElementFilter.methodsIn(elements.getAllMembers(type)))
+		{
+			String signature = method.getSimpleName() + getParameterTypes(method).toString();
+			
+			if (isInterceptable(method) && !methodsBySignature.containsKey(signature))
+			{
+				methodsBySignature.put(signature, method);
+			}
+		}
+		
+		return new ArrayList<ExecutableElement>(methodsBySignature.values());
+	}
+	
+	private boolean isInterceptable(ExecutableElement method)
+	{
+		Set<Modifier> modifiers = method.getModifiers();
+		TypeElement declaringType = (TypeElement) method.getEnclosingElement();
+		
+		if (modifiers.contains(Modifier.STATIC) || modifiers.contains(Modifier.FINAL)
+			|| modifiers.contains(Modifier.PRIVATE) || declaringType.getQualifiedName().contentEquals(OBJECT_TYPE_NAME))
+		{
+			return false;
+		}
+		
+		return modifiers.contains(Modifier.PUBLIC) || modifiers.contains(Modifier.PROTECTED)
+			|| elements.getPackageOf(declaringType).getQualifiedName().contentEquals(packageName);
+	}
+	
+	private void appendDeclaration(StringBuilder source)
+	{
+		source.append("// Generated by ").append(SubmatchableProcessor.class.getSimpleName())
+			.append(". Do not edit.\n");
+		
+		if (!packageName.isEmpty())
+		{
+			source.append("package ").append(packageName).append(";\n");
+		}
+		
+		source.append("\n@SuppressWarnings({\"rawtypes\", \"unchecked\", \"deprecation\", \"serial\"})\n")
+			.append("final class ").append(simpleName)
+			.append(type.getKind() == ElementKind.CLASS ? " extends " : " implements ").append(getTypeName())
+			.append(type.getKind() == ElementKind.CLASS ? " implements " : ", ")
+			.append(GeneratedSpy.class.getName()).append("\n{\n");
+	}
+	
+	private void appendFields(StringBuilder source, List<ExecutableElement> methods)
+	{
+		source.append("\tprivate static final ").append(OBJECT_TYPE_NAME).append("[] NO_ARGUMENTS = new ")
+			.append(OBJECT_TYPE_NAME).append("[0];\n\n");
+		
+		for (int index = 0; index < methods.size(); index++)
+		{
+			ExecutableElement method = methods.get(index);
+			
+			source.append("\tprivate static final ").append(METHOD_TYPE_NAME).append(" METHOD_").append(index)
+				.append(" = method$(").append(getTypeName()).append(".class, \"").append(method.getSimpleName())
+				.append('"');
+			
+			for (TypeMirror parameterType : getParameterTypes(method))
+			{
+				source.append(", ").append(parameterType).append(".class");
+			}
+			
+			source.append(");\n\n");
+		}
+		
+		source.append("\tprivate ").append(SpyInterceptor.class.getName()).append(" interceptor;\n");
+	}
+	
+	private void appendConstructor(StringBuilder source)
+	{
+		ExecutableElement constructor = getConstructor(type);
+		
+		source.append("\n\t").append(simpleName).append("()");
+		appendThrows(source, constructor);
+		source.append("\n\t{\n\t\tsuper(");
+		
+		for (int index = 0; index < constructor.getParameters().size(); index++)
+		{
+			TypeMirror parameterType = types.erasure(constructor.getParameters().get(index).asType());
+			
+			source.append(index > 0 ? ", " : "").append(getDefaultValue(parameterType));
+		}
+		
+		source.append(");\n\t}\n");
+	}
+	
+	private void appendSetInterceptor(StringBuilder source)
+	{
+		source.append("\n\tpublic void setInterceptor(").append(SpyInterceptor.class.getName())
+			.append(" interceptor)\n\t{\n\t\tthis.interceptor = interceptor;\n\t}\n");
+	}
+	
+	private void appendMethod(StringBuilder source, ExecutableElement method, int index)
+	{
+		List<TypeMirror> parameterTypes = getParameterTypes(method);
+		TypeMirror returnType = types.erasure(getMemberType(method).getReturnType());
+		StringBuilder arguments = new StringBuilder();
+		
+		source.append("\n\t@Override\n\t").append(getAccessModifier(method)).append(returnType).append(' ')
+			.append(method.getSimpleName()).append('(');
+		
+		for (int parameterIndex = 0; parameterIndex < parameterTypes.size(); parameterIndex++)
+		{
+			String separator = (parameterIndex > 0) ? ", " : "";
+			source.append(separator).append(parameterTypes.get(parameterIndex)).append(" p").append(parameterIndex);
+			arguments.append(separator).append('p').append(parameterIndex);
+		}
+		
+		source.append(')');
+		appendThrows(source, method);
+		
+		String invocation = "interceptor.intercept(METHOD_" + index + ", "
+			+ (parameterTypes.isEmpty() ? "NO_ARGUMENTS" : "new " + OBJECT_TYPE_NAME + "[] {" + arguments + "}") + ")";
+		
+		source.append("\n\t{\n\t\t");
+		
+		if (returnType.getKind() == TypeKind.VOID)
+		{
+			source.append(invocation).append(";\n");
+		}
+		else if (returnType.getKind().isPrimitive())
+		{
+			source.append(OBJECT_TYPE_NAME).append(" value = ").append(invocation).append(";\n")
+				.append("\t\treturn (value != null) ? (")
+				.append(types.boxedClass((PrimitiveType) returnType).getQualifiedName()).append(") value : ")
+				.append(getDefaultValue(returnType)).append(";\n");
+		}
+		else
+		{
+			source.append("return (").append(returnType).append(") ").append(invocation).append(";\n");
+		}
+		
+		source.append("\t}\n");
+	}
+	
+	private void appendThrows(StringBuilder source, ExecutableElement executable)
+	{
+		List<? extends TypeMirror> thrownTypes = executable.getThrownTypes();
+		
+		for (int index = 0; index < thrownTypes.size(); index++)
+		{
+			source.append(index > 0 ? ", " : " throws ").append(types.erasure(thrownTypes.get(index)));
+		}
+	}
+	
+	private static void appendMethodLookup(StringBuilder source)
+	{
+		source.append("\n\tprivate static ").append(METHOD_TYPE_NAME)
+			.append(" method$(java.lang.Class<?> type, java.lang.String name, java.lang.Class<?>... parameterTypes)\n")
+			.append("\t{\n")
+			.append("\t\tfor (java.lang.Class<?> declaringType = type; declaringType != null; ")
+			.append("declaringType = declaringType.getSuperclass())\n")
+			.append("\t\t{\n")
+			.append("\t\t\ttry\n\t\t\t{\n")
+			.append("\t\t\t\treturn declaringType.getDeclaredMethod(name, parameterTypes);\n")
+			.append("\t\t\t}\n")
+			.append("\t\t\tcatch (java.lang.NoSuchMethodException exception)\n\t\t\t{\n")
+			.append("\t\t\t\t// try superclass\n")
+			.append("\t\t\t}\n")
+			.append("\t\t}\n\n")
+			.append("\t\ttry\n\t\t{\n")
+			.append("\t\t\treturn type.getMethod(name, parameterTypes);\n")
+			.append("\t\t}\n")
+			.append("\t\tcatch (java.lang.NoSuchMethodException exception)\n\t\t{\n")
+			.append("\t\t\tthrow new java.lang.NoSuchMethodError(exception.getMessage());\n")
+			.append("\t\t}\n")
+			.append("\t}\n");
+	}
+	
+	private String getTypeName()
+	{
+		return types.erasure(type.asType()).toString();
+	}
+	
+	private ExecutableType getMemberType(ExecutableElement method)
+	{
+		return (ExecutableType) types.asMemberOf((DeclaredType) types.erasure(type.asType()), method);
+	}
+	
+	private List<TypeMirror> getParameterTypes(ExecutableElement method)
+	{
+		List<TypeMirror> parameterTypes = new ArrayList<TypeMirror>();
+		
+		for (TypeMirror parameterType : getMemberType(method).getParameterTypes())
+		{
+			parameterTypes.add(types.erasure(parameterType));
+		}
+		
+		return parameterTypes;
+	}
+	
+	private static String getAccessModifier(ExecutableElement method)
+	{
+		if (method.getModifiers().contains(Modifier.PUBLIC))
+		{
+			return "public ";
+		}
+		
+		return method.getModifiers().contains(Modifier.PROTECTED) ? "protected " : "";
+	}
+	
+	private static String getDefaultValue(TypeMirror type)
+	{
+		switch (type.getKind())
+		{
+			case BOOLEAN:
+				return "false";
+			
+			case CHAR:
+				return "'\\0'";
+			
+			case BYTE:
+			case SHORT:
+			case INT:
+			case LONG:
+			case FLOAT:
+			case DOUBLE:
+				return "(" + type + ") 0";
+			
+			default:
+				return "(" + type + ") null";
+		}
+	}
+}
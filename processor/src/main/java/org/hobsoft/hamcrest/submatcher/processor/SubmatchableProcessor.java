@@ -0,0 +1,202 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hobsoft.hamcrest.submatcher.processor;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic.Kind;
+import javax.tools.JavaFileObject;
+
+import org.hobsoft.hamcrest.submatcher.Submatchable;
+
+/**
+ * Annotation processor that generates spies for {@code Submatchable} types.
+ * <p>
+ * A spy is generated in the package of its type and named by appending {@code GeneratedSpy.NAME_SUFFIX} to the
+ * type's binary name. Types that cannot be spied at compile time are reported as warnings and are left to be proxied
+ * at runtime.
+ */
+@SupportedAnnotationTypes("org.hobsoft.hamcrest.submatcher.Submatchable")
+public class SubmatchableProcessor extends AbstractProcessor
+{
+	// ----------------------------------------------------------------------------------------------------------------
+	// fields
+	// ----------------------------------------------------------------------------------------------------------------
+
+	private final Set<String> generatedTypeNames = new HashSet<String>();
+
+	// ----------------------------------------------------------------------------------------------------------------
+	// Processor methods
+	// ----------------------------------------------------------------------------------------------------------------
+
+	@Override
+	public SourceVersion getSupportedSourceVersion()
+	{
+		return SourceVersion.latestSupported();
+	}
+	
+	@Override
+	public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnvironment)
+	{
+		for (Element element : roundEnvironment.getElementsAnnotatedWith(Submatchable.class))
+		{
+			List<TypeElement> types = getListedTypes(element);
+			
+			if (types.isEmpty() && element instanceof TypeElement)
+			{
+				types.add((TypeElement) element);
+			}
+			
+			if (types.isEmpty())
+			{
+				processingEnv.getMessager().printMessage(Kind.ERROR, "@Submatchable packages must list types",
+					element);
+			}
+			
+			for (TypeElement type : types)
+			{
+				generate(type, element);
+			}
+		}
+		
+		return true;
+	}
+
+	// ----------------------------------------------------------------------------------------------------------------
+	// private methods
+	// ----------------------------------------------------------------------------------------------------------------
+
+	private List<TypeElement> getListedTypes(Element element)
+	{
+		List<TypeElement> types = new ArrayList<TypeElement>();
+		
+		for (AnnotationMirror annotation : element.getAnnotationMirrors())
+		{
+			TypeElement annotationType = (TypeElement) annotation.getAnnotationType().asElement();
+			
+			if (annotationType.getQualifiedName().contentEquals(Submatchable.class.getName()))
+			{
+				for (AnnotationValue value : annotation.getElementValues().values())
+				{
+					addTypes(types, (List<?>) value.getValue());
+				}
+			}
+		}
+		
+		return types;
+	}
+	
+	private void addTypes(List<TypeElement> types, List<?> values)
+	{
+		for (Object value : values)
+		{
+			TypeMirror type = (TypeMirror) ((AnnotationValue) value).getValue();
+			types.add((TypeElement) processingEnv.getTypeUtils().asElement(type));
+		}
+	}
+	
+	private void generate(TypeElement type, Element element)
+	{
+		String binaryName = processingEnv.getElementUtils().getBinaryName(type).toString();
+		
+		if (!generatedTypeNames.add(binaryName))
+		{
+			return;
+		}
+		
+		String problem = getProblem(type);
+		
+		if (problem != null)
+		{
+			processingEnv.getMessager().printMessage(Kind.WARNING, "Cannot generate spy for " + type + ": " + problem,
+				element);
+			return;
+		}
+		
+		SpySourceWriter sourceWriter = new SpySourceWriter(processingEnv, type);
+		
+		try
+		{
+			JavaFileObject file = processingEnv.getFiler().createSourceFile(sourceWriter.getQualifiedName(), type,
+				element);
+			Writer writer = file.openWriter();
+			
+			try
+			{
+				sourceWriter.write(writer);
+			}
+			finally
+			{
+				writer.close();
+			}
+		}
+		catch (IOException exception)
+		{
+			processingEnv.getMessager().printMessage(Kind.ERROR, "Cannot write spy for " + type + ": "
+				+ exception.getMessage(), element);
+		}
+	}
+	
+	private String getProblem(TypeElement type)
+	{
+		Set<Modifier> modifiers = type.getModifiers();
+		String packageName = processingEnv.getElementUtils().getPackageOf(type).getQualifiedName().toString();
+		
+		if (type.getKind() != ElementKind.CLASS && type.getKind() != ElementKind.INTERFACE)
+		{
+			return "not a class or interface";
+		}
+		
+		if (modifiers.contains(Modifier.FINAL) || modifiers.contains(Modifier.PRIVATE))
+		{
+			return "final or private";
+		}
+		
+		if (type.getNestingKind() != NestingKind.TOP_LEVEL && type.getNestingKind() != NestingKind.MEMBER
+			|| type.getNestingKind() == NestingKind.MEMBER && type.getKind() == ElementKind.CLASS
+			&& !modifiers.contains(Modifier.STATIC))
+		{
+			return "not a top-level or static member type";
+		}
+		
+		if (packageName.startsWith("java."))
+		{
+			return "in a system package";
+		}
+		
+		if (type.getKind() == ElementKind.CLASS && SpySourceWriter.getConstructor(type) == null)
+		{
+			return "no non-private constructor";
+		}
+		
+		return null;
+	}
+}
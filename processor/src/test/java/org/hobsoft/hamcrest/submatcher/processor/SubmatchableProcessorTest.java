@@ -0,0 +1,360 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hobsoft.hamcrest.submatcher.processor;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import javax.tools.Diagnostic;
+import javax.tools.Diagnostic.Kind;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaCompiler.CompilationTask;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import org.hobsoft.hamcrest.submatcher.Submatchable;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Tests {@code SubmatchableProcessor}.
+ */
+public class SubmatchableProcessorTest
+{
+	// ----------------------------------------------------------------------------------------------------------------
+	// constants
+	// ----------------------------------------------------------------------------------------------------------------
+
+	private static final String LIBRARY_TEST_SOURCE_PATH = "../src/test/java";
+	
+	// ----------------------------------------------------------------------------------------------------------------
+	// fields
+	// ----------------------------------------------------------------------------------------------------------------
+
+	private TemporaryFolder outputFolder = new TemporaryFolder();
+	
+	private DiagnosticCollector<JavaFileObject> diagnostics;
+
+	// ----------------------------------------------------------------------------------------------------------------
+	// JUnit methods
+	// ----------------------------------------------------------------------------------------------------------------
+
+	@Rule
+	public TemporaryFolder getOutputFolder()
+	{
+		return outputFolder;
+	}
+	
+	@Before
+	public void setUp()
+	{
+		diagnostics = new DiagnosticCollector<JavaFileObject>();
+	}
+
+	// ----------------------------------------------------------------------------------------------------------------
+	// tests
+	// ----------------------------------------------------------------------------------------------------------------
+
+	@Test
+	public void processWithInterfaceGeneratesSpy() throws IOException, URISyntaxException
+	{
+		boolean actual = compile(newSource("p.Foo", "package p;",
+			"@org.hobsoft.hamcrest.submatcher.Submatchable",
+			"public interface Foo {",
+			"	String getName(String prefix, int... indexes);",
+			"	int getAge();",
+			"	char getInitial();",
+			"	void reset() throws java.io.IOException;",
+			"	<T> T get(Class<T> type);",
+			"}"
+		));
+		
+		assertThat(getErrors(), actual, is(true));
+		assertThat(isGenerated("p.Foo"), is(true));
+	}
+	
+	@Test
+	public void processWithClassGeneratesSpy() throws IOException, URISyntaxException
+	{
+		boolean actual = compile(newSource("p.Foo", "package p;",
+			"@org.hobsoft.hamcrest.submatcher.Submatchable",
+			"public abstract class Foo<T> {",
+			"	protected Foo(T value, long count, boolean flag) throws Exception { }",
+			"	public abstract T getValue();",
+			"	protected String getName() { return null; }",
+			"	abstract int getCount();",
+			"	public final String getFinal() { return null; }",
+			"	public static String getStatic() { return null; }",
+			"}"
+		));
+		
+		assertThat(getErrors(), actual, is(true));
+		assertThat(isGenerated("p.Foo"), is(true));
+	}
+	
+	@Test
+	public void processWithGenericSupertypeGeneratesSpy() throws IOException, URISyntaxException
+	{
+		boolean actual = compile(
+			newSource("p.Box", "package p;",
+				"public interface Box<T> {",
+				"	T get();",
+				"}"
+			),
+			newSource("p.StringBox", "package p;",
+				"@org.hobsoft.hamcrest.submatcher.Submatchable",
+				"public interface StringBox extends Box<String>, Comparable<StringBox> {",
+				"}"
+			)
+		);
+		
+		assertThat(getErrors(), actual, is(true));
+		assertThat(isGenerated("p.StringBox"), is(true));
+	}
+	
+	@Test
+	public void processWithStaticMemberTypeGeneratesSpy() throws IOException, URISyntaxException
+	{
+		boolean actual = compile(newSource("p.Foo", "package p;",
+			"public class Foo {",
+			"	@org.hobsoft.hamcrest.submatcher.Submatchable",
+			"	public static class Bar {",
+			"		public String getName() { return null; }",
+			"	}",
+			"}"
+		));
+		
+		assertThat(getErrors(), actual, is(true));
+		assertThat(isGenerated("p.Foo$Bar"), is(true));
+	}
+	
+	@Test
+	public void processWithListedTypesGeneratesSpies() throws IOException, URISyntaxException
+	{
+		boolean actual = compile(
+			newSource("p.Foo", "package p;",
+				"public interface Foo {",
+				"	String getName();",
+				"}"
+			),
+			newSource("q.Bar", "package q;",
+				"@org.hobsoft.hamcrest.submatcher.Submatchable({p.Foo.class, java.util.List.class})",
+				"public class Bar {",
+				"}"
+			)
+		);
+		
+		assertThat(getErrors(), actual, is(true));
+		assertThat(isGenerated("p.Foo"), is(true));
+		assertThat(isGenerated("q.Bar"), is(false));
+	}
+	
+	@Test
+	public void processWithListedSystemTypeWarns() throws IOException, URISyntaxException
+	{
+		compile(newSource("p.Foo", "package p;",
+			"@org.hobsoft.hamcrest.submatcher.Submatchable(java.util.List.class)",
+			"public class Foo {",
+			"}"
+		));
+		
+		assertThat(getMessages(Kind.WARNING), containsString("Cannot generate spy for java.util.List: "
+			+ "in a system package"));
+	}
+	
+	@Test
+	public void processWithFinalClassWarns() throws IOException, URISyntaxException
+	{
+		boolean actual = compile(newSource("p.Foo", "package p;",
+			"@org.hobsoft.hamcrest.submatcher.Submatchable",
+			"public final class Foo {",
+			"}"
+		));
+		
+		assertThat(getErrors(), actual, is(true));
+		assertThat(getMessages(Kind.WARNING), containsString("Cannot generate spy for p.Foo: final or private"));
+		assertThat(isGenerated("p.Foo"), is(false));
+	}
+	
+	@Test
+	public void processWithPrivateConstructorWarns() throws IOException, URISyntaxException
+	{
+		compile(newSource("p.Foo", "package p;",
+			"@org.hobsoft.hamcrest.submatcher.Submatchable",
+			"public class Foo {",
+			"	private Foo() { }",
+			"}"
+		));
+		
+		assertThat(getMessages(Kind.WARNING), containsString("Cannot generate spy for p.Foo: "
+			+ "no non-private constructor"));
+	}
+	
+	@Test
+	public void processWithInnerClassWarns() throws IOException, URISyntaxException
+	{
+		compile(newSource("p.Foo", "package p;",
+			"public class Foo {",
+			"	@org.hobsoft.hamcrest.submatcher.Submatchable",
+			"	public class Bar {",
+			"	}",
+			"}"
+		));
+		
+		assertThat(getMessages(Kind.WARNING), containsString("Cannot generate spy for p.Foo.Bar: "
+			+ "not a top-level or static member type"));
+	}
+	
+	@Test
+	public void processWithPackageWithoutTypesFails() throws IOException, URISyntaxException
+	{
+		boolean actual = compile(newSource("p.package-info",
+			"@org.hobsoft.hamcrest.submatcher.Submatchable",
+			"package p;"
+		));
+		
+		assertThat(actual, is(false));
+		assertThat(getMessages(Kind.ERROR), containsString("@Submatchable packages must list types"));
+	}
+	
+	@Test
+	public void processWithLibraryTestTypesGeneratesCheckedInSpies() throws IOException, URISyntaxException
+	{
+		// the library's tests are compiled before this module, so they check in the spies that this generates
+		File sourceFolder = new File(LIBRARY_TEST_SOURCE_PATH);
+		
+		boolean actual = compile(Arrays.asList("-proc:only", "-sourcepath", sourceFolder.getPath()),
+			toSources(sourceFolder, "org.hobsoft.hamcrest.submatcher.test.Book",
+				"org.hobsoft.hamcrest.submatcher.test.Library"));
+		
+		assertThat(getErrors(), actual, is(true));
+		assertThat(readSpyDeclaration(outputFolder.getRoot(), "org.hobsoft.hamcrest.submatcher.test.Book"),
+			is(readSpyDeclaration(sourceFolder, "org.hobsoft.hamcrest.submatcher.test.Book")));
+		assertThat(readSpyDeclaration(outputFolder.getRoot(), "org.hobsoft.hamcrest.submatcher.test.Library"),
+			is(readSpyDeclaration(sourceFolder, "org.hobsoft.hamcrest.submatcher.test.Library")));
+	}
+	
+	// ----------------------------------------------------------------------------------------------------------------
+	// private methods
+	// ----------------------------------------------------------------------------------------------------------------
+
+	private boolean compile(JavaFileObject... sources) throws IOException, URISyntaxException
+	{
+		return compile(Collections.<String>emptyList(), Arrays.asList(sources));
+	}
+	
+	private boolean compile(List<String> extraOptions, Iterable<? extends JavaFileObject> sources)
+		throws IOException, URISyntaxException
+	{
+		JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+		String classPath = new File(Submatchable.class.getProtectionDomain().getCodeSource().getLocation().toURI())
+			.getPath();
+		List<String> options = new ArrayList<String>(Arrays.asList("-classpath", classPath,
+			"-d", outputFolder.getRoot().getPath(), "-s", outputFolder.getRoot().getPath()));
+		options.addAll(extraOptions);
+		
+		CompilationTask task = compiler.getTask(null, null, diagnostics, options, null, sources);
+		task.setProcessors(Collections.singletonList(new SubmatchableProcessor()));
+		
+		return task.call();
+	}
+	
+	private static Iterable<? extends JavaFileObject> toSources(File sourceFolder, String... binaryNames)
+	{
+		StandardJavaFileManager fileManager = ToolProvider.getSystemJavaCompiler()
+			.getStandardFileManager(null, null, null);
+		List<File> files = new ArrayList<File>();
+		
+		for (String binaryName : binaryNames)
+		{
+			files.add(new File(sourceFolder, binaryName.replace('.', File.separatorChar) + ".java"));
+		}
+		
+		return fileManager.getJavaFileObjectsFromFiles(files);
+	}
+	
+	private static String readSpyDeclaration(File sourceFolder, String binaryName) throws IOException
+	{
+		File file = new File(sourceFolder, binaryName.replace('.', File.separatorChar) + "$$SubmatcherSpy.java");
+		String source = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+		
+		// checked-in spies replace the generated comment with a license header and Javadoc
+		return source.substring(source.indexOf("@SuppressWarnings"));
+	}
+	
+	private boolean isGenerated(String binaryName)
+	{
+		String path = binaryName.replace('.', File.separatorChar) + "$$SubmatcherSpy.class";
+		
+		return new File(outputFolder.getRoot(), path).isFile();
+	}
+	
+	private String getErrors()
+	{
+		return getMessages(Kind.ERROR);
+	}
+	
+	private String getMessages(Kind kind)
+	{
+		List<String> messages = new ArrayList<String>();
+		
+		for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics())
+		{
+			if (diagnostic.getKind() == kind)
+			{
+				messages.add(diagnostic.getMessage(null));
+			}
+		}
+		
+		return messages.toString();
+	}
+	
+	private static JavaFileObject newSource(String name, final String... lines)
+	{
+		URI uri = URI.create("string:///" + name.replace('.', '/') + JavaFileObject.Kind.SOURCE.extension);
+		
+		return new SimpleJavaFileObject(uri, JavaFileObject.Kind.SOURCE)
+		{
+			@Override
+			public CharSequence getCharContent(boolean ignoreEncodingErrors)
+			{
+				StringBuilder content = new StringBuilder();
+				
+				for (String line : lines)
+				{
+					content.append(line).append('\n');
+				}
+				
+				return content;
+			}
+		};
+	}
+}
@@ -0,0 +1,314 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hobsoft.hamcrest.submatcher;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import org.hamcrest.Description;
+import org.hamcrest.Matcher;
+import org.hamcrest.TypeSafeDiagnosingMatcher;
+
+import static org.hobsoft.hamcrest.submatcher.Descriptions.isRendered;
+import static org.hobsoft.hamcrest.submatcher.Preconditions.checkNotNull;
+
+/**
+ * Matcher for several conditions of an instance that evaluates the cheapest and most selective conditions first.
+ * <p>
+ * This behaves like {@code allOf} for the given matchers, except that it observes how often each matcher fails and,
+ * for a sample of instances, how long each takes. Matchers are periodically reordered by their expected cost to reject
+ * an instance, that is their average time divided by their failure rate, so that filters where most instances fail on
+ * one cheap condition stop early. Observations decay over time so that the order follows changes in the instances.
+ * <p>
+ * Mismatch descriptions are unaffected by the order: every failing matcher is reported in declared order. Observations
+ * are not synchronized, so under concurrent use they are approximate, which only affects the order.
+ * 
+ * @param <T>
+ *            the instance type
+ */
+public class AdaptiveAllOfMatcher<T> extends TypeSafeDiagnosingMatcher<T>
+{
+	// ----------------------------------------------------------------------------------------------------------------
+	// constants
+	// ----------------------------------------------------------------------------------------------------------------
+
+	static final int SAMPLE_INTERVAL = 16;
+	
+	static final int REORDER_INTERVAL = 1024;
+	
+	private static final int DECAY_THRESHOLD = 1 << 16;
+	
+	// ----------------------------------------------------------------------------------------------------------------
+	// fields
+	// ----------------------------------------------------------------------------------------------------------------
+
+	private final List<Matcher<? super T>> matchers;
+	
+	private final Observations[] observations;
+	
+	private volatile int[] order;
+	
+	private int matchCount;
+
+	// ----------------------------------------------------------------------------------------------------------------
+	// constructors
+	// ----------------------------------------------------------------------------------------------------------------
+
+	AdaptiveAllOfMatcher(Iterable<? extends Matcher<? super T>> matchers)
+	{
+		super(CachingTypeFinder.MATCHES_SAFELY);
+		
+		checkNotNull(matchers, "matchers");
+		
+		this.matchers = new ArrayList<Matcher<? super T>>();
+		
+		for (Matcher<? super T> matcher : matchers)
+		{
+			this.matchers.add(checkNotNull(matcher, "matcher"));
+		}
+		
+		observations = new Observations[this.matchers.size()];
+		order = new int[this.matchers.size()];
+		
+		for (int index = 0; index < observations.length; index++)
+		{
+			observations[index] = new Observations();
+			order[index] = index;
+		}
+	}
+
+	// ----------------------------------------------------------------------------------------------------------------
+	// TypeSafeDiagnosingMatcher methods
+	// ----------------------------------------------------------------------------------------------------------------
+
+	@Override
+	protected boolean matchesSafely(T actual, Description mismatchDescription)
+	{
+		if (isRendered(mismatchDescription))
+		{
+			return describeMismatches(actual, mismatchDescription);
+		}
+		
+		int count = ++matchCount;
+		
+		if (count % REORDER_INTERVAL == 0)
+		{
+			reorder();
+		}
+		
+		boolean sampled = (count % SAMPLE_INTERVAL == 0);
+		
+		for (int index : order)
+		{
+			if (!matches(index, actual, sampled))
+			{
+				return false;
+			}
+		}
+		
+		return true;
+	}
+
+	// ----------------------------------------------------------------------------------------------------------------
+	// SelfDescribing methods
+	// ----------------------------------------------------------------------------------------------------------------
+
+	public void describeTo(Description description)
+	{
+		description.appendList("(", " and ", ")", matchers);
+	}
+
+	// ----------------------------------------------------------------------------------------------------------------
+	// public methods
+	// ----------------------------------------------------------------------------------------------------------------
+
+	@SafeVarargs
+	public static <T> AdaptiveAllOfMatcher<T> adaptiveAllOf(Matcher<? super T>... matchers)
+	{
+		checkNotNull(matchers, "matchers");
+		
+		List<Matcher<? super T>> matcherList = new ArrayList<Matcher<? super T>>(matchers.length);
+		
+		for (Matcher<? super T> matcher : matchers)
+		{
+			matcherList.add(matcher);
+		}
+		
+		return new AdaptiveAllOfMatcher<T>(matcherList);
+	}
+	
+	public static <T> AdaptiveAllOfMatcher<T> adaptiveAllOf(Iterable<? extends Matcher<? super T>> matchers)
+	{
+		return new AdaptiveAllOfMatcher<T>(matchers);
+	}
+	
+	// ----------------------------------------------------------------------------------------------------------------
+	// package methods
+	// ----------------------------------------------------------------------------------------------------------------
+
+	List<Matcher<? super T>> getMatchers()
+	{
+		return Collections.unmodifiableList(matchers);
+	}
+	
+	/**
+	 * Gets the order that matchers are currently evaluated in.
+	 * 
+	 * @return the declared indexes of the matchers in evaluation order
+	 */
+	int[] getOrder()
+	{
+		return order.clone();
+	}
+	
+	void reorder()
+	{
+		final double[] scores = new double[observations.length];
+		Integer[] newOrder = new Integer[observations.length];
+		
+		for (int index = 0; index < observations.length; index++)
+		{
+			scores[index] = observations[index].getScore();
+			newOrder[index] = index;
+			observations[index].decay();
+		}
+		
+		// stable sort keeps declared order for equal scores
+		Arrays.sort(newOrder, new Comparator<Integer>()
+		{
+			public int compare(Integer index1, Integer index2)
+			{
+				return Double.compare(scores[index1], scores[index2]);
+			}
+		});
+		
+		int[] order = new int[newOrder.length];
+		
+		for (int index = 0; index < order.length; index++)
+		{
+			order[index] = newOrder[index];
+		}
+		
+		this.order = order;
+	}
+	
+	// ----------------------------------------------------------------------------------------------------------------
+	// private methods
+	// ----------------------------------------------------------------------------------------------------------------
+
+	private boolean matches(int index, T actual, boolean sampled)
+	{
+		Observations observation = observations[index];
+		long startTime = sampled ? System.nanoTime() : 0;
+		
+		boolean matches = matchers.get(index).matches(actual);
+		
+		if (sampled)
+		{
+			observation.addSample(System.nanoTime() - startTime);
+		}
+		
+		observation.addEvaluation(matches);
+		
+		return matches;
+	}
+	
+	private boolean describeMismatches(T actual, Description mismatchDescription)
+	{
+		boolean matches = true;
+		
+		for (Matcher<? super T> matcher : matchers)
+		{
+			if (!matcher.matches(actual))
+			{
+				if (!matches)
+				{
+					mismatchDescription.appendText(" and ");
+				}
+				
+				mismatchDescription.appendDescriptionOf(matcher).appendText(" ");
+				matcher.describeMismatch(actual, mismatchDescription);
+				matches = false;
+			}
+		}
+		
+		return matches;
+	}
+	
+	// ----------------------------------------------------------------------------------------------------------------
+	// types
+	// ----------------------------------------------------------------------------------------------------------------
+
+	/**
+	 * Observed evaluations of a matcher.
+	 */
+	private static final class Observations
+	{
+		private int evaluationCount;
+		
+		private int failureCount;
+		
+		private int sampleCount;
+		
+		private long sampleTime;
+		
+		public void addEvaluation(boolean matches)
+		{
+			evaluationCount++;
+			
+			if (!matches)
+			{
+				failureCount++;
+			}
+		}
+		
+		public void addSample(long time)
+		{
+			sampleCount++;
+			sampleTime += time;
+		}
+		
+		/**
+		 * Gets the expected cost of rejecting an instance with this matcher, where lower scores should run first.
+		 * 
+		 * @return the average time divided by the failure rate
+		 */
+		public double getScore()
+		{
+			// assume an even failure rate and unit cost until observed
+			double failureRate = (failureCount + 1.0) / (evaluationCount + 2.0);
+			double cost = (sampleCount > 0) ? Math.max((double) sampleTime / sampleCount, 1.0) : 1.0;
+			
+			return cost / failureRate;
+		}
+		
+		public void decay()
+		{
+			if (evaluationCount > DECAY_THRESHOLD)
+			{
+				evaluationCount /= 2;
+				failureCount /= 2;
+			}
+			
+			if (sampleCount > DECAY_THRESHOLD)
+			{
+				sampleCount /= 2;
+				sampleTime /= 2;
+			}
+		}
+	}
+}
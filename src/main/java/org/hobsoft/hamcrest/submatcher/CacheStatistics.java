@@ -0,0 +1,67 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hobsoft.hamcrest.submatcher;
+
+/**
+ * Snapshot of a cache's hit and miss counts.
+ */
+public final class CacheStatistics
+{
+	// ----------------------------------------------------------------------------------------------------------------
+	// fields
+	// ----------------------------------------------------------------------------------------------------------------
+
+	private final long hitCount;
+	
+	private final long missCount;
+
+	// ----------------------------------------------------------------------------------------------------------------
+	// constructors
+	// ----------------------------------------------------------------------------------------------------------------
+
+	CacheStatistics(long hitCount, long missCount)
+	{
+		this.hitCount = hitCount;
+		this.missCount = missCount;
+	}
+
+	// ----------------------------------------------------------------------------------------------------------------
+	// Object methods
+	// ----------------------------------------------------------------------------------------------------------------
+
+	@Override
+	public String toString()
+	{
+		return "hits=" + hitCount + ", misses=" + missCount;
+	}
+
+	// ----------------------------------------------------------------------------------------------------------------
+	// public methods
+	// ----------------------------------------------------------------------------------------------------------------
+
+	public long getHitCount()
+	{
+		return hitCount;
+	}
+
+	public long getMissCount()
+	{
+		return missCount;
+	}
+
+	public long getRequestCount()
+	{
+		return hitCount + missCount;
+	}
+}
@@ -0,0 +1,68 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hobsoft.hamcrest.submatcher;
+
+import org.hamcrest.internal.ReflectiveTypeFinder;
+
+/**
+ * Finds the type expected by each matcher class once.
+ * <p>
+ * Hamcrest otherwise searches the declared methods of a matcher's class reflectively each time a type-safe matcher is
+ * constructed, which copies the class's methods on every construction.
+ */
+final class CachingTypeFinder extends ReflectiveTypeFinder
+{
+	// ----------------------------------------------------------------------------------------------------------------
+	// constants
+	// ----------------------------------------------------------------------------------------------------------------
+
+	/**
+	 * Finds the type expected by {@code TypeSafeDiagnosingMatcher.matchesSafely(T, Description)}.
+	 */
+	public static final CachingTypeFinder MATCHES_SAFELY = new CachingTypeFinder("matchesSafely", 2, 0);
+	
+	// ----------------------------------------------------------------------------------------------------------------
+	// fields
+	// ----------------------------------------------------------------------------------------------------------------
+
+	private final ClassValue<Class<?>> expectedTypes;
+	
+	// ----------------------------------------------------------------------------------------------------------------
+	// constructors
+	// ----------------------------------------------------------------------------------------------------------------
+
+	public CachingTypeFinder(String methodName, int expectedNumberOfParameters, int typedParameter)
+	{
+		super(methodName, expectedNumberOfParameters, typedParameter);
+		
+		expectedTypes = new ClassValue<Class<?>>()
+		{
+			@Override
+			protected Class<?> computeValue(Class<?> fromClass)
+			{
+				return CachingTypeFinder.super.findExpectedType(fromClass);
+			}
+		};
+	}
+	
+	// ----------------------------------------------------------------------------------------------------------------
+	// ReflectiveTypeFinder methods
+	// ----------------------------------------------------------------------------------------------------------------
+
+	@Override
+	public Class<?> findExpectedType(Class<?> fromClass)
+	{
+		return expectedTypes.get(fromClass);
+	}
+}
@@ -0,0 +1,250 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hobsoft.hamcrest.submatcher;
+
+import java.io.File;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+import org.objenesis.Objenesis;
+import org.objenesis.ObjenesisStd;
+import org.objenesis.instantiator.ObjectInstantiator;
+
+import net.sf.cglib.core.DefaultGeneratorStrategy;
+import net.sf.cglib.core.DefaultNamingPolicy;
+import net.sf.cglib.core.NamingPolicy;
+import net.sf.cglib.proxy.Callback;
+import net.sf.cglib.proxy.Enhancer;
+import net.sf.cglib.proxy.Factory;
+import net.sf.cglib.proxy.MethodInterceptor;
+import net.sf.cglib.proxy.MethodProxy;
+
+import static org.hobsoft.hamcrest.submatcher.Preconditions.checkNotNull;
+
+/**
+ * Proxy engine that generates subclasses at runtime with CGLib and instantiates them without invoking their
+ * constructors.
+ * <p>
+ * Generated classes are also kept in a {@code ProxyClassStore} when the {@value ProxyClassStore#DIRECTORY_PROPERTY}
+ * system property names a directory, so that later JVMs can define them instead of generating them again.
+ */
+public final class CglibProxyEngine implements ProxyEngine
+{
+	// ----------------------------------------------------------------------------------------------------------------
+	// constants
+	// ----------------------------------------------------------------------------------------------------------------
+
+	private static final int PRIORITY = 100;
+	
+	private static final NamingPolicy STORED_NAMING_POLICY = new StoredNamingPolicy();
+
+	// ----------------------------------------------------------------------------------------------------------------
+	// fields
+	// ----------------------------------------------------------------------------------------------------------------
+
+	private final Objenesis objenesis;
+	
+	private final ProxyClassStore store;
+
+	// ----------------------------------------------------------------------------------------------------------------
+	// constructors
+	// ----------------------------------------------------------------------------------------------------------------
+
+	public CglibProxyEngine()
+	{
+		this(newProxyClassStore());
+	}
+	
+	CglibProxyEngine(ProxyClassStore store)
+	{
+		// instantiators are held by our factories rather than Objenesis' own strongly-referencing cache
+		objenesis = new ObjenesisStd(false);
+		this.store = store;
+	}
+
+	// ----------------------------------------------------------------------------------------------------------------
+	// ProxyEngine methods
+	// ----------------------------------------------------------------------------------------------------------------
+
+	public String getName()
+	{
+		return "cglib";
+	}
+	
+	public int getPriority()
+	{
+		return PRIORITY;
+	}
+	
+	public boolean supports(Class<?> type)
+	{
+		return !type.isPrimitive() && !type.isArray() && !Modifier.isFinal(type.getModifiers());
+	}
+	
+	public ProxyFactory createFactory(Class<?> type)
+	{
+		// types of the bootstrap class loader have their proxies defined elsewhere by CGLib
+		String key = (store != null && type.getClassLoader() != null) ? store.getKey(type) : null;
+		
+		if (key != null)
+		{
+			Class<?> proxyType = store.load(key, type.getClassLoader());
+			
+			if (proxyType != null)
+			{
+				return new CglibProxyFactory(proxyType, objenesis.getInstantiatorOf(proxyType), -1);
+			}
+		}
+		
+		MeasuringGeneratorStrategy strategy = new MeasuringGeneratorStrategy();
+		
+		Enhancer enhancer = new Enhancer();
+		enhancer.setSuperclass(type);
+		enhancer.setCallbackType(MethodInterceptor.class);
+		enhancer.setStrategy(strategy);
+		
+		if (key != null)
+		{
+			enhancer.setNamingPolicy(STORED_NAMING_POLICY);
+		}
+		
+		Class<?> proxyType = enhancer.createClass();
+		
+		if (key != null && strategy.getBytes() != null)
+		{
+			store.save(key, proxyType.getName(), strategy.getBytes());
+		}
+		
+		return new CglibProxyFactory(proxyType, objenesis.getInstantiatorOf(proxyType), strategy.getLength());
+	}
+
+	// ----------------------------------------------------------------------------------------------------------------
+	// package methods
+	// ----------------------------------------------------------------------------------------------------------------
+
+	ProxyClassStore getStore()
+	{
+		return store;
+	}
+
+	// ----------------------------------------------------------------------------------------------------------------
+	// private methods
+	// ----------------------------------------------------------------------------------------------------------------
+
+	private static ProxyClassStore newProxyClassStore()
+	{
+		String directory = System.getProperty(ProxyClassStore.DIRECTORY_PROPERTY);
+		
+		return (directory != null && !directory.isEmpty()) ? new ProxyClassStore(new File(directory)) : null;
+	}
+
+	// ----------------------------------------------------------------------------------------------------------------
+	// types
+	// ----------------------------------------------------------------------------------------------------------------
+
+	/**
+	 * Factory for CGLib proxies of a type.
+	 */
+	private static final class CglibProxyFactory implements ProxyFactory
+	{
+		private final Class<?> proxyType;
+		
+		private final ObjectInstantiator<?> instantiator;
+		
+		private final int bytecodeLength;
+		
+		public CglibProxyFactory(Class<?> proxyType, ObjectInstantiator<?> instantiator, int bytecodeLength)
+		{
+			this.proxyType = proxyType;
+			this.instantiator = instantiator;
+			this.bytecodeLength = bytecodeLength;
+		}
+		
+		public Class<?> getProxyType()
+		{
+			return proxyType;
+		}
+		
+		public Object newInstance(SpyInterceptor interceptor)
+		{
+			Factory proxy = (Factory) instantiator.newInstance();
+			proxy.setCallbacks(new Callback[] {new SpyMethodInterceptor(interceptor)});
+			
+			return proxy;
+		}
+		
+		public int getBytecodeLength()
+		{
+			return bytecodeLength;
+		}
+	}
+	
+	/**
+	 * Generator strategy that measures and keeps the bytecode it generates.
+	 * <p>
+	 * CGLib reuses classes that it generated before without invoking its strategy, in which case no bytecode is known.
+	 */
+	private static final class MeasuringGeneratorStrategy extends DefaultGeneratorStrategy
+	{
+		private byte[] bytes;
+		
+		public int getLength()
+		{
+			return (bytes != null) ? bytes.length : -1;
+		}
+		
+		public byte[] getBytes()
+		{
+			return bytes;
+		}
+		
+		@Override
+		protected byte[] transform(byte[] bytes)
+		{
+			this.bytes = bytes;
+			
+			return bytes;
+		}
+	}
+	
+	/**
+	 * Naming policy for stored proxy classes, whose names must not clash with those that CGLib generates in later JVMs.
+	 */
+	private static final class StoredNamingPolicy extends DefaultNamingPolicy
+	{
+		@Override
+		protected String getTag()
+		{
+			return "BySubmatcherCGLIB";
+		}
+	}
+	
+	/**
+	 * Adapts a spy interceptor to CGLib.
+	 */
+	private static final class SpyMethodInterceptor implements MethodInterceptor
+	{
+		private final SpyInterceptor interceptor;
+		
+		public SpyMethodInterceptor(SpyInterceptor interceptor)
+		{
+			this.interceptor = checkNotNull(interceptor, "interceptor");
+		}
+		
+		public Object intercept(Object proxy, Method method, Object[] arguments, MethodProxy methodProxy)
+		{
+			return interceptor.intercept(method, arguments);
+		}
+	}
+}
@@ -0,0 +1,51 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hobsoft.hamcrest.submatcher;
+
+import org.hamcrest.Description;
+import org.hamcrest.Description.NullDescription;
+
+/**
+ * Methods to work with descriptions.
+ */
+final class Descriptions
+{
+	// ----------------------------------------------------------------------------------------------------------------
+	// constructors
+	// ----------------------------------------------------------------------------------------------------------------
+
+	private Descriptions()
+	{
+		throw new AssertionError();
+	}
+
+	// ----------------------------------------------------------------------------------------------------------------
+	// public methods
+	// ----------------------------------------------------------------------------------------------------------------
+
+	/**
+	 * Gets whether anything appended to the given description will be rendered.
+	 * <p>
+	 * {@code TypeSafeDiagnosingMatcher.matches} passes a null description, so matchers can use this to skip building
+	 * mismatch descriptions that only {@code describeMismatch} needs.
+	 * 
+	 * @param description
+	 *            the description to check
+	 * @return {@code true} if the description renders what is appended to it
+	 */
+	public static boolean isRendered(Description description)
+	{
+		return !(description instanceof NullDescription);
+	}
+}
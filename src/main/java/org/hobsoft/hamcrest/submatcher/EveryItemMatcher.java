@@ -0,0 +1,140 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hobsoft.hamcrest.submatcher;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import org.hamcrest.Description;
+import org.hamcrest.Matcher;
+import org.hamcrest.TypeSafeDiagnosingMatcher;
+
+import static org.hobsoft.hamcrest.submatcher.Descriptions.isRendered;
+import static org.hobsoft.hamcrest.submatcher.Preconditions.checkNotNull;
+
+/**
+ * Matcher for every item of an iterable that matches the items in parallel.
+ * <p>
+ * This behaves like {@code everyItem}, except that items are split across a fork/join pool and that mismatches are
+ * reported for a bounded sample of the first mismatched items, in iteration order. The item matcher must be safe to
+ * invoke concurrently.
+ * 
+ * @param <T>
+ *            the item type
+ */
+public class EveryItemMatcher<T> extends TypeSafeDiagnosingMatcher<Iterable<T>>
+{
+	// ----------------------------------------------------------------------------------------------------------------
+	// constants
+	// ----------------------------------------------------------------------------------------------------------------
+
+	static final int DEFAULT_SAMPLE_SIZE = 10;
+
+	// ----------------------------------------------------------------------------------------------------------------
+	// fields
+	// ----------------------------------------------------------------------------------------------------------------
+
+	private final Matcher<? super T> itemMatcher;
+	
+	private final ForkJoinPool pool;
+	
+	private final int sampleSize;
+
+	// ----------------------------------------------------------------------------------------------------------------
+	// constructors
+	// ----------------------------------------------------------------------------------------------------------------
+
+	EveryItemMatcher(Matcher<? super T> itemMatcher, ForkJoinPool pool, int sampleSize)
+	{
+		super(CachingTypeFinder.MATCHES_SAFELY);
+		
+		if (sampleSize < 1)
+		{
+			throw new IllegalArgumentException("sampleSize must be positive: " + sampleSize);
+		}
+		
+		this.itemMatcher = checkNotNull(itemMatcher, "itemMatcher");
+		this.pool = checkNotNull(pool, "pool");
+		this.sampleSize = sampleSize;
+	}
+
+	// ----------------------------------------------------------------------------------------------------------------
+	// TypeSafeDiagnosingMatcher methods
+	// ----------------------------------------------------------------------------------------------------------------
+
+	@Override
+	protected boolean matchesSafely(Iterable<T> actual, Description mismatchDescription)
+	{
+		List<? extends T> items = ItemMatchTask.toList(actual);
+		
+		// stop at the first mismatch when it will not be described
+		boolean describe = isRendered(mismatchDescription);
+		ItemSample mismatches = ItemMatchTask.sample(items, itemMatcher, false, describe ? sampleSize : 0, !describe,
+			pool);
+		
+		if (mismatches.getCount() == 0)
+		{
+			return true;
+		}
+		
+		int[] indexes = mismatches.getIndexes();
+		
+		for (int index = 0; index < indexes.length; index++)
+		{
+			if (index > 0)
+			{
+				mismatchDescription.appendText(", ");
+			}
+			
+			mismatchDescription.appendText("item " + indexes[index] + " ");
+			itemMatcher.describeMismatch(items.get(indexes[index]), mismatchDescription);
+		}
+		
+		if (mismatches.getCount() > indexes.length)
+		{
+			mismatchDescription.appendText(" and " + (mismatches.getCount() - indexes.length) + " more");
+		}
+		
+		return false;
+	}
+
+	// ----------------------------------------------------------------------------------------------------------------
+	// SelfDescribing methods
+	// ----------------------------------------------------------------------------------------------------------------
+
+	public void describeTo(Description description)
+	{
+		description.appendText("every item is ").appendDescriptionOf(itemMatcher);
+	}
+
+	// ----------------------------------------------------------------------------------------------------------------
+	// public methods
+	// ----------------------------------------------------------------------------------------------------------------
+
+	public static <T> EveryItemMatcher<T> everyItemInParallel(Matcher<? super T> itemMatcher)
+	{
+		return everyItemInParallel(itemMatcher, ItemMatchTask.DEFAULT_POOL);
+	}
+	
+	public static <T> EveryItemMatcher<T> everyItemInParallel(Matcher<? super T> itemMatcher, ForkJoinPool pool)
+	{
+		return everyItemInParallel(itemMatcher, pool, DEFAULT_SAMPLE_SIZE);
+	}
+	
+	public static <T> EveryItemMatcher<T> everyItemInParallel(Matcher<? super T> itemMatcher, ForkJoinPool pool,
+		int sampleSize)
+	{
+		return new EveryItemMatcher<T>(itemMatcher, pool, sampleSize);
+	}
+}
@@ -0,0 +1,226 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hobsoft.hamcrest.submatcher;
+
+import java.beans.Introspector;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+import org.hamcrest.Description;
+
+/**
+ * Defines a read of the field that backs a getter method.
+ * <p>
+ * The field is named after the getter, so {@code getName()} and {@code isName()} are backed by {@code name} and a
+ * {@code name()} accessor by a field of the same name. It is resolved for each class of instance, since the getter may
+ * be declared by an interface, and read through a method handle field getter without invoking the getter. Instances
+ * whose class has no such field have their getter invoked instead.
+ */
+final class FieldInvocation extends MethodInvocation
+{
+	// ----------------------------------------------------------------------------------------------------------------
+	// constants
+	// ----------------------------------------------------------------------------------------------------------------
+
+	private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+	
+	// ----------------------------------------------------------------------------------------------------------------
+	// fields
+	// ----------------------------------------------------------------------------------------------------------------
+
+	private final String fieldName;
+	
+	private final ClassValue<MethodHandle> gettersByType;
+	
+	private TypeGetter lastGetter;
+	
+	// ----------------------------------------------------------------------------------------------------------------
+	// constructors
+	// ----------------------------------------------------------------------------------------------------------------
+
+	public FieldInvocation(Method getter)
+	{
+		super(getter);
+		
+		fieldName = getFieldName(getter.getName());
+		gettersByType = new ClassValue<MethodHandle>()
+		{
+			@Override
+			protected MethodHandle computeValue(Class<?> type)
+			{
+				return compileGetter(type);
+			}
+		};
+	}
+	
+	// ----------------------------------------------------------------------------------------------------------------
+	// SelfDescribing methods
+	// ----------------------------------------------------------------------------------------------------------------
+
+	@Override
+	public void describeTo(Description description)
+	{
+		description.appendText(fieldName);
+	}
+	
+	// ----------------------------------------------------------------------------------------------------------------
+	// MethodInvocation methods
+	// ----------------------------------------------------------------------------------------------------------------
+
+	@Override
+	public Object invokeAccepted(Object instance) throws IllegalAccessException, InvocationTargetException
+	{
+		MethodHandle getter = getGetter(instance.getClass());
+		
+		if (getter == null)
+		{
+			return super.invokeAccepted(instance);
+		}
+		
+		try
+		{
+			return (Object) getter.invokeExact(instance);
+		}
+		catch (Throwable throwable)
+		{
+			throw new InvocationTargetException(throwable);
+		}
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * The field is only known for each class of instance, so a field invocation cannot be compiled in advance and its
+	 * values are read with {@code invoke}.
+	 */
+	@Override
+	public MethodHandle compile(Class<?> returnType)
+	{
+		return null;
+	}
+	
+	// ----------------------------------------------------------------------------------------------------------------
+	// package methods
+	// ----------------------------------------------------------------------------------------------------------------
+
+	static String getFieldName(String getterName)
+	{
+		if (getterName.startsWith("get") && getterName.length() > "get".length())
+		{
+			return Introspector.decapitalize(getterName.substring("get".length()));
+		}
+		
+		if (getterName.startsWith("is") && getterName.length() > "is".length())
+		{
+			return Introspector.decapitalize(getterName.substring("is".length()));
+		}
+		
+		return getterName;
+	}
+	
+	// ----------------------------------------------------------------------------------------------------------------
+	// private methods
+	// ----------------------------------------------------------------------------------------------------------------
+
+	private MethodHandle getGetter(Class<?> type)
+	{
+		// instances are usually of one class so remember the last getter, which is immutable and thus safely published
+		TypeGetter getter = lastGetter;
+		
+		if (getter == null || getter.getType() != type)
+		{
+			getter = new TypeGetter(type, gettersByType.get(type));
+			lastGetter = getter;
+		}
+		
+		return getter.getGetter();
+	}
+	
+	private MethodHandle compileGetter(Class<?> type)
+	{
+		Field field = findField(type);
+		
+		if (field == null)
+		{
+			return null;
+		}
+		
+		try
+		{
+			field.setAccessible(true);
+			
+			return MethodHandles.lookup().unreflectGetter(field).asType(GETTER_TYPE);
+		}
+		catch (RuntimeException exception)
+		{
+			// field cannot be made accessible, such as by a security manager or module
+			return null;
+		}
+		catch (IllegalAccessException exception)
+		{
+			return null;
+		}
+	}
+	
+	private Field findField(Class<?> type)
+	{
+		for (Class<?> declaringType = type; declaringType != null; declaringType = declaringType.getSuperclass())
+		{
+			for (Field field : declaringType.getDeclaredFields())
+			{
+				if (field.getName().equals(fieldName) && !Modifier.isStatic(field.getModifiers()))
+				{
+					return getMethod().getReturnType().isAssignableFrom(field.getType()) ? field : null;
+				}
+			}
+		}
+		
+		return null;
+	}
+	
+	// ----------------------------------------------------------------------------------------------------------------
+	// types
+	// ----------------------------------------------------------------------------------------------------------------
+
+	/**
+	 * Field getter for a class of instance.
+	 */
+	private static final class TypeGetter
+	{
+		private final Class<?> type;
+		
+		private final MethodHandle getter;
+		
+		public TypeGetter(Class<?> type, MethodHandle getter)
+		{
+			this.type = type;
+			this.getter = getter;
+		}
+		
+		public Class<?> getType()
+		{
+			return type;
+		}
+		
+		public MethodHandle getGetter()
+		{
+			return getter;
+		}
+	}
+}
@@ -0,0 +1,138 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hobsoft.hamcrest.submatcher;
+
+import org.objenesis.Objenesis;
+import org.objenesis.ObjenesisStd;
+import org.objenesis.instantiator.ObjectInstantiator;
+
+/**
+ * Proxy engine that uses the spies generated at compile time for {@code Submatchable} types.
+ * <p>
+ * Nothing is generated at runtime, so this engine is preferred for the types it supports.
+ */
+public final class GeneratedProxyEngine implements ProxyEngine
+{
+	// ----------------------------------------------------------------------------------------------------------------
+	// constants
+	// ----------------------------------------------------------------------------------------------------------------
+
+	private static final int PRIORITY = 200;
+
+	// ----------------------------------------------------------------------------------------------------------------
+	// fields
+	// ----------------------------------------------------------------------------------------------------------------
+
+	private final Objenesis objenesis;
+
+	// ----------------------------------------------------------------------------------------------------------------
+	// constructors
+	// ----------------------------------------------------------------------------------------------------------------
+
+	public GeneratedProxyEngine()
+	{
+		// instantiators are held by our factories rather than Objenesis' own strongly-referencing cache
+		objenesis = new ObjenesisStd(false);
+	}
+
+	// ----------------------------------------------------------------------------------------------------------------
+	// ProxyEngine methods
+	// ----------------------------------------------------------------------------------------------------------------
+
+	public String getName()
+	{
+		return "generated";
+	}
+	
+	public int getPriority()
+	{
+		return PRIORITY;
+	}
+	
+	public boolean supports(Class<?> type)
+	{
+		return findGeneratedSpyType(type) != null;
+	}
+	
+	public ProxyFactory createFactory(Class<?> type)
+	{
+		Class<?> proxyType = findGeneratedSpyType(type);
+		
+		if (proxyType == null)
+		{
+			throw new IllegalArgumentException("Type has no generated spy: " + type.getName());
+		}
+		
+		return new GeneratedProxyFactory(proxyType, objenesis.getInstantiatorOf(proxyType));
+	}
+
+	// ----------------------------------------------------------------------------------------------------------------
+	// private methods
+	// ----------------------------------------------------------------------------------------------------------------
+
+	private static Class<?> findGeneratedSpyType(Class<?> type)
+	{
+		ClassLoader classLoader = type.getClassLoader();
+		
+		if (classLoader == null)
+		{
+			return null;
+		}
+		
+		Class<?> spyType;
+		try
+		{
+			spyType = Class.forName(type.getName() + GeneratedSpy.NAME_SUFFIX, false, classLoader);
+		}
+		catch (ClassNotFoundException exception)
+		{
+			return null;
+		}
+		
+		return (type.isAssignableFrom(spyType) && GeneratedSpy.class.isAssignableFrom(spyType)) ? spyType : null;
+	}
+
+	// ----------------------------------------------------------------------------------------------------------------
+	// types
+	// ----------------------------------------------------------------------------------------------------------------
+
+	/**
+	 * Factory for generated spies of a type.
+	 */
+	private static final class GeneratedProxyFactory implements ProxyFactory
+	{
+		private final Class<?> proxyType;
+		
+		private final ObjectInstantiator<?> instantiator;
+		
+		public GeneratedProxyFactory(Class<?> proxyType, ObjectInstantiator<?> instantiator)
+		{
+			this.proxyType = proxyType;
+			this.instantiator = instantiator;
+		}
+		
+		public Class<?> getProxyType()
+		{
+			return proxyType;
+		}
+		
+		public Object newInstance(SpyInterceptor interceptor)
+		{
+			GeneratedSpy proxy = (GeneratedSpy) instantiator.newInstance();
+			proxy.setInterceptor(interceptor);
+			
+			return proxy;
+		}
+	}
+}
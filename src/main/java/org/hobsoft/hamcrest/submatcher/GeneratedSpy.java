@@ -0,0 +1,37 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hobsoft.hamcrest.submatcher;
+
+/**
+ * Spy generated at compile time for a type annotated, or listed, by {@code Submatchable}.
+ * <p>
+ * This is public for use by generated spies and is not intended to be implemented by clients.
+ */
+public interface GeneratedSpy
+{
+	// ----------------------------------------------------------------------------------------------------------------
+	// constants
+	// ----------------------------------------------------------------------------------------------------------------
+
+	/**
+	 * The suffix appended to the binary name of a type to name its generated spy.
+	 */
+	String NAME_SUFFIX = "$$SubmatcherSpy";
+
+	// ----------------------------------------------------------------------------------------------------------------
+	// public methods
+	// ----------------------------------------------------------------------------------------------------------------
+
+	void setInterceptor(SpyInterceptor interceptor);
+}
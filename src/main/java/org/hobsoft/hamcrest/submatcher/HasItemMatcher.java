@@ -0,0 +1,134 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hobsoft.hamcrest.submatcher;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import org.hamcrest.Description;
+import org.hamcrest.Matcher;
+import org.hamcrest.TypeSafeDiagnosingMatcher;
+
+import static org.hobsoft.hamcrest.submatcher.Preconditions.checkNotNull;
+
+/**
+ * Matcher for any item of an iterable that matches the items in parallel.
+ * <p>
+ * This behaves like {@code hasItem}, except that items are split across a fork/join pool that stops once any item
+ * matches, and that mismatches are reported for a bounded sample of the first items. The item matcher must be safe to
+ * invoke concurrently.
+ * 
+ * @param <T>
+ *            the item type
+ */
+public class HasItemMatcher<T> extends TypeSafeDiagnosingMatcher<Iterable<T>>
+{
+	// ----------------------------------------------------------------------------------------------------------------
+	// fields
+	// ----------------------------------------------------------------------------------------------------------------
+
+	private final Matcher<? super T> itemMatcher;
+	
+	private final ForkJoinPool pool;
+	
+	private final int sampleSize;
+
+	// ----------------------------------------------------------------------------------------------------------------
+	// constructors
+	// ----------------------------------------------------------------------------------------------------------------
+
+	HasItemMatcher(Matcher<? super T> itemMatcher, ForkJoinPool pool, int sampleSize)
+	{
+		super(CachingTypeFinder.MATCHES_SAFELY);
+		
+		if (sampleSize < 1)
+		{
+			throw new IllegalArgumentException("sampleSize must be positive: " + sampleSize);
+		}
+		
+		this.itemMatcher = checkNotNull(itemMatcher, "itemMatcher");
+		this.pool = checkNotNull(pool, "pool");
+		this.sampleSize = sampleSize;
+	}
+
+	// ----------------------------------------------------------------------------------------------------------------
+	// TypeSafeDiagnosingMatcher methods
+	// ----------------------------------------------------------------------------------------------------------------
+
+	@Override
+	protected boolean matchesSafely(Iterable<T> actual, Description mismatchDescription)
+	{
+		List<? extends T> items = ItemMatchTask.toList(actual);
+		
+		if (items.isEmpty())
+		{
+			mismatchDescription.appendText("was empty");
+			return false;
+		}
+		
+		if (ItemMatchTask.sample(items, itemMatcher, true, 1, true, pool).getCount() > 0)
+		{
+			return true;
+		}
+		
+		int length = Math.min(items.size(), sampleSize);
+		
+		for (int index = 0; index < length; index++)
+		{
+			if (index > 0)
+			{
+				mismatchDescription.appendText(", ");
+			}
+			
+			mismatchDescription.appendText("item " + index + " ");
+			itemMatcher.describeMismatch(items.get(index), mismatchDescription);
+		}
+		
+		if (items.size() > length)
+		{
+			mismatchDescription.appendText(" and " + (items.size() - length) + " more");
+		}
+		
+		return false;
+	}
+
+	// ----------------------------------------------------------------------------------------------------------------
+	// SelfDescribing methods
+	// ----------------------------------------------------------------------------------------------------------------
+
+	public void describeTo(Description description)
+	{
+		description.appendText("a collection containing ").appendDescriptionOf(itemMatcher);
+	}
+
+	// ----------------------------------------------------------------------------------------------------------------
+	// public methods
+	// ----------------------------------------------------------------------------------------------------------------
+
+	public static <T> HasItemMatcher<T> hasItemInParallel(Matcher<? super T> itemMatcher)
+	{
+		return hasItemInParallel(itemMatcher, ItemMatchTask.DEFAULT_POOL);
+	}
+	
+	public static <T> HasItemMatcher<T> hasItemInParallel(Matcher<? super T> itemMatcher, ForkJoinPool pool)
+	{
+		return hasItemInParallel(itemMatcher, pool, EveryItemMatcher.DEFAULT_SAMPLE_SIZE);
+	}
+	
+	public static <T> HasItemMatcher<T> hasItemInParallel(Matcher<? super T> itemMatcher, ForkJoinPool pool,
+		int sampleSize)
+	{
+		return new HasItemMatcher<T>(itemMatcher, pool, sampleSize);
+	}
+}
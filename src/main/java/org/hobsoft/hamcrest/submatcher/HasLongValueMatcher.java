@@ -0,0 +1,90 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hobsoft.hamcrest.submatcher;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.reflect.InvocationTargetException;
+
+import static org.hobsoft.hamcrest.submatcher.Preconditions.checkNotNull;
+
+/**
+ * Matcher for a {@code long} method value of an instance that does not box the value.
+ * 
+ * @param <T>
+ *            the instance type
+ */
+public final class HasLongValueMatcher<T> extends PrimitiveValueMatcher<T>
+{
+	// ----------------------------------------------------------------------------------------------------------------
+	// fields
+	// ----------------------------------------------------------------------------------------------------------------
+
+	private final LongMatcher submatcher;
+
+	// ----------------------------------------------------------------------------------------------------------------
+	// constructors
+	// ----------------------------------------------------------------------------------------------------------------
+
+	HasLongValueMatcher(PropertyPath<T, ?> path, LongMatcher submatcher)
+	{
+		super(path, submatcher, long.class);
+		
+		this.submatcher = submatcher;
+	}
+
+	// ----------------------------------------------------------------------------------------------------------------
+	// public methods
+	// ----------------------------------------------------------------------------------------------------------------
+
+	public static <T> HasLongValueMatcher<T> hasLongValue(long on, LongMatcher submatcher)
+	{
+		checkNotNull(submatcher, "submatcher");
+		
+		PropertyPath<T, Long> path = PropertyPath.take("hasLongValue");
+		
+		return new HasLongValueMatcher<T>(path, submatcher);
+	}
+	
+	// ----------------------------------------------------------------------------------------------------------------
+	// PrimitiveValueMatcher methods
+	// ----------------------------------------------------------------------------------------------------------------
+
+	@Override
+	boolean matchesAccessed(MethodHandle accessor, Object target) throws InvocationTargetException
+	{
+		long value;
+		try
+		{
+			value = (long) accessor.invokeExact(target);
+		}
+		catch (Throwable throwable)
+		{
+			throw new InvocationTargetException(throwable);
+		}
+		
+		return submatcher.matches(value);
+	}
+	
+	@Override
+	boolean matchesValue(Number value)
+	{
+		return submatcher.matches(value.longValue());
+	}
+	
+	@Override
+	Number toValue(Number value)
+	{
+		return (value instanceof Long) ? value : Long.valueOf(value.longValue());
+	}
+}
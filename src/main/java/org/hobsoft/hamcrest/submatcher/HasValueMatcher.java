@@ -14,15 +14,24 @@
 package org.hobsoft.hamcrest.submatcher;
 
 import java.lang.reflect.InvocationTargetException;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.function.Consumer;
 
 import org.hamcrest.Description;
 import org.hamcrest.Matcher;
 import org.hamcrest.TypeSafeDiagnosingMatcher;
 
+import static org.hobsoft.hamcrest.submatcher.Descriptions.isRendered;
 import static org.hobsoft.hamcrest.submatcher.Preconditions.checkNotNull;
 
 /**
  * Matcher for a method value of an instance.
+ * <p>
+ * Null values along the method value's path are handled by a {@link NullPolicy}, which by default mismatches a null
+ * intermediate value and passes a null final value to the submatcher.
  * 
  * @param <T>
  *            the instance type
@@ -31,13 +40,21 @@ import static org.hobsoft.hamcrest.submatcher.Preconditions.checkNotNull;
  */
 public class HasValueMatcher<T, U> extends TypeSafeDiagnosingMatcher<T>
 {
+	// ----------------------------------------------------------------------------------------------------------------
+	// constants
+	// ----------------------------------------------------------------------------------------------------------------
+
+	private static final MatcherCache MATCHER_CACHE = new MatcherCache();
+	
 	// ----------------------------------------------------------------------------------------------------------------
 	// fields
 	// ----------------------------------------------------------------------------------------------------------------
 
-	private final MethodInvocation invocation;
+	private final PropertyPath<T, U> path;
 	
 	private final Matcher<U> submatcher;
+	
+	private final NullPolicy nullPolicy;
 
 	// ----------------------------------------------------------------------------------------------------------------
 	// constructors
@@ -45,8 +62,21 @@ public class HasValueMatcher<T, U> extends TypeSafeDiagnosingMatcher<T>
 
 	HasValueMatcher(MethodInvocation invocation, Matcher<U> submatcher)
 	{
-		this.invocation = checkNotNull(invocation, "invocation");
+		this(new PropertyPath<T, U>(invocation), submatcher);
+	}
+
+	HasValueMatcher(PropertyPath<T, U> path, Matcher<U> submatcher)
+	{
+		this(path, submatcher, NullPolicy.DEFAULT);
+	}
+
+	HasValueMatcher(PropertyPath<T, U> path, Matcher<U> submatcher, NullPolicy nullPolicy)
+	{
+		super(CachingTypeFinder.MATCHES_SAFELY);
+		
+		this.path = checkNotNull(path, "path");
 		this.submatcher = checkNotNull(submatcher, "submatcher");
+		this.nullPolicy = checkNotNull(nullPolicy, "nullPolicy");
 	}
 
 	// ----------------------------------------------------------------------------------------------------------------
@@ -56,32 +86,27 @@ public class HasValueMatcher<T, U> extends TypeSafeDiagnosingMatcher<T>
 	@Override
 	protected boolean matchesSafely(T actual, Description mismatchDescription)
 	{
+		MatcherMetricsListener listener = Instrumentation.getListener();
+		
+		// describing a mismatch repeats an evaluation that was already recorded
+		if (listener != null && !isRendered(mismatchDescription))
+		{
+			return matchesInstrumented(actual, mismatchDescription, listener);
+		}
+		
 		Object subactual;
 		try
 		{
-			subactual = invocation.invoke(actual);
+			subactual = path.follow(actual);
 		}
-		catch (InvocationTargetException exception)
+		catch (Exception exception)
 		{
-			mismatchDescription.appendText("threw ")
-				.appendValue(exception.getCause());
+			describeFailure(exception, mismatchDescription);
 			
 			return false;
 		}
-		catch (Exception exception)
-		{
-			// TODO: handle
-			throw new AssertionError();
-		}
-		
-		boolean matches = submatcher.matches(subactual);
-		
-		if (!matches)
-		{
-			submatcher.describeMismatch(subactual, mismatchDescription);
-		}
 		
-		return matches;
+		return matchesFollowed(subactual, mismatchDescription);
 	}
 
 	// ----------------------------------------------------------------------------------------------------------------
@@ -91,51 +116,461 @@ public class HasValueMatcher<T, U> extends TypeSafeDiagnosingMatcher<T>
 	public void describeTo(Description description)
 	{
 		description.appendText("has value ")
-			.appendDescriptionOf(invocation)
+			.appendDescriptionOf(path)
 			.appendText(" ")
 			.appendDescriptionOf(submatcher);
+		
+		if (nullPolicy == NullPolicy.MATCH)
+		{
+			description.appendText(" or null");
+		}
 	}
 
 	// ----------------------------------------------------------------------------------------------------------------
 	// public methods
 	// ----------------------------------------------------------------------------------------------------------------
 
-	public static <T, U> HasValueMatcher<T, U> hasValue(U on, Matcher<U> submatcher)
+	/**
+	 * Matches each of the given instances.
+	 * <p>
+	 * This is equivalent to calling {@link #matches(Object)} on each instance but checks the type of each distinct
+	 * instance class once and never builds mismatch descriptions.
+	 * 
+	 * @param actuals
+	 *            the instances to match
+	 * @return a bit set where the bit at each instance's index is set if that instance matches
+	 */
+	public BitSet matchesEach(Iterable<? extends T> actuals)
 	{
-		checkNotNull(submatcher, "submatcher");
+		BulkMatch match = new BulkMatch(new BitSet());
+		
+		for (T actual : checkNotNull(actuals, "actuals"))
+		{
+			match.accept(actual);
+		}
+		
+		return match.getMatches();
+	}
+	
+	public BitSet matchesEach(T[] actuals)
+	{
+		return matchesEach(Arrays.asList(checkNotNull(actuals, "actuals")));
+	}
+	
+	/**
+	 * Matches each of the instances remaining in the given spliterator, indexed from the first of them.
+	 * 
+	 * @param actuals
+	 *            the instances to match
+	 * @return a bit set where the bit at each instance's index is set if that instance matches
+	 * @see #matchesEach(Iterable)
+	 */
+	public BitSet matchesEach(Spliterator<? extends T> actuals)
+	{
+		BulkMatch match = new BulkMatch(new BitSet());
+		
+		checkNotNull(actuals, "actuals").forEachRemaining(match);
+		
+		return match.getMatches();
+	}
+	
+	/**
+	 * Counts the given instances that do not match.
+	 * 
+	 * @param actuals
+	 *            the instances to match
+	 * @return the number of instances that do not match
+	 * @see #matchesEach(Iterable)
+	 */
+	public int countMismatches(Iterable<? extends T> actuals)
+	{
+		BulkMatch match = new BulkMatch(null);
+		
+		for (T actual : checkNotNull(actuals, "actuals"))
+		{
+			match.accept(actual);
+		}
+		
+		return match.getMismatchCount();
+	}
+	
+	public int countMismatches(T[] actuals)
+	{
+		return countMismatches(Arrays.asList(checkNotNull(actuals, "actuals")));
+	}
+	
+	public int countMismatches(Spliterator<? extends T> actuals)
+	{
+		BulkMatch match = new BulkMatch(null);
+		
+		checkNotNull(actuals, "actuals").forEachRemaining(match);
+		
+		return match.getMismatchCount();
+	}
+	
+	/**
+	 * Finds the first of the given instances that does not match, stopping at that instance.
+	 * 
+	 * @param actuals
+	 *            the instances to match
+	 * @return the index of the first instance that does not match, or {@code -1} if all instances match
+	 * @see #matchesEach(Iterable)
+	 */
+	public int indexOfFirstMismatch(Iterable<? extends T> actuals)
+	{
+		BulkMatch match = new BulkMatch(null);
+		Iterator<? extends T> iterator = checkNotNull(actuals, "actuals").iterator();
+		
+		while (match.getFirstMismatchIndex() == -1 && iterator.hasNext())
+		{
+			match.accept(iterator.next());
+		}
 		
-		if (!SpyHolder.hasSpy())
+		return match.getFirstMismatchIndex();
+	}
+	
+	public int indexOfFirstMismatch(T[] actuals)
+	{
+		return indexOfFirstMismatch(Arrays.asList(checkNotNull(actuals, "actuals")));
+	}
+	
+	/**
+	 * Finds the first of the instances remaining in the given spliterator that does not match, leaving the spliterator
+	 * after that instance.
+	 * 
+	 * @param actuals
+	 *            the instances to match
+	 * @return the index of the first instance that does not match counted from the first remaining instance, or
+	 *         {@code -1} if all instances match
+	 * @see #indexOfFirstMismatch(Iterable)
+	 */
+	public int indexOfFirstMismatch(Spliterator<? extends T> actuals)
+	{
+		BulkMatch match = new BulkMatch(null);
+		checkNotNull(actuals, "actuals");
+		
+		while (match.getFirstMismatchIndex() == -1 && actuals.tryAdvance(match))
 		{
-			throw new IllegalStateException("on() must be invoked before hasValue()");
+			// advance until the first mismatch
 		}
 		
-		MethodInvocation invocation = SpyHolder.getSpy().getInvocation();
+		return match.getFirstMismatchIndex();
+	}
+	
+	/**
+	 * Creates a matcher for a method value.
+	 * <p>
+	 * When the matcher cache is enabled, a matcher is reused for an equal path and a structurally equal submatcher,
+	 * that is one of the same class whose fields are equal, so a submatcher built afresh each time can reuse a matcher.
+	 * 
+	 * @param on
+	 *            the value returned by the recorded methods on a spy
+	 * @param submatcher
+	 *            the matcher for the method value
+	 * @return the matcher
+	 * @see SubmatcherRuntime#setMatcherCacheMaximumSize(int)
+	 */
+	public static <T, U> HasValueMatcher<T, U> hasValue(U on, Matcher<U> submatcher)
+	{
+		checkNotNull(submatcher, "submatcher");
+		
+		PropertyPath<T, U> path = PropertyPath.take("hasValue");
+		
+		return MATCHER_CACHE.get(path, submatcher);
+	}
+	
+	/**
+	 * Creates a matcher for a method value that handles null values along its path by the given policy.
+	 * <p>
+	 * For example, {@code hasValue(on(Person.class).getAddress().getCity(), equalTo("x"), NullPolicy.MATCH)} matches
+	 * people without an address or whose address has no city, without invoking the submatcher.
+	 * 
+	 * @param on
+	 *            the value returned by the recorded methods on a spy
+	 * @param submatcher
+	 *            the matcher for the method value
+	 * @param nullPolicy
+	 *            the policy for null values along the path
+	 * @return the matcher
+	 */
+	public static <T, U> HasValueMatcher<T, U> hasValue(U on, Matcher<U> submatcher, NullPolicy nullPolicy)
+	{
+		checkNotNull(submatcher, "submatcher");
+		checkNotNull(nullPolicy, "nullPolicy");
+		
+		PropertyPath<T, U> path = PropertyPath.take("hasValue");
+		
+		return MATCHER_CACHE.get(path, submatcher, nullPolicy);
+	}
+	
+	/**
+	 * Creates a matcher for the value of the fields that back the recorded getters.
+	 * <p>
+	 * The fields are read directly, so getters with side effects or lazy initialization are not invoked. This suits
+	 * plain data holders; instances without a backing field have their getter invoked instead.
+	 * 
+	 * @param on
+	 *            the value returned by the recorded getters on a spy
+	 * @param submatcher
+	 *            the matcher for the field value
+	 * @return the matcher
+	 */
+	public static <T, U> HasValueMatcher<T, U> hasFieldValue(U on, Matcher<U> submatcher)
+	{
+		checkNotNull(submatcher, "submatcher");
+		
+		PropertyPath<T, U> path = PropertyPath.<T, U>take("hasFieldValue").toFields();
 		
-		return new HasValueMatcher<T, U>(invocation, submatcher);
+		return MATCHER_CACHE.get(path, submatcher);
 	}
 	
 	public static <T> T on(Class<T> type)
 	{
 		checkNotNull(type, "type");
 		
-		Spy<T> spy = new Spy<T>(type);
+		Spy<T> spy = SpyPool.acquire(type);
+		T proxy = spy.getProxy();
 		
-		SpyHolder.setSpy(spy);
+		SpyHolder.pushSpy(spy);
 		
-		return spy.create();
+		return proxy;
 	}
 	
 	// ----------------------------------------------------------------------------------------------------------------
 	// package methods
 	// ----------------------------------------------------------------------------------------------------------------
 
+	static MatcherCache getMatcherCache()
+	{
+		return MATCHER_CACHE;
+	}
+	
+	boolean matchesAccepted(Object actual)
+	{
+		Object subactual;
+		try
+		{
+			subactual = path.followAccepted(actual);
+		}
+		catch (InvocationTargetException exception)
+		{
+			return false;
+		}
+		catch (IllegalAccessException exception)
+		{
+			throw new IllegalStateException("Cannot access method: " + path.getInvocation().getMethod(), exception);
+		}
+		
+		return matchesFollowed(subactual, Description.NONE);
+	}
+	
+	/**
+	 * Matches a value returned by following this matcher's path, applying the null policy.
+	 * 
+	 * @param subactual
+	 *            the value returned by {@link PropertyPath#follow(Object)}
+	 * @param mismatchDescription
+	 *            the description to append a mismatch to
+	 * @return whether the value matches
+	 */
+	boolean matchesFollowed(Object subactual, Description mismatchDescription)
+	{
+		int nullLength = getNullLength(subactual);
+		
+		if (nullLength > 0)
+		{
+			return matchesNull(nullLength, mismatchDescription);
+		}
+		
+		boolean matches = matchesValue(subactual);
+		
+		if (!matches && isRendered(mismatchDescription))
+		{
+			describeValueMismatch(subactual, mismatchDescription);
+		}
+		
+		return matches;
+	}
+	
+	boolean matchesValue(Object subactual)
+	{
+		return submatcher.matches(subactual);
+	}
+	
+	void describeValueMismatch(Object subactual, Description mismatchDescription)
+	{
+		submatcher.describeMismatch(subactual, mismatchDescription);
+	}
+	
+	void describeFailure(Exception exception, Description mismatchDescription)
+	{
+		if (exception instanceof InvocationTargetException)
+		{
+			mismatchDescription.appendText("threw ")
+				.appendValue(exception.getCause());
+		}
+		else if (exception instanceof NullPropertyException)
+		{
+			if (!isRendered(mismatchDescription))
+			{
+				return;
+			}
+			
+			path.describeTo(mismatchDescription, ((NullPropertyException) exception).getLength());
+			mismatchDescription.appendText(" was null");
+		}
+		else if (exception instanceof RuntimeException)
+		{
+			throw (RuntimeException) exception;
+		}
+		else
+		{
+			throw new IllegalStateException("Cannot access method: " + path.getInvocation().getMethod(), exception);
+		}
+	}
+	
+	PropertyPath<T, U> getPath()
+	{
+		return path;
+	}
+
 	MethodInvocation getInvocation()
 	{
-		return invocation;
+		return path.getInvocation();
 	}
 
 	Matcher<U> getSubmatcher()
 	{
 		return submatcher;
 	}
+	
+	NullPolicy getNullPolicy()
+	{
+		return nullPolicy;
+	}
+	
+	// ----------------------------------------------------------------------------------------------------------------
+	// private methods
+	// ----------------------------------------------------------------------------------------------------------------
+
+	private boolean matchesInstrumented(T actual, Description mismatchDescription, MatcherMetricsListener listener)
+	{
+		long startTime = System.nanoTime();
+		
+		Object subactual;
+		try
+		{
+			subactual = path.follow(actual);
+		}
+		catch (Exception exception)
+		{
+			listener.evaluationCompleted(path, System.nanoTime() - startTime, false, true);
+			describeFailure(exception, mismatchDescription);
+			
+			return false;
+		}
+		
+		boolean matches = matchesFollowed(subactual, mismatchDescription);
+		listener.evaluationCompleted(path, System.nanoTime() - startTime, matches, false);
+		
+		return matches;
+	}
+	
+	private int getNullLength(Object subactual)
+	{
+		if (subactual == null)
+		{
+			// the default policy leaves a null final value to the submatcher
+			return (nullPolicy == NullPolicy.DEFAULT) ? 0 : path.getLength();
+		}
+		
+		return path.getNullLength(subactual);
+	}
+	
+	private boolean matchesNull(int nullLength, Description mismatchDescription)
+	{
+		if (nullPolicy == NullPolicy.MATCH)
+		{
+			return true;
+		}
+		
+		if (isRendered(mismatchDescription))
+		{
+			path.describeTo(mismatchDescription, nullLength);
+			mismatchDescription.appendText(" was null");
+		}
+		
+		return false;
+	}
+	
+	// ----------------------------------------------------------------------------------------------------------------
+	// types
+	// ----------------------------------------------------------------------------------------------------------------
+
+	/**
+	 * Matches instances in turn, checking the type of each distinct instance class once.
+	 */
+	private final class BulkMatch implements Consumer<T>
+	{
+		private final BitSet matches;
+		
+		private Class<?> acceptedType;
+		
+		private int index;
+		
+		private int mismatchCount;
+		
+		private int firstMismatchIndex;
+		
+		public BulkMatch(BitSet matches)
+		{
+			this.matches = matches;
+			firstMismatchIndex = -1;
+		}
+		
+		public void accept(T actual)
+		{
+			boolean matched = false;
+			
+			if (actual != null && (actual.getClass() == acceptedType || path.accepts(actual)))
+			{
+				acceptedType = actual.getClass();
+				matched = matchesAccepted(actual);
+			}
+			
+			if (matched)
+			{
+				if (matches != null)
+				{
+					matches.set(index);
+				}
+			}
+			else
+			{
+				mismatchCount++;
+				
+				if (firstMismatchIndex == -1)
+				{
+					firstMismatchIndex = index;
+				}
+			}
+			
+			index++;
+		}
+		
+		public BitSet getMatches()
+		{
+			return matches;
+		}
+		
+		public int getMismatchCount()
+		{
+			return mismatchCount;
+		}
+		
+		public int getFirstMismatchIndex()
+		{
+			return firstMismatchIndex;
+		}
+	}
 }
@@ -0,0 +1,327 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hobsoft.hamcrest.submatcher;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.hamcrest.Description;
+import org.hamcrest.TypeSafeDiagnosingMatcher;
+
+import static org.hobsoft.hamcrest.submatcher.Descriptions.isRendered;
+import static org.hobsoft.hamcrest.submatcher.Preconditions.checkNotNull;
+
+/**
+ * Matcher for several method values of an instance that invokes each distinct method once.
+ * <p>
+ * This behaves like {@code allOf} for the given matchers, except that their property paths share common prefixes, so
+ * that each distinct invocation along them is made once per instance. For example, matchers for
+ * {@code getAddress().getCity()} and {@code getAddress().getNumber()} invoke {@code getAddress()} once. This suits
+ * methods that are expensive or lazily load their values.
+ * 
+ * @param <T>
+ *            the instance type
+ */
+public class HasValuesMatcher<T> extends TypeSafeDiagnosingMatcher<T>
+{
+	// ----------------------------------------------------------------------------------------------------------------
+	// fields
+	// ----------------------------------------------------------------------------------------------------------------
+
+	private final List<HasValueMatcher<? super T, ?>> matchers;
+	
+	private final InvocationNode root;
+	
+	private final List<InvocationNode> nodes;
+	
+	private final InvocationNode[] matcherNodes;
+	
+	private final int pathCount;
+
+	// ----------------------------------------------------------------------------------------------------------------
+	// constructors
+	// ----------------------------------------------------------------------------------------------------------------
+
+	HasValuesMatcher(Iterable<HasValueMatcher<? super T, ?>> matchers)
+	{
+		super(CachingTypeFinder.MATCHES_SAFELY);
+		
+		checkNotNull(matchers, "matchers");
+		
+		this.matchers = new ArrayList<HasValueMatcher<? super T, ?>>();
+		
+		for (HasValueMatcher<? super T, ?> matcher : matchers)
+		{
+			this.matchers.add(checkNotNull(matcher, "matcher"));
+		}
+		
+		root = new InvocationNode(null, null, -1);
+		nodes = new ArrayList<InvocationNode>();
+		matcherNodes = new InvocationNode[this.matchers.size()];
+		Set<InvocationNode> pathNodes = new HashSet<InvocationNode>();
+		
+		for (int index = 0; index < matcherNodes.length; index++)
+		{
+			InvocationNode node = root;
+			
+			for (MethodInvocation invocation : this.matchers.get(index).getPath().getInvocations())
+			{
+				node = getChild(node, invocation);
+			}
+			
+			matcherNodes[index] = node;
+			pathNodes.add(node);
+		}
+		
+		pathCount = pathNodes.size();
+	}
+
+	// ----------------------------------------------------------------------------------------------------------------
+	// TypeSafeDiagnosingMatcher methods
+	// ----------------------------------------------------------------------------------------------------------------
+
+	@Override
+	protected boolean matchesSafely(T actual, Description mismatchDescription)
+	{
+		InvocationValues values = new InvocationValues(actual);
+		
+		for (int index = 0; index < matcherNodes.length; index++)
+		{
+			InvocationNode node = matcherNodes[index];
+			values.invoke(node);
+			
+			HasValueMatcher<? super T, ?> matcher = matchers.get(index);
+			Exception failure = values.getFailure(node);
+			
+			if (failure != null)
+			{
+				mismatchDescription.appendDescriptionOf(matcher).appendText(" ");
+				matcher.describeFailure(failure, mismatchDescription);
+				return false;
+			}
+			
+			Object subactual = values.getFollowed(node, matcher.getPath());
+			
+			if (!matcher.matchesFollowed(subactual, Description.NONE))
+			{
+				if (isRendered(mismatchDescription))
+				{
+					mismatchDescription.appendDescriptionOf(matcher).appendText(" ");
+					matcher.matchesFollowed(subactual, mismatchDescription);
+				}
+				
+				return false;
+			}
+		}
+		
+		return true;
+	}
+
+	// ----------------------------------------------------------------------------------------------------------------
+	// SelfDescribing methods
+	// ----------------------------------------------------------------------------------------------------------------
+
+	public void describeTo(Description description)
+	{
+		description.appendList("(", " and ", ")", matchers);
+	}
+
+	// ----------------------------------------------------------------------------------------------------------------
+	// public methods
+	// ----------------------------------------------------------------------------------------------------------------
+
+	@SafeVarargs
+	public static <T> HasValuesMatcher<T> hasValues(HasValueMatcher<? super T, ?>... matchers)
+	{
+		checkNotNull(matchers, "matchers");
+		
+		// copied rather than passed to Arrays.asList, which javac warns may pollute the heap
+		List<HasValueMatcher<? super T, ?>> matcherList = new ArrayList<HasValueMatcher<? super T, ?>>(matchers.length);
+		
+		for (HasValueMatcher<? super T, ?> matcher : matchers)
+		{
+			matcherList.add(matcher);
+		}
+		
+		return new HasValuesMatcher<T>(matcherList);
+	}
+	
+	public static <T> HasValuesMatcher<T> hasValues(Iterable<HasValueMatcher<? super T, ?>> matchers)
+	{
+		return new HasValuesMatcher<T>(matchers);
+	}
+	
+	// ----------------------------------------------------------------------------------------------------------------
+	// package methods
+	// ----------------------------------------------------------------------------------------------------------------
+
+	List<HasValueMatcher<? super T, ?>> getMatchers()
+	{
+		return Collections.unmodifiableList(matchers);
+	}
+	
+	int getPathCount()
+	{
+		return pathCount;
+	}
+	
+	int getInvocationCount()
+	{
+		return nodes.size();
+	}
+	
+	// ----------------------------------------------------------------------------------------------------------------
+	// private methods
+	// ----------------------------------------------------------------------------------------------------------------
+
+	private InvocationNode getChild(InvocationNode parent, MethodInvocation invocation)
+	{
+		InvocationNode child = parent.children.get(invocation);
+		
+		if (child == null)
+		{
+			child = new InvocationNode(invocation, parent, nodes.size());
+			parent.children.put(invocation, child);
+			nodes.add(child);
+		}
+		
+		return child;
+	}
+
+	// ----------------------------------------------------------------------------------------------------------------
+	// types
+	// ----------------------------------------------------------------------------------------------------------------
+
+	/**
+	 * Invocation shared by the paths that start with the same invocations as its own path.
+	 */
+	private static final class InvocationNode
+	{
+		private final MethodInvocation invocation;
+		
+		private final InvocationNode parent;
+		
+		private final int index;
+		
+		private final int length;
+		
+		private final Map<MethodInvocation, InvocationNode> children;
+		
+		public InvocationNode(MethodInvocation invocation, InvocationNode parent, int index)
+		{
+			this.invocation = invocation;
+			this.parent = parent;
+			this.index = index;
+			length = (parent != null) ? parent.length + 1 : 0;
+			children = new LinkedHashMap<MethodInvocation, InvocationNode>();
+		}
+	}
+	
+	/**
+	 * Values of the invocations of an instance, each invoked when first needed.
+	 */
+	private final class InvocationValues
+	{
+		private final Object actual;
+		
+		private final boolean[] invoked;
+		
+		private final Object[] values;
+		
+		private final Exception[] failures;
+		
+		private final int[] nullLengths;
+		
+		public InvocationValues(Object actual)
+		{
+			this.actual = actual;
+			invoked = new boolean[nodes.size()];
+			values = new Object[nodes.size()];
+			failures = new Exception[nodes.size()];
+			nullLengths = new int[nodes.size()];
+		}
+		
+		public void invoke(InvocationNode node)
+		{
+			if (invoked[node.index])
+			{
+				return;
+			}
+			
+			invoked[node.index] = true;
+			Object instance = actual;
+			InvocationNode parent = node.parent;
+			
+			if (parent != root)
+			{
+				invoke(parent);
+				
+				failures[node.index] = failures[parent.index];
+				nullLengths[node.index] = nullLengths[parent.index];
+				instance = values[parent.index];
+				
+				if (failures[node.index] != null || nullLengths[node.index] > 0)
+				{
+					return;
+				}
+				
+				if (instance == null)
+				{
+					nullLengths[node.index] = parent.length;
+					return;
+				}
+			}
+			
+			try
+			{
+				values[node.index] = node.invocation.invoke(instance);
+			}
+			catch (InvocationTargetException exception)
+			{
+				failures[node.index] = exception;
+			}
+			catch (IllegalAccessException exception)
+			{
+				throw new IllegalStateException("Cannot access method: " + node.invocation.getMethod(), exception);
+			}
+		}
+		
+		public Exception getFailure(InvocationNode node)
+		{
+			return failures[node.index];
+		}
+		
+		/**
+		 * Gets the value of an invocation as {@link PropertyPath#follow(Object)} returns it for a path.
+		 * 
+		 * @param node
+		 *            the last invocation of the path
+		 * @param path
+		 *            the path
+		 * @return the value, or the path's result for the intermediate null value at which it stopped
+		 */
+		public Object getFollowed(InvocationNode node, PropertyPath<?, ?> path)
+		{
+			int nullLength = nullLengths[node.index];
+			
+			return (nullLength > 0) ? path.getIntermediateNullResult(nullLength) : values[node.index];
+		}
+	}
+}
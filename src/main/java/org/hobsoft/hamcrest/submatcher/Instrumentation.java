@@ -0,0 +1,63 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hobsoft.hamcrest.submatcher;
+
+/**
+ * Holds the metrics listener that matchers and invocations report to.
+ * <p>
+ * Instrumented code reads the listener once and skips timing entirely when there is none, so disabled metrics cost a
+ * single volatile read.
+ */
+final class Instrumentation
+{
+	// ----------------------------------------------------------------------------------------------------------------
+	// constants
+	// ----------------------------------------------------------------------------------------------------------------
+
+	private static final MatcherMetrics METRICS = new MatcherMetrics();
+
+	// ----------------------------------------------------------------------------------------------------------------
+	// fields
+	// ----------------------------------------------------------------------------------------------------------------
+
+	private static volatile MatcherMetricsListener listener;
+
+	// ----------------------------------------------------------------------------------------------------------------
+	// constructors
+	// ----------------------------------------------------------------------------------------------------------------
+
+	private Instrumentation()
+	{
+		throw new AssertionError();
+	}
+
+	// ----------------------------------------------------------------------------------------------------------------
+	// public methods
+	// ----------------------------------------------------------------------------------------------------------------
+
+	public static MatcherMetricsListener getListener()
+	{
+		return listener;
+	}
+	
+	public static void setListener(MatcherMetricsListener listener)
+	{
+		Instrumentation.listener = listener;
+	}
+	
+	public static MatcherMetrics getMetrics()
+	{
+		return METRICS;
+	}
+}
@@ -0,0 +1,40 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hobsoft.hamcrest.submatcher;
+
+import java.lang.reflect.Method;
+
+import org.hamcrest.SelfDescribing;
+
+/**
+ * Read-only view of a method invocation recorded by a spy, such as {@code getName()}.
+ * <p>
+ * Invocations are equal when their methods and arguments are equal, so they can key the statistics of a
+ * {@link MatcherMetricsListener}.
+ */
+public interface Invocation extends SelfDescribing
+{
+	// ----------------------------------------------------------------------------------------------------------------
+	// public methods
+	// ----------------------------------------------------------------------------------------------------------------
+
+	Method getMethod();
+	
+	/**
+	 * Gets the arguments of this invocation.
+	 * 
+	 * @return a copy of the arguments
+	 */
+	Object[] getArguments();
+}
@@ -0,0 +1,188 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hobsoft.hamcrest.submatcher;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.hamcrest.Matcher;
+
+import static org.hobsoft.hamcrest.submatcher.Preconditions.checkNotNull;
+
+/**
+ * Fork/join task that samples, in order, the indexes of the items whose match result is a given value.
+ * <p>
+ * Ranges are split in half until they are no larger than the split size and then matched sequentially. When a
+ * short-circuit flag is given, the first selected item sets it and the remaining ranges are skipped.
+ * 
+ * @param <T>
+ *            the item type
+ */
+final class ItemMatchTask<T> extends RecursiveTask<ItemSample>
+{
+	// ----------------------------------------------------------------------------------------------------------------
+	// constants
+	// ----------------------------------------------------------------------------------------------------------------
+
+	static final ForkJoinPool DEFAULT_POOL = new ForkJoinPool();
+	
+	private static final long serialVersionUID = 1L;
+	
+	private static final int MINIMUM_SPLIT_SIZE = 256;
+	
+	private static final int SPLITS_PER_THREAD = 8;
+
+	// ----------------------------------------------------------------------------------------------------------------
+	// fields
+	// ----------------------------------------------------------------------------------------------------------------
+
+	private final List<? extends T> items;
+	
+	private final Matcher<? super T> matcher;
+	
+	private final boolean selectMatches;
+	
+	private final int limit;
+	
+	private final AtomicBoolean done;
+	
+	private final int splitSize;
+	
+	private final int from;
+	
+	private final int to;
+
+	// ----------------------------------------------------------------------------------------------------------------
+	// constructors
+	// ----------------------------------------------------------------------------------------------------------------
+
+	public ItemMatchTask(List<? extends T> items, Matcher<? super T> matcher, boolean selectMatches, int limit,
+		AtomicBoolean done, int splitSize)
+	{
+		this.items = checkNotNull(items, "items");
+		this.matcher = checkNotNull(matcher, "matcher");
+		this.selectMatches = selectMatches;
+		this.limit = limit;
+		this.done = done;
+		this.splitSize = splitSize;
+		from = 0;
+		to = items.size();
+	}
+	
+	private ItemMatchTask(ItemMatchTask<T> parent, int from, int to)
+	{
+		items = parent.items;
+		matcher = parent.matcher;
+		selectMatches = parent.selectMatches;
+		limit = parent.limit;
+		done = parent.done;
+		splitSize = parent.splitSize;
+		this.from = from;
+		this.to = to;
+	}
+
+	// ----------------------------------------------------------------------------------------------------------------
+	// RecursiveTask methods
+	// ----------------------------------------------------------------------------------------------------------------
+
+	@Override
+	protected ItemSample compute()
+	{
+		if (to - from <= splitSize)
+		{
+			return computeSequentially();
+		}
+		
+		int middle = (from + to) >>> 1;
+		ItemMatchTask<T> head = new ItemMatchTask<T>(this, from, middle);
+		ItemMatchTask<T> tail = new ItemMatchTask<T>(this, middle, to);
+		
+		tail.fork();
+		ItemSample headSample = head.compute();
+		ItemSample tailSample = tail.join();
+		
+		return headSample.merge(tailSample, limit);
+	}
+
+	// ----------------------------------------------------------------------------------------------------------------
+	// public methods
+	// ----------------------------------------------------------------------------------------------------------------
+
+	public static <T> ItemSample sample(List<? extends T> items, Matcher<? super T> matcher, boolean selectMatches,
+		int limit, boolean shortCircuit, ForkJoinPool pool)
+	{
+		AtomicBoolean done = shortCircuit ? new AtomicBoolean() : null;
+		int splitSize = Math.max(MINIMUM_SPLIT_SIZE, items.size() / (pool.getParallelism() * SPLITS_PER_THREAD));
+		
+		return pool.invoke(new ItemMatchTask<T>(items, matcher, selectMatches, limit, done, splitSize));
+	}
+	
+	public static <T> List<? extends T> toList(Iterable<? extends T> items)
+	{
+		if (items instanceof List && items instanceof RandomAccess)
+		{
+			return (List<? extends T>) items;
+		}
+		
+		List<T> list = new ArrayList<T>();
+		
+		for (T item : items)
+		{
+			list.add(item);
+		}
+		
+		return list;
+	}
+
+	// ----------------------------------------------------------------------------------------------------------------
+	// private methods
+	// ----------------------------------------------------------------------------------------------------------------
+
+	private ItemSample computeSequentially()
+	{
+		int[] indexes = new int[Math.min(limit, to - from)];
+		int length = 0;
+		int count = 0;
+		
+		for (int index = from; index < to && !isShortCircuited(); index++)
+		{
+			if (matcher.matches(items.get(index)) == selectMatches)
+			{
+				if (length < indexes.length)
+				{
+					indexes[length++] = index;
+				}
+				
+				count++;
+				
+				if (done != null)
+				{
+					done.set(true);
+				}
+			}
+		}
+		
+		return new ItemSample(count, Arrays.copyOf(indexes, length));
+	}
+	
+	private boolean isShortCircuited()
+	{
+		return done != null && done.get();
+	}
+}
@@ -0,0 +1,80 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hobsoft.hamcrest.submatcher;
+
+import java.util.Arrays;
+
+import static org.hobsoft.hamcrest.submatcher.Preconditions.checkNotNull;
+
+/**
+ * Ordered, bounded sample of the item indexes selected by an {@code ItemMatchTask}.
+ */
+final class ItemSample
+{
+	// ----------------------------------------------------------------------------------------------------------------
+	// constants
+	// ----------------------------------------------------------------------------------------------------------------
+
+	private static final int[] NO_INDEXES = new int[0];
+
+	// ----------------------------------------------------------------------------------------------------------------
+	// fields
+	// ----------------------------------------------------------------------------------------------------------------
+
+	private final int count;
+	
+	private final int[] indexes;
+
+	// ----------------------------------------------------------------------------------------------------------------
+	// constructors
+	// ----------------------------------------------------------------------------------------------------------------
+
+	public ItemSample()
+	{
+		this(0, NO_INDEXES);
+	}
+	
+	public ItemSample(int count, int[] indexes)
+	{
+		this.count = count;
+		this.indexes = checkNotNull(indexes, "indexes");
+	}
+
+	// ----------------------------------------------------------------------------------------------------------------
+	// public methods
+	// ----------------------------------------------------------------------------------------------------------------
+
+	public ItemSample merge(ItemSample next, int limit)
+	{
+		int length = Math.min(indexes.length + next.indexes.length, limit);
+		int[] mergedIndexes = Arrays.copyOf(indexes, length);
+		
+		if (length > indexes.length)
+		{
+			System.arraycopy(next.indexes, 0, mergedIndexes, indexes.length, length - indexes.length);
+		}
+		
+		return new ItemSample(count + next.count, mergedIndexes);
+	}
+	
+	public int getCount()
+	{
+		return count;
+	}
+	
+	public int[] getIndexes()
+	{
+		return indexes.clone();
+	}
+}
@@ -0,0 +1,174 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hobsoft.hamcrest.submatcher;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.hobsoft.hamcrest.submatcher.Preconditions.checkNotNull;
+
+/**
+ * Proxy engine that creates JDK dynamic proxies of interfaces.
+ * <p>
+ * This is preferred to subclassing for interfaces since dynamic proxy classes are cheaper to create and are
+ * instantiated through their constructor, so need no constructor bypass. Primitive values default to zero when the
+ * interceptor returns {@code null}, as dynamic proxies cannot return {@code null} for them.
+ */
+public final class JdkProxyEngine implements ProxyEngine
+{
+	// ----------------------------------------------------------------------------------------------------------------
+	// constants
+	// ----------------------------------------------------------------------------------------------------------------
+
+	private static final int PRIORITY = 150;
+	
+	private static final Map<Class<?>, Object> DEFAULT_VALUES_BY_PRIMITIVE_TYPE = newDefaultValuesByPrimitiveType();
+
+	// ----------------------------------------------------------------------------------------------------------------
+	// ProxyEngine methods
+	// ----------------------------------------------------------------------------------------------------------------
+
+	public String getName()
+	{
+		return "jdk";
+	}
+	
+	public int getPriority()
+	{
+		return PRIORITY;
+	}
+	
+	public boolean supports(Class<?> type)
+	{
+		return type.isInterface() && type.getClassLoader() != null;
+	}
+	
+	public ProxyFactory createFactory(Class<?> type)
+	{
+		Class<?> proxyType = Proxy.getProxyClass(type.getClassLoader(), type);
+		
+		MethodHandle constructor;
+		try
+		{
+			Constructor<?> reflectedConstructor = proxyType.getConstructor(InvocationHandler.class);
+			// proxy classes of non-public interfaces are not public
+			reflectedConstructor.setAccessible(true);
+			constructor = MethodHandles.lookup().unreflectConstructor(reflectedConstructor)
+				.asType(MethodType.methodType(Object.class, InvocationHandler.class));
+		}
+		catch (NoSuchMethodException exception)
+		{
+			throw new IllegalStateException("Cannot find proxy constructor: " + proxyType, exception);
+		}
+		catch (IllegalAccessException exception)
+		{
+			throw new IllegalStateException("Cannot access proxy constructor: " + proxyType, exception);
+		}
+		
+		return new JdkProxyFactory(proxyType, constructor);
+	}
+
+	// ----------------------------------------------------------------------------------------------------------------
+	// private methods
+	// ----------------------------------------------------------------------------------------------------------------
+
+	private static Map<Class<?>, Object> newDefaultValuesByPrimitiveType()
+	{
+		Map<Class<?>, Object> defaultValuesByPrimitiveType = new HashMap<Class<?>, Object>();
+		defaultValuesByPrimitiveType.put(boolean.class, false);
+		defaultValuesByPrimitiveType.put(byte.class, (byte) 0);
+		defaultValuesByPrimitiveType.put(short.class, (short) 0);
+		defaultValuesByPrimitiveType.put(char.class, '\0');
+		defaultValuesByPrimitiveType.put(int.class, 0);
+		defaultValuesByPrimitiveType.put(long.class, 0L);
+		defaultValuesByPrimitiveType.put(float.class, 0f);
+		defaultValuesByPrimitiveType.put(double.class, 0d);
+		return defaultValuesByPrimitiveType;
+	}
+
+	// ----------------------------------------------------------------------------------------------------------------
+	// types
+	// ----------------------------------------------------------------------------------------------------------------
+
+	/**
+	 * Factory for JDK dynamic proxies of an interface.
+	 */
+	private static final class JdkProxyFactory implements ProxyFactory
+	{
+		private final Class<?> proxyType;
+		
+		private final MethodHandle constructor;
+		
+		public JdkProxyFactory(Class<?> proxyType, MethodHandle constructor)
+		{
+			this.proxyType = proxyType;
+			this.constructor = constructor;
+		}
+		
+		public Class<?> getProxyType()
+		{
+			return proxyType;
+		}
+		
+		public Object newInstance(SpyInterceptor interceptor)
+		{
+			InvocationHandler handler = new SpyInvocationHandler(interceptor);
+			
+			try
+			{
+				return (Object) constructor.invokeExact(handler);
+			}
+			catch (RuntimeException exception)
+			{
+				throw exception;
+			}
+			catch (Error error)
+			{
+				throw error;
+			}
+			catch (Throwable throwable)
+			{
+				throw new IllegalStateException("Cannot instantiate proxy: " + proxyType, throwable);
+			}
+		}
+	}
+	
+	/**
+	 * Adapts a spy interceptor to JDK dynamic proxies.
+	 */
+	private static final class SpyInvocationHandler implements InvocationHandler
+	{
+		private final SpyInterceptor interceptor;
+		
+		public SpyInvocationHandler(SpyInterceptor interceptor)
+		{
+			this.interceptor = checkNotNull(interceptor, "interceptor");
+		}
+		
+		public Object invoke(Object proxy, Method method, Object[] arguments)
+		{
+			Object[] nonNullArguments = (arguments != null) ? arguments : MethodInvocation.NO_ARGUMENTS;
+			Object value = interceptor.intercept(method, nonNullArguments);
+			
+			return (value == null) ? DEFAULT_VALUES_BY_PRIMITIVE_TYPE.get(method.getReturnType()) : value;
+		}
+	}
+}
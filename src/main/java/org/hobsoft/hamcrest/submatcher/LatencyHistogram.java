@@ -0,0 +1,161 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hobsoft.hamcrest.submatcher;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Concurrent histogram of latencies with log-linear buckets.
+ * <p>
+ * As in HDR histograms, each power of two is split into linear sub-buckets, so recorded values keep three significant
+ * bits of precision, an error of at most 12.5%, across the whole range of {@code long} in fixed space.
+ */
+final class LatencyHistogram
+{
+	// ----------------------------------------------------------------------------------------------------------------
+	// constants
+	// ----------------------------------------------------------------------------------------------------------------
+
+	private static final int SUB_BUCKET_BITS = 3;
+	
+	private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+	
+	private static final int BUCKET_COUNT = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKET_COUNT;
+
+	// ----------------------------------------------------------------------------------------------------------------
+	// fields
+	// ----------------------------------------------------------------------------------------------------------------
+
+	private final AtomicLongArray counts;
+
+	// ----------------------------------------------------------------------------------------------------------------
+	// constructors
+	// ----------------------------------------------------------------------------------------------------------------
+
+	public LatencyHistogram()
+	{
+		counts = new AtomicLongArray(BUCKET_COUNT);
+	}
+
+	// ----------------------------------------------------------------------------------------------------------------
+	// public methods
+	// ----------------------------------------------------------------------------------------------------------------
+
+	public void record(long value)
+	{
+		counts.incrementAndGet(getIndex(Math.max(value, 0)));
+	}
+	
+	public long getCount()
+	{
+		long count = 0;
+		
+		for (int index = 0; index < BUCKET_COUNT; index++)
+		{
+			count += counts.get(index);
+		}
+		
+		return count;
+	}
+	
+	/**
+	 * Gets the value that the given percentage of recorded values are less than or equal to.
+	 * 
+	 * @param percentile
+	 *            the percentage, from 0 to 100
+	 * @return the highest value in the bucket of that percentile, or zero if nothing was recorded
+	 */
+	public long getValueAtPercentile(double percentile)
+	{
+		if (percentile < 0 || percentile > 100)
+		{
+			throw new IllegalArgumentException("percentile must be between 0 and 100: " + percentile);
+		}
+		
+		long[] snapshot = new long[BUCKET_COUNT];
+		long count = 0;
+		
+		for (int index = 0; index < BUCKET_COUNT; index++)
+		{
+			snapshot[index] = counts.get(index);
+			count += snapshot[index];
+		}
+		
+		long rank = Math.max((long) Math.ceil(count * percentile / 100), 1);
+		long cumulativeCount = 0;
+		
+		for (int index = 0; index < BUCKET_COUNT; index++)
+		{
+			cumulativeCount += snapshot[index];
+			
+			if (cumulativeCount >= rank)
+			{
+				return getHighestValue(index);
+			}
+		}
+		
+		return 0;
+	}
+	
+	public long getMaximum()
+	{
+		for (int index = BUCKET_COUNT - 1; index >= 0; index--)
+		{
+			if (counts.get(index) > 0)
+			{
+				return getHighestValue(index);
+			}
+		}
+		
+		return 0;
+	}
+	
+	public void reset()
+	{
+		for (int index = 0; index < BUCKET_COUNT; index++)
+		{
+			counts.set(index, 0);
+		}
+	}
+	
+	// ----------------------------------------------------------------------------------------------------------------
+	// package methods
+	// ----------------------------------------------------------------------------------------------------------------
+
+	static int getIndex(long value)
+	{
+		if (value < SUB_BUCKET_COUNT)
+		{
+			return (int) value;
+		}
+		
+		int magnitude = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+		int subBucket = (int) (value >>> (magnitude - SUB_BUCKET_BITS)) & (SUB_BUCKET_COUNT - 1);
+		
+		return (magnitude - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT + subBucket;
+	}
+	
+	static long getHighestValue(int index)
+	{
+		if (index < SUB_BUCKET_COUNT)
+		{
+			return index;
+		}
+		
+		int shift = index / SUB_BUCKET_COUNT - 1;
+		long lowestValue = (long) (SUB_BUCKET_COUNT + index % SUB_BUCKET_COUNT) << shift;
+		
+		return lowestValue + (1L << shift) - 1;
+	}
+}
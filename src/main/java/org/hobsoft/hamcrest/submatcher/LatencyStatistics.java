@@ -0,0 +1,133 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hobsoft.hamcrest.submatcher;
+
+import static org.hobsoft.hamcrest.submatcher.Preconditions.checkNotNull;
+
+/**
+ * Snapshot of the counts and latencies recorded for a method invocation or a {@code hasValue} matcher.
+ * <p>
+ * Match and mismatch counts are only recorded for matchers.
+ */
+public final class LatencyStatistics
+{
+	// ----------------------------------------------------------------------------------------------------------------
+	// constants
+	// ----------------------------------------------------------------------------------------------------------------
+
+	private static final double MEDIAN = 50;
+	
+	private static final double PERCENTILE_99 = 99;
+
+	// ----------------------------------------------------------------------------------------------------------------
+	// fields
+	// ----------------------------------------------------------------------------------------------------------------
+
+	private final String name;
+	
+	private final long count;
+	
+	private final long exceptionCount;
+	
+	private final long matchCount;
+	
+	private final long mismatchCount;
+	
+	private final long totalNanos;
+	
+	private final long medianNanos;
+	
+	private final long percentile99Nanos;
+	
+	private final long maximumNanos;
+
+	// ----------------------------------------------------------------------------------------------------------------
+	// constructors
+	// ----------------------------------------------------------------------------------------------------------------
+
+	LatencyStatistics(String name, long count, long exceptionCount, long matchCount, long mismatchCount,
+		long totalNanos, LatencyHistogram histogram)
+	{
+		this.name = checkNotNull(name, "name");
+		this.count = count;
+		this.exceptionCount = exceptionCount;
+		this.matchCount = matchCount;
+		this.mismatchCount = mismatchCount;
+		this.totalNanos = totalNanos;
+		medianNanos = histogram.getValueAtPercentile(MEDIAN);
+		percentile99Nanos = histogram.getValueAtPercentile(PERCENTILE_99);
+		maximumNanos = histogram.getMaximum();
+	}
+
+	// ----------------------------------------------------------------------------------------------------------------
+	// Object methods
+	// ----------------------------------------------------------------------------------------------------------------
+
+	@Override
+	public String toString()
+	{
+		return name + ": count=" + count + ", exceptions=" + exceptionCount + ", matches=" + matchCount
+			+ ", mismatches=" + mismatchCount + ", total=" + totalNanos + "ns, p50=" + medianNanos + "ns, p99="
+			+ percentile99Nanos + "ns, max=" + maximumNanos + "ns";
+	}
+
+	// ----------------------------------------------------------------------------------------------------------------
+	// public methods
+	// ----------------------------------------------------------------------------------------------------------------
+
+	public String getName()
+	{
+		return name;
+	}
+	
+	public long getCount()
+	{
+		return count;
+	}
+	
+	public long getExceptionCount()
+	{
+		return exceptionCount;
+	}
+	
+	public long getMatchCount()
+	{
+		return matchCount;
+	}
+	
+	public long getMismatchCount()
+	{
+		return mismatchCount;
+	}
+	
+	public long getTotalNanos()
+	{
+		return totalNanos;
+	}
+	
+	public long getMedianNanos()
+	{
+		return medianNanos;
+	}
+	
+	public long getPercentile99Nanos()
+	{
+		return percentile99Nanos;
+	}
+	
+	public long getMaximumNanos()
+	{
+		return maximumNanos;
+	}
+}
@@ -0,0 +1,115 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hobsoft.hamcrest.submatcher;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.hobsoft.hamcrest.submatcher.Preconditions.checkNotNull;
+
+/**
+ * Counts of the items of a stream that a matcher matched and mismatched, with a bounded sample of mismatches.
+ * 
+ * @param <T>
+ *            the item type
+ */
+public final class MatchSummary<T>
+{
+	// ----------------------------------------------------------------------------------------------------------------
+	// fields
+	// ----------------------------------------------------------------------------------------------------------------
+
+	private final long matchCount;
+	
+	private final long mismatchCount;
+	
+	private final List<T> mismatchedItems;
+	
+	private final List<String> mismatchDescriptions;
+
+	// ----------------------------------------------------------------------------------------------------------------
+	// constructors
+	// ----------------------------------------------------------------------------------------------------------------
+
+	MatchSummary(long matchCount, long mismatchCount, List<T> mismatchedItems, List<String> mismatchDescriptions)
+	{
+		checkNotNull(mismatchedItems, "mismatchedItems");
+		checkNotNull(mismatchDescriptions, "mismatchDescriptions");
+		
+		if (mismatchedItems.size() != mismatchDescriptions.size())
+		{
+			throw new IllegalArgumentException("mismatchedItems and mismatchDescriptions must be the same size");
+		}
+		
+		this.matchCount = matchCount;
+		this.mismatchCount = mismatchCount;
+		this.mismatchedItems = Collections.unmodifiableList(new ArrayList<T>(mismatchedItems));
+		this.mismatchDescriptions = Collections.unmodifiableList(new ArrayList<String>(mismatchDescriptions));
+	}
+
+	// ----------------------------------------------------------------------------------------------------------------
+	// Object methods
+	// ----------------------------------------------------------------------------------------------------------------
+
+	@Override
+	public String toString()
+	{
+		return "matches=" + matchCount + ", mismatches=" + mismatchCount;
+	}
+
+	// ----------------------------------------------------------------------------------------------------------------
+	// public methods
+	// ----------------------------------------------------------------------------------------------------------------
+
+	public long getMatchCount()
+	{
+		return matchCount;
+	}
+	
+	public long getMismatchCount()
+	{
+		return mismatchCount;
+	}
+	
+	public long getCount()
+	{
+		return matchCount + mismatchCount;
+	}
+	
+	public boolean allMatch()
+	{
+		return mismatchCount == 0;
+	}
+	
+	/**
+	 * Gets the sampled mismatched items.
+	 * 
+	 * @return the first mismatched items in encounter order, up to the sample size
+	 */
+	public List<T> getMismatchedItems()
+	{
+		return mismatchedItems;
+	}
+	
+	/**
+	 * Gets the mismatch descriptions of the sampled mismatched items.
+	 * 
+	 * @return the mismatch descriptions, in the same order as {@code getMismatchedItems}
+	 */
+	public List<String> getMismatchDescriptions()
+	{
+		return mismatchDescriptions;
+	}
+}
@@ -0,0 +1,300 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hobsoft.hamcrest.submatcher;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.hamcrest.Matcher;
+
+import static org.hobsoft.hamcrest.submatcher.Preconditions.checkNotNull;
+
+/**
+ * Optional, bounded cache of method value matchers keyed by property path, submatcher structure and null policy.
+ * <p>
+ * Matchers are immutable, so a matcher for an equal path and a structurally equal submatcher can be shared rather than
+ * created again. Submatchers are compared by {@link MatcherStructure}, so that a tree such as {@code equalTo("x")}
+ * built afresh each time finds the matcher cached for an earlier tree. Lookups take no lock and allocate nothing. Once
+ * the cache is full, matchers that have not been used since the last eviction are evicted first, approximating least
+ * recently used order. The cache is disabled while its maximum size is zero.
+ */
+final class MatcherCache
+{
+	// ----------------------------------------------------------------------------------------------------------------
+	// constants
+	// ----------------------------------------------------------------------------------------------------------------
+
+	private static final ThreadLocal<MatcherKey> LOOKUP_KEYS = ThreadLocal.withInitial(() -> new MatcherKey());
+	
+	// ----------------------------------------------------------------------------------------------------------------
+	// fields
+	// ----------------------------------------------------------------------------------------------------------------
+
+	private volatile int maximumSize;
+
+	private final ConcurrentMap<MatcherKey, CachedMatcher> matchersByKey;
+
+	private final LongAdder hitCount;
+
+	private final LongAdder missCount;
+
+	// ----------------------------------------------------------------------------------------------------------------
+	// constructors
+	// ----------------------------------------------------------------------------------------------------------------
+
+	public MatcherCache()
+	{
+		this(0);
+	}
+
+	public MatcherCache(int maximumSize)
+	{
+		this.maximumSize = checkMaximumSize(maximumSize);
+		matchersByKey = new ConcurrentHashMap<MatcherKey, CachedMatcher>();
+		hitCount = new LongAdder();
+		missCount = new LongAdder();
+	}
+
+	// ----------------------------------------------------------------------------------------------------------------
+	// public methods
+	// ----------------------------------------------------------------------------------------------------------------
+
+	public <T, U> HasValueMatcher<T, U> get(PropertyPath<T, U> path, Matcher<U> submatcher)
+	{
+		return get(path, submatcher, NullPolicy.DEFAULT);
+	}
+
+	public <T, U> HasValueMatcher<T, U> get(PropertyPath<T, U> path, Matcher<U> submatcher, NullPolicy nullPolicy)
+	{
+		checkNotNull(path, "path");
+		checkNotNull(submatcher, "submatcher");
+		checkNotNull(nullPolicy, "nullPolicy");
+
+		if (maximumSize == 0)
+		{
+			return new HasValueMatcher<T, U>(path, submatcher, nullPolicy);
+		}
+
+		MatcherKey lookupKey = LOOKUP_KEYS.get().set(path, submatcher, nullPolicy);
+		
+		try
+		{
+			CachedMatcher cached = matchersByKey.get(lookupKey);
+			
+			if (cached != null)
+			{
+				hitCount.increment();
+				return cast(cached.use());
+			}
+			
+			missCount.increment();
+			
+			HasValueMatcher<T, U> matcher = new HasValueMatcher<T, U>(path, submatcher, nullPolicy);
+			MatcherKey key = lookupKey.copy();
+			cached = matchersByKey.putIfAbsent(key, new CachedMatcher(matcher));
+			
+			if (cached != null)
+			{
+				return cast(cached.use());
+			}
+			
+			evictExcess(key);
+			
+			return matcher;
+		}
+		finally
+		{
+			lookupKey.clear();
+		}
+	}
+
+	public int getMaximumSize()
+	{
+		return maximumSize;
+	}
+
+	public void setMaximumSize(int maximumSize)
+	{
+		this.maximumSize = checkMaximumSize(maximumSize);
+		evictExcess(null);
+	}
+
+	public int size()
+	{
+		return matchersByKey.size();
+	}
+
+	public void clear()
+	{
+		matchersByKey.clear();
+	}
+
+	public CacheStatistics getStatistics()
+	{
+		return new CacheStatistics(hitCount.sum(), missCount.sum());
+	}
+
+	// ----------------------------------------------------------------------------------------------------------------
+	// private methods
+	// ----------------------------------------------------------------------------------------------------------------
+
+	private static int checkMaximumSize(int maximumSize)
+	{
+		if (maximumSize < 0)
+		{
+			throw new IllegalArgumentException("maximumSize must not be negative: " + maximumSize);
+		}
+
+		return maximumSize;
+	}
+
+	private static <T, U> HasValueMatcher<T, U> cast(HasValueMatcher<?, ?> matcher)
+	{
+		// the key holds this path and submatcher, whose types are those of the cached matcher
+		@SuppressWarnings("unchecked")
+		HasValueMatcher<T, U> castMatcher = (HasValueMatcher<T, U>) matcher;
+		
+		return castMatcher;
+	}
+
+	private void evictExcess(MatcherKey retainedKey)
+	{
+		// the first pass gives matchers used since the last eviction a second chance, the second evicts regardless
+		for (int pass = 0; pass < 2 && matchersByKey.size() > maximumSize; pass++)
+		{
+			Iterator<MatcherKey> iterator = matchersByKey.keySet().iterator();
+
+			while (matchersByKey.size() > maximumSize && iterator.hasNext())
+			{
+				MatcherKey key = iterator.next();
+				CachedMatcher cached = matchersByKey.get(key);
+
+				if (key != retainedKey && cached != null && !cached.unuse())
+				{
+					iterator.remove();
+				}
+			}
+		}
+	}
+
+	// ----------------------------------------------------------------------------------------------------------------
+	// types
+	// ----------------------------------------------------------------------------------------------------------------
+
+	/**
+	 * Key for a matcher by its property path, submatcher structure and null policy.
+	 * <p>
+	 * Each thread reuses a key to look up matchers, so a key is only immutable once it has been copied into the cache.
+	 */
+	private static final class MatcherKey
+	{
+		private PropertyPath<?, ?> path;
+
+		private Matcher<?> submatcher;
+
+		private NullPolicy nullPolicy;
+
+		private int hashCode;
+
+		public MatcherKey set(PropertyPath<?, ?> path, Matcher<?> submatcher, NullPolicy nullPolicy)
+		{
+			this.path = path;
+			this.submatcher = submatcher;
+			this.nullPolicy = nullPolicy;
+			hashCode = (path.hashCode() * 31 + MatcherStructure.hashCode(submatcher)) * 31 + nullPolicy.ordinal();
+			
+			return this;
+		}
+		
+		public MatcherKey copy()
+		{
+			MatcherKey key = new MatcherKey();
+			key.path = path;
+			key.submatcher = submatcher;
+			key.nullPolicy = nullPolicy;
+			key.hashCode = hashCode;
+			
+			return key;
+		}
+		
+		public void clear()
+		{
+			path = null;
+			submatcher = null;
+			nullPolicy = null;
+		}
+
+		@Override
+		public int hashCode()
+		{
+			return hashCode;
+		}
+
+		@Override
+		public boolean equals(Object object)
+		{
+			if (!(object instanceof MatcherKey))
+			{
+				return false;
+			}
+
+			MatcherKey key = (MatcherKey) object;
+
+			return hashCode == key.hashCode
+				&& path.equals(key.path)
+				&& MatcherStructure.equals(submatcher, key.submatcher)
+				&& nullPolicy == key.nullPolicy;
+		}
+	}
+	
+	/**
+	 * Cached matcher with whether it has been used since the last eviction.
+	 */
+	private static final class CachedMatcher
+	{
+		private final HasValueMatcher<?, ?> matcher;
+		
+		private volatile boolean used;
+		
+		public CachedMatcher(HasValueMatcher<?, ?> matcher)
+		{
+			this.matcher = matcher;
+		}
+		
+		public HasValueMatcher<?, ?> use()
+		{
+			// avoid writing to a shared matcher that is already marked
+			if (!used)
+			{
+				used = true;
+			}
+			
+			return matcher;
+		}
+		
+		public boolean unuse()
+		{
+			if (!used)
+			{
+				return false;
+			}
+			
+			used = false;
+			
+			return true;
+		}
+	}
+}
@@ -0,0 +1,210 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hobsoft.hamcrest.submatcher;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.hamcrest.SelfDescribing;
+import org.hamcrest.StringDescription;
+
+/**
+ * Metrics listener that records counts and latency histograms per method invocation and per property path.
+ * <p>
+ * Recording is lock-free, so the metrics can stay enabled across large, parallel test suites. Statistics are named by
+ * the declaring type of the first method followed by the invocation or path, such as {@code Person.getName()}.
+ */
+public final class MatcherMetrics implements MatcherMetricsListener, MatcherMetricsMXBean
+{
+	// ----------------------------------------------------------------------------------------------------------------
+	// fields
+	// ----------------------------------------------------------------------------------------------------------------
+
+	private final ConcurrentMap<Invocation, Recorder> invocationRecorders;
+	
+	private final ConcurrentMap<PropertyPath<?, ?>, Recorder> evaluationRecorders;
+
+	// ----------------------------------------------------------------------------------------------------------------
+	// constructors
+	// ----------------------------------------------------------------------------------------------------------------
+
+	MatcherMetrics()
+	{
+		invocationRecorders = new ConcurrentHashMap<Invocation, Recorder>();
+		evaluationRecorders = new ConcurrentHashMap<PropertyPath<?, ?>, Recorder>();
+	}
+
+	// ----------------------------------------------------------------------------------------------------------------
+	// MatcherMetricsListener methods
+	// ----------------------------------------------------------------------------------------------------------------
+
+	public void invocationCompleted(Invocation invocation, long nanos, boolean threw)
+	{
+		getRecorder(invocationRecorders, invocation).record(nanos, threw);
+	}
+	
+	public void evaluationCompleted(PropertyPath<?, ?> path, long nanos, boolean matches, boolean threw)
+	{
+		getRecorder(evaluationRecorders, path).record(nanos, matches, threw);
+	}
+
+	// ----------------------------------------------------------------------------------------------------------------
+	// MatcherMetricsMXBean methods
+	// ----------------------------------------------------------------------------------------------------------------
+
+	public boolean isEnabled()
+	{
+		return Instrumentation.getListener() == this;
+	}
+	
+	/**
+	 * Sets whether matchers record to these metrics, replacing any other metrics listener when enabled.
+	 * 
+	 * @param enabled
+	 *            whether to record metrics
+	 */
+	public void setEnabled(boolean enabled)
+	{
+		if (enabled)
+		{
+			Instrumentation.setListener(this);
+		}
+		else if (isEnabled())
+		{
+			Instrumentation.setListener(null);
+		}
+	}
+	
+	public List<LatencyStatistics> getInvocationStatistics()
+	{
+		return getStatistics(invocationRecorders);
+	}
+	
+	public List<LatencyStatistics> getEvaluationStatistics()
+	{
+		return getStatistics(evaluationRecorders);
+	}
+	
+	public void reset()
+	{
+		invocationRecorders.clear();
+		evaluationRecorders.clear();
+	}
+	
+	// ----------------------------------------------------------------------------------------------------------------
+	// private methods
+	// ----------------------------------------------------------------------------------------------------------------
+
+	private static <K> Recorder getRecorder(ConcurrentMap<K, Recorder> recorders, K key)
+	{
+		Recorder recorder = recorders.get(key);
+		
+		if (recorder == null)
+		{
+			recorder = recorders.computeIfAbsent(key, newKey -> new Recorder());
+		}
+		
+		return recorder;
+	}
+	
+	private static <K extends SelfDescribing> List<LatencyStatistics> getStatistics(Map<K, Recorder> recorders)
+	{
+		List<LatencyStatistics> statistics = new ArrayList<LatencyStatistics>();
+		
+		for (Entry<K, Recorder> entry : recorders.entrySet())
+		{
+			statistics.add(entry.getValue().getStatistics(getName(entry.getKey())));
+		}
+		
+		Collections.sort(statistics, new Comparator<LatencyStatistics>()
+		{
+			public int compare(LatencyStatistics statistics1, LatencyStatistics statistics2)
+			{
+				return Long.compare(statistics2.getTotalNanos(), statistics1.getTotalNanos());
+			}
+		});
+		
+		return statistics;
+	}
+	
+	private static String getName(SelfDescribing key)
+	{
+		Invocation invocation = (key instanceof PropertyPath)
+			? ((PropertyPath<?, ?>) key).getInvocations().get(0)
+			: (Invocation) key;
+		
+		return invocation.getMethod().getDeclaringClass().getSimpleName() + "." + StringDescription.asString(key);
+	}
+	
+	// ----------------------------------------------------------------------------------------------------------------
+	// types
+	// ----------------------------------------------------------------------------------------------------------------
+
+	/**
+	 * Records the counts and latencies of one invocation or path.
+	 */
+	private static final class Recorder
+	{
+		private final LongAdder count = new LongAdder();
+		
+		private final LongAdder exceptionCount = new LongAdder();
+		
+		private final LongAdder matchCount = new LongAdder();
+		
+		private final LongAdder mismatchCount = new LongAdder();
+		
+		private final LongAdder totalNanos = new LongAdder();
+		
+		private final LatencyHistogram histogram = new LatencyHistogram();
+		
+		public void record(long nanos, boolean threw)
+		{
+			count.increment();
+			totalNanos.add(nanos);
+			histogram.record(nanos);
+			
+			if (threw)
+			{
+				exceptionCount.increment();
+			}
+		}
+		
+		public void record(long nanos, boolean matches, boolean threw)
+		{
+			record(nanos, threw);
+			
+			if (matches)
+			{
+				matchCount.increment();
+			}
+			else
+			{
+				mismatchCount.increment();
+			}
+		}
+		
+		public LatencyStatistics getStatistics(String name)
+		{
+			return new LatencyStatistics(name, count.sum(), exceptionCount.sum(), matchCount.sum(),
+				mismatchCount.sum(), totalNanos.sum(), histogram);
+		}
+	}
+}
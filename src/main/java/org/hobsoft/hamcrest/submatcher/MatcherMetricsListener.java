@@ -0,0 +1,50 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hobsoft.hamcrest.submatcher;
+
+/**
+ * Listener for the time spent invoking methods and evaluating {@code hasValue} matchers.
+ * <p>
+ * Listeners are notified synchronously on the thread that matches, possibly by many threads at once, so they should
+ * be cheap and thread-safe. Evaluations are reported for {@code matches} only and not when describing mismatches.
+ * Evaluation times include the invocation times of their paths.
+ */
+public interface MatcherMetricsListener
+{
+	/**
+	 * Notifies this listener that a method was invoked.
+	 * 
+	 * @param invocation
+	 *            the method invocation, which is equal to the invocation of each later call of the same method
+	 * @param nanos
+	 *            the time taken, in nanoseconds
+	 * @param threw
+	 *            whether the invocation threw an exception
+	 */
+	void invocationCompleted(Invocation invocation, long nanos, boolean threw);
+	
+	/**
+	 * Notifies this listener that a {@code hasValue} matcher was evaluated.
+	 * 
+	 * @param path
+	 *            the property path of the matcher
+	 * @param nanos
+	 *            the time taken, in nanoseconds
+	 * @param matches
+	 *            whether the matcher matched
+	 * @param threw
+	 *            whether invoking the path threw an exception, in which case the matcher did not match
+	 */
+	void evaluationCompleted(PropertyPath<?, ?> path, long nanos, boolean matches, boolean threw);
+}
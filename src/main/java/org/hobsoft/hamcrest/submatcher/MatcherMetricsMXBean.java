@@ -0,0 +1,47 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hobsoft.hamcrest.submatcher;
+
+import java.util.List;
+
+/**
+ * Management interface for the metrics recorded by matchers.
+ */
+public interface MatcherMetricsMXBean
+{
+	/**
+	 * The object name that {@code SubmatcherRuntime.registerMatcherMetrics} registers the metrics under.
+	 */
+	String OBJECT_NAME = "org.hobsoft.hamcrest.submatcher:type=MatcherMetrics";
+	
+	boolean isEnabled();
+	
+	void setEnabled(boolean enabled);
+	
+	/**
+	 * Gets the statistics of each invoked method, most expensive first.
+	 * 
+	 * @return the statistics, ordered by descending total time
+	 */
+	List<LatencyStatistics> getInvocationStatistics();
+	
+	/**
+	 * Gets the statistics of each evaluated {@code hasValue} matcher, most expensive first.
+	 * 
+	 * @return the statistics, ordered by descending total time
+	 */
+	List<LatencyStatistics> getEvaluationStatistics();
+	
+	void reset();
+}
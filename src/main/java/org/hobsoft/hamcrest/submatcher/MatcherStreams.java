@@ -0,0 +1,158 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hobsoft.hamcrest.submatcher;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.stream.Collector;
+import java.util.stream.Collectors;
+
+import org.hamcrest.Matcher;
+import org.hamcrest.StringDescription;
+
+import static org.hobsoft.hamcrest.submatcher.Preconditions.checkNotNull;
+
+/**
+ * Adapts matchers to {@code java.util.stream}.
+ * <p>
+ * Predicates and collectors can be used with parallel streams, provided the matcher is safe to invoke concurrently.
+ * Summaries describe only a bounded sample of the first mismatched items, in encounter order, so that large streams of
+ * mismatches do not build a description for every item. Items are described once the stream has been collected, so at
+ * most that many descriptions are built however the stream is split. For example:
+ * <pre>
+ * MatchSummary&lt;Person&gt; summary = people.parallelStream()
+ *     .collect(summarizingMatches(hasValue(on(Person.class).getName(), equalTo("x"))));
+ * </pre>
+ */
+public final class MatcherStreams
+{
+	// ----------------------------------------------------------------------------------------------------------------
+	// constructors
+	// ----------------------------------------------------------------------------------------------------------------
+
+	private MatcherStreams()
+	{
+		throw new AssertionError();
+	}
+
+	// ----------------------------------------------------------------------------------------------------------------
+	// public methods
+	// ----------------------------------------------------------------------------------------------------------------
+
+	public static <T> Predicate<T> matching(Matcher<? super T> matcher)
+	{
+		checkNotNull(matcher, "matcher");
+		
+		return matcher::matches;
+	}
+	
+	public static <T> Collector<T, ?, Map<Boolean, List<T>>> partitioningByMatches(Matcher<? super T> matcher)
+	{
+		return Collectors.partitioningBy(matching(matcher));
+	}
+	
+	public static <T> Collector<T, ?, MatchSummary<T>> summarizingMatches(Matcher<? super T> matcher)
+	{
+		return summarizingMatches(matcher, EveryItemMatcher.DEFAULT_SAMPLE_SIZE);
+	}
+	
+	public static <T> Collector<T, ?, MatchSummary<T>> summarizingMatches(Matcher<? super T> matcher, int sampleSize)
+	{
+		checkNotNull(matcher, "matcher");
+		
+		if (sampleSize < 0)
+		{
+			throw new IllegalArgumentException("sampleSize must not be negative: " + sampleSize);
+		}
+		
+		return Collector.of(
+			() -> new MatchAccumulator<T>(matcher, sampleSize),
+			MatchAccumulator::accept,
+			MatchAccumulator::combine,
+			MatchAccumulator::toSummary
+		);
+	}
+	
+	// ----------------------------------------------------------------------------------------------------------------
+	// types
+	// ----------------------------------------------------------------------------------------------------------------
+
+	/**
+	 * Mutable container that counts matches and samples mismatched items for one part of a stream.
+	 */
+	private static final class MatchAccumulator<T>
+	{
+		private final Matcher<? super T> matcher;
+		
+		private final int sampleSize;
+		
+		private long matchCount;
+		
+		private long mismatchCount;
+		
+		private final List<T> mismatchedItems;
+		
+		public MatchAccumulator(Matcher<? super T> matcher, int sampleSize)
+		{
+			this.matcher = matcher;
+			this.sampleSize = sampleSize;
+			mismatchedItems = new ArrayList<T>();
+		}
+		
+		public void accept(T item)
+		{
+			if (matcher.matches(item))
+			{
+				matchCount++;
+				return;
+			}
+			
+			mismatchCount++;
+			
+			if (mismatchedItems.size() < sampleSize)
+			{
+				mismatchedItems.add(item);
+			}
+		}
+		
+		public MatchAccumulator<T> combine(MatchAccumulator<T> next)
+		{
+			matchCount += next.matchCount;
+			mismatchCount += next.mismatchCount;
+			
+			int length = Math.min(next.mismatchedItems.size(), sampleSize - mismatchedItems.size());
+			
+			mismatchedItems.addAll(next.mismatchedItems.subList(0, length));
+			
+			return this;
+		}
+		
+		public MatchSummary<T> toSummary()
+		{
+			// describe only the mismatches that were kept across all parts
+			List<String> mismatchDescriptions = new ArrayList<String>(mismatchedItems.size());
+			
+			for (T item : mismatchedItems)
+			{
+				StringDescription description = new StringDescription();
+				matcher.describeMismatch(item, description);
+				mismatchDescriptions.add(description.toString());
+			}
+			
+			return new MatchSummary<T>(matchCount, mismatchCount, mismatchedItems, mismatchDescriptions);
+		}
+	}
+}
@@ -0,0 +1,443 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hobsoft.hamcrest.submatcher;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.RandomAccess;
+
+import org.hamcrest.Matcher;
+
+/**
+ * Compares matchers by their structure rather than by their identity.
+ * <p>
+ * Two matchers are structurally equal when they are of the same class and their instance fields are structurally
+ * equal. Nested matchers, object arrays and lists are compared element by element, and other values by {@code equals}
+ * once they are of the same class. A matcher with a non-final instance field may change after construction, so it is
+ * only equal to itself, as are primitive arrays and matchers whose fields cannot be read. Values held by a matcher are
+ * compared as they are now, so they must not be mutated once the matcher is shared.
+ */
+final class MatcherStructure
+{
+	// ----------------------------------------------------------------------------------------------------------------
+	// constants
+	// ----------------------------------------------------------------------------------------------------------------
+
+	private static final int MAXIMUM_DEPTH = 32;
+	
+	private static final ClassValue<Kind> KINDS = new ClassValue<Kind>()
+	{
+		@Override
+		protected Kind computeValue(Class<?> type)
+		{
+			return Kind.of(type);
+		}
+	};
+	
+	private static final ClassValue<Field[]> FIELDS = new ClassValue<Field[]>()
+	{
+		@Override
+		protected Field[] computeValue(Class<?> type)
+		{
+			return getFinalFields(type);
+		}
+	};
+	
+	// ----------------------------------------------------------------------------------------------------------------
+	// constructors
+	// ----------------------------------------------------------------------------------------------------------------
+
+	private MatcherStructure()
+	{
+		throw new AssertionError();
+	}
+	
+	// ----------------------------------------------------------------------------------------------------------------
+	// public methods
+	// ----------------------------------------------------------------------------------------------------------------
+
+	public static int hashCode(Object object)
+	{
+		return hashCode(object, 0);
+	}
+	
+	public static boolean equals(Object object1, Object object2)
+	{
+		return equals(object1, object2, 0);
+	}
+	
+	// ----------------------------------------------------------------------------------------------------------------
+	// private methods
+	// ----------------------------------------------------------------------------------------------------------------
+
+	private static int hashCode(Object object, int depth)
+	{
+		// beyond this depth objects are only equal to themselves
+		if (object == null || depth > MAXIMUM_DEPTH)
+		{
+			return 0;
+		}
+		
+		// kinds are found once per class since failed interface checks are slow on common value types
+		switch (KINDS.get(object.getClass()))
+		{
+			case MATCHER:
+				return matcherHashCode(object, depth);
+				
+			case OBJECT_ARRAY:
+				return arrayHashCode((Object[]) object, depth);
+				
+			case LIST:
+				return listHashCode((List<?>) object, depth);
+				
+			case CLASS:
+				return classHashCode((Class<?>) object);
+				
+			case IDENTITY:
+				return System.identityHashCode(object);
+				
+			default:
+				return object.hashCode();
+		}
+	}
+	
+	private static int matcherHashCode(Object matcher, int depth)
+	{
+		Field[] fields = FIELDS.get(matcher.getClass());
+		
+		if (fields == null)
+		{
+			return System.identityHashCode(matcher);
+		}
+		
+		int hashCode = classHashCode(matcher.getClass());
+		
+		for (Field field : fields)
+		{
+			hashCode = hashCode * 31 + (field.getType().isPrimitive()
+				? primitiveHashCode(field, matcher)
+				: hashCode(get(field, matcher), depth + 1));
+		}
+		
+		return hashCode;
+	}
+	
+	private static int arrayHashCode(Object[] array, int depth)
+	{
+		int hashCode = 1;
+		
+		for (Object element : array)
+		{
+			hashCode = hashCode * 31 + hashCode(element, depth + 1);
+		}
+		
+		return hashCode;
+	}
+	
+	private static int listHashCode(List<?> list, int depth)
+	{
+		int hashCode = 1;
+		
+		if (list instanceof RandomAccess)
+		{
+			for (int index = 0; index < list.size(); index++)
+			{
+				hashCode = hashCode * 31 + hashCode(list.get(index), depth + 1);
+			}
+		}
+		else
+		{
+			for (Object element : list)
+			{
+				hashCode = hashCode * 31 + hashCode(element, depth + 1);
+			}
+		}
+		
+		return hashCode;
+	}
+	
+	private static int classHashCode(Class<?> type)
+	{
+		// identity hash codes of classes are slow to read since classes are commonly locked
+		return type.getName().hashCode();
+	}
+	
+	private static int primitiveHashCode(Field field, Object object)
+	{
+		try
+		{
+			Class<?> type = field.getType();
+			
+			if (type == boolean.class)
+			{
+				return Boolean.hashCode(field.getBoolean(object));
+			}
+			
+			if (type == float.class)
+			{
+				return Float.hashCode(field.getFloat(object));
+			}
+			
+			if (type == double.class)
+			{
+				return Double.hashCode(field.getDouble(object));
+			}
+			
+			return Long.hashCode(field.getLong(object));
+		}
+		catch (IllegalAccessException exception)
+		{
+			throw new IllegalStateException("Cannot access field: " + field, exception);
+		}
+	}
+	
+	private static boolean equals(Object object1, Object object2, int depth)
+	{
+		if (object1 == object2)
+		{
+			return true;
+		}
+		
+		if (object1 == null || object2 == null || object1.getClass() != object2.getClass() || depth > MAXIMUM_DEPTH)
+		{
+			return false;
+		}
+		
+		switch (KINDS.get(object1.getClass()))
+		{
+			case MATCHER:
+				return matcherEquals(object1, object2, depth);
+				
+			case OBJECT_ARRAY:
+				return arrayEquals((Object[]) object1, (Object[]) object2, depth);
+				
+			case LIST:
+				return listEquals((List<?>) object1, (List<?>) object2, depth);
+				
+			case IDENTITY:
+				return false;
+				
+			default:
+				return object1.equals(object2);
+		}
+	}
+	
+	private static boolean matcherEquals(Object matcher1, Object matcher2, int depth)
+	{
+		Field[] fields = FIELDS.get(matcher1.getClass());
+		
+		if (fields == null)
+		{
+			return false;
+		}
+		
+		for (Field field : fields)
+		{
+			boolean equal = field.getType().isPrimitive()
+				? primitiveEquals(field, matcher1, matcher2)
+				: equals(get(field, matcher1), get(field, matcher2), depth + 1);
+			
+			if (!equal)
+			{
+				return false;
+			}
+		}
+		
+		return true;
+	}
+	
+	private static boolean arrayEquals(Object[] array1, Object[] array2, int depth)
+	{
+		if (array1.length != array2.length)
+		{
+			return false;
+		}
+		
+		for (int index = 0; index < array1.length; index++)
+		{
+			if (!equals(array1[index], array2[index], depth + 1))
+			{
+				return false;
+			}
+		}
+		
+		return true;
+	}
+	
+	private static boolean listEquals(List<?> list1, List<?> list2, int depth)
+	{
+		if (list1.size() != list2.size())
+		{
+			return false;
+		}
+		
+		if (list1 instanceof RandomAccess)
+		{
+			for (int index = 0; index < list1.size(); index++)
+			{
+				if (!equals(list1.get(index), list2.get(index), depth + 1))
+				{
+					return false;
+				}
+			}
+			
+			return true;
+		}
+		
+		Iterator<?> iterator1 = list1.iterator();
+		Iterator<?> iterator2 = list2.iterator();
+		
+		while (iterator1.hasNext())
+		{
+			if (!equals(iterator1.next(), iterator2.next(), depth + 1))
+			{
+				return false;
+			}
+		}
+		
+		return true;
+	}
+	
+	private static boolean primitiveEquals(Field field, Object object1, Object object2)
+	{
+		try
+		{
+			Class<?> type = field.getType();
+			
+			if (type == boolean.class)
+			{
+				return field.getBoolean(object1) == field.getBoolean(object2);
+			}
+			
+			if (type == float.class)
+			{
+				return Float.floatToIntBits(field.getFloat(object1)) == Float.floatToIntBits(field.getFloat(object2));
+			}
+			
+			if (type == double.class)
+			{
+				return Double.doubleToLongBits(field.getDouble(object1))
+					== Double.doubleToLongBits(field.getDouble(object2));
+			}
+			
+			return field.getLong(object1) == field.getLong(object2);
+		}
+		catch (IllegalAccessException exception)
+		{
+			throw new IllegalStateException("Cannot access field: " + field, exception);
+		}
+	}
+	
+	private static Object get(Field field, Object object)
+	{
+		try
+		{
+			return field.get(object);
+		}
+		catch (IllegalAccessException exception)
+		{
+			throw new IllegalStateException("Cannot access field: " + field, exception);
+		}
+	}
+	
+	private static Field[] getFinalFields(Class<?> type)
+	{
+		List<Field> fields = new ArrayList<Field>();
+		
+		for (Class<?> superclass = type; superclass != Object.class; superclass = superclass.getSuperclass())
+		{
+			for (Field field : superclass.getDeclaredFields())
+			{
+				int modifiers = field.getModifiers();
+				
+				if (Modifier.isStatic(modifiers))
+				{
+					continue;
+				}
+				
+				if (!Modifier.isFinal(modifiers))
+				{
+					return null;
+				}
+				
+				fields.add(field);
+			}
+		}
+		
+		try
+		{
+			for (Field field : fields)
+			{
+				field.setAccessible(true);
+			}
+		}
+		catch (RuntimeException exception)
+		{
+			// fields cannot be read so the matcher is only equal to itself
+			return null;
+		}
+		
+		return fields.toArray(new Field[fields.size()]);
+	}
+	
+	// ----------------------------------------------------------------------------------------------------------------
+	// types
+	// ----------------------------------------------------------------------------------------------------------------
+
+	/**
+	 * How instances of a class are compared.
+	 */
+	private enum Kind
+	{
+		MATCHER,
+		OBJECT_ARRAY,
+		LIST,
+		CLASS,
+		IDENTITY,
+		VALUE;
+		
+		public static Kind of(Class<?> type)
+		{
+			if (Matcher.class.isAssignableFrom(type))
+			{
+				return MATCHER;
+			}
+			
+			if (Object[].class.isAssignableFrom(type))
+			{
+				return OBJECT_ARRAY;
+			}
+			
+			if (type.isArray())
+			{
+				return IDENTITY;
+			}
+			
+			if (List.class.isAssignableFrom(type))
+			{
+				return LIST;
+			}
+			
+			if (type == Class.class)
+			{
+				return CLASS;
+			}
+			
+			return VALUE;
+		}
+	}
+}
@@ -13,19 +13,41 @@
  */
 package org.hobsoft.hamcrest.submatcher;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.invoke.WrongMethodTypeException;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
 
 import org.hamcrest.Description;
-import org.hamcrest.SelfDescribing;
 
 import static org.hobsoft.hamcrest.submatcher.Preconditions.checkNotNull;
 
 /**
  * Defines an invocation of a Java method.
+ * <p>
+ * Public methods are compiled on first use into a method handle bound to the invocation's arguments, avoiding the
+ * access checks and argument array of reflection. Other methods are invoked reflectively.
+ * <p>
+ * Invocations are values whose arguments are assumed not to change, so their hash code is computed once. Equal
+ * invocations can be reduced to a single canonical instance with {@link #intern()}, which also shares its compiled
+ * method handle.
  */
-class MethodInvocation implements SelfDescribing
+class MethodInvocation implements Invocation
 {
+	// ----------------------------------------------------------------------------------------------------------------
+	// constants
+	// ----------------------------------------------------------------------------------------------------------------
+
+	static final Object[] NO_ARGUMENTS = new Object[0];
+	
+	private static final MethodType INVOKER_TYPE = MethodType.methodType(Object.class, Object.class);
+	
+	private static final WeakInterner<MethodInvocation> INTERNER = new WeakInterner<MethodInvocation>();
+	
 	// ----------------------------------------------------------------------------------------------------------------
 	// fields
 	// ----------------------------------------------------------------------------------------------------------------
@@ -34,14 +56,57 @@ class MethodInvocation implements SelfDescribing
 	
 	private final Object[] arguments;
 	
+	private final int hashCode;
+	
+	private volatile MethodHandle handle;
+	
+	private volatile boolean compiled;
+	
 	// ----------------------------------------------------------------------------------------------------------------
 	// constructors
 	// ----------------------------------------------------------------------------------------------------------------
 
+	public MethodInvocation(Method method)
+	{
+		this(method, NO_ARGUMENTS);
+	}
+	
 	public MethodInvocation(Method method, Object... arguments)
 	{
 		this.method = checkNotNull(method, "method");
-		this.arguments = checkNotNull(arguments, "arguments");
+		this.arguments = (checkNotNull(arguments, "arguments").length == 0) ? NO_ARGUMENTS : arguments;
+		hashCode = method.hashCode() * 31 + Arrays.hashCode(this.arguments);
+	}
+	
+	// ----------------------------------------------------------------------------------------------------------------
+	// Object methods
+	// ----------------------------------------------------------------------------------------------------------------
+
+	@Override
+	public int hashCode()
+	{
+		return hashCode;
+	}
+	
+	@Override
+	public boolean equals(Object object)
+	{
+		if (object == this)
+		{
+			return true;
+		}
+		
+		// field invocations of the same method are distinct
+		if (object == null || object.getClass() != getClass())
+		{
+			return false;
+		}
+		
+		MethodInvocation invocation = (MethodInvocation) object;
+		
+		return hashCode == invocation.hashCode
+			&& method.equals(invocation.method)
+			&& Arrays.equals(arguments, invocation.arguments);
 	}
 	
 	// ----------------------------------------------------------------------------------------------------------------
@@ -60,7 +125,86 @@ class MethodInvocation implements SelfDescribing
 
 	public Object invoke(Object instance) throws IllegalAccessException, InvocationTargetException
 	{
-		return method.invoke(instance, arguments);
+		MatcherMetricsListener listener = Instrumentation.getListener();
+		
+		if (listener != null)
+		{
+			return invokeInstrumented(instance, listener);
+		}
+		
+		// reflection reports null and incompatible instances as it always has
+		if (!accepts(instance))
+		{
+			return method.invoke(instance, arguments);
+		}
+		
+		return invokeAccepted(instance);
+	}
+	
+	public boolean accepts(Object instance)
+	{
+		return method.getDeclaringClass().isInstance(instance);
+	}
+	
+	/**
+	 * Invokes this method on an instance that is known to be accepted, skipping the instance type check.
+	 * 
+	 * @param instance
+	 *            the instance, for which {@link #accepts(Object)} returns {@code true}
+	 * @return the method's return value
+	 * @throws IllegalAccessException
+	 *             if the method is inaccessible
+	 * @throws InvocationTargetException
+	 *             if the method throws an exception
+	 */
+	public Object invokeAccepted(Object instance) throws IllegalAccessException, InvocationTargetException
+	{
+		MethodHandle invoker = getHandle();
+		
+		if (invoker == null)
+		{
+			return method.invoke(instance, arguments);
+		}
+		
+		try
+		{
+			return (Object) invoker.invokeExact(instance);
+		}
+		catch (Throwable throwable)
+		{
+			throw new InvocationTargetException(throwable);
+		}
+	}
+	
+	/**
+	 * Gets the canonical instance of this invocation.
+	 * 
+	 * @return the canonical invocation that is equal to this invocation, which is this invocation if there was none
+	 */
+	public MethodInvocation intern()
+	{
+		return INTERNER.intern(this);
+	}
+	
+	/**
+	 * Compiles this invocation into a method handle that returns its value as the given type without boxing.
+	 * 
+	 * @param returnType
+	 *            the type to return the value as, such as {@code int.class}
+	 * @return a method handle of type {@code (Object)returnType} bound to this invocation's arguments, or {@code null}
+	 *         if this method must be invoked reflectively
+	 */
+	public MethodHandle compile(Class<?> returnType)
+	{
+		return compile(method, arguments, MethodType.methodType(returnType, Object.class));
+	}
+	
+	/**
+	 * Compiles the method handle that this invocation is invoked with, if it has not already been compiled.
+	 */
+	public void precompile()
+	{
+		getHandle();
 	}
 	
 	public Method getMethod()
@@ -70,6 +214,76 @@ class MethodInvocation implements SelfDescribing
 
 	public Object[] getArguments()
 	{
-		return arguments;
+		return (arguments.length == 0) ? NO_ARGUMENTS : arguments.clone();
+	}
+
+	// ----------------------------------------------------------------------------------------------------------------
+	// private methods
+	// ----------------------------------------------------------------------------------------------------------------
+
+	private Object invokeInstrumented(Object instance, MatcherMetricsListener listener)
+		throws IllegalAccessException, InvocationTargetException
+	{
+		long startTime = System.nanoTime();
+		boolean threw = true;
+		
+		try
+		{
+			Object value = accepts(instance) ? invokeAccepted(instance) : method.invoke(instance, arguments);
+			threw = false;
+			return value;
+		}
+		finally
+		{
+			listener.invocationCompleted(this, System.nanoTime() - startTime, threw);
+		}
+	}
+	
+	private MethodHandle getHandle()
+	{
+		if (!compiled)
+		{
+			handle = compile(method, arguments, INVOKER_TYPE);
+			compiled = true;
+		}
+		
+		return handle;
+	}
+
+	private static MethodHandle compile(Method method, Object[] arguments, MethodType type)
+	{
+		int modifiers = method.getModifiers();
+		
+		if (!Modifier.isPublic(modifiers) || Modifier.isStatic(modifiers)
+			|| !Modifier.isPublic(method.getDeclaringClass().getModifiers()))
+		{
+			return null;
+		}
+		
+		try
+		{
+			MethodHandle handle = MethodHandles.publicLookup().unreflect(method).asFixedArity();
+			
+			if (arguments.length > 0)
+			{
+				handle = MethodHandles.insertArguments(handle, 1, arguments);
+			}
+			
+			return handle.asType(type);
+		}
+		catch (IllegalAccessException exception)
+		{
+			return null;
+		}
+		catch (ClassCastException exception)
+		{
+			// arguments incompatible with parameter types so let reflection report it
+			return null;
+		}
+		catch (WrongMethodTypeException exception)
+		{
+			// return type cannot be converted so let reflection report it
+			return null;
+		}
 	}
 }
@@ -0,0 +1,35 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hobsoft.hamcrest.submatcher;
+
+/**
+ * Policy for null values along the property path of a method value matcher.
+ */
+public enum NullPolicy
+{
+	/**
+	 * A null intermediate value mismatches and a null final value is matched by the submatcher.
+	 */
+	DEFAULT,
+	
+	/**
+	 * A null value anywhere along the path matches without invoking the submatcher.
+	 */
+	MATCH,
+	
+	/**
+	 * A null value anywhere along the path mismatches without invoking the submatcher.
+	 */
+	MISMATCH
+}
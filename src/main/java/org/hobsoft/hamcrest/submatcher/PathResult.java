@@ -0,0 +1,147 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hobsoft.hamcrest.submatcher;
+
+import static org.hobsoft.hamcrest.submatcher.Preconditions.checkNotNull;
+
+/**
+ * Result of following a property path on an instance.
+ * <p>
+ * A path is either followed to its end, giving a value, or stops at the first null value or at a method that throws an
+ * exception. Results for null values are created once per path, so following a path to a null value creates neither
+ * an exception nor a description.
+ * 
+ * @param <U>
+ *            the value type
+ * @see PropertyPath#evaluate(Object)
+ */
+public final class PathResult<U>
+{
+	// ----------------------------------------------------------------------------------------------------------------
+	// fields
+	// ----------------------------------------------------------------------------------------------------------------
+
+	private final U value;
+	
+	private final boolean complete;
+	
+	private final int nullLength;
+	
+	private final Throwable exception;
+
+	// ----------------------------------------------------------------------------------------------------------------
+	// constructors
+	// ----------------------------------------------------------------------------------------------------------------
+
+	private PathResult(U value, boolean complete, int nullLength, Throwable exception)
+	{
+		this.value = value;
+		this.complete = complete;
+		this.nullLength = nullLength;
+		this.exception = exception;
+	}
+
+	// ----------------------------------------------------------------------------------------------------------------
+	// Object methods
+	// ----------------------------------------------------------------------------------------------------------------
+
+	@Override
+	public String toString()
+	{
+		if (complete)
+		{
+			return "value=" + value;
+		}
+		
+		return (exception != null) ? "exception=" + exception : "nullLength=" + nullLength;
+	}
+
+	// ----------------------------------------------------------------------------------------------------------------
+	// public methods
+	// ----------------------------------------------------------------------------------------------------------------
+
+	/**
+	 * Gets whether the path was followed to its end.
+	 * 
+	 * @return {@code true} if the path gave a value, which may be null
+	 */
+	public boolean isComplete()
+	{
+		return complete;
+	}
+	
+	/**
+	 * Gets the value at the end of the path.
+	 * 
+	 * @return the value, or {@code null} if the value is null or the path was not followed to its end
+	 */
+	public U getValue()
+	{
+		return value;
+	}
+	
+	/**
+	 * Gets whether a value along the path, including the final value, was null.
+	 * 
+	 * @return {@code true} if a value was null
+	 */
+	public boolean isNull()
+	{
+		return nullLength > 0;
+	}
+	
+	/**
+	 * Gets the number of invocations along the path that led to the first null value.
+	 * 
+	 * @return the length of the path to the null value, or {@code 0} if no value was null
+	 */
+	public int getNullLength()
+	{
+		return nullLength;
+	}
+	
+	/**
+	 * Gets the exception thrown by a method along the path.
+	 * 
+	 * @return the exception, or {@code null} if no method threw an exception
+	 */
+	public Throwable getException()
+	{
+		return exception;
+	}
+
+	// ----------------------------------------------------------------------------------------------------------------
+	// package methods
+	// ----------------------------------------------------------------------------------------------------------------
+
+	static <U> PathResult<U> value(U value)
+	{
+		return new PathResult<U>(value, true, 0, null);
+	}
+	
+	static <U> PathResult<U> nullValue(int length, boolean complete)
+	{
+		if (length < 1)
+		{
+			throw new IllegalArgumentException("length must be positive: " + length);
+		}
+		
+		return new PathResult<U>(null, complete, length, null);
+	}
+	
+	static <U> PathResult<U> exception(Throwable exception)
+	{
+		return new PathResult<U>(null, false, 0, checkNotNull(exception, "exception"));
+	}
+}
@@ -0,0 +1,232 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hobsoft.hamcrest.submatcher;
+
+import org.hamcrest.Description;
+
+/**
+ * Factory methods for matchers of primitive values that do not box them.
+ */
+public final class PrimitiveMatchers
+{
+	// ----------------------------------------------------------------------------------------------------------------
+	// constructors
+	// ----------------------------------------------------------------------------------------------------------------
+
+	private PrimitiveMatchers()
+	{
+		throw new AssertionError();
+	}
+
+	// ----------------------------------------------------------------------------------------------------------------
+	// public methods
+	// ----------------------------------------------------------------------------------------------------------------
+
+	public static IntMatcher intEqualTo(int value)
+	{
+		return new IntComparison(Comparison.EQUAL_TO, value);
+	}
+	
+	public static IntMatcher intGreaterThan(int value)
+	{
+		return new IntComparison(Comparison.GREATER_THAN, value);
+	}
+	
+	public static IntMatcher intLessThan(int value)
+	{
+		return new IntComparison(Comparison.LESS_THAN, value);
+	}
+	
+	public static LongMatcher longEqualTo(long value)
+	{
+		return new LongComparison(Comparison.EQUAL_TO, value);
+	}
+	
+	public static LongMatcher longGreaterThan(long value)
+	{
+		return new LongComparison(Comparison.GREATER_THAN, value);
+	}
+	
+	public static LongMatcher longLessThan(long value)
+	{
+		return new LongComparison(Comparison.LESS_THAN, value);
+	}
+	
+	public static DoubleMatcher doubleCloseTo(final double value, final double error)
+	{
+		return new DoubleMatcher()
+		{
+			public boolean matches(double actual)
+			{
+				return Math.abs(actual - value) <= error;
+			}
+			
+			public void describeTo(Description description)
+			{
+				description.appendText("a numeric value within ")
+					.appendValue(error)
+					.appendText(" of ")
+					.appendValue(value);
+			}
+		};
+	}
+	
+	public static DoubleMatcher doubleGreaterThan(double value)
+	{
+		return new DoubleComparison(Comparison.GREATER_THAN, value);
+	}
+	
+	public static DoubleMatcher doubleLessThan(double value)
+	{
+		return new DoubleComparison(Comparison.LESS_THAN, value);
+	}
+	
+	// ----------------------------------------------------------------------------------------------------------------
+	// types
+	// ----------------------------------------------------------------------------------------------------------------
+
+	/**
+	 * Comparison of an actual value with an expected value.
+	 */
+	private enum Comparison
+	{
+		EQUAL_TO("")
+		{
+			@Override
+			public boolean accepts(int result)
+			{
+				return result == 0;
+			}
+		},
+		
+		GREATER_THAN("a value greater than ")
+		{
+			@Override
+			public boolean accepts(int result)
+			{
+				return result > 0;
+			}
+		},
+		
+		LESS_THAN("a value less than ")
+		{
+			@Override
+			public boolean accepts(int result)
+			{
+				return result < 0;
+			}
+		};
+		
+		private final String text;
+		
+		private Comparison(String text)
+		{
+			this.text = text;
+		}
+		
+		/**
+		 * Gets whether this comparison accepts the result of comparing the actual value with the expected value.
+		 * 
+		 * @param result
+		 *            the comparison result, which is negative, zero or positive as the actual value is less than,
+		 *            equal to or greater than the expected value
+		 * @return whether the actual value matches
+		 */
+		public abstract boolean accepts(int result);
+		
+		public void describeTo(Description description, Object value)
+		{
+			description.appendText(text)
+				.appendValue(value);
+		}
+	}
+	
+	/**
+	 * Comparison of {@code int} values.
+	 */
+	private static final class IntComparison implements IntMatcher
+	{
+		private final Comparison comparison;
+		
+		private final int value;
+		
+		public IntComparison(Comparison comparison, int value)
+		{
+			this.comparison = comparison;
+			this.value = value;
+		}
+		
+		public boolean matches(int actual)
+		{
+			return comparison.accepts(Integer.compare(actual, value));
+		}
+		
+		public void describeTo(Description description)
+		{
+			comparison.describeTo(description, value);
+		}
+	}
+	
+	/**
+	 * Comparison of {@code long} values.
+	 */
+	private static final class LongComparison implements LongMatcher
+	{
+		private final Comparison comparison;
+		
+		private final long value;
+		
+		public LongComparison(Comparison comparison, long value)
+		{
+			this.comparison = comparison;
+			this.value = value;
+		}
+		
+		public boolean matches(long actual)
+		{
+			return comparison.accepts(Long.compare(actual, value));
+		}
+		
+		public void describeTo(Description description)
+		{
+			comparison.describeTo(description, value);
+		}
+	}
+	
+	/**
+	 * Comparison of {@code double} values.
+	 */
+	private static final class DoubleComparison implements DoubleMatcher
+	{
+		private final Comparison comparison;
+		
+		private final double value;
+		
+		public DoubleComparison(Comparison comparison, double value)
+		{
+			this.comparison = comparison;
+			this.value = value;
+		}
+		
+		public boolean matches(double actual)
+		{
+			return comparison.accepts(Double.compare(actual, value));
+		}
+		
+		public void describeTo(Description description)
+		{
+			comparison.describeTo(description, value);
+		}
+	}
+}
@@ -0,0 +1,188 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hobsoft.hamcrest.submatcher;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.reflect.InvocationTargetException;
+
+import org.hamcrest.Description;
+import org.hamcrest.SelfDescribing;
+import org.hamcrest.TypeSafeDiagnosingMatcher;
+
+import static org.hobsoft.hamcrest.submatcher.Descriptions.isRendered;
+import static org.hobsoft.hamcrest.submatcher.Preconditions.checkNotNull;
+
+/**
+ * Base matcher for a primitive method value of an instance that reads the value without boxing it.
+ * <p>
+ * The last invocation of the path is compiled into a method handle that returns the primitive type, so matching the
+ * value of a public method allocates nothing. Other methods are invoked reflectively and their values unboxed.
+ * 
+ * @param <T>
+ *            the instance type
+ */
+abstract class PrimitiveValueMatcher<T> extends TypeSafeDiagnosingMatcher<T>
+{
+	// ----------------------------------------------------------------------------------------------------------------
+	// fields
+	// ----------------------------------------------------------------------------------------------------------------
+
+	private final PropertyPath<T, ?> path;
+	
+	private final SelfDescribing submatcher;
+	
+	private final MethodHandle accessor;
+
+	// ----------------------------------------------------------------------------------------------------------------
+	// constructors
+	// ----------------------------------------------------------------------------------------------------------------
+
+	PrimitiveValueMatcher(PropertyPath<T, ?> path, SelfDescribing submatcher, Class<?> primitiveType)
+	{
+		super(CachingTypeFinder.MATCHES_SAFELY);
+		
+		this.path = checkNotNull(path, "path");
+		this.submatcher = checkNotNull(submatcher, "submatcher");
+		accessor = path.getInvocation().compile(primitiveType);
+	}
+
+	// ----------------------------------------------------------------------------------------------------------------
+	// TypeSafeDiagnosingMatcher methods
+	// ----------------------------------------------------------------------------------------------------------------
+
+	@Override
+	protected boolean matchesSafely(T actual, Description mismatchDescription)
+	{
+		try
+		{
+			return matchesTarget(path.invokeParent(actual), mismatchDescription);
+		}
+		catch (InvocationTargetException exception)
+		{
+			mismatchDescription.appendText("threw ")
+				.appendValue(exception.getCause());
+			
+			return false;
+		}
+		catch (NullPropertyException exception)
+		{
+			if (isRendered(mismatchDescription))
+			{
+				path.describeTo(mismatchDescription, exception.getLength());
+				mismatchDescription.appendText(" was null");
+			}
+			
+			return false;
+		}
+		catch (IllegalAccessException exception)
+		{
+			throw new IllegalStateException("Cannot access method: " + path.getInvocation().getMethod(), exception);
+		}
+	}
+
+	// ----------------------------------------------------------------------------------------------------------------
+	// SelfDescribing methods
+	// ----------------------------------------------------------------------------------------------------------------
+
+	public void describeTo(Description description)
+	{
+		description.appendText("has value ")
+			.appendDescriptionOf(path)
+			.appendText(" ")
+			.appendDescriptionOf(submatcher);
+	}
+
+	// ----------------------------------------------------------------------------------------------------------------
+	// package methods
+	// ----------------------------------------------------------------------------------------------------------------
+
+	/**
+	 * Matches the value read by the given method handle, which returns this matcher's primitive type.
+	 * 
+	 * @param accessor
+	 *            the method handle to invoke exactly on the target
+	 * @param target
+	 *            the non-null instance to invoke the last invocation on
+	 * @return whether the value matches
+	 * @throws InvocationTargetException
+	 *             if the method throws an exception
+	 */
+	abstract boolean matchesAccessed(MethodHandle accessor, Object target) throws InvocationTargetException;
+	
+	/**
+	 * Matches a value that was invoked reflectively.
+	 * 
+	 * @param value
+	 *            the value, converted to this matcher's primitive type
+	 * @return whether the value matches
+	 */
+	abstract boolean matchesValue(Number value);
+	
+	/**
+	 * Converts a value that was invoked reflectively to the wrapper of this matcher's primitive type.
+	 * 
+	 * @param value
+	 *            the value
+	 * @return the converted value
+	 */
+	abstract Number toValue(Number value);
+	
+	PropertyPath<T, ?> getPath()
+	{
+		return path;
+	}
+	
+	SelfDescribing getSubmatcher()
+	{
+		return submatcher;
+	}
+	
+	// ----------------------------------------------------------------------------------------------------------------
+	// private methods
+	// ----------------------------------------------------------------------------------------------------------------
+
+	private boolean matchesTarget(Object target, Description mismatchDescription)
+		throws IllegalAccessException, InvocationTargetException
+	{
+		// a described mismatch appends the value boxed anyway, so read it the same way
+		if (isRendered(mismatchDescription))
+		{
+			Number value = toValue(invokeReflectively(target));
+			
+			if (matchesValue(value))
+			{
+				return true;
+			}
+			
+			mismatchDescription.appendText("was ")
+				.appendValue(value);
+			
+			return false;
+		}
+		
+		if (accessor != null && path.getInvocation().accepts(target))
+		{
+			return matchesAccessed(accessor, target);
+		}
+		
+		return matchesValue(toValue(invokeReflectively(target)));
+	}
+	
+	private Number invokeReflectively(Object target) throws IllegalAccessException, InvocationTargetException
+	{
+		Object value = path.getInvocation().invoke(target);
+		
+		return (value instanceof Character) ? Integer.valueOf((Character) value) : (Number) value;
+	}
+}
@@ -0,0 +1,402 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hobsoft.hamcrest.submatcher;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.hamcrest.Description;
+import org.hamcrest.Matcher;
+import org.hamcrest.SelfDescribing;
+
+import static org.hobsoft.hamcrest.submatcher.Preconditions.checkNotNull;
+
+/**
+ * Recorded path to a value of an instance.
+ * <p>
+ * A path is a chain of one or more method invocations, such as {@code getAddress().getCity()}, that is followed in a
+ * single pass. Paths are immutable and can be shared between threads, so a path can be recorded once and then bound
+ * to any number of submatchers without further use of spies. For example:
+ * <pre>
+ * PropertyPath&lt;Person, String&gt; city = path(on(Person.class).getAddress().getCity());
+ * 
+ * assertThat(actual, city.hasValue(equalTo("x")));
+ * </pre>
+ * 
+ * @param <T>
+ *            the instance type
+ * @param <U>
+ *            the value type
+ */
+public final class PropertyPath<T, U> implements SelfDescribing
+{
+	// ----------------------------------------------------------------------------------------------------------------
+	// fields
+	// ----------------------------------------------------------------------------------------------------------------
+
+	private final List<MethodInvocation> invocations;
+	
+	private final MethodInvocation[] steps;
+	
+	private final List<PathResult<U>> intermediateNullResults;
+	
+	private final PathResult<U> finalNullResult;
+	
+	private final int hashCode;
+
+	// ----------------------------------------------------------------------------------------------------------------
+	// constructors
+	// ----------------------------------------------------------------------------------------------------------------
+
+	PropertyPath(MethodInvocation invocation)
+	{
+		this(Collections.singletonList(checkNotNull(invocation, "invocation")));
+	}
+
+	PropertyPath(List<MethodInvocation> invocations)
+	{
+		checkNotNull(invocations, "invocations");
+		
+		if (invocations.isEmpty())
+		{
+			throw new IllegalArgumentException("invocations must not be empty");
+		}
+		
+		this.invocations = Collections.unmodifiableList(new ArrayList<MethodInvocation>(invocations));
+		steps = this.invocations.toArray(new MethodInvocation[this.invocations.size()]);
+		intermediateNullResults = newIntermediateNullResults(steps.length);
+		finalNullResult = PathResult.nullValue(steps.length, true);
+		hashCode = this.invocations.hashCode();
+	}
+
+	// ----------------------------------------------------------------------------------------------------------------
+	// Object methods
+	// ----------------------------------------------------------------------------------------------------------------
+
+	@Override
+	public int hashCode()
+	{
+		return hashCode;
+	}
+	
+	@Override
+	public boolean equals(Object object)
+	{
+		if (object == this)
+		{
+			return true;
+		}
+		
+		if (!(object instanceof PropertyPath))
+		{
+			return false;
+		}
+		
+		PropertyPath<?, ?> path = (PropertyPath<?, ?>) object;
+		
+		return hashCode == path.hashCode
+			&& Arrays.equals(steps, path.steps);
+	}
+	
+	// ----------------------------------------------------------------------------------------------------------------
+	// SelfDescribing methods
+	// ----------------------------------------------------------------------------------------------------------------
+
+	public void describeTo(Description description)
+	{
+		describeTo(description, invocations.size());
+	}
+
+	// ----------------------------------------------------------------------------------------------------------------
+	// public methods
+	// ----------------------------------------------------------------------------------------------------------------
+
+	public static <T, U> PropertyPath<T, U> path(U on)
+	{
+		return take("path");
+	}
+	
+	public HasValueMatcher<T, U> hasValue(Matcher<U> submatcher)
+	{
+		return new HasValueMatcher<T, U>(this, submatcher);
+	}
+	
+	public HasValueMatcher<T, U> hasValue(Matcher<U> submatcher, NullPolicy nullPolicy)
+	{
+		return new HasValueMatcher<T, U>(this, submatcher, nullPolicy);
+	}
+	
+	/**
+	 * Follows this path on an instance.
+	 * 
+	 * @param instance
+	 *            the instance to follow this path from
+	 * @return the value at the end of this path, or where this path stopped at a null value or an exception
+	 */
+	public PathResult<U> evaluate(T instance)
+	{
+		checkNotNull(instance, "instance");
+		
+		Object value;
+		try
+		{
+			value = follow(instance);
+		}
+		catch (InvocationTargetException exception)
+		{
+			return PathResult.exception(exception.getCause());
+		}
+		catch (IllegalAccessException exception)
+		{
+			throw new IllegalStateException("Cannot access method: " + getInvocation().getMethod(), exception);
+		}
+		
+		if (value == null)
+		{
+			return finalNullResult;
+		}
+		
+		int nullLength = getNullLength(value);
+		
+		if (nullLength > 0)
+		{
+			return intermediateNullResults.get(nullLength - 1);
+		}
+		
+		// the last invocation was recorded on a spy as returning U
+		@SuppressWarnings("unchecked")
+		U typedValue = (U) value;
+		
+		return PathResult.value(typedValue);
+	}
+	
+	// ----------------------------------------------------------------------------------------------------------------
+	// package methods
+	// ----------------------------------------------------------------------------------------------------------------
+
+	static <T, U> PropertyPath<T, U> take(String factoryName)
+	{
+		if (!SpyHolder.hasSpy())
+		{
+			throw new IllegalStateException("on() must be invoked before " + factoryName + "()");
+		}
+		
+		Spy<?> spy = SpyHolder.takeSpy();
+		
+		// the caller declares the types of the path recorded on its behalf, as the factory methods always have
+		@SuppressWarnings("unchecked")
+		PropertyPath<T, U> path = (PropertyPath<T, U>) spy.getPath();
+		
+		spy.release();
+		
+		return path;
+	}
+	
+	Object invoke(Object instance) throws IllegalAccessException, InvocationTargetException, NullPropertyException
+	{
+		return checkNotIntermediateNull(follow(instance));
+	}
+	
+	boolean accepts(Object instance)
+	{
+		return invocations.get(0).accepts(instance);
+	}
+	
+	Object invokeAccepted(Object instance)
+		throws IllegalAccessException, InvocationTargetException, NullPropertyException
+	{
+		return checkNotIntermediateNull(followAccepted(instance));
+	}
+	
+	/**
+	 * Follows this path, stopping at the first intermediate null value without throwing an exception.
+	 * 
+	 * @param instance
+	 *            the instance to follow this path from
+	 * @return the final value, which may be null, or a result for which {@link #getNullLength(Object)} returns the
+	 *         length of the path to an intermediate null value
+	 * @throws IllegalAccessException
+	 *             if a method is inaccessible
+	 * @throws InvocationTargetException
+	 *             if a method throws an exception
+	 */
+	Object follow(Object instance) throws IllegalAccessException, InvocationTargetException
+	{
+		return followRemaining(steps[0].invoke(instance));
+	}
+	
+	Object followAccepted(Object instance) throws IllegalAccessException, InvocationTargetException
+	{
+		return followRemaining(steps[0].invokeAccepted(instance));
+	}
+	
+	/**
+	 * Gets the length of the path to the intermediate null value at which following this path stopped.
+	 * 
+	 * @param followed
+	 *            the value returned by {@link #follow(Object)}
+	 * @return the length of the path to the null value, or {@code 0} if the path was followed to its end
+	 */
+	int getNullLength(Object followed)
+	{
+		if (!(followed instanceof PathResult))
+		{
+			return 0;
+		}
+		
+		// only this path's own results mark null values, rather than any result returned by a method
+		int nullLength = ((PathResult<?>) followed).getNullLength();
+		boolean intermediate = (nullLength > 0 && nullLength < steps.length);
+		
+		return (intermediate && intermediateNullResults.get(nullLength - 1) == followed) ? nullLength : 0;
+	}
+	
+	int getLength()
+	{
+		return steps.length;
+	}
+	
+	/**
+	 * Gets the result that {@link #follow(Object)} returns when it stops at an intermediate null value.
+	 * 
+	 * @param nullLength
+	 *            the length of the path to the null value
+	 * @return the result, for which {@link #getNullLength(Object)} returns the given length
+	 */
+	Object getIntermediateNullResult(int nullLength)
+	{
+		return intermediateNullResults.get(nullLength - 1);
+	}
+	
+	/**
+	 * Follows this path up to, but not including, its last invocation.
+	 * 
+	 * @param instance
+	 *            the instance to follow this path from
+	 * @return the instance to invoke the last invocation on
+	 * @throws IllegalAccessException
+	 *             if a method is inaccessible
+	 * @throws InvocationTargetException
+	 *             if a method throws an exception
+	 * @throws NullPropertyException
+	 *             if a value along this path, including the returned instance, is null
+	 */
+	Object invokeParent(Object instance)
+		throws IllegalAccessException, InvocationTargetException, NullPropertyException
+	{
+		Object value = instance;
+		
+		for (int index = 0; index < invocations.size() - 1; index++)
+		{
+			value = invocations.get(index).invoke(value);
+			
+			if (value == null)
+			{
+				throw new NullPropertyException(index + 1);
+			}
+		}
+		
+		return value;
+	}
+	
+	/**
+	 * Gets a path that reads the fields backing this path's getters instead of invoking them.
+	 * 
+	 * @return the field path, in which invocations with arguments are left to be invoked
+	 */
+	PropertyPath<T, U> toFields()
+	{
+		List<MethodInvocation> fieldInvocations = new ArrayList<MethodInvocation>(invocations.size());
+		
+		for (MethodInvocation invocation : invocations)
+		{
+			boolean getter = (invocation.getArguments().length == 0);
+			
+			fieldInvocations.add(getter ? new FieldInvocation(invocation.getMethod()).intern() : invocation);
+		}
+		
+		return new PropertyPath<T, U>(fieldInvocations);
+	}
+	
+	void describeTo(Description description, int length)
+	{
+		for (int index = 0; index < length; index++)
+		{
+			if (index > 0)
+			{
+				description.appendText(".");
+			}
+			
+			description.appendDescriptionOf(invocations.get(index));
+		}
+	}
+	
+	List<MethodInvocation> getInvocations()
+	{
+		return invocations;
+	}
+	
+	MethodInvocation getInvocation()
+	{
+		return invocations.get(invocations.size() - 1);
+	}
+	
+	// ----------------------------------------------------------------------------------------------------------------
+	// private methods
+	// ----------------------------------------------------------------------------------------------------------------
+
+	private Object followRemaining(Object firstValue) throws IllegalAccessException, InvocationTargetException
+	{
+		Object value = firstValue;
+		
+		for (int index = 1; index < steps.length; index++)
+		{
+			if (value == null)
+			{
+				return intermediateNullResults.get(index - 1);
+			}
+			
+			value = steps[index].invoke(value);
+		}
+		
+		return value;
+	}
+	
+	private Object checkNotIntermediateNull(Object followed) throws NullPropertyException
+	{
+		int nullLength = getNullLength(followed);
+		
+		if (nullLength > 0)
+		{
+			throw new NullPropertyException(nullLength);
+		}
+		
+		return followed;
+	}
+	
+	private static <U> List<PathResult<U>> newIntermediateNullResults(int length)
+	{
+		List<PathResult<U>> results = new ArrayList<PathResult<U>>(length - 1);
+		
+		for (int nullLength = 1; nullLength < length; nullLength++)
+		{
+			results.add(PathResult.<U>nullValue(nullLength, false));
+		}
+		
+		return Collections.unmodifiableList(results);
+	}
+}
@@ -0,0 +1,368 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hobsoft.hamcrest.submatcher;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.ServiceLoader;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hobsoft.hamcrest.submatcher.Preconditions.checkNotNull;
+
+/**
+ * Concurrent, bounded cache of proxy factories keyed by target type.
+ * <p>
+ * A type's identity includes its defining class loader, so same-named types from different class loaders are cached
+ * separately. Each factory is held by its type through a {@code ClassValue}, and the cache only weakly references types
+ * to track their use, so a cached factory never prevents its type's class loader from being unloaded. When the cache
+ * is full, the least recently used factory is evicted.
+ * <p>
+ * Factories are created by the highest priority {@code ProxyEngine} that supports the type. Concurrent first uses of a
+ * type create its factory once, while first uses of other types proceed independently.
+ */
+final class ProxyClassCache
+{
+	// ----------------------------------------------------------------------------------------------------------------
+	// constants
+	// ----------------------------------------------------------------------------------------------------------------
+
+	private static final int DEFAULT_MAXIMUM_SIZE = 512;
+
+	// ----------------------------------------------------------------------------------------------------------------
+	// fields
+	// ----------------------------------------------------------------------------------------------------------------
+
+	private final int maximumSize;
+
+	private final ClassValue<Entry> entries;
+
+	private final Set<TypeKey> keys;
+
+	private final ReferenceQueue<Class<?>> staleTypes;
+
+	private final List<ProxyEngine> engines;
+
+	private final AtomicLong hitCount;
+
+	private final AtomicLong missCount;
+
+	private final AtomicLong accessClock;
+
+	private final ProxyProfiler profiler;
+
+	// ----------------------------------------------------------------------------------------------------------------
+	// constructors
+	// ----------------------------------------------------------------------------------------------------------------
+
+	public ProxyClassCache()
+	{
+		this(DEFAULT_MAXIMUM_SIZE);
+	}
+
+	public ProxyClassCache(int maximumSize)
+	{
+		this(maximumSize, loadEngines());
+	}
+
+	public ProxyClassCache(int maximumSize, List<ProxyEngine> engines)
+	{
+		this(maximumSize, engines, new ProxyProfiler());
+	}
+
+	public ProxyClassCache(int maximumSize, List<ProxyEngine> engines, ProxyProfiler profiler)
+	{
+		if (maximumSize < 1)
+		{
+			throw new IllegalArgumentException("maximumSize must be positive: " + maximumSize);
+		}
+
+		this.maximumSize = maximumSize;
+		entries = new ClassValue<Entry>()
+		{
+			@Override
+			protected Entry computeValue(Class<?> type)
+			{
+				return new Entry();
+			}
+		};
+		keys = ConcurrentHashMap.newKeySet();
+		staleTypes = new ReferenceQueue<Class<?>>();
+		this.engines = sortByPriority(checkNotNull(engines, "engines"));
+		hitCount = new AtomicLong();
+		missCount = new AtomicLong();
+		accessClock = new AtomicLong();
+		this.profiler = checkNotNull(profiler, "profiler");
+	}
+
+	// ----------------------------------------------------------------------------------------------------------------
+	// public methods
+	// ----------------------------------------------------------------------------------------------------------------
+
+	public ProxyFactory get(Class<?> type)
+	{
+		checkNotNull(type, "type");
+
+		Entry entry = entries.get(type);
+		ProxyFactory factory = entry.factory;
+
+		if (factory != null)
+		{
+			hitCount.incrementAndGet();
+			entry.key.setLastAccessTime(accessClock.incrementAndGet());
+			return factory;
+		}
+
+		factory = getOrGenerate(type, entry);
+
+		evictExcess();
+
+		return factory;
+	}
+
+	public boolean supports(Class<?> type)
+	{
+		for (ProxyEngine engine : engines)
+		{
+			if (engine.supports(type))
+			{
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	public int size()
+	{
+		return keys.size();
+	}
+
+	public void clear()
+	{
+		for (TypeKey key : keys)
+		{
+			evict(key);
+		}
+	}
+
+	public CacheStatistics getStatistics()
+	{
+		return new CacheStatistics(hitCount.get(), missCount.get());
+	}
+
+	public List<ProxyEngine> getEngines()
+	{
+		return engines;
+	}
+
+	public ProxyProfiler getProfiler()
+	{
+		return profiler;
+	}
+
+	// ----------------------------------------------------------------------------------------------------------------
+	// private methods
+	// ----------------------------------------------------------------------------------------------------------------
+
+	private ProxyFactory getOrGenerate(Class<?> type, Entry entry)
+	{
+		// concurrent misses wait for the first to generate the factory rather than each generating their own
+		synchronized (entry)
+		{
+			ProxyFactory factory = entry.factory;
+
+			if (factory != null)
+			{
+				hitCount.incrementAndGet();
+				entry.key.setLastAccessTime(accessClock.incrementAndGet());
+				return factory;
+			}
+
+			missCount.incrementAndGet();
+			factory = generate(type);
+
+			expungeStaleTypes();
+
+			TypeKey key = new TypeKey(type, staleTypes, accessClock.incrementAndGet());
+			entry.key = key;
+			entry.factory = factory;
+			keys.add(key);
+
+			return factory;
+		}
+	}
+
+	private ProxyFactory generate(Class<?> type)
+	{
+		for (ProxyEngine engine : engines)
+		{
+			if (engine.supports(type))
+			{
+				return profiler.isEnabled() ? generateProfiled(engine, type) : engine.createFactory(type);
+			}
+		}
+
+		throw new IllegalArgumentException("No proxy engine supports type: " + type.getName());
+	}
+
+	private ProxyFactory generateProfiled(ProxyEngine engine, Class<?> type)
+	{
+		long startTime = System.nanoTime();
+		ProxyFactory factory = engine.createFactory(type);
+		
+		profiler.recordGeneration(type, engine.getName(), System.nanoTime() - startTime, factory.getBytecodeLength());
+		
+		return factory;
+	}
+
+	private void expungeStaleTypes()
+	{
+		Reference<? extends Class<?>> staleType;
+
+		while ((staleType = staleTypes.poll()) != null)
+		{
+			keys.remove(staleType);
+		}
+	}
+
+	private static List<ProxyEngine> loadEngines()
+	{
+		List<ProxyEngine> engines = new ArrayList<ProxyEngine>();
+
+		for (ProxyEngine engine : ServiceLoader.load(ProxyEngine.class, ProxyEngine.class.getClassLoader()))
+		{
+			engines.add(engine);
+		}
+
+		return engines;
+	}
+
+	private static List<ProxyEngine> sortByPriority(List<ProxyEngine> engines)
+	{
+		List<ProxyEngine> sortedEngines = new ArrayList<ProxyEngine>(engines);
+
+		Collections.sort(sortedEngines, new Comparator<ProxyEngine>()
+		{
+			public int compare(ProxyEngine engine1, ProxyEngine engine2)
+			{
+				return Integer.compare(engine2.getPriority(), engine1.getPriority());
+			}
+		});
+
+		return Collections.unmodifiableList(sortedEngines);
+	}
+
+	private void evictExcess()
+	{
+		while (keys.size() > maximumSize)
+		{
+			TypeKey eldestKey = findLeastRecentlyUsed();
+
+			if (eldestKey == null)
+			{
+				return;
+			}
+
+			evict(eldestKey);
+		}
+	}
+
+	private TypeKey findLeastRecentlyUsed()
+	{
+		TypeKey eldestKey = null;
+
+		for (TypeKey key : keys)
+		{
+			// types already collected are evicted first
+			if (key.get() == null)
+			{
+				return key;
+			}
+
+			if (eldestKey == null || key.getLastAccessTime() < eldestKey.getLastAccessTime())
+			{
+				eldestKey = key;
+			}
+		}
+
+		return eldestKey;
+	}
+
+	private void evict(TypeKey key)
+	{
+		Class<?> type = key.get();
+
+		if (!keys.remove(key) || type == null)
+		{
+			return;
+		}
+
+		Entry entry = entries.get(type);
+
+		synchronized (entry)
+		{
+			// the type may have been regenerated since this key was found
+			if (entry.key == key)
+			{
+				entry.factory = null;
+			}
+		}
+	}
+
+	// ----------------------------------------------------------------------------------------------------------------
+	// types
+	// ----------------------------------------------------------------------------------------------------------------
+
+	/**
+	 * Factory for a type, held by the type itself so that it lives no longer than the type's class loader.
+	 */
+	private static final class Entry
+	{
+		private volatile ProxyFactory factory;
+
+		// written before factory and so published by it
+		private TypeKey key;
+	}
+
+	/**
+	 * Weak reference to a cached type that records when its factory was last used.
+	 */
+	private static final class TypeKey extends WeakReference<Class<?>>
+	{
+		private volatile long lastAccessTime;
+
+		public TypeKey(Class<?> type, ReferenceQueue<Class<?>> queue, long lastAccessTime)
+		{
+			super(type, queue);
+			this.lastAccessTime = lastAccessTime;
+		}
+
+		public long getLastAccessTime()
+		{
+			return lastAccessTime;
+		}
+
+		public void setLastAccessTime(long lastAccessTime)
+		{
+			this.lastAccessTime = lastAccessTime;
+		}
+	}
+}
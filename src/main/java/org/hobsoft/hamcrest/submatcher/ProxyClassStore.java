@@ -0,0 +1,385 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hobsoft.hamcrest.submatcher;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.LinkedHashSet;
+import java.util.Properties;
+import java.util.Set;
+
+import net.sf.cglib.core.ReflectUtils;
+
+import static org.hobsoft.hamcrest.submatcher.Preconditions.checkNotNull;
+
+/**
+ * Directory of generated proxy classes that persists across JVMs.
+ * <p>
+ * Each proxy class is stored under a key that hashes the bytecode of the proxied type and its supertypes together with
+ * the versions of this library and CGLib, so that a stored class is never used for a type that has changed since.
+ * Both versions are written into a resource by the build. Stored classes are defined in the proxied type's class
+ * loader instead of being generated again. Any failure to read the versions, or to read or write the directory, is
+ * ignored, leaving the proxy class to be generated as usual.
+ */
+final class ProxyClassStore
+{
+	// ----------------------------------------------------------------------------------------------------------------
+	// constants
+	// ----------------------------------------------------------------------------------------------------------------
+
+	/**
+	 * The system property that names the directory to store proxy classes in, enabling the store.
+	 */
+	public static final String DIRECTORY_PROPERTY = "hamcrest.submatcher.proxyClassDirectory";
+	
+	private static final int FORMAT_VERSION = 1;
+	
+	private static final String FILE_SUFFIX = ".proxy";
+	
+	private static final int BUFFER_SIZE = 8192;
+	
+	private static final Properties VERSIONS = loadVersions("version.properties");
+
+	// ----------------------------------------------------------------------------------------------------------------
+	// fields
+	// ----------------------------------------------------------------------------------------------------------------
+
+	private final File directory;
+	
+	private final String libraryVersion;
+	
+	private final String cglibVersion;
+
+	// ----------------------------------------------------------------------------------------------------------------
+	// constructors
+	// ----------------------------------------------------------------------------------------------------------------
+
+	public ProxyClassStore(File directory)
+	{
+		this(directory, getVersion("version"), getVersion("cglibVersion"));
+	}
+	
+	public ProxyClassStore(File directory, String libraryVersion, String cglibVersion)
+	{
+		this.directory = checkNotNull(directory, "directory");
+		this.libraryVersion = libraryVersion;
+		this.cglibVersion = cglibVersion;
+	}
+
+	// ----------------------------------------------------------------------------------------------------------------
+	// public methods
+	// ----------------------------------------------------------------------------------------------------------------
+
+	/**
+	 * Gets the key to store the proxy class of a type under.
+	 * 
+	 * @param type
+	 *            the proxied type
+	 * @return the key, or {@code null} if either version is unknown or the bytecode of the type or one of its
+	 *         supertypes cannot be read
+	 */
+	public String getKey(Class<?> type)
+	{
+		if (libraryVersion == null || cglibVersion == null)
+		{
+			return null;
+		}
+		
+		MessageDigest digest = newDigest();
+		update(digest, String.valueOf(FORMAT_VERSION));
+		update(digest, libraryVersion);
+		update(digest, cglibVersion);
+		
+		for (Class<?> hierarchyType : getHierarchy(type))
+		{
+			update(digest, hierarchyType.getName());
+			
+			if (hierarchyType.getClassLoader() == null)
+			{
+				// platform types change with the JVM
+				update(digest, System.getProperty("java.version"));
+			}
+			else
+			{
+				byte[] bytecode = readBytecode(hierarchyType);
+				
+				if (bytecode == null)
+				{
+					return null;
+				}
+				
+				digest.update(bytecode);
+			}
+		}
+		
+		return toHex(digest.digest());
+	}
+	
+	/**
+	 * Loads the proxy class stored under a key, defining it if it was not already.
+	 * 
+	 * @param key
+	 *            the key of the proxy class
+	 * @param classLoader
+	 *            the class loader to define the proxy class in
+	 * @return the proxy class, or {@code null} if none is stored or it cannot be defined
+	 */
+	public Class<?> load(String key, ClassLoader classLoader)
+	{
+		File file = getFile(key);
+		
+		if (!file.isFile())
+		{
+			return null;
+		}
+		
+		try (DataInputStream in = new DataInputStream(Files.newInputStream(file.toPath())))
+		{
+			if (in.readInt() != FORMAT_VERSION)
+			{
+				return null;
+			}
+			
+			String className = in.readUTF();
+			byte[] bytecode = readFully(in);
+			
+			return define(className, bytecode, classLoader);
+		}
+		catch (IOException exception)
+		{
+			return null;
+		}
+	}
+	
+	/**
+	 * Stores a generated proxy class under a key.
+	 * 
+	 * @param key
+	 *            the key of the proxy class
+	 * @param className
+	 *            the name of the proxy class
+	 * @param bytecode
+	 *            the bytecode of the proxy class
+	 */
+	public void save(String key, String className, byte[] bytecode)
+	{
+		try
+		{
+			Files.createDirectories(directory.toPath());
+			
+			// concurrent JVMs each write their own file and then replace the stored one whole
+			Path tempFile = Files.createTempFile(directory.toPath(), key, ".tmp");
+			
+			try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(tempFile)))
+			{
+				out.writeInt(FORMAT_VERSION);
+				out.writeUTF(className);
+				out.write(bytecode);
+			}
+			
+			move(tempFile, getFile(key).toPath());
+		}
+		catch (IOException exception)
+		{
+			// the class is generated again next time
+			return;
+		}
+	}
+	
+	public File getDirectory()
+	{
+		return directory;
+	}
+	
+	public String getLibraryVersion()
+	{
+		return libraryVersion;
+	}
+	
+	public String getCglibVersion()
+	{
+		return cglibVersion;
+	}
+	
+	// ----------------------------------------------------------------------------------------------------------------
+	// private methods
+	// ----------------------------------------------------------------------------------------------------------------
+
+	private static Properties loadVersions(String resourceName)
+	{
+		Properties versions = new Properties();
+		
+		try (InputStream in = ProxyClassStore.class.getResourceAsStream(resourceName))
+		{
+			if (in != null)
+			{
+				versions.load(in);
+			}
+		}
+		catch (IOException exception)
+		{
+			// versions are unknown and proxy classes are not stored
+		}
+		
+		return versions;
+	}
+	
+	private static String getVersion(String name)
+	{
+		String version = VERSIONS.getProperty(name);
+		
+		// an unfiltered resource names the Maven property instead
+		return (version != null && !version.startsWith("${")) ? version : null;
+	}
+	
+	private File getFile(String key)
+	{
+		return new File(directory, key + FILE_SUFFIX);
+	}
+	
+	private static Class<?> define(String className, byte[] bytecode, ClassLoader classLoader)
+	{
+		try
+		{
+			// another engine may have defined it already
+			return Class.forName(className, false, classLoader);
+		}
+		catch (ClassNotFoundException exception)
+		{
+			// define below
+		}
+		
+		try
+		{
+			return ReflectUtils.defineClass(className, bytecode, classLoader);
+		}
+		catch (Exception | LinkageError exception)
+		{
+			return null;
+		}
+	}
+	
+	private static void move(Path source, Path target) throws IOException
+	{
+		try
+		{
+			Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+		}
+		catch (AtomicMoveNotSupportedException exception)
+		{
+			Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+		}
+		finally
+		{
+			Files.deleteIfExists(source);
+		}
+	}
+	
+	private static Set<Class<?>> getHierarchy(Class<?> type)
+	{
+		Set<Class<?>> hierarchy = new LinkedHashSet<Class<?>>();
+		addHierarchy(type, hierarchy);
+		return hierarchy;
+	}
+	
+	private static void addHierarchy(Class<?> type, Set<Class<?>> hierarchy)
+	{
+		if (type == null || !hierarchy.add(type))
+		{
+			return;
+		}
+		
+		addHierarchy(type.getSuperclass(), hierarchy);
+		
+		for (Class<?> interfaceType : type.getInterfaces())
+		{
+			addHierarchy(interfaceType, hierarchy);
+		}
+	}
+	
+	private static byte[] readBytecode(Class<?> type)
+	{
+		String resourceName = type.getName().replace('.', '/') + ".class";
+		
+		try (InputStream in = type.getClassLoader().getResourceAsStream(resourceName))
+		{
+			return (in != null) ? readFully(in) : null;
+		}
+		catch (IOException exception)
+		{
+			return null;
+		}
+	}
+	
+	private static byte[] readFully(InputStream in) throws IOException
+	{
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		copy(in, bytes);
+		return bytes.toByteArray();
+	}
+	
+	private static void copy(InputStream in, OutputStream out) throws IOException
+	{
+		byte[] buffer = new byte[BUFFER_SIZE];
+		int length;
+		
+		while ((length = in.read(buffer)) != -1)
+		{
+			out.write(buffer, 0, length);
+		}
+	}
+	
+	private static MessageDigest newDigest()
+	{
+		try
+		{
+			return MessageDigest.getInstance("SHA-256");
+		}
+		catch (NoSuchAlgorithmException exception)
+		{
+			// every JVM supports SHA-256
+			throw new IllegalStateException(exception);
+		}
+	}
+	
+	private static void update(MessageDigest digest, String string)
+	{
+		digest.update(string.getBytes(StandardCharsets.UTF_8));
+		digest.update((byte) 0);
+	}
+	
+	private static String toHex(byte[] bytes)
+	{
+		StringBuilder hex = new StringBuilder(bytes.length * 2);
+		
+		for (byte b : bytes)
+		{
+			hex.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+		}
+		
+		return hex.toString();
+	}
+}
@@ -0,0 +1,47 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hobsoft.hamcrest.submatcher;
+
+/**
+ * Service provider that creates the proxies behind spies.
+ * <p>
+ * Engines are discovered with {@code ServiceLoader} and each type is proxied by the engine with the highest priority
+ * that supports it. Factories are cached per type, so engines need not cache them themselves.
+ */
+public interface ProxyEngine
+{
+	// ----------------------------------------------------------------------------------------------------------------
+	// public methods
+	// ----------------------------------------------------------------------------------------------------------------
+
+	String getName();
+	
+	/**
+	 * Gets the priority of this engine over others that support the same type.
+	 * 
+	 * @return the priority, where engines with higher priorities are preferred
+	 */
+	int getPriority();
+	
+	boolean supports(Class<?> type);
+	
+	/**
+	 * Creates a factory for proxies of the given type.
+	 * 
+	 * @param type
+	 *            the type to proxy, which this engine supports
+	 * @return the proxy factory
+	 */
+	ProxyFactory createFactory(Class<?> type);
+}
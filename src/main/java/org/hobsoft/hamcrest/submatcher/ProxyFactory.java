@@ -0,0 +1,38 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hobsoft.hamcrest.submatcher;
+
+/**
+ * Creates proxies of a type that pass their method invocations to an interceptor.
+ */
+public interface ProxyFactory
+{
+	// ----------------------------------------------------------------------------------------------------------------
+	// public methods
+	// ----------------------------------------------------------------------------------------------------------------
+
+	Class<?> getProxyType();
+	
+	Object newInstance(SpyInterceptor interceptor);
+	
+	/**
+	 * Gets the length of the bytecode generated for the proxy class, for profiling.
+	 * 
+	 * @return the bytecode length, or -1 if it is unknown or no bytecode was generated at runtime
+	 */
+	default int getBytecodeLength()
+	{
+		return -1;
+	}
+}
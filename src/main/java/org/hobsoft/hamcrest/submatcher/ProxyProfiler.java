@@ -0,0 +1,317 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hobsoft.hamcrest.submatcher;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.hobsoft.hamcrest.submatcher.Preconditions.checkNotNull;
+
+/**
+ * Records the cost of generating proxy classes and how often each type is spied.
+ * <p>
+ * Profiling is disabled by default. Types are recorded by name, so that the profile never holds on to classes, and
+ * the profile is written as JSON with the most expensive types first. For example:
+ * <pre>
+ * {"proxyCount": 1, "generationNanos": 5000000, "bytecodeLength": 2048, "types": [
+ *   {"type": "com.example.Person", "engine": "cglib", "generationCount": 1, "generationNanos": 5000000,
+ *   "bytecodeLength": 2048, "spyCount": 12}
+ * ]}
+ * </pre>
+ * Bytecode lengths are only known for engines that generate bytecode themselves and are otherwise reported as -1.
+ */
+final class ProxyProfiler
+{
+	// ----------------------------------------------------------------------------------------------------------------
+	// constants
+	// ----------------------------------------------------------------------------------------------------------------
+
+	/**
+	 * The system property that names a file to write the profile of spies to at shutdown, enabling profiling.
+	 */
+	public static final String FILE_PROPERTY = "hamcrest.submatcher.proxyProfile";
+
+	// ----------------------------------------------------------------------------------------------------------------
+	// fields
+	// ----------------------------------------------------------------------------------------------------------------
+
+	private final ConcurrentMap<String, TypeProfile> typeProfiles;
+	
+	private volatile boolean enabled;
+
+	// ----------------------------------------------------------------------------------------------------------------
+	// constructors
+	// ----------------------------------------------------------------------------------------------------------------
+
+	public ProxyProfiler()
+	{
+		typeProfiles = new ConcurrentHashMap<String, TypeProfile>();
+	}
+
+	// ----------------------------------------------------------------------------------------------------------------
+	// public methods
+	// ----------------------------------------------------------------------------------------------------------------
+
+	public boolean isEnabled()
+	{
+		return enabled;
+	}
+	
+	public void setEnabled(boolean enabled)
+	{
+		this.enabled = enabled;
+	}
+	
+	/**
+	 * Records that a proxy class was generated and defined for a type.
+	 * 
+	 * @param type
+	 *            the proxied type
+	 * @param engineName
+	 *            the name of the engine that created the proxy class
+	 * @param nanos
+	 *            the time taken to create the proxy factory, in nanoseconds
+	 * @param bytecodeLength
+	 *            the length of the generated bytecode, or -1 if unknown
+	 */
+	public void recordGeneration(Class<?> type, String engineName, long nanos, int bytecodeLength)
+	{
+		getTypeProfile(type).addGeneration(engineName, nanos, bytecodeLength);
+	}
+	
+	public void recordSpy(Class<?> type)
+	{
+		if (enabled)
+		{
+			getTypeProfile(type).addSpy();
+		}
+	}
+	
+	public void reset()
+	{
+		typeProfiles.clear();
+	}
+	
+	public void writeJson(Appendable out) throws IOException
+	{
+		checkNotNull(out, "out");
+		
+		List<TypeProfile> profiles = new ArrayList<TypeProfile>(typeProfiles.values());
+		
+		Collections.sort(profiles, new Comparator<TypeProfile>()
+		{
+			public int compare(TypeProfile profile1, TypeProfile profile2)
+			{
+				int order = Long.compare(profile2.getGenerationNanos(), profile1.getGenerationNanos());
+				
+				return (order != 0) ? order : Long.compare(profile2.getSpyCount(), profile1.getSpyCount());
+			}
+		});
+		
+		long proxyCount = 0;
+		long generationNanos = 0;
+		long bytecodeLength = 0;
+		
+		for (TypeProfile profile : profiles)
+		{
+			proxyCount += profile.getGenerationCount();
+			generationNanos += profile.getGenerationNanos();
+			bytecodeLength += Math.max(profile.getBytecodeLength(), 0);
+		}
+		
+		out.append("{\"proxyCount\": ").append(String.valueOf(proxyCount))
+			.append(", \"generationNanos\": ").append(String.valueOf(generationNanos))
+			.append(", \"bytecodeLength\": ").append(String.valueOf(bytecodeLength))
+			.append(", \"types\": [");
+		
+		for (int index = 0; index < profiles.size(); index++)
+		{
+			out.append((index > 0) ? ",\n" : "\n");
+			profiles.get(index).writeJson(out);
+		}
+		
+		out.append(profiles.isEmpty() ? "]}\n" : "\n]}\n");
+	}
+	
+	/**
+	 * Enables profiling and writes the profile to a file when the JVM shuts down.
+	 * 
+	 * @param file
+	 *            the file to write the profile to
+	 */
+	public void writeJsonOnShutdown(final File file)
+	{
+		checkNotNull(file, "file");
+		
+		setEnabled(true);
+		
+		Runtime.getRuntime().addShutdownHook(new Thread("hamcrest-submatcher-proxy-profile")
+		{
+			@Override
+			public void run()
+			{
+				try (Writer writer = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8))
+				{
+					writeJson(writer);
+				}
+				catch (IOException exception)
+				{
+					// reported by the default uncaught exception handler
+					throw new UncheckedIOException("Cannot write proxy profile: " + file, exception);
+				}
+			}
+		});
+	}
+	
+	// ----------------------------------------------------------------------------------------------------------------
+	// private methods
+	// ----------------------------------------------------------------------------------------------------------------
+
+	private TypeProfile getTypeProfile(Class<?> type)
+	{
+		String typeName = type.getName();
+		TypeProfile profile = typeProfiles.get(typeName);
+		
+		if (profile == null)
+		{
+			profile = typeProfiles.computeIfAbsent(typeName, TypeProfile::new);
+		}
+		
+		return profile;
+	}
+	
+	private static void appendString(Appendable out, String string) throws IOException
+	{
+		out.append('"');
+		
+		for (int index = 0; index < string.length(); index++)
+		{
+			char c = string.charAt(index);
+			
+			if (c == '"' || c == '\\')
+			{
+				out.append('\\').append(c);
+			}
+			else if (c < ' ')
+			{
+				out.append(String.format("\\u%04x", (int) c));
+			}
+			else
+			{
+				out.append(c);
+			}
+		}
+		
+		out.append('"');
+	}
+	
+	// ----------------------------------------------------------------------------------------------------------------
+	// types
+	// ----------------------------------------------------------------------------------------------------------------
+
+	/**
+	 * Profile of the proxies of one type.
+	 */
+	private static final class TypeProfile
+	{
+		private final String typeName;
+		
+		private volatile String engineName;
+		
+		private final AtomicLong generationCount = new AtomicLong();
+		
+		private final AtomicLong generationNanos = new AtomicLong();
+		
+		private final AtomicLong bytecodeLength = new AtomicLong(-1);
+		
+		private final LongAdder spyCount = new LongAdder();
+		
+		public TypeProfile(String typeName)
+		{
+			this.typeName = typeName;
+		}
+		
+		public void addGeneration(String engineName, long nanos, int bytecodeLength)
+		{
+			this.engineName = engineName;
+			generationCount.incrementAndGet();
+			generationNanos.addAndGet(nanos);
+			
+			if (bytecodeLength >= 0)
+			{
+				this.bytecodeLength.accumulateAndGet(bytecodeLength, (total, length) -> Math.max(total, 0) + length);
+			}
+		}
+		
+		public void addSpy()
+		{
+			spyCount.increment();
+		}
+		
+		public long getGenerationCount()
+		{
+			return generationCount.get();
+		}
+		
+		public long getGenerationNanos()
+		{
+			return generationNanos.get();
+		}
+		
+		public long getBytecodeLength()
+		{
+			return bytecodeLength.get();
+		}
+		
+		public long getSpyCount()
+		{
+			return spyCount.sum();
+		}
+		
+		public void writeJson(Appendable out) throws IOException
+		{
+			out.append("  {\"type\": ");
+			appendString(out, typeName);
+			out.append(", \"engine\": ");
+			
+			if (engineName != null)
+			{
+				appendString(out, engineName);
+			}
+			else
+			{
+				out.append("null");
+			}
+			
+			out.append(", \"generationCount\": ").append(String.valueOf(getGenerationCount()))
+				.append(", \"generationNanos\": ").append(String.valueOf(getGenerationNanos()))
+				.append(", \"bytecodeLength\": ").append(String.valueOf(getBytecodeLength()))
+				.append(", \"spyCount\": ").append(String.valueOf(getSpyCount()))
+				.append("}");
+		}
+	}
+}
@@ -0,0 +1,396 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hobsoft.hamcrest.submatcher;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.net.JarURLConnection;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Enumeration;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+import static org.hobsoft.hamcrest.submatcher.Preconditions.checkNotNull;
+
+/**
+ * Generates proxy factories and compiles getters ahead of their first use.
+ * <p>
+ * Warming up a type also warms up the application types returned by its getters, transitively, so that chained paths
+ * find their child proxies ready. Compiled getters are kept in a bounded set, since interned invocations are otherwise
+ * only weakly referenced and would be compiled again after the next garbage collection. Types are warmed up in
+ * parallel on a fork/join pool. Warming up is best-effort: types that cannot be proxied are skipped and fail as usual
+ * when they are spied.
+ */
+final class ProxyWarmer
+{
+	// ----------------------------------------------------------------------------------------------------------------
+	// constants
+	// ----------------------------------------------------------------------------------------------------------------
+
+	/**
+	 * The default maximum number of compiled getters to keep.
+	 */
+	public static final int DEFAULT_MAXIMUM_WARMED_INVOCATIONS = 4096;
+	
+	private static final String CLASS_FILE_SUFFIX = ".class";
+
+	// ----------------------------------------------------------------------------------------------------------------
+	// fields
+	// ----------------------------------------------------------------------------------------------------------------
+
+	private final ProxyClassCache proxyClassCache;
+	
+	private final ForkJoinPool pool;
+	
+	private final Set<MethodInvocation> warmedInvocations;
+	
+	private final int maximumWarmedInvocations;
+
+	// ----------------------------------------------------------------------------------------------------------------
+	// constructors
+	// ----------------------------------------------------------------------------------------------------------------
+
+	public ProxyWarmer(ProxyClassCache proxyClassCache, ForkJoinPool pool)
+	{
+		this(proxyClassCache, pool, newConcurrentSet(), DEFAULT_MAXIMUM_WARMED_INVOCATIONS);
+	}
+
+	public ProxyWarmer(ProxyClassCache proxyClassCache, ForkJoinPool pool, Set<MethodInvocation> warmedInvocations,
+		int maximumWarmedInvocations)
+	{
+		if (maximumWarmedInvocations < 0)
+		{
+			throw new IllegalArgumentException("maximumWarmedInvocations must not be negative: "
+				+ maximumWarmedInvocations);
+		}
+		
+		this.proxyClassCache = checkNotNull(proxyClassCache, "proxyClassCache");
+		this.pool = checkNotNull(pool, "pool");
+		this.warmedInvocations = checkNotNull(warmedInvocations, "warmedInvocations");
+		this.maximumWarmedInvocations = maximumWarmedInvocations;
+	}
+
+	// ----------------------------------------------------------------------------------------------------------------
+	// public methods
+	// ----------------------------------------------------------------------------------------------------------------
+
+	/**
+	 * Warms up the given types and the types reachable through their getters.
+	 * 
+	 * @param types
+	 *            the types to warm up
+	 * @return the number of types that were proxied
+	 */
+	public int warmUp(Iterable<? extends Class<?>> types)
+	{
+		List<Callable<Boolean>> tasks = new ArrayList<Callable<Boolean>>();
+		
+		for (final Class<?> type : findReachableTypes(types))
+		{
+			tasks.add(() -> warmUp(type));
+		}
+		
+		int count = 0;
+		
+		for (Future<Boolean> future : pool.invokeAll(tasks))
+		{
+			if (getQuietly(future))
+			{
+				count++;
+			}
+		}
+		
+		return count;
+	}
+	
+	/**
+	 * Creates a set that can hold the compiled getters of warmers on different threads.
+	 * 
+	 * @return the set
+	 */
+	public static Set<MethodInvocation> newConcurrentSet()
+	{
+		return Collections.newSetFromMap(new ConcurrentHashMap<MethodInvocation, Boolean>());
+	}
+	
+	/**
+	 * Finds the top-level and member classes of a package, excluding its subpackages.
+	 * 
+	 * @param classLoader
+	 *            the class loader to find and load the classes with
+	 * @param packageName
+	 *            the name of the package
+	 * @return the classes, which are loaded but not initialized
+	 * @throws IOException
+	 *             if the class path cannot be read
+	 */
+	public static List<Class<?>> findClasses(ClassLoader classLoader, String packageName) throws IOException
+	{
+		checkNotNull(classLoader, "classLoader");
+		checkNotNull(packageName, "packageName");
+		
+		String path = packageName.replace('.', '/');
+		Set<String> classNames = new LinkedHashSet<String>();
+		Enumeration<URL> urls = classLoader.getResources(path);
+		
+		while (urls.hasMoreElements())
+		{
+			URL url = urls.nextElement();
+			
+			if ("file".equals(url.getProtocol()))
+			{
+				addDirectoryClassNames(toFile(url), packageName, classNames);
+			}
+			else if ("jar".equals(url.getProtocol()))
+			{
+				addJarClassNames(((JarURLConnection) url.openConnection()).getJarFile(), path, classNames);
+			}
+		}
+		
+		List<Class<?>> classes = new ArrayList<Class<?>>();
+		
+		for (String className : classNames)
+		{
+			Class<?> type = loadQuietly(classLoader, className);
+			
+			if (type != null && !type.isAnonymousClass() && !type.isLocalClass() && !type.isSynthetic())
+			{
+				classes.add(type);
+			}
+		}
+		
+		return classes;
+	}
+	
+	// ----------------------------------------------------------------------------------------------------------------
+	// private methods
+	// ----------------------------------------------------------------------------------------------------------------
+
+	private boolean warmUp(Class<?> type)
+	{
+		try
+		{
+			for (Method getter : getGetters(type))
+			{
+				MethodInvocation invocation = new MethodInvocation(getter).intern();
+				invocation.precompile();
+				retain(invocation);
+			}
+			
+			if (!Spy.isSpyable(type) || !proxyClassCache.supports(type))
+			{
+				return false;
+			}
+			
+			proxyClassCache.get(type);
+			
+			return true;
+		}
+		catch (RuntimeException | LinkageError exception)
+		{
+			// spying this type fails with the same exception
+			return false;
+		}
+	}
+	
+	private void retain(MethodInvocation invocation)
+	{
+		// concurrent warmers may overshoot the maximum by a few invocations
+		if (warmedInvocations.size() < maximumWarmedInvocations)
+		{
+			warmedInvocations.add(invocation);
+		}
+	}
+	
+	private static Set<Class<?>> findReachableTypes(Iterable<? extends Class<?>> types)
+	{
+		Set<Class<?>> reachableTypes = new LinkedHashSet<Class<?>>();
+		Deque<Class<?>> pendingTypes = new ArrayDeque<Class<?>>();
+		
+		for (Class<?> type : checkNotNull(types, "types"))
+		{
+			pendingTypes.add(checkNotNull(type, "type"));
+		}
+		
+		while (!pendingTypes.isEmpty())
+		{
+			Class<?> type = pendingTypes.remove();
+			
+			if (reachableTypes.add(type))
+			{
+				addReturnTypes(type, pendingTypes);
+			}
+		}
+		
+		return reachableTypes;
+	}
+	
+	private static void addReturnTypes(Class<?> type, Deque<Class<?>> types)
+	{
+		for (Method getter : getGetters(type))
+		{
+			Class<?> returnType = getter.getReturnType();
+			
+			// only follow application types
+			if (Spy.isSpyable(returnType) && returnType.getClassLoader() != null)
+			{
+				types.add(returnType);
+			}
+		}
+	}
+	
+	private static List<Method> getGetters(Class<?> type)
+	{
+		Method[] methods;
+		try
+		{
+			methods = type.getMethods();
+		}
+		catch (LinkageError error)
+		{
+			return Collections.emptyList();
+		}
+		
+		List<Method> getters = new ArrayList<Method>();
+		
+		for (Method method : methods)
+		{
+			if (isGetter(method))
+			{
+				getters.add(method);
+			}
+		}
+		
+		return getters;
+	}
+	
+	private static boolean isGetter(Method method)
+	{
+		return method.getParameterTypes().length == 0
+			&& method.getReturnType() != void.class
+			&& method.getDeclaringClass() != Object.class
+			&& !Modifier.isStatic(method.getModifiers())
+			&& !method.isBridge()
+			&& !method.isSynthetic();
+	}
+	
+	private static File toFile(URL url) throws IOException
+	{
+		try
+		{
+			return new File(url.toURI());
+		}
+		catch (URISyntaxException exception)
+		{
+			return new File(URLDecoder.decode(url.getPath(), StandardCharsets.UTF_8.name()));
+		}
+	}
+	
+	private static void addDirectoryClassNames(File directory, String packageName, Set<String> classNames)
+	{
+		File[] files = directory.listFiles();
+		
+		if (files == null)
+		{
+			return;
+		}
+		
+		for (File file : files)
+		{
+			String fileName = file.getName();
+			
+			if (file.isFile() && isClassFileName(fileName))
+			{
+				classNames.add(packageName + "." + toSimpleClassName(fileName));
+			}
+		}
+	}
+	
+	private static void addJarClassNames(JarFile jarFile, String path, Set<String> classNames)
+	{
+		String prefix = path + "/";
+		Enumeration<JarEntry> entries = jarFile.entries();
+		
+		while (entries.hasMoreElements())
+		{
+			String entryName = entries.nextElement().getName();
+			
+			if (entryName.startsWith(prefix))
+			{
+				String fileName = entryName.substring(prefix.length());
+				
+				if (fileName.indexOf('/') == -1 && isClassFileName(fileName))
+				{
+					classNames.add(path.replace('/', '.') + "." + toSimpleClassName(fileName));
+				}
+			}
+		}
+	}
+	
+	private static boolean isClassFileName(String fileName)
+	{
+		return fileName.endsWith(CLASS_FILE_SUFFIX) && !fileName.equals("package-info" + CLASS_FILE_SUFFIX);
+	}
+	
+	private static String toSimpleClassName(String fileName)
+	{
+		return fileName.substring(0, fileName.length() - CLASS_FILE_SUFFIX.length());
+	}
+	
+	private static Class<?> loadQuietly(ClassLoader classLoader, String className)
+	{
+		try
+		{
+			return Class.forName(className, false, classLoader);
+		}
+		catch (ClassNotFoundException | LinkageError exception)
+		{
+			return null;
+		}
+	}
+	
+	private static boolean getQuietly(Future<Boolean> future)
+	{
+		try
+		{
+			return future.get();
+		}
+		catch (InterruptedException exception)
+		{
+			Thread.currentThread().interrupt();
+			return false;
+		}
+		catch (ExecutionException exception)
+		{
+			return false;
+		}
+	}
+}
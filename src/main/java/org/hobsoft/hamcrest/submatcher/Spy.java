@@ -13,31 +13,63 @@
  */
 package org.hobsoft.hamcrest.submatcher;
 
+import java.io.File;
 import java.lang.reflect.Method;
-
-import org.objenesis.Objenesis;
-import org.objenesis.ObjenesisStd;
-
-import net.sf.cglib.proxy.Callback;
-import net.sf.cglib.proxy.Enhancer;
-import net.sf.cglib.proxy.Factory;
-import net.sf.cglib.proxy.MethodInterceptor;
-import net.sf.cglib.proxy.MethodProxy;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 import static org.hobsoft.hamcrest.submatcher.Preconditions.checkNotNull;
 
 /**
  * Factory for proxies that record their method invocations.
+ * <p>
+ * Methods whose return type can itself be proxied return a child spy, so that a chain of invocations such as
+ * {@code getAddress().getCity()} is recorded by the root spy as a single path. Each spy creates its proxy and the child
+ * spy for each return type once, so that a spy that is reset and reused records further paths without allocating new
+ * proxies. A child spy is only created when a method returning its type is first invoked, and a type whose proxy class
+ * cannot be generated, for whatever reason, is remembered as ending the chain rather than being generated again.
+ * <p>
+ * Each spy also remembers the path recorded by each of its getters for the last parent path it saw, together with the
+ * property path taken from it, so that recording and taking a path seen before allocates nothing.
  */
-class Spy<T> implements MethodInterceptor
+class Spy<T> implements SpyInterceptor
 {
+	// ----------------------------------------------------------------------------------------------------------------
+	// constants
+	// ----------------------------------------------------------------------------------------------------------------
+
+	private static final ProxyClassCache PROXY_CLASS_CACHE = newProxyClassCache();
+	
+	private static final ClassValue<Boolean> CHAINABLE_TYPES = new ClassValue<Boolean>()
+	{
+		@Override
+		protected Boolean computeValue(Class<?> type)
+		{
+			return isSpyable(type) && canProxy(type);
+		}
+	};
+	
 	// ----------------------------------------------------------------------------------------------------------------
 	// fields
 	// ----------------------------------------------------------------------------------------------------------------
 
 	private final Class<T> type;
 	
-	private MethodInvocation invocation;
+	private final Spy<?> root;
+	
+	private RecordedPath parentPath;
+	
+	private RecordedPath path;
+	
+	private T proxy;
+	
+	private Map<Class<?>, Spy<?>> children;
+	
+	private Map<Method, GetterPath> getterPaths;
 
 	// ----------------------------------------------------------------------------------------------------------------
 	// constructors
@@ -46,17 +78,38 @@ class Spy<T> implements MethodInterceptor
 	public Spy(Class<T> type)
 	{
 		this.type = checkNotNull(type, "type");
+		root = this;
+		parentPath = RecordedPath.EMPTY;
+		path = RecordedPath.EMPTY;
+	}
+	
+	private Spy(Class<T> type, Spy<?> root)
+	{
+		this.type = type;
+		this.root = root;
+		parentPath = RecordedPath.EMPTY;
 	}
 	
 	// ----------------------------------------------------------------------------------------------------------------
-	// MethodInterceptor methods
+	// SpyInterceptor methods
 	// ----------------------------------------------------------------------------------------------------------------
 
-	public Object intercept(Object obj, Method method, Object[] args, MethodProxy proxy)
+	public Object intercept(Method method, Object[] args)
 	{
-		invocation = new MethodInvocation(method, args);
+		RecordedPath recordedPath;
 		
-		return null;
+		if (args.length == 0)
+		{
+			recordedPath = getGetterPath(method);
+		}
+		else
+		{
+			recordedPath = parentPath.append(new MethodInvocation(method, args).intern());
+		}
+		
+		root.path = recordedPath;
+		
+		return getChildProxy(method.getReturnType(), recordedPath);
 	}
 	
 	// ----------------------------------------------------------------------------------------------------------------
@@ -65,20 +118,236 @@ class Spy<T> implements MethodInterceptor
 
 	public T create()
 	{
-		Enhancer enhancer = new Enhancer();
-		enhancer.setSuperclass(type);
-		enhancer.setCallbackType(MethodInterceptor.class);
-		Class<?> proxyType = enhancer.createClass();
-		
-		Objenesis objenesis = new ObjenesisStd();
-		Factory proxy = (Factory) objenesis.newInstance(proxyType);
-		proxy.setCallbacks(new Callback[] {this});
+		return type.cast(PROXY_CLASS_CACHE.get(type).newInstance(this));
+	}
+	
+	public T getProxy()
+	{
+		if (proxy == null)
+		{
+			proxy = create();
+		}
 		
-		return type.cast(proxy);
+		return proxy;
+	}
+	
+	public Class<T> getType()
+	{
+		return type;
+	}
+	
+	public void reset()
+	{
+		path = RecordedPath.EMPTY;
+	}
+	
+	public void release()
+	{
+		SpyPool.release(this);
 	}
 	
 	public MethodInvocation getInvocation()
 	{
-		return invocation;
+		List<MethodInvocation> invocations = path.getInvocations();
+		
+		return invocations.isEmpty() ? null : invocations.get(invocations.size() - 1);
+	}
+	
+	public List<MethodInvocation> getInvocations()
+	{
+		return path.getInvocations();
+	}
+	
+	public PropertyPath<?, ?> getPath()
+	{
+		return path.getPropertyPath();
+	}
+	
+	// ----------------------------------------------------------------------------------------------------------------
+	// package methods
+	// ----------------------------------------------------------------------------------------------------------------
+
+	static ProxyClassCache getProxyClassCache()
+	{
+		return PROXY_CLASS_CACHE;
+	}
+	
+	static boolean isSpyable(Class<?> type)
+	{
+		return !type.isPrimitive() && !type.isArray() && !Modifier.isFinal(type.getModifiers());
+	}
+	
+	// ----------------------------------------------------------------------------------------------------------------
+	// private methods
+	// ----------------------------------------------------------------------------------------------------------------
+
+	private static ProxyClassCache newProxyClassCache()
+	{
+		ProxyClassCache proxyClassCache = new ProxyClassCache();
+		String profileFile = System.getProperty(ProxyProfiler.FILE_PROPERTY);
+		
+		if (profileFile != null)
+		{
+			proxyClassCache.getProfiler().writeJsonOnShutdown(new File(profileFile));
+		}
+		
+		return proxyClassCache;
+	}
+	
+	private RecordedPath getGetterPath(Method method)
+	{
+		if (getterPaths == null)
+		{
+			getterPaths = new HashMap<Method, GetterPath>();
+		}
+		
+		GetterPath getterPath = getterPaths.get(method);
+		
+		if (getterPath == null)
+		{
+			getterPath = new GetterPath(new MethodInvocation(method).intern());
+			getterPaths.put(method, getterPath);
+		}
+		
+		return getterPath.get(parentPath);
+	}
+	
+	private Object getChildProxy(Class<?> childType, RecordedPath childParentPath)
+	{
+		if (children == null)
+		{
+			children = new HashMap<Class<?>, Spy<?>>();
+		}
+		
+		Spy<?> child = children.get(childType);
+		
+		if (child == null && !children.containsKey(childType))
+		{
+			child = newChild(childType);
+			children.put(childType, child);
+		}
+		
+		if (child == null)
+		{
+			return null;
+		}
+		
+		child.parentPath = childParentPath;
+		
+		return child.getProxy();
+	}
+	
+	private <U> Spy<U> newChild(Class<U> childType)
+	{
+		if (!CHAINABLE_TYPES.get(childType))
+		{
+			return null;
+		}
+		
+		Spy<U> child = new Spy<U>(childType, root);
+		
+		try
+		{
+			child.getProxy();
+		}
+		catch (RuntimeException | LinkageError exception)
+		{
+			// proxy cannot be instantiated so the chain ends here
+			return null;
+		}
+		
+		return child;
+	}
+	
+	private static boolean canProxy(Class<?> type)
+	{
+		try
+		{
+			PROXY_CLASS_CACHE.get(type);
+			return true;
+		}
+		catch (RuntimeException | LinkageError exception)
+		{
+			// for example no engine supports the type or its generated subclass fails to verify
+			return false;
+		}
+	}
+	
+	// ----------------------------------------------------------------------------------------------------------------
+	// types
+	// ----------------------------------------------------------------------------------------------------------------
+
+	/**
+	 * Immutable path of invocations recorded by a spy, with the property path taken from it.
+	 */
+	private static final class RecordedPath
+	{
+		public static final RecordedPath EMPTY = new RecordedPath(Collections.<MethodInvocation>emptyList());
+		
+		private final List<MethodInvocation> invocations;
+		
+		private PropertyPath<?, ?> propertyPath;
+		
+		public RecordedPath(List<MethodInvocation> invocations)
+		{
+			this.invocations = invocations;
+		}
+		
+		public RecordedPath append(MethodInvocation invocation)
+		{
+			if (invocations.isEmpty())
+			{
+				return new RecordedPath(Collections.singletonList(invocation));
+			}
+			
+			List<MethodInvocation> appended = new ArrayList<MethodInvocation>(invocations.size() + 1);
+			appended.addAll(invocations);
+			appended.add(invocation);
+			
+			return new RecordedPath(Collections.unmodifiableList(appended));
+		}
+		
+		public List<MethodInvocation> getInvocations()
+		{
+			return invocations;
+		}
+		
+		public PropertyPath<?, ?> getPropertyPath()
+		{
+			if (propertyPath == null)
+			{
+				propertyPath = new PropertyPath<Object, Object>(invocations);
+			}
+			
+			return propertyPath;
+		}
+	}
+	
+	/**
+	 * Path recorded by a getter, remembered for the last parent path it was appended to.
+	 */
+	private static final class GetterPath
+	{
+		private final MethodInvocation invocation;
+		
+		private RecordedPath parentPath;
+		
+		private RecordedPath path;
+		
+		public GetterPath(MethodInvocation invocation)
+		{
+			this.invocation = invocation;
+		}
+		
+		public RecordedPath get(RecordedPath newParentPath)
+		{
+			if (newParentPath != parentPath)
+			{
+				path = newParentPath.append(invocation);
+				parentPath = newParentPath;
+			}
+			
+			return path;
+		}
 	}
 }
@@ -13,16 +13,29 @@
  */
 package org.hobsoft.hamcrest.submatcher;
 
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import static org.hobsoft.hamcrest.submatcher.Preconditions.checkNotNull;
+
 /**
- * Holder for the current spy.
+ * Holder for the current thread's spies.
+ * <p>
+ * Spies are held as a stack so that nested {@code hasValue} calls each take the spy of their own {@code on} call. Each
+ * thread keeps its stack once created and empties it rather than removing it, so that building a matcher neither
+ * allocates a stack nor sets and removes the thread-local value. Taken spies are not retained by the stack, and spies
+ * that are never taken are discarded once the stack exceeds a small depth.
  */
 final class SpyHolder
 {
 	// ----------------------------------------------------------------------------------------------------------------
-	// fields
+	// constants
 	// ----------------------------------------------------------------------------------------------------------------
 
-	private static Spy<?> spy;
+	private static final int MAXIMUM_DEPTH = 16;
+	
+	private static final ThreadLocal<Deque<Spy<?>>> SPIES = ThreadLocal.withInitial(
+		() -> new ArrayDeque<Spy<?>>(MAXIMUM_DEPTH + 1));
 	
 	// ----------------------------------------------------------------------------------------------------------------
 	// constructors
@@ -39,21 +52,55 @@ final class SpyHolder
 
 	public static boolean hasSpy()
 	{
-		return (spy != null);
+		return !SPIES.get().isEmpty();
 	}
 
 	public static Spy<?> getSpy()
 	{
-		if (!hasSpy())
+		return getSpies().peek();
+	}
+
+	public static void setSpy(Spy<?> spy)
+	{
+		SPIES.get().clear();
+		
+		if (spy != null)
 		{
-			throw new IllegalStateException("Spy has not been set");
+			pushSpy(spy);
 		}
+	}
+	
+	public static void pushSpy(Spy<?> spy)
+	{
+		checkNotNull(spy, "spy");
+		
+		Deque<Spy<?>> spies = SPIES.get();
+		spies.push(spy);
 		
-		return spy;
+		if (spies.size() > MAXIMUM_DEPTH)
+		{
+			spies.removeLast();
+		}
+	}
+	
+	public static Spy<?> takeSpy()
+	{
+		return getSpies().pop();
 	}
+	
+	// ----------------------------------------------------------------------------------------------------------------
+	// private methods
+	// ----------------------------------------------------------------------------------------------------------------
 
-	public static void setSpy(Spy<?> spy)
+	private static Deque<Spy<?>> getSpies()
 	{
-		SpyHolder.spy = spy;
+		Deque<Spy<?>> spies = SPIES.get();
+		
+		if (spies.isEmpty())
+		{
+			throw new IllegalStateException("Spy has not been set");
+		}
+		
+		return spies;
 	}
 }
@@ -0,0 +1,133 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hobsoft.hamcrest.submatcher;
+
+import java.lang.ref.SoftReference;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import static org.hobsoft.hamcrest.submatcher.Preconditions.checkNotNull;
+
+/**
+ * Pool of the current thread's root spies.
+ * <p>
+ * Each thread keeps at most one idle spy per type, together with its proxy, so that recording a property path in
+ * steady state does not allocate a new spy and proxy. A spy is only reused once it has been released, hence a spy whose
+ * {@code on} call was never followed by {@code hasValue} is never reset beneath it; the next spy of that type to be
+ * released takes its place. Pooled spies are softly referenced and their types weakly so that the pool does not retain
+ * classes or memory that are otherwise unused.
+ */
+final class SpyPool
+{
+	// ----------------------------------------------------------------------------------------------------------------
+	// constants
+	// ----------------------------------------------------------------------------------------------------------------
+
+	private static final ThreadLocal<Map<Class<?>, PooledSpy>> SPIES = new ThreadLocal<Map<Class<?>, PooledSpy>>()
+	{
+		@Override
+		protected Map<Class<?>, PooledSpy> initialValue()
+		{
+			return new WeakHashMap<Class<?>, PooledSpy>();
+		}
+	};
+	
+	// ----------------------------------------------------------------------------------------------------------------
+	// constructors
+	// ----------------------------------------------------------------------------------------------------------------
+
+	private SpyPool()
+	{
+		throw new AssertionError();
+	}
+
+	// ----------------------------------------------------------------------------------------------------------------
+	// public methods
+	// ----------------------------------------------------------------------------------------------------------------
+
+	public static <T> Spy<T> acquire(Class<T> type)
+	{
+		checkNotNull(type, "type");
+		
+		Spy.getProxyClassCache().getProfiler().recordSpy(type);
+		
+		PooledSpy pooledSpy = SPIES.get().get(type);
+		
+		if (pooledSpy != null && pooledSpy.isIdle())
+		{
+			Spy<?> spy = pooledSpy.get();
+			
+			if (spy != null)
+			{
+				pooledSpy.setIdle(false);
+				spy.reset();
+				
+				// spies are pooled by their type, which is the given type
+				@SuppressWarnings("unchecked")
+				Spy<T> typedSpy = (Spy<T>) spy;
+				
+				return typedSpy;
+			}
+		}
+		
+		return new Spy<T>(type);
+	}
+	
+	public static void release(Spy<?> spy)
+	{
+		checkNotNull(spy, "spy");
+		
+		Map<Class<?>, PooledSpy> spies = SPIES.get();
+		PooledSpy pooledSpy = spies.get(spy.getType());
+		
+		if (pooledSpy != null && pooledSpy.get() == spy)
+		{
+			pooledSpy.setIdle(true);
+		}
+		else if (pooledSpy == null || !pooledSpy.isIdle() || pooledSpy.get() == null)
+		{
+			// pool is empty, holds a spy still in use or abandoned, or was cleared
+			PooledSpy newPooledSpy = new PooledSpy(spy);
+			newPooledSpy.setIdle(true);
+			spies.put(spy.getType(), newPooledSpy);
+		}
+	}
+	
+	// ----------------------------------------------------------------------------------------------------------------
+	// types
+	// ----------------------------------------------------------------------------------------------------------------
+
+	/**
+	 * Soft reference to a pooled spy that records whether the spy is available for reuse.
+	 */
+	private static final class PooledSpy extends SoftReference<Spy<?>>
+	{
+		private boolean idle;
+		
+		public PooledSpy(Spy<?> spy)
+		{
+			super(spy);
+		}
+		
+		public boolean isIdle()
+		{
+			return idle;
+		}
+		
+		public void setIdle(boolean idle)
+		{
+			this.idle = idle;
+		}
+	}
+}
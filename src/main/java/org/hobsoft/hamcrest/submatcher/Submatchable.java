@@ -0,0 +1,39 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hobsoft.hamcrest.submatcher;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Generates a spy for a type at compile time so that {@code on()} does not need to generate one at runtime.
+ * <p>
+ * Spies are generated for the annotated type or, when types are listed, for the listed types instead. The latter
+ * allows spies to be generated for types that cannot be annotated, such as those of other libraries, by annotating a
+ * test class or package. The annotation processor is in the separate {@code hamcrest-submatcher-processor} artifact,
+ * which must be added to the compiler's processor path. Types without a generated spy are proxied at runtime as before.
+ */
+@Documented
+@Retention(RetentionPolicy.CLASS)
+@Target({ElementType.TYPE, ElementType.PACKAGE})
+public @interface Submatchable
+{
+	/**
+	 * The types to generate spies for, or none to generate a spy for the annotated type.
+	 */
+	Class<?>[] value() default { };
+}
@@ -0,0 +1,242 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hobsoft.hamcrest.submatcher;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import static org.hobsoft.hamcrest.submatcher.Preconditions.checkNotNull;
+
+/**
+ * Methods to inspect and tune the machinery behind submatchers.
+ */
+public final class SubmatcherRuntime
+{
+	// ----------------------------------------------------------------------------------------------------------------
+	// constants
+	// ----------------------------------------------------------------------------------------------------------------
+
+	private static final Set<MethodInvocation> WARMED_INVOCATIONS = ProxyWarmer.newConcurrentSet();
+
+	// ----------------------------------------------------------------------------------------------------------------
+	// constructors
+	// ----------------------------------------------------------------------------------------------------------------
+
+	private SubmatcherRuntime()
+	{
+		throw new AssertionError();
+	}
+
+	// ----------------------------------------------------------------------------------------------------------------
+	// public methods
+	// ----------------------------------------------------------------------------------------------------------------
+
+	public static CacheStatistics getProxyClassCacheStatistics()
+	{
+		return Spy.getProxyClassCache().getStatistics();
+	}
+	
+	public static CacheStatistics getMatcherCacheStatistics()
+	{
+		return HasValueMatcher.getMatcherCache().getStatistics();
+	}
+	
+	public static int getMatcherCacheMaximumSize()
+	{
+		return HasValueMatcher.getMatcherCache().getMaximumSize();
+	}
+	
+	/**
+	 * Sets the maximum number of matchers that {@code hasValue} reuses for equal property paths and submatchers.
+	 * <p>
+	 * The cache is disabled by default. Submatchers are compared by structure: of the same class, with nested
+	 * matchers compared likewise and other field values by {@code equals}. A matcher tree built afresh each time, such
+	 * as {@code hasValue(on(Person.class).getAge(), equalTo(1))} in a loop, therefore hits the cache. Matchers with
+	 * mutable fields are only reused for the same instance, and values held by a cached matcher must not be mutated.
+	 * Constructing a matcher allocates little more than the matcher itself, and comparing a submatcher's structure
+	 * takes longer than that, so the cache saves memory for long-lived matchers rather than construction time.
+	 * 
+	 * @param maximumSize
+	 *            the maximum number of cached matchers, or zero to disable the cache
+	 */
+	public static void setMatcherCacheMaximumSize(int maximumSize)
+	{
+		HasValueMatcher.getMatcherCache().setMaximumSize(maximumSize);
+	}
+	
+	public static void clearMatcherCache()
+	{
+		HasValueMatcher.getMatcherCache().clear();
+	}
+	
+	/**
+	 * Gets the metrics that matchers record to once enabled.
+	 * 
+	 * @return the shared metrics, which are disabled by default
+	 */
+	public static MatcherMetrics getMatcherMetrics()
+	{
+		return Instrumentation.getMetrics();
+	}
+	
+	/**
+	 * Registers the shared matcher metrics with the platform MBean server, if they are not already registered.
+	 * 
+	 * @see MatcherMetricsMXBean#OBJECT_NAME
+	 */
+	public static void registerMatcherMetrics()
+	{
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		
+		try
+		{
+			ObjectName name = new ObjectName(MatcherMetricsMXBean.OBJECT_NAME);
+			
+			if (!server.isRegistered(name))
+			{
+				server.registerMBean(getMatcherMetrics(), name);
+			}
+		}
+		catch (JMException exception)
+		{
+			throw new IllegalStateException("Cannot register matcher metrics", exception);
+		}
+	}
+	
+	public static MatcherMetricsListener getMetricsListener()
+	{
+		return Instrumentation.getListener();
+	}
+	
+	/**
+	 * Sets the listener that method invocations and {@code hasValue} evaluations are reported to.
+	 * 
+	 * @param listener
+	 *            the listener, or {@code null} to stop reporting
+	 */
+	public static void setMetricsListener(MatcherMetricsListener listener)
+	{
+		Instrumentation.setListener(listener);
+	}
+	
+	public static boolean isProxyProfilingEnabled()
+	{
+		return Spy.getProxyClassCache().getProfiler().isEnabled();
+	}
+	
+	/**
+	 * Sets whether to record how long proxy classes take to generate and how often each type is spied.
+	 * <p>
+	 * Profiling can also be enabled by naming a file in the {@code hamcrest.submatcher.proxyProfile} system property,
+	 * to which the profile is written at shutdown.
+	 * 
+	 * @param enabled
+	 *            whether to profile proxies
+	 */
+	public static void setProxyProfilingEnabled(boolean enabled)
+	{
+		Spy.getProxyClassCache().getProfiler().setEnabled(enabled);
+	}
+	
+	/**
+	 * Writes the proxy profile recorded so far as JSON.
+	 * 
+	 * @param out
+	 *            where to write the profile
+	 * @throws IOException
+	 *             if the profile cannot be written
+	 */
+	public static void writeProxyProfile(Appendable out) throws IOException
+	{
+		Spy.getProxyClassCache().getProfiler().writeJson(out);
+	}
+	
+	public static void resetProxyProfile()
+	{
+		Spy.getProxyClassCache().getProfiler().reset();
+	}
+	
+	/**
+	 * Generates the proxies and compiles the getters of the given types ahead of their first use, using all processors.
+	 * <p>
+	 * The application types returned by their getters are warmed up too. This is intended to be invoked once, before
+	 * tests that are timed, such as from a class rule. The first 4096 compiled getters are kept for the life of the
+	 * JVM.
+	 * 
+	 * @param types
+	 *            the types to warm up
+	 * @return the number of types that were proxied
+	 */
+	public static int warmUp(Class<?>... types)
+	{
+		return newProxyWarmer().warmUp(Arrays.asList(checkNotNull(types, "types")));
+	}
+	
+	/**
+	 * Warms up the top-level and member classes of a package, excluding its subpackages.
+	 * 
+	 * @param packageName
+	 *            the name of the package to warm up, which is found with the context class loader
+	 * @return the number of types that were proxied
+	 * @see #warmUp(Class...)
+	 */
+	public static int warmUpPackage(String packageName)
+	{
+		List<Class<?>> types;
+		try
+		{
+			types = ProxyWarmer.findClasses(getClassLoader(), packageName);
+		}
+		catch (IOException exception)
+		{
+			throw new IllegalStateException("Cannot scan package: " + packageName, exception);
+		}
+		
+		return newProxyWarmer().warmUp(types);
+	}
+	
+	/**
+	 * Gets the proxy engines that spies are created with.
+	 * 
+	 * @return the proxy engines, ordered from highest to lowest priority
+	 */
+	public static List<ProxyEngine> getProxyEngines()
+	{
+		return Spy.getProxyClassCache().getEngines();
+	}
+	
+	// ----------------------------------------------------------------------------------------------------------------
+	// private methods
+	// ----------------------------------------------------------------------------------------------------------------
+
+	private static ProxyWarmer newProxyWarmer()
+	{
+		return new ProxyWarmer(Spy.getProxyClassCache(), ItemMatchTask.DEFAULT_POOL, WARMED_INVOCATIONS,
+			ProxyWarmer.DEFAULT_MAXIMUM_WARMED_INVOCATIONS);
+	}
+	
+	private static ClassLoader getClassLoader()
+	{
+		ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+		
+		return (classLoader != null) ? classLoader : SubmatcherRuntime.class.getClassLoader();
+	}
+}
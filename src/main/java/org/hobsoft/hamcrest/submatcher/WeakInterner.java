@@ -0,0 +1,156 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hobsoft.hamcrest.submatcher;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import static org.hobsoft.hamcrest.submatcher.Preconditions.checkNotNull;
+
+/**
+ * Concurrent table of canonical instances keyed by equality.
+ * <p>
+ * Canonical instances are weakly referenced so that the table never retains an instance, or anything it refers to,
+ * that is otherwise unused.
+ * 
+ * @param <T>
+ *            the instance type
+ */
+final class WeakInterner<T>
+{
+	// ----------------------------------------------------------------------------------------------------------------
+	// fields
+	// ----------------------------------------------------------------------------------------------------------------
+
+	private final ConcurrentMap<InternKey<T>, InternKey<T>> keys;
+	
+	private final ReferenceQueue<T> staleKeys;
+	
+	// ----------------------------------------------------------------------------------------------------------------
+	// constructors
+	// ----------------------------------------------------------------------------------------------------------------
+
+	public WeakInterner()
+	{
+		keys = new ConcurrentHashMap<InternKey<T>, InternKey<T>>();
+		staleKeys = new ReferenceQueue<T>();
+	}
+	
+	// ----------------------------------------------------------------------------------------------------------------
+	// public methods
+	// ----------------------------------------------------------------------------------------------------------------
+
+	public T intern(T instance)
+	{
+		checkNotNull(instance, "instance");
+		
+		InternKey<T> key = keys.get(new InternKey<T>(instance, null));
+		T canonical = (key != null) ? key.get() : null;
+		
+		if (canonical != null)
+		{
+			return canonical;
+		}
+		
+		expungeStaleKeys();
+		
+		InternKey<T> newKey = new InternKey<T>(instance, staleKeys);
+		
+		while (true)
+		{
+			key = keys.putIfAbsent(newKey, newKey);
+			
+			if (key == null)
+			{
+				return instance;
+			}
+			
+			canonical = key.get();
+			
+			if (canonical != null)
+			{
+				return canonical;
+			}
+			
+			// canonical instance was collected before its key was expunged
+			keys.remove(key, key);
+		}
+	}
+	
+	public int size()
+	{
+		expungeStaleKeys();
+		
+		return keys.size();
+	}
+	
+	// ----------------------------------------------------------------------------------------------------------------
+	// private methods
+	// ----------------------------------------------------------------------------------------------------------------
+
+	private void expungeStaleKeys()
+	{
+		Reference<? extends T> staleKey;
+		
+		while ((staleKey = staleKeys.poll()) != null)
+		{
+			keys.remove(staleKey);
+		}
+	}
+	
+	// ----------------------------------------------------------------------------------------------------------------
+	// types
+	// ----------------------------------------------------------------------------------------------------------------
+
+	/**
+	 * Weak key for an instance that compares by the instance's equality.
+	 */
+	private static final class InternKey<T> extends WeakReference<T>
+	{
+		private final int hashCode;
+		
+		public InternKey(T instance, ReferenceQueue<T> queue)
+		{
+			super(instance, queue);
+			hashCode = instance.hashCode();
+		}
+		
+		@Override
+		public int hashCode()
+		{
+			return hashCode;
+		}
+		
+		@Override
+		public boolean equals(Object object)
+		{
+			if (object == this)
+			{
+				return true;
+			}
+			
+			if (!(object instanceof InternKey))
+			{
+				return false;
+			}
+			
+			Object instance = get();
+			
+			return (instance != null) && instance.equals(((InternKey<?>) object).get());
+		}
+	}
+}
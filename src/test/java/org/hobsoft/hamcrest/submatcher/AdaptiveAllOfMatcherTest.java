@@ -0,0 +1,215 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hobsoft.hamcrest.submatcher;
+
+import org.hamcrest.Matcher;
+import org.hamcrest.StringDescription;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import static org.hamcrest.CoreMatchers.anything;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.CoreMatchers.startsWith;
+import static org.hobsoft.hamcrest.submatcher.AdaptiveAllOfMatcher.adaptiveAllOf;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests {@code AdaptiveAllOfMatcher}.
+ */
+public class AdaptiveAllOfMatcherTest
+{
+	// ----------------------------------------------------------------------------------------------------------------
+	// fields
+	// ----------------------------------------------------------------------------------------------------------------
+
+	private ExpectedException thrown = ExpectedException.none();
+
+	// ----------------------------------------------------------------------------------------------------------------
+	// JUnit methods
+	// ----------------------------------------------------------------------------------------------------------------
+
+	@Rule
+	public ExpectedException getThrown()
+	{
+		return thrown;
+	}
+
+	// ----------------------------------------------------------------------------------------------------------------
+	// tests
+	// ----------------------------------------------------------------------------------------------------------------
+
+	@Test
+	public void adaptiveAllOfReturnsMatcherWithMatchers()
+	{
+		Matcher<Object> matcher = anything();
+		
+		AdaptiveAllOfMatcher<String> actual = adaptiveAllOf(matcher);
+		
+		assertThat(actual.getMatchers().get(0), is(sameInstance((Object) matcher)));
+	}
+	
+	@Test
+	public void adaptiveAllOfReturnsMatcherWithDeclaredOrder()
+	{
+		AdaptiveAllOfMatcher<String> actual = adaptiveAllOf(anything(), equalTo("x"), anything());
+		
+		assertThat(actual.getOrder(), is(new int[] {0, 1, 2}));
+	}
+	
+	@Test
+	public void adaptiveAllOfWithNullMatchersThrowsException()
+	{
+		thrown.expect(NullPointerException.class);
+		thrown.expectMessage("matchers");
+		
+		adaptiveAllOf((Matcher<Object>[]) null);
+	}
+	
+	@Test
+	public void adaptiveAllOfWithNullMatcherThrowsException()
+	{
+		thrown.expect(NullPointerException.class);
+		thrown.expectMessage("matcher");
+		
+		adaptiveAllOf((Matcher<Object>) null);
+	}
+	
+	@Test
+	public void matchesWhenAllMatchReturnsTrue()
+	{
+		AdaptiveAllOfMatcher<String> matcher = adaptiveAllOf(startsWith("x"), equalTo("xy"));
+		
+		assertThat(matcher.matches("xy"), is(true));
+	}
+	
+	@Test
+	public void matchesWhenOneMismatchesReturnsFalse()
+	{
+		AdaptiveAllOfMatcher<String> matcher = adaptiveAllOf(startsWith("x"), equalTo("xz"));
+		
+		assertThat(matcher.matches("xy"), is(false));
+	}
+	
+	@Test
+	public void matchesWhenNoMatchersReturnsTrue()
+	{
+		AdaptiveAllOfMatcher<String> matcher = adaptiveAllOf();
+		
+		assertThat(matcher.matches("x"), is(true));
+	}
+	
+	@Test
+	public void matchesAfterReorderIntervalEvaluatesFailingMatcherFirst()
+	{
+		AdaptiveAllOfMatcher<String> matcher = adaptiveAllOf(anything(), startsWith("x"), equalTo("z"));
+		
+		matchRepeatedly(matcher, "xy", AdaptiveAllOfMatcher.REORDER_INTERVAL);
+		
+		// the order of matchers that never fail depends on their measured cost
+		assertThat(matcher.getOrder()[0], is(2));
+	}
+	
+	@Test
+	public void matchesAfterReorderIntervalStillMatches()
+	{
+		AdaptiveAllOfMatcher<String> matcher = adaptiveAllOf(anything(), startsWith("x"), equalTo("z"));
+		
+		matchRepeatedly(matcher, "xy", AdaptiveAllOfMatcher.REORDER_INTERVAL);
+		
+		assertThat(matcher.matches("z"), is(false));
+		assertThat(matcher.matches("xz"), is(false));
+	}
+	
+	@Test
+	public void matchesAfterReorderIntervalDoesNotEvaluateMatchersAfterFailure()
+	{
+		Matcher<Object> passing = mockMatcher(true);
+		AdaptiveAllOfMatcher<String> matcher = adaptiveAllOf(passing, equalTo("z"));
+		matchRepeatedly(matcher, "x", AdaptiveAllOfMatcher.REORDER_INTERVAL);
+		
+		matcher.matches("x");
+		
+		verify(passing, times(AdaptiveAllOfMatcher.REORDER_INTERVAL - 1)).matches(any());
+	}
+	
+	@Test
+	public void matchesWhenUnorderedEvaluatesMatchersInDeclaredOrder()
+	{
+		Matcher<Object> passing = mockMatcher(true);
+		AdaptiveAllOfMatcher<String> matcher = adaptiveAllOf(equalTo("z"), passing);
+		
+		matcher.matches("x");
+		
+		verify(passing, never()).matches(any());
+	}
+	
+	@Test
+	public void describeToDescribesMatchersInDeclaredOrder()
+	{
+		AdaptiveAllOfMatcher<String> matcher = adaptiveAllOf(startsWith("x"), equalTo("y"));
+		
+		assertThat(StringDescription.asString(matcher), is("(a string starting with \"x\" and \"y\")"));
+	}
+	
+	@Test
+	public void describeMismatchDescribesMismatch()
+	{
+		AdaptiveAllOfMatcher<String> matcher = adaptiveAllOf(startsWith("x"), equalTo("y"));
+		StringDescription description = new StringDescription();
+		
+		matcher.describeMismatch("xz", description);
+		
+		assertThat(description.toString(), is("\"y\" was \"xz\""));
+	}
+	
+	@Test
+	public void describeMismatchAfterReorderDescribesMismatchesInDeclaredOrder()
+	{
+		AdaptiveAllOfMatcher<String> matcher = adaptiveAllOf(startsWith("x"), anything(), equalTo("y"));
+		matchRepeatedly(matcher, "xz", AdaptiveAllOfMatcher.REORDER_INTERVAL);
+		StringDescription description = new StringDescription();
+		
+		matcher.describeMismatch("z", description);
+		
+		assertThat(description.toString(), is("a string starting with \"x\" was \"z\" and \"y\" was \"z\""));
+	}
+	
+	// ----------------------------------------------------------------------------------------------------------------
+	// private methods
+	// ----------------------------------------------------------------------------------------------------------------
+
+	private static <T> void matchRepeatedly(Matcher<T> matcher, T actual, int count)
+	{
+		for (int index = 0; index < count; index++)
+		{
+			matcher.matches(actual);
+		}
+	}
+	
+	private static Matcher<Object> mockMatcher(boolean matches)
+	{
+		Matcher<Object> matcher = mock(Matcher.class);
+		when(matcher.matches(any())).thenReturn(matches);
+		return matcher;
+	}
+}
@@ -0,0 +1,45 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hobsoft.hamcrest.submatcher;
+
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Tests {@code CacheStatistics}.
+ */
+public class CacheStatisticsTest
+{
+	// ----------------------------------------------------------------------------------------------------------------
+	// tests
+	// ----------------------------------------------------------------------------------------------------------------
+
+	@Test
+	public void getRequestCountReturnsHitsPlusMisses()
+	{
+		CacheStatistics statistics = new CacheStatistics(1, 2);
+		
+		assertThat(statistics.getRequestCount(), is(3L));
+	}
+	
+	@Test
+	public void toStringReturnsCounts()
+	{
+		CacheStatistics statistics = new CacheStatistics(1, 2);
+		
+		assertThat(statistics.toString(), is("hits=1, misses=2"));
+	}
+}
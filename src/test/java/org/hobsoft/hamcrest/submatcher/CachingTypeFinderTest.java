@@ -0,0 +1,97 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hobsoft.hamcrest.submatcher;
+
+import org.hamcrest.Description;
+import org.hamcrest.TypeSafeDiagnosingMatcher;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Tests {@code CachingTypeFinder}.
+ */
+public class CachingTypeFinderTest
+{
+	// ----------------------------------------------------------------------------------------------------------------
+	// tests
+	// ----------------------------------------------------------------------------------------------------------------
+
+	@Test
+	public void findExpectedTypeReturnsMatchesSafelyParameterType()
+	{
+		Class<?> actual = CachingTypeFinder.MATCHES_SAFELY.findExpectedType(StringMatcher.class);
+		
+		assertThat(actual, equalTo((Object) String.class));
+	}
+	
+	@Test
+	public void findExpectedTypeWhenSubclassReturnsSuperclassParameterType()
+	{
+		Class<?> actual = CachingTypeFinder.MATCHES_SAFELY.findExpectedType(StringSubMatcher.class);
+		
+		assertThat(actual, equalTo((Object) String.class));
+	}
+	
+	@Test
+	public void findExpectedTypeTwiceReturnsSameType()
+	{
+		Class<?> first = CachingTypeFinder.MATCHES_SAFELY.findExpectedType(StringMatcher.class);
+		Class<?> second = CachingTypeFinder.MATCHES_SAFELY.findExpectedType(StringMatcher.class);
+		
+		assertThat(second, sameInstance((Object) first));
+	}
+	
+	@Test
+	public void matchesWhenTypeFinderAndUnexpectedTypeReturnsFalse()
+	{
+		assertThat(new StringMatcher().matches(1), equalTo(false));
+	}
+	
+	@Test
+	public void matchesWhenTypeFinderAndExpectedTypeReturnsTrue()
+	{
+		assertThat(new StringMatcher().matches("x"), equalTo(true));
+	}
+	
+	// ----------------------------------------------------------------------------------------------------------------
+	// types
+	// ----------------------------------------------------------------------------------------------------------------
+
+	private static class StringMatcher extends TypeSafeDiagnosingMatcher<String>
+	{
+		public StringMatcher()
+		{
+			super(CachingTypeFinder.MATCHES_SAFELY);
+		}
+		
+		public void describeTo(Description description)
+		{
+			description.appendText("string");
+		}
+		
+		@Override
+		protected boolean matchesSafely(String item, Description mismatchDescription)
+		{
+			return true;
+		}
+	}
+	
+	private static class StringSubMatcher extends StringMatcher
+	{
+		// subclass inherits matchesSafely
+	}
+}
@@ -0,0 +1,189 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hobsoft.hamcrest.submatcher;
+
+import org.hobsoft.hamcrest.submatcher.test.Library;
+import org.hobsoft.hamcrest.submatcher.test.Person;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Tests {@code CglibProxyEngine}.
+ */
+public class CglibProxyEngineTest
+{
+	// ----------------------------------------------------------------------------------------------------------------
+	// fields
+	// ----------------------------------------------------------------------------------------------------------------
+
+	private TemporaryFolder folder = new TemporaryFolder();
+
+	// ----------------------------------------------------------------------------------------------------------------
+	// JUnit methods
+	// ----------------------------------------------------------------------------------------------------------------
+
+	@Rule
+	public TemporaryFolder getFolder()
+	{
+		return folder;
+	}
+
+	// ----------------------------------------------------------------------------------------------------------------
+	// tests
+	// ----------------------------------------------------------------------------------------------------------------
+
+	@Test
+	public void supportsWithInterfaceReturnsTrue()
+	{
+		boolean actual = new CglibProxyEngine().supports(Person.class);
+		
+		assertThat(actual, is(true));
+	}
+	
+	@Test
+	public void supportsWithClassReturnsTrue()
+	{
+		boolean actual = new CglibProxyEngine().supports(Library.class);
+		
+		assertThat(actual, is(true));
+	}
+	
+	@Test
+	public void supportsWithFinalClassReturnsFalse()
+	{
+		boolean actual = new CglibProxyEngine().supports(String.class);
+		
+		assertThat(actual, is(false));
+	}
+	
+	@Test
+	public void createFactoryReturnsFactoryWithBytecodeLength()
+	{
+		ProxyFactory actual = new CglibProxyEngine().createFactory(BytecodeLengthTarget.class);
+		
+		assertThat(actual.getBytecodeLength(), is(greaterThan(0)));
+	}
+	
+	@Test
+	public void createFactoryWhenStoreSavesProxyClass()
+	{
+		ProxyClassStore store = new ProxyClassStore(folder.getRoot());
+		
+		new CglibProxyEngine(store).createFactory(SavedTarget.class);
+		
+		assertThat(folder.getRoot().list().length, is(1));
+	}
+	
+	@Test
+	public void createFactoryWhenStoredReturnsStoredProxyClass()
+	{
+		ProxyFactory factory = new CglibProxyEngine(new ProxyClassStore(folder.getRoot()))
+			.createFactory(StoredTarget.class);
+		
+		ProxyFactory actual = new CglibProxyEngine(new ProxyClassStore(folder.getRoot()))
+			.createFactory(StoredTarget.class);
+		
+		assertThat(actual.getProxyType(), is(sameInstance((Object) factory.getProxyType())));
+		assertThat(actual.getBytecodeLength(), is(-1));
+	}
+	
+	@Test
+	public void createFactoryWhenStoredThenNewInstanceReturnsProxy()
+	{
+		new CglibProxyEngine(new ProxyClassStore(folder.getRoot())).createFactory(StoredInstanceTarget.class);
+		ProxyFactory factory = new CglibProxyEngine(new ProxyClassStore(folder.getRoot()))
+			.createFactory(StoredInstanceTarget.class);
+		
+		Object actual = factory.newInstance(mock(SpyInterceptor.class));
+		
+		assertThat(actual, is(instanceOf(StoredInstanceTarget.class)));
+	}
+	
+	@Test
+	public void createFactoryThenNewInstanceReturnsProxy()
+	{
+		ProxyFactory factory = new CglibProxyEngine().createFactory(Library.class);
+		
+		Object actual = factory.newInstance(mock(SpyInterceptor.class));
+		
+		assertThat(actual, is(instanceOf(Library.class)));
+	}
+	
+	@Test
+	public void createFactoryThenNewInstanceThenMethodInvokesInterceptor() throws NoSuchMethodException
+	{
+		SpyInterceptor interceptor = mock(SpyInterceptor.class);
+		Library proxy = (Library) new CglibProxyEngine().createFactory(Library.class).newInstance(interceptor);
+		
+		proxy.getBook("x");
+		
+		verify(interceptor).intercept(Library.class.getMethod("getBook", String.class), new Object[] {"x"});
+	}
+	
+	@Test
+	public void createFactoryThenNewInstanceThenMethodWithPrimitiveReturnTypeReturnsZero()
+	{
+		Person proxy = (Person) new CglibProxyEngine().createFactory(Person.class)
+			.newInstance(mock(SpyInterceptor.class));
+		
+		int actual = proxy.getAge();
+		
+		assertThat(actual, is(0));
+	}
+	
+	// ----------------------------------------------------------------------------------------------------------------
+	// types
+	// ----------------------------------------------------------------------------------------------------------------
+
+	/**
+	 * Type that is only proxied by one test, so that CGLib generates its proxy class rather than reusing it.
+	 */
+	public static class BytecodeLengthTarget
+	{
+		// no members
+	}
+	
+	/**
+	 * Type that is only proxied by one test, so that its proxy class is saved to the store.
+	 */
+	public static class SavedTarget
+	{
+		// no members
+	}
+	
+	/**
+	 * Type that is only proxied by one test, so that its proxy class is loaded from the store.
+	 */
+	public static class StoredTarget
+	{
+		// no members
+	}
+	
+	/**
+	 * Type that is only proxied by one test, so that its proxy class is loaded from the store and instantiated.
+	 */
+	public static class StoredInstanceTarget
+	{
+		// no members
+	}
+}
@@ -0,0 +1,47 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hobsoft.hamcrest.submatcher;
+
+import org.hamcrest.Description;
+import org.hamcrest.StringDescription;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Tests {@code Descriptions}.
+ */
+public class DescriptionsTest
+{
+	// ----------------------------------------------------------------------------------------------------------------
+	// tests
+	// ----------------------------------------------------------------------------------------------------------------
+
+	@Test
+	public void isRenderedWithStringDescriptionReturnsTrue()
+	{
+		boolean actual = Descriptions.isRendered(new StringDescription());
+		
+		assertThat(actual, is(true));
+	}
+	
+	@Test
+	public void isRenderedWithNullDescriptionReturnsFalse()
+	{
+		boolean actual = Descriptions.isRendered(Description.NONE);
+		
+		assertThat(actual, is(false));
+	}
+}
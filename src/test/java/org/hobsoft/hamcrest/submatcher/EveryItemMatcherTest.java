@@ -0,0 +1,198 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hobsoft.hamcrest.submatcher;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+
+import org.hamcrest.StringDescription;
+import org.hobsoft.hamcrest.submatcher.test.Person;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hobsoft.hamcrest.submatcher.EveryItemMatcher.everyItemInParallel;
+import static org.hobsoft.hamcrest.submatcher.HasValueMatcher.hasValue;
+import static org.hobsoft.hamcrest.submatcher.HasValueMatcher.on;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests {@code EveryItemMatcher}.
+ */
+public class EveryItemMatcherTest
+{
+	// ----------------------------------------------------------------------------------------------------------------
+	// fields
+	// ----------------------------------------------------------------------------------------------------------------
+
+	private SpyHolderRule spyHolderRule = new SpyHolderRule();
+	
+	private ExpectedException thrown = ExpectedException.none();
+
+	// ----------------------------------------------------------------------------------------------------------------
+	// JUnit methods
+	// ----------------------------------------------------------------------------------------------------------------
+
+	@Rule
+	public SpyHolderRule getSpyHolderRule()
+	{
+		return spyHolderRule;
+	}
+
+	@Rule
+	public ExpectedException getThrown()
+	{
+		return thrown;
+	}
+
+	// ----------------------------------------------------------------------------------------------------------------
+	// tests
+	// ----------------------------------------------------------------------------------------------------------------
+
+	@Test
+	public void constructorWithNullItemMatcherThrowsException()
+	{
+		thrown.expect(NullPointerException.class);
+		thrown.expectMessage("itemMatcher");
+		
+		new EveryItemMatcher<Object>(null, ItemMatchTask.DEFAULT_POOL, 1);
+	}
+	
+	@Test
+	public void constructorWithNullPoolThrowsException()
+	{
+		thrown.expect(NullPointerException.class);
+		thrown.expectMessage("pool");
+		
+		new EveryItemMatcher<Integer>(equalTo(0), null, 1);
+	}
+	
+	@Test
+	public void constructorWithZeroSampleSizeThrowsException()
+	{
+		thrown.expect(IllegalArgumentException.class);
+		thrown.expectMessage("sampleSize must be positive: 0");
+		
+		new EveryItemMatcher<Integer>(equalTo(0), ItemMatchTask.DEFAULT_POOL, 0);
+	}
+	
+	@Test
+	public void matchesWhenAllItemsMatchReturnsTrue()
+	{
+		boolean actual = everyItemInParallel(equalTo(0)).matches(newItems(10000));
+		
+		assertThat(actual, is(true));
+	}
+	
+	@Test
+	public void matchesWhenEmptyReturnsTrue()
+	{
+		boolean actual = everyItemInParallel(equalTo(0)).matches(Collections.emptyList());
+		
+		assertThat(actual, is(true));
+	}
+	
+	@Test
+	public void matchesWhenItemDoesNotMatchReturnsFalse()
+	{
+		boolean actual = everyItemInParallel(equalTo(0)).matches(newItems(10000, 9999));
+		
+		assertThat(actual, is(false));
+	}
+	
+	@Test
+	public void matchesWhenNonRandomAccessAndItemDoesNotMatchReturnsFalse()
+	{
+		boolean actual = everyItemInParallel(equalTo(0)).matches(new LinkedList<Integer>(newItems(1000, 500)));
+		
+		assertThat(actual, is(false));
+	}
+	
+	@Test
+	public void matchesWithHasValueMatcherWhenItemDoesNotMatchReturnsFalse()
+	{
+		Person person1 = mock(Person.class);
+		when(person1.getAge()).thenReturn(1);
+		Person person2 = mock(Person.class);
+		when(person2.getAge()).thenReturn(2);
+		
+		boolean actual = everyItemInParallel(hasValue(on(Person.class).getAge(), equalTo(1)))
+			.matches(Arrays.asList(person1, person2));
+		
+		assertThat(actual, is(false));
+	}
+	
+	@Test
+	public void describeMismatchAppendsMismatchesInOrder()
+	{
+		StringDescription description = new StringDescription();
+		
+		everyItemInParallel(equalTo(0)).describeMismatch(newItems(10000, 9000, 3, 500), description);
+		
+		assertThat(description.toString(), is("item 3 was <1>, item 500 was <1>, item 9000 was <1>"));
+	}
+	
+	@Test
+	public void describeMismatchWhenMoreThanSampleSizeAppendsSampleAndRemainingCount()
+	{
+		StringDescription description = new StringDescription();
+		
+		everyItemInParallel(equalTo(0), ItemMatchTask.DEFAULT_POOL, 2).describeMismatch(newItems(10000, 1, 2, 3, 9999),
+			description);
+		
+		assertThat(description.toString(), is("item 1 was <1>, item 2 was <1> and 2 more"));
+	}
+	
+	@Test
+	public void describeToAppendsDescription()
+	{
+		StringDescription description = new StringDescription();
+		
+		everyItemInParallel(equalTo(0)).describeTo(description);
+		
+		assertThat(description.toString(), is("every item is <0>"));
+	}
+	
+	@Test
+	public void everyItemInParallelWithNullItemMatcherThrowsException()
+	{
+		thrown.expect(NullPointerException.class);
+		thrown.expectMessage("itemMatcher");
+		
+		everyItemInParallel(null);
+	}
+	
+	// ----------------------------------------------------------------------------------------------------------------
+	// private methods
+	// ----------------------------------------------------------------------------------------------------------------
+
+	private static List<Integer> newItems(int size, int... mismatchIndexes)
+	{
+		List<Integer> items = new ArrayList<Integer>(Collections.nCopies(size, 0));
+		
+		for (int mismatchIndex : mismatchIndexes)
+		{
+			items.set(mismatchIndex, 1);
+		}
+		
+		return items;
+	}
+}
@@ -0,0 +1,192 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hobsoft.hamcrest.submatcher;
+
+import java.lang.reflect.InvocationTargetException;
+
+import org.hamcrest.CoreMatchers;
+import org.hamcrest.StringDescription;
+import org.hobsoft.hamcrest.submatcher.test.Animal;
+import org.hobsoft.hamcrest.submatcher.test.Name;
+import org.hobsoft.hamcrest.submatcher.test.Person;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests {@code FieldInvocation}.
+ */
+public class FieldInvocationTest
+{
+	// ----------------------------------------------------------------------------------------------------------------
+	// fields
+	// ----------------------------------------------------------------------------------------------------------------
+
+	private ExpectedException thrown = ExpectedException.none();
+	
+	// ----------------------------------------------------------------------------------------------------------------
+	// JUnit methods
+	// ----------------------------------------------------------------------------------------------------------------
+
+	@Rule
+	public ExpectedException getThrown()
+	{
+		return thrown;
+	}
+
+	// ----------------------------------------------------------------------------------------------------------------
+	// tests
+	// ----------------------------------------------------------------------------------------------------------------
+
+	@Test
+	public void invokeReturnsFieldValue() throws IllegalAccessException, InvocationTargetException
+	{
+		FieldInvocation invocation = new FieldInvocation(Animal.GET_NAME);
+		
+		Object actual = invocation.invoke(new Animal("x", false, null));
+		
+		assertThat(actual, CoreMatchers.<Object>is("x"));
+	}
+	
+	@Test
+	public void invokeDoesNotInvokeGetter() throws IllegalAccessException, InvocationTargetException
+	{
+		FieldInvocation invocation = new FieldInvocation(Animal.GET_NAME);
+		Animal animal = new Animal("x", false, null);
+		
+		invocation.invoke(animal);
+		
+		assertThat(animal.getGetterCount(), is(0));
+	}
+	
+	@Test
+	public void invokeWithBooleanGetterReturnsFieldValue() throws IllegalAccessException, InvocationTargetException
+	{
+		FieldInvocation invocation = new FieldInvocation(Animal.IS_TAME);
+		
+		Object actual = invocation.invoke(new Animal("x", true, null));
+		
+		assertThat(actual, CoreMatchers.<Object>is(true));
+	}
+	
+	@Test
+	public void invokeWithSubclassReturnsSuperclassFieldValue() throws IllegalAccessException, InvocationTargetException
+	{
+		FieldInvocation invocation = new FieldInvocation(Animal.GET_NAME);
+		Animal animal = new Animal("x", false, null)
+		{
+			// subclass
+		};
+		
+		Object actual = invocation.invoke(animal);
+		
+		assertThat(actual, CoreMatchers.<Object>is("x"));
+		assertThat(animal.getGetterCount(), is(0));
+	}
+	
+	@Test
+	public void invokeWhenNoFieldInvokesGetter() throws IllegalAccessException, InvocationTargetException
+	{
+		FieldInvocation invocation = new FieldInvocation(Person.GET_NAME);
+		Person person = mock(Person.class);
+		Name name = mock(Name.class);
+		when(person.getName()).thenReturn(name);
+		
+		Object actual = invocation.invoke(person);
+		
+		assertThat(actual, CoreMatchers.<Object>is(name));
+	}
+	
+	@Test
+	public void invokeWithIncompatibleInstanceThrowsException() throws IllegalAccessException, InvocationTargetException
+	{
+		FieldInvocation invocation = new FieldInvocation(Animal.GET_NAME);
+		
+		thrown.expect(IllegalArgumentException.class);
+		
+		invocation.invoke(new Object());
+	}
+	
+	@Test
+	public void compileReturnsNull()
+	{
+		FieldInvocation invocation = new FieldInvocation(Animal.GET_NAME);
+		
+		assertThat(invocation.compile(Object.class), is(nullValue()));
+	}
+	
+	@Test
+	public void equalsWithMethodInvocationReturnsFalse()
+	{
+		FieldInvocation invocation = new FieldInvocation(Animal.GET_NAME);
+		
+		boolean actual = invocation.equals(new MethodInvocation(Animal.GET_NAME));
+		
+		assertThat(actual, is(false));
+	}
+	
+	@Test
+	public void equalsWithEqualFieldInvocationReturnsTrue()
+	{
+		FieldInvocation invocation = new FieldInvocation(Animal.GET_NAME);
+		
+		boolean actual = invocation.equals(new FieldInvocation(Animal.GET_NAME));
+		
+		assertThat(actual, is(true));
+	}
+	
+	@Test
+	public void describeToAppendsFieldName()
+	{
+		FieldInvocation invocation = new FieldInvocation(Animal.GET_NAME);
+		
+		assertThat(StringDescription.toString(invocation), is("name"));
+	}
+	
+	@Test
+	public void getFieldNameWithGetterReturnsPropertyName()
+	{
+		assertThat(FieldInvocation.getFieldName("getName"), is("name"));
+	}
+	
+	@Test
+	public void getFieldNameWithBooleanGetterReturnsPropertyName()
+	{
+		assertThat(FieldInvocation.getFieldName("isTame"), is("tame"));
+	}
+	
+	@Test
+	public void getFieldNameWithAcronymGetterReturnsAcronym()
+	{
+		assertThat(FieldInvocation.getFieldName("getURL"), is("URL"));
+	}
+	
+	@Test
+	public void getFieldNameWithAccessorReturnsAccessorName()
+	{
+		assertThat(FieldInvocation.getFieldName("name"), is("name"));
+	}
+	
+	@Test
+	public void getFieldNameWithGetReturnsGet()
+	{
+		assertThat(FieldInvocation.getFieldName("get"), is("get"));
+	}
+}
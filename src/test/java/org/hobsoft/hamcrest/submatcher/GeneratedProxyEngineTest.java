@@ -0,0 +1,106 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hobsoft.hamcrest.submatcher;
+
+import org.hobsoft.hamcrest.submatcher.test.Book;
+import org.hobsoft.hamcrest.submatcher.test.Person;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Tests {@code GeneratedProxyEngine}.
+ */
+public class GeneratedProxyEngineTest
+{
+	// ----------------------------------------------------------------------------------------------------------------
+	// fields
+	// ----------------------------------------------------------------------------------------------------------------
+
+	private ExpectedException thrown = ExpectedException.none();
+
+	// ----------------------------------------------------------------------------------------------------------------
+	// JUnit methods
+	// ----------------------------------------------------------------------------------------------------------------
+
+	@Rule
+	public ExpectedException getThrown()
+	{
+		return thrown;
+	}
+
+	// ----------------------------------------------------------------------------------------------------------------
+	// tests
+	// ----------------------------------------------------------------------------------------------------------------
+
+	@Test
+	public void supportsWithGeneratedSpyReturnsTrue()
+	{
+		boolean actual = new GeneratedProxyEngine().supports(Book.class);
+		
+		assertThat(actual, is(true));
+	}
+	
+	@Test
+	public void supportsWithoutGeneratedSpyReturnsFalse()
+	{
+		boolean actual = new GeneratedProxyEngine().supports(Person.class);
+		
+		assertThat(actual, is(false));
+	}
+	
+	@Test
+	public void supportsWithSystemTypeReturnsFalse()
+	{
+		boolean actual = new GeneratedProxyEngine().supports(Runnable.class);
+		
+		assertThat(actual, is(false));
+	}
+	
+	@Test
+	public void createFactoryThenNewInstanceReturnsGeneratedSpy()
+	{
+		ProxyFactory factory = new GeneratedProxyEngine().createFactory(Book.class);
+		
+		Object actual = factory.newInstance(mock(SpyInterceptor.class));
+		
+		assertThat(actual, is(instanceOf(GeneratedSpy.class)));
+	}
+	
+	@Test
+	public void createFactoryThenNewInstanceThenMethodInvokesInterceptor()
+	{
+		SpyInterceptor interceptor = mock(SpyInterceptor.class);
+		Book proxy = (Book) new GeneratedProxyEngine().createFactory(Book.class).newInstance(interceptor);
+		
+		proxy.getTitle();
+		
+		verify(interceptor).intercept(Book.GET_TITLE, new Object[0]);
+	}
+	
+	@Test
+	public void createFactoryWithoutGeneratedSpyThrowsException()
+	{
+		thrown.expect(IllegalArgumentException.class);
+		thrown.expectMessage("Type has no generated spy: " + Person.class.getName());
+		
+		new GeneratedProxyEngine().createFactory(Person.class);
+	}
+}
@@ -0,0 +1,152 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hobsoft.hamcrest.submatcher;
+
+import org.hamcrest.Description;
+import org.hamcrest.Matcher;
+import org.hamcrest.StringDescription;
+import org.hobsoft.hamcrest.submatcher.test.Person;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hobsoft.hamcrest.submatcher.HasDoubleValueMatcher.hasDoubleValue;
+import static org.hobsoft.hamcrest.submatcher.HasValueMatcher.on;
+import static org.hobsoft.hamcrest.submatcher.PrimitiveMatchers.doubleGreaterThan;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests {@code HasDoubleValueMatcher}.
+ */
+public class HasDoubleValueMatcherTest
+{
+	// ----------------------------------------------------------------------------------------------------------------
+	// fields
+	// ----------------------------------------------------------------------------------------------------------------
+
+	private SpyHolderRule spyHolderRule = new SpyHolderRule();
+	
+	private ExpectedException thrown = ExpectedException.none();
+	
+	// ----------------------------------------------------------------------------------------------------------------
+	// JUnit methods
+	// ----------------------------------------------------------------------------------------------------------------
+
+	@Rule
+	public SpyHolderRule getSpyHolderRule()
+	{
+		return spyHolderRule;
+	}
+
+	@Rule
+	public ExpectedException getThrown()
+	{
+		return thrown;
+	}
+
+	// ----------------------------------------------------------------------------------------------------------------
+	// tests
+	// ----------------------------------------------------------------------------------------------------------------
+
+	@Test
+	public void hasDoubleValueReturnsMatcherWithPath()
+	{
+		HasDoubleValueMatcher<Person> actual = hasDoubleValue(on(Person.class).getHeight(), doubleGreaterThan(1.0));
+		
+		assertThat(actual.getPath().getInvocation().getMethod(), is(Person.GET_HEIGHT));
+	}
+	
+	@Test
+	public void hasDoubleValueWithNullSubmatcherThrowsException()
+	{
+		thrown.expect(NullPointerException.class);
+		thrown.expectMessage("submatcher");
+		
+		hasDoubleValue(0, null);
+	}
+	
+	@Test
+	public void hasDoubleValueWhenNullSpyThrowsException()
+	{
+		thrown.expect(IllegalStateException.class);
+		thrown.expectMessage("on() must be invoked before hasDoubleValue()");
+		
+		hasDoubleValue(0, doubleGreaterThan(1.0));
+	}
+	
+	@Test
+	public void matchesWhenMatchesReturnsTrue()
+	{
+		Matcher<Person> matcher = hasDoubleValue(on(Person.class).getHeight(), doubleGreaterThan(1.0));
+		
+		boolean actual = matcher.matches(newPersonWithHeight(1.5));
+		
+		assertThat(actual, is(true));
+	}
+	
+	@Test
+	public void matchesWhenDoesNotMatchReturnsFalse()
+	{
+		Matcher<Person> matcher = hasDoubleValue(on(Person.class).getHeight(), doubleGreaterThan(1.0));
+		
+		boolean actual = matcher.matches(newPersonWithHeight(0.5));
+		
+		assertThat(actual, is(false));
+	}
+	
+	@Test
+	public void matchesWhenIntValueAndMatchesReturnsTrue()
+	{
+		Matcher<Person> matcher = hasDoubleValue(on(Person.class).getAge(), doubleGreaterThan(1.0));
+		Person person = mock(Person.class);
+		when(person.getAge()).thenReturn(2);
+		
+		boolean actual = matcher.matches(person);
+		
+		assertThat(actual, is(true));
+	}
+	
+	@Test
+	public void describeToAppendsDescription()
+	{
+		Matcher<Person> matcher = hasDoubleValue(on(Person.class).getHeight(), doubleGreaterThan(1.0));
+		
+		assertThat(StringDescription.toString(matcher), is("has value getHeight() a value greater than <1.0>"));
+	}
+	
+	@Test
+	public void describeMismatchAppendsMismatch()
+	{
+		Matcher<Person> matcher = hasDoubleValue(on(Person.class).getHeight(), doubleGreaterThan(1.0));
+		Description mismatchDescription = new StringDescription();
+		
+		matcher.describeMismatch(newPersonWithHeight(0.5), mismatchDescription);
+		
+		assertThat(mismatchDescription.toString(), is("was <0.5>"));
+	}
+	
+	// ----------------------------------------------------------------------------------------------------------------
+	// private methods
+	// ----------------------------------------------------------------------------------------------------------------
+
+	private static Person newPersonWithHeight(double height)
+	{
+		Person person = mock(Person.class);
+		when(person.getHeight()).thenReturn(height);
+		return person;
+	}
+}
@@ -0,0 +1,274 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hobsoft.hamcrest.submatcher;
+
+import java.lang.reflect.Method;
+
+import org.hamcrest.Description;
+import org.hamcrest.Matcher;
+import org.hamcrest.StringDescription;
+import org.hobsoft.hamcrest.submatcher.test.Address;
+import org.hobsoft.hamcrest.submatcher.test.Person;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hobsoft.hamcrest.submatcher.HasIntValueMatcher.hasIntValue;
+import static org.hobsoft.hamcrest.submatcher.HasValueMatcher.on;
+import static org.hobsoft.hamcrest.submatcher.PrimitiveMatchers.intEqualTo;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests {@code HasIntValueMatcher}.
+ */
+public class HasIntValueMatcherTest
+{
+	// ----------------------------------------------------------------------------------------------------------------
+	// fields
+	// ----------------------------------------------------------------------------------------------------------------
+
+	private SpyHolderRule spyHolderRule = new SpyHolderRule();
+	
+	private ExpectedException thrown = ExpectedException.none();
+	
+	// ----------------------------------------------------------------------------------------------------------------
+	// JUnit methods
+	// ----------------------------------------------------------------------------------------------------------------
+
+	@Rule
+	public SpyHolderRule getSpyHolderRule()
+	{
+		return spyHolderRule;
+	}
+
+	@Rule
+	public ExpectedException getThrown()
+	{
+		return thrown;
+	}
+
+	// ----------------------------------------------------------------------------------------------------------------
+	// tests
+	// ----------------------------------------------------------------------------------------------------------------
+
+	@Test
+	public void hasIntValueReturnsMatcherWithPath()
+	{
+		HasIntValueMatcher<Person> actual = hasIntValue(on(Person.class).getAge(), intEqualTo(1));
+		
+		assertThat(actual.getPath().getInvocation().getMethod(), is(Person.GET_AGE));
+	}
+	
+	@Test
+	public void hasIntValueUnsetsSpy()
+	{
+		hasIntValue(on(Person.class).getAge(), intEqualTo(1));
+		
+		assertThat(SpyHolder.hasSpy(), is(false));
+	}
+	
+	@Test
+	public void hasIntValueWithNullSubmatcherThrowsException()
+	{
+		thrown.expect(NullPointerException.class);
+		thrown.expectMessage("submatcher");
+		
+		hasIntValue(0, null);
+	}
+	
+	@Test
+	public void hasIntValueWhenNullSpyThrowsException()
+	{
+		thrown.expect(IllegalStateException.class);
+		thrown.expectMessage("on() must be invoked before hasIntValue()");
+		
+		hasIntValue(0, intEqualTo(1));
+	}
+	
+	@Test
+	public void matchesWhenMatchesReturnsTrue()
+	{
+		Matcher<Person> matcher = hasIntValue(on(Person.class).getAge(), intEqualTo(1));
+		
+		boolean actual = matcher.matches(newPersonWithAge(1));
+		
+		assertThat(actual, is(true));
+	}
+	
+	@Test
+	public void matchesWhenDoesNotMatchReturnsFalse()
+	{
+		Matcher<Person> matcher = hasIntValue(on(Person.class).getAge(), intEqualTo(1));
+		
+		boolean actual = matcher.matches(newPersonWithAge(2));
+		
+		assertThat(actual, is(false));
+	}
+	
+	@Test
+	public void matchesWhenChainedAndMatchesReturnsTrue()
+	{
+		Matcher<Person> matcher = hasIntValue(on(Person.class).getAddress().getNumber(), intEqualTo(1));
+		
+		boolean actual = matcher.matches(newPersonWithAddressNumber(1));
+		
+		assertThat(actual, is(true));
+	}
+	
+	@Test
+	public void matchesWhenNonPublicTypeAndMatchesReturnsTrue() throws NoSuchMethodException
+	{
+		PropertyPath<Object, Integer> path = new PropertyPath<Object, Integer>(
+			new MethodInvocation(NonPublicType.class.getMethod("getValue")));
+		Matcher<Object> matcher = new HasIntValueMatcher<Object>(path, intEqualTo(1));
+		
+		boolean actual = matcher.matches(new NonPublicType());
+		
+		assertThat(actual, is(true));
+	}
+	
+	@Test
+	public void matchesWithArgumentWhenMatchesReturnsTrue() throws NoSuchMethodException
+	{
+		PropertyPath<Object, Integer> path = new PropertyPath<Object, Integer>(
+			new MethodInvocation(String.class.getMethod("indexOf", int.class), (int) 'y'));
+		Matcher<Object> matcher = new HasIntValueMatcher<Object>(path, intEqualTo(1));
+		
+		boolean actual = matcher.matches("xy");
+		
+		assertThat(actual, is(true));
+	}
+	
+	@Test
+	public void describeToAppendsDescription()
+	{
+		Matcher<Person> matcher = hasIntValue(on(Person.class).getAge(), intEqualTo(1));
+		
+		assertThat(StringDescription.toString(matcher), is("has value getAge() <1>"));
+	}
+	
+	@Test
+	public void describeMismatchAppendsMismatch()
+	{
+		Matcher<Person> matcher = hasIntValue(on(Person.class).getAge(), intEqualTo(1));
+		Description mismatchDescription = new StringDescription();
+		
+		matcher.describeMismatch(newPersonWithAge(2), mismatchDescription);
+		
+		assertThat(mismatchDescription.toString(), is("was <2>"));
+	}
+	
+	@Test
+	public void describeMismatchWhenChainedAndNullAppendsMismatch()
+	{
+		Matcher<Person> matcher = hasIntValue(on(Person.class).getAddress().getNumber(), intEqualTo(1));
+		Description mismatchDescription = new StringDescription();
+		
+		matcher.describeMismatch(mock(Person.class), mismatchDescription);
+		
+		assertThat(mismatchDescription.toString(), is("getAddress() was null"));
+	}
+	
+	@Test
+	public void describeMismatchWhenMethodThrowsExceptionAppendsMismatch()
+	{
+		Matcher<Person> matcher = hasIntValue(on(Person.class).getAge(), intEqualTo(1));
+		Person person = mock(Person.class);
+		RuntimeException exception = new RuntimeException();
+		when(person.getAge()).thenThrow(exception);
+		Description mismatchDescription = new StringDescription();
+		
+		matcher.describeMismatch(person, mismatchDescription);
+		
+		assertThat(mismatchDescription.toString(), is("threw <" + exception + ">"));
+	}
+	
+	@Test
+	public void matchesWhenInaccessibleMethodThrowsException() throws NoSuchMethodException
+	{
+		Method method = InaccessibleValue.class.getDeclaredMethod("getValue");
+		HasIntValueMatcher<InaccessibleValue> matcher = new HasIntValueMatcher<InaccessibleValue>(
+			new PropertyPath<InaccessibleValue, Integer>(new MethodInvocation(method)), intEqualTo(1));
+		
+		thrown.expect(IllegalStateException.class);
+		thrown.expectMessage("Cannot access method: " + method);
+		thrown.expectCause(instanceOf(IllegalAccessException.class));
+		
+		matcher.matches(new InaccessibleValue());
+	}
+	
+	@Test
+	public void describeMismatchWhenInaccessibleMethodThrowsException() throws NoSuchMethodException
+	{
+		Method method = InaccessibleValue.class.getDeclaredMethod("getValue");
+		HasIntValueMatcher<InaccessibleValue> matcher = new HasIntValueMatcher<InaccessibleValue>(
+			new PropertyPath<InaccessibleValue, Integer>(new MethodInvocation(method)), intEqualTo(1));
+		
+		thrown.expect(IllegalStateException.class);
+		thrown.expectMessage("Cannot access method: " + method);
+		thrown.expectCause(instanceOf(IllegalAccessException.class));
+		
+		matcher.describeMismatch(new InaccessibleValue(), new StringDescription());
+	}
+	
+	// ----------------------------------------------------------------------------------------------------------------
+	// private methods
+	// ----------------------------------------------------------------------------------------------------------------
+
+	private static Person newPersonWithAge(int age)
+	{
+		Person person = mock(Person.class);
+		when(person.getAge()).thenReturn(age);
+		return person;
+	}
+	
+	private static Person newPersonWithAddressNumber(int number)
+	{
+		Address address = mock(Address.class);
+		when(address.getNumber()).thenReturn(number);
+		Person person = mock(Person.class);
+		when(person.getAddress()).thenReturn(address);
+		return person;
+	}
+	
+	// ----------------------------------------------------------------------------------------------------------------
+	// types
+	// ----------------------------------------------------------------------------------------------------------------
+
+	/**
+	 * Type whose methods cannot be looked up publicly.
+	 */
+	static class NonPublicType
+	{
+		public int getValue()
+		{
+			return 1;
+		}
+	}
+	
+	/**
+	 * Type whose method cannot be invoked reflectively.
+	 */
+	static class InaccessibleValue
+	{
+		private int getValue()
+		{
+			return 1;
+		}
+	}
+}
@@ -0,0 +1,151 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hobsoft.hamcrest.submatcher;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.hamcrest.StringDescription;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hobsoft.hamcrest.submatcher.HasItemMatcher.hasItemInParallel;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Tests {@code HasItemMatcher}.
+ */
+public class HasItemMatcherTest
+{
+	// ----------------------------------------------------------------------------------------------------------------
+	// fields
+	// ----------------------------------------------------------------------------------------------------------------
+
+	private ExpectedException thrown = ExpectedException.none();
+
+	// ----------------------------------------------------------------------------------------------------------------
+	// JUnit methods
+	// ----------------------------------------------------------------------------------------------------------------
+
+	@Rule
+	public ExpectedException getThrown()
+	{
+		return thrown;
+	}
+
+	// ----------------------------------------------------------------------------------------------------------------
+	// tests
+	// ----------------------------------------------------------------------------------------------------------------
+
+	@Test
+	public void constructorWithNullItemMatcherThrowsException()
+	{
+		thrown.expect(NullPointerException.class);
+		thrown.expectMessage("itemMatcher");
+		
+		new HasItemMatcher<Object>(null, ItemMatchTask.DEFAULT_POOL, 1);
+	}
+	
+	@Test
+	public void constructorWithZeroSampleSizeThrowsException()
+	{
+		thrown.expect(IllegalArgumentException.class);
+		thrown.expectMessage("sampleSize must be positive: 0");
+		
+		new HasItemMatcher<Integer>(equalTo(0), ItemMatchTask.DEFAULT_POOL, 0);
+	}
+	
+	@Test
+	public void matchesWhenItemMatchesReturnsTrue()
+	{
+		boolean actual = hasItemInParallel(equalTo(1)).matches(newItems(10000, 7777));
+		
+		assertThat(actual, is(true));
+	}
+	
+	@Test
+	public void matchesWhenNoItemMatchesReturnsFalse()
+	{
+		boolean actual = hasItemInParallel(equalTo(1)).matches(newItems(10000));
+		
+		assertThat(actual, is(false));
+	}
+	
+	@Test
+	public void matchesWhenEmptyReturnsFalse()
+	{
+		boolean actual = hasItemInParallel(equalTo(1)).matches(Collections.emptyList());
+		
+		assertThat(actual, is(false));
+	}
+	
+	@Test
+	public void describeMismatchWhenEmptyAppendsMismatch()
+	{
+		StringDescription description = new StringDescription();
+		
+		hasItemInParallel(equalTo(1)).describeMismatch(Collections.emptyList(), description);
+		
+		assertThat(description.toString(), is("was empty"));
+	}
+	
+	@Test
+	public void describeMismatchAppendsSampleAndRemainingCount()
+	{
+		StringDescription description = new StringDescription();
+		
+		hasItemInParallel(equalTo(1), ItemMatchTask.DEFAULT_POOL, 2).describeMismatch(newItems(5), description);
+		
+		assertThat(description.toString(), is("item 0 was <0>, item 1 was <0> and 3 more"));
+	}
+	
+	@Test
+	public void describeToAppendsDescription()
+	{
+		StringDescription description = new StringDescription();
+		
+		hasItemInParallel(equalTo(1)).describeTo(description);
+		
+		assertThat(description.toString(), is("a collection containing <1>"));
+	}
+	
+	@Test
+	public void hasItemInParallelWithNullPoolThrowsException()
+	{
+		thrown.expect(NullPointerException.class);
+		thrown.expectMessage("pool");
+		
+		hasItemInParallel(equalTo(1), null);
+	}
+	
+	// ----------------------------------------------------------------------------------------------------------------
+	// private methods
+	// ----------------------------------------------------------------------------------------------------------------
+
+	private static List<Integer> newItems(int size, int... matchIndexes)
+	{
+		List<Integer> items = new ArrayList<Integer>(Collections.nCopies(size, 0));
+		
+		for (int matchIndex : matchIndexes)
+		{
+			items.set(matchIndex, 1);
+		}
+		
+		return items;
+	}
+}
@@ -0,0 +1,152 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hobsoft.hamcrest.submatcher;
+
+import org.hamcrest.Description;
+import org.hamcrest.Matcher;
+import org.hamcrest.StringDescription;
+import org.hobsoft.hamcrest.submatcher.test.Person;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hobsoft.hamcrest.submatcher.HasLongValueMatcher.hasLongValue;
+import static org.hobsoft.hamcrest.submatcher.HasValueMatcher.on;
+import static org.hobsoft.hamcrest.submatcher.PrimitiveMatchers.longEqualTo;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests {@code HasLongValueMatcher}.
+ */
+public class HasLongValueMatcherTest
+{
+	// ----------------------------------------------------------------------------------------------------------------
+	// fields
+	// ----------------------------------------------------------------------------------------------------------------
+
+	private SpyHolderRule spyHolderRule = new SpyHolderRule();
+	
+	private ExpectedException thrown = ExpectedException.none();
+	
+	// ----------------------------------------------------------------------------------------------------------------
+	// JUnit methods
+	// ----------------------------------------------------------------------------------------------------------------
+
+	@Rule
+	public SpyHolderRule getSpyHolderRule()
+	{
+		return spyHolderRule;
+	}
+
+	@Rule
+	public ExpectedException getThrown()
+	{
+		return thrown;
+	}
+
+	// ----------------------------------------------------------------------------------------------------------------
+	// tests
+	// ----------------------------------------------------------------------------------------------------------------
+
+	@Test
+	public void hasLongValueReturnsMatcherWithPath()
+	{
+		HasLongValueMatcher<Person> actual = hasLongValue(on(Person.class).getId(), longEqualTo(1L));
+		
+		assertThat(actual.getPath().getInvocation().getMethod(), is(Person.GET_ID));
+	}
+	
+	@Test
+	public void hasLongValueWithNullSubmatcherThrowsException()
+	{
+		thrown.expect(NullPointerException.class);
+		thrown.expectMessage("submatcher");
+		
+		hasLongValue(0, null);
+	}
+	
+	@Test
+	public void hasLongValueWhenNullSpyThrowsException()
+	{
+		thrown.expect(IllegalStateException.class);
+		thrown.expectMessage("on() must be invoked before hasLongValue()");
+		
+		hasLongValue(0, longEqualTo(1L));
+	}
+	
+	@Test
+	public void matchesWhenMatchesReturnsTrue()
+	{
+		Matcher<Person> matcher = hasLongValue(on(Person.class).getId(), longEqualTo(1L));
+		
+		boolean actual = matcher.matches(newPersonWithId(1L));
+		
+		assertThat(actual, is(true));
+	}
+	
+	@Test
+	public void matchesWhenDoesNotMatchReturnsFalse()
+	{
+		Matcher<Person> matcher = hasLongValue(on(Person.class).getId(), longEqualTo(1L));
+		
+		boolean actual = matcher.matches(newPersonWithId(2L));
+		
+		assertThat(actual, is(false));
+	}
+	
+	@Test
+	public void matchesWhenIntValueAndMatchesReturnsTrue()
+	{
+		Matcher<Person> matcher = hasLongValue(on(Person.class).getAge(), longEqualTo(1L));
+		Person person = mock(Person.class);
+		when(person.getAge()).thenReturn(1);
+		
+		boolean actual = matcher.matches(person);
+		
+		assertThat(actual, is(true));
+	}
+	
+	@Test
+	public void describeToAppendsDescription()
+	{
+		Matcher<Person> matcher = hasLongValue(on(Person.class).getId(), longEqualTo(1L));
+		
+		assertThat(StringDescription.toString(matcher), is("has value getId() <1L>"));
+	}
+	
+	@Test
+	public void describeMismatchAppendsMismatch()
+	{
+		Matcher<Person> matcher = hasLongValue(on(Person.class).getId(), longEqualTo(1L));
+		Description mismatchDescription = new StringDescription();
+		
+		matcher.describeMismatch(newPersonWithId(2L), mismatchDescription);
+		
+		assertThat(mismatchDescription.toString(), is("was <2L>"));
+	}
+	
+	// ----------------------------------------------------------------------------------------------------------------
+	// private methods
+	// ----------------------------------------------------------------------------------------------------------------
+
+	private static Person newPersonWithId(long id)
+	{
+		Person person = mock(Person.class);
+		when(person.getId()).thenReturn(id);
+		return person;
+	}
+}
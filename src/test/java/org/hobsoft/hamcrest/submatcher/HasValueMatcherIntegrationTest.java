@@ -13,15 +13,25 @@
  */
 package org.hobsoft.hamcrest.submatcher;
 
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
 import org.hamcrest.Matcher;
 import org.hamcrest.StringDescription;
+import org.hobsoft.hamcrest.submatcher.test.Address;
+import org.hobsoft.hamcrest.submatcher.test.Animal;
 import org.hobsoft.hamcrest.submatcher.test.Name;
 import org.hobsoft.hamcrest.submatcher.test.Person;
 import org.junit.Rule;
 import org.junit.Test;
 
+import static org.hamcrest.CoreMatchers.anything;
 import static org.hamcrest.CoreMatchers.equalTo;
 import static org.hamcrest.CoreMatchers.is;
+import static org.hobsoft.hamcrest.submatcher.HasValueMatcher.hasFieldValue;
 import static org.hobsoft.hamcrest.submatcher.HasValueMatcher.hasValue;
 import static org.hobsoft.hamcrest.submatcher.HasValueMatcher.on;
 import static org.junit.Assert.assertThat;
@@ -168,6 +178,177 @@ public class HasValueMatcherIntegrationTest
 		assertThat(mismatchDescription.toString(), is("was <x>"));
 	}
 	
+	@Test
+	public void describeToWhenChainedAppendsDescription()
+	{
+		Matcher<Person> matcher = hasValue(on(Person.class).getAddress().getCity(), equalTo("x"));
+		
+		assertThat(StringDescription.toString(matcher), is("has value getAddress().getCity() \"x\""));
+	}
+	
+	@Test
+	public void matchesWhenChainedAndMatchesReturnsTrue()
+	{
+		Matcher<Person> actual = hasValue(on(Person.class).getAddress().getCity(), equalTo("x"));
+		
+		assertThat(actual.matches(newPersonWithCity("x")), is(true));
+	}
+	
+	@Test
+	public void matchesWhenChainedAndDoesNotMatchReturnsFalse()
+	{
+		Matcher<Person> actual = hasValue(on(Person.class).getAddress().getCity(), equalTo("x"));
+		
+		assertThat(actual.matches(newPersonWithCity("y")), is(false));
+	}
+	
+	@Test
+	public void matchesWhenNestedAndMatchesReturnsTrue()
+	{
+		Matcher<Address> city = hasValue(on(Address.class).getCity(), equalTo("x"));
+		
+		Matcher<Person> actual = hasValue(on(Person.class).getAddress(), city);
+		
+		assertThat(actual.matches(newPersonWithCity("x")), is(true));
+	}
+	
+	@Test
+	public void describeToWhenNestedAppendsDescription()
+	{
+		Matcher<Person> matcher = hasValue(on(Person.class).getAddress(),
+			HasValueMatcher.<Address, String>hasValue(on(Address.class).getCity(), equalTo("x")));
+		
+		assertThat(StringDescription.toString(matcher), is("has value getAddress() has value getCity() \"x\""));
+	}
+	
+	@Test
+	public void describeMismatchWhenChainedAndNullAppendsMismatch()
+	{
+		Matcher<Person> matcher = hasValue(on(Person.class).getAddress().getCity(), equalTo("x"));
+		StringDescription mismatchDescription = new StringDescription();
+		
+		matcher.describeMismatch(mock(Person.class), mismatchDescription);
+		
+		assertThat(mismatchDescription.toString(), is("getAddress() was null"));
+	}
+	
+	@Test
+	public void matchesWhenFieldAndMatchesReturnsTrue()
+	{
+		Matcher<Animal> matcher = hasFieldValue(on(Animal.class).getName(), equalTo("x"));
+		
+		boolean actual = matcher.matches(new Animal("x", false, null));
+		
+		assertThat(actual, is(true));
+	}
+	
+	@Test
+	public void matchesWhenFieldDoesNotInvokeGetter()
+	{
+		Matcher<Animal> matcher = hasFieldValue(on(Animal.class).getName(), equalTo("x"));
+		Animal animal = new Animal("x", false, null);
+		
+		matcher.matches(animal);
+		
+		assertThat(animal.getGetterCount(), is(0));
+	}
+	
+	@Test
+	public void matchesWhenChainedFieldsAndMatchesReturnsTrue()
+	{
+		Matcher<Animal> matcher = hasFieldValue(on(Animal.class).getMother().getName(), equalTo("x"));
+		
+		boolean actual = matcher.matches(new Animal("y", false, new Animal("x", false, null)));
+		
+		assertThat(actual, is(true));
+	}
+	
+	@Test
+	public void matchesWhenFieldWithArgumentAndMatchesReturnsTrue()
+	{
+		Matcher<Animal> matcher = hasFieldValue(on(Animal.class).getMother().getNameWithPrefix("a"), equalTo("ax"));
+		
+		boolean actual = matcher.matches(new Animal("y", false, new Animal("x", false, null)));
+		
+		assertThat(actual, is(true));
+	}
+	
+	@Test
+	public void describeToWhenFieldAppendsDescription()
+	{
+		Matcher<Animal> matcher = hasFieldValue(on(Animal.class).getMother().getName(), equalTo("x"));
+		
+		assertThat(StringDescription.toString(matcher), is("has value mother.name \"x\""));
+	}
+	
+	@Test
+	public void describeMismatchWhenChainedFieldsAndNullAppendsMismatch()
+	{
+		Matcher<Animal> matcher = hasFieldValue(on(Animal.class).getMother().getName(), equalTo("x"));
+		StringDescription mismatchDescription = new StringDescription();
+		
+		matcher.describeMismatch(new Animal("y", false, null), mismatchDescription);
+		
+		assertThat(mismatchDescription.toString(), is("mother was null"));
+	}
+	
+	@Test
+	public void hasValueWhenOnOfSameTypeBeforeHasValueUsesOwnInvocation()
+	{
+		Name name = on(Person.class).getName();
+		Matcher<Person> ageMatcher = hasValue(on(Person.class).getAge(), anything());
+		
+		Matcher<Person> actual = hasValue(name, anything());
+		
+		assertThat(StringDescription.toString(actual), is("has value getName() ANYTHING"));
+		assertThat(StringDescription.toString(ageMatcher), is("has value getAge() ANYTHING"));
+	}
+	
+	@Test
+	public void hasValueAfterOnWithoutHasValueUsesOwnInvocation()
+	{
+		on(Person.class).getName();
+		
+		Matcher<Person> actual = hasValue(on(Person.class).getAge(), anything());
+		
+		assertThat(StringDescription.toString(actual), is("has value getAge() ANYTHING"));
+	}
+	
+	@Test
+	public void hasValueWhenRepeatedUsesOwnInvocation()
+	{
+		hasValue(on(Person.class).getAddress().getCity(), anything());
+		
+		Matcher<Person> actual = hasValue(on(Person.class).getName(), anything());
+		
+		assertThat(StringDescription.toString(actual), is("has value getName() ANYTHING"));
+	}
+	
+	@Test
+	public void hasValueWhenConcurrentUsesOwnInvocation() throws InterruptedException, ExecutionException
+	{
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		
+		try
+		{
+			Callable<String> getName = newDescriptionTask(true);
+			Callable<String> getAge = newDescriptionTask(false);
+			
+			for (int index = 0; index < 100; index++)
+			{
+				Future<String> name = executor.submit(getName);
+				Future<String> age = executor.submit(getAge);
+				
+				assertThat(name.get(), is("has value getName() ANYTHING"));
+				assertThat(age.get(), is("has value getAge() ANYTHING"));
+			}
+		}
+		finally
+		{
+			executor.shutdown();
+		}
+	}
+	
 	// ----------------------------------------------------------------------------------------------------------------
 	// private methods
 	// ----------------------------------------------------------------------------------------------------------------
@@ -181,6 +362,15 @@ public class HasValueMatcherIntegrationTest
 		return person;
 	}
 
+	private static Person newPersonWithCity(String city)
+	{
+		Address address = mock(Address.class);
+		when(address.getCity()).thenReturn(city);
+		Person person = mock(Person.class);
+		when(person.getAddress()).thenReturn(address);
+		return person;
+	}
+	
 	private static Person newPersonWithAge(int age)
 	{
 		Person person = mock(Person.class);
@@ -188,6 +378,28 @@ public class HasValueMatcherIntegrationTest
 		return person;
 	}
 	
+	private static Callable<String> newDescriptionTask(final boolean name)
+	{
+		return new Callable<String>()
+		{
+			public String call()
+			{
+				Matcher<Person> matcher;
+				
+				if (name)
+				{
+					matcher = hasValue(on(Person.class).getName(), anything());
+				}
+				else
+				{
+					matcher = hasValue(on(Person.class).getAge(), anything());
+				}
+				
+				return StringDescription.toString(matcher);
+			}
+		};
+	}
+	
 	private static Name newName(String string)
 	{
 		Name name = mock(Name.class);
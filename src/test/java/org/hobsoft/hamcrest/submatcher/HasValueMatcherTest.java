@@ -14,10 +14,16 @@
 package org.hobsoft.hamcrest.submatcher;
 
 import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Spliterator;
 
+import org.hamcrest.CoreMatchers;
 import org.hamcrest.Description;
 import org.hamcrest.Matcher;
 import org.hamcrest.StringDescription;
+import org.hobsoft.hamcrest.submatcher.test.Address;
 import org.hobsoft.hamcrest.submatcher.test.Name;
 import org.hobsoft.hamcrest.submatcher.test.Person;
 import org.junit.Rule;
@@ -26,19 +32,24 @@ import org.junit.rules.ExpectedException;
 import org.mockito.invocation.InvocationOnMock;
 import org.mockito.stubbing.Answer;
 
-import net.sf.cglib.proxy.Factory;
-
 import static org.hamcrest.CoreMatchers.anything;
 import static org.hamcrest.CoreMatchers.instanceOf;
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
 import static org.hobsoft.hamcrest.submatcher.HasValueMatcher.hasValue;
 import static org.hobsoft.hamcrest.submatcher.HasValueMatcher.on;
 import static org.junit.Assert.assertThat;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Matchers.anyLong;
 import static org.mockito.Matchers.anyObject;
 import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -54,6 +65,8 @@ public class HasValueMatcherTest
 	private SpyHolderRule spyHolderRule = new SpyHolderRule();
 	
 	private ExpectedException thrown = ExpectedException.none();
+	
+	private MetricsListenerRule metricsListenerRule = new MetricsListenerRule();
 
 	// ----------------------------------------------------------------------------------------------------------------
 	// JUnit methods
@@ -70,6 +83,12 @@ public class HasValueMatcherTest
 	{
 		return thrown;
 	}
+	
+	@Rule
+	public MetricsListenerRule getMetricsListenerRule()
+	{
+		return metricsListenerRule;
+	}
 
 	// ----------------------------------------------------------------------------------------------------------------
 	// tests
@@ -91,7 +110,7 @@ public class HasValueMatcherTest
 		thrown.expect(NullPointerException.class);
 		thrown.expectMessage("invocation");
 		
-		new HasValueMatcher<Person, Object>(null, mock(Matcher.class));
+		new HasValueMatcher<Person, Object>((MethodInvocation) null, mock(Matcher.class));
 	}
 	
 	@Test
@@ -165,6 +184,49 @@ public class HasValueMatcherTest
 		assertThat(actual, is(false));
 	}
 	
+	@Test
+	public void matchesSafelyWhenListenerNotifiesListener()
+	{
+		MethodInvocation invocation = new MethodInvocation(Person.GET_NAME);
+		Matcher<Name> submatcher = mock(Matcher.class);
+		when(submatcher.matches(any())).thenReturn(true);
+		HasValueMatcher<Person, Name> matcher = new HasValueMatcher<Person, Name>(invocation, submatcher);
+		MatcherMetricsListener listener = mock(MatcherMetricsListener.class);
+		SubmatcherRuntime.setMetricsListener(listener);
+		
+		matcher.matchesSafely(mock(Person.class), Description.NONE);
+		
+		verify(listener).evaluationCompleted(eq(matcher.getPath()), anyLong(), eq(true), eq(false));
+	}
+	
+	@Test
+	public void matchesSafelyWhenListenerAndThrowsNotifiesListener()
+	{
+		MethodInvocation invocation = new MethodInvocation(Person.GET_NAME);
+		HasValueMatcher<Person, Name> matcher = new HasValueMatcher<Person, Name>(invocation, mock(Matcher.class));
+		Person person = mock(Person.class);
+		when(person.getName()).thenThrow(new IllegalStateException());
+		MatcherMetricsListener listener = mock(MatcherMetricsListener.class);
+		SubmatcherRuntime.setMetricsListener(listener);
+		
+		matcher.matchesSafely(person, Description.NONE);
+		
+		verify(listener).evaluationCompleted(eq(matcher.getPath()), anyLong(), eq(false), eq(true));
+	}
+	
+	@Test
+	public void matchesSafelyWhenListenerAndRenderedDoesNotNotifyListener()
+	{
+		MethodInvocation invocation = new MethodInvocation(Person.GET_NAME);
+		HasValueMatcher<Person, Name> matcher = new HasValueMatcher<Person, Name>(invocation, mock(Matcher.class));
+		MatcherMetricsListener listener = mock(MatcherMetricsListener.class);
+		SubmatcherRuntime.setMetricsListener(listener);
+		
+		matcher.matchesSafely(mock(Person.class), new StringDescription());
+		
+		verify(listener, never()).evaluationCompleted(any(PropertyPath.class), anyLong(), anyBoolean(), anyBoolean());
+	}
+	
 	@Test
 	public void matchesSafelyWhenDoesNotMatchAppendsMismatch()
 	{
@@ -208,6 +270,356 @@ public class HasValueMatcherTest
 		assertThat(mismatchDescription.toString(), is("threw <" + exception + ">"));
 	}
 	
+	@Test
+	public void matchesSafelyWhenChainedAndNullReturnsFalse()
+	{
+		HasValueMatcher<Person, String> matcher = new HasValueMatcher<Person, String>(newAddressCityPath(),
+			mock(Matcher.class));
+		
+		boolean actual = matcher.matchesSafely(mock(Person.class), Description.NONE);
+		
+		assertThat(actual, is(false));
+	}
+	
+	@Test
+	public void matchesSafelyWhenChainedAndNullAppendsMismatch()
+	{
+		HasValueMatcher<Person, String> matcher = new HasValueMatcher<Person, String>(newAddressCityPath(),
+			mock(Matcher.class));
+		StringDescription mismatchDescription = new StringDescription();
+		
+		matcher.matchesSafely(mock(Person.class), mismatchDescription);
+		
+		assertThat(mismatchDescription.toString(), is("getAddress() was null"));
+	}
+	
+	@Test
+	public void matchesSafelyWhenChainedAndNullAndMatchPolicyReturnsTrue()
+	{
+		Matcher<String> submatcher = mock(Matcher.class);
+		HasValueMatcher<Person, String> matcher = new HasValueMatcher<Person, String>(newAddressCityPath(),
+			submatcher, NullPolicy.MATCH);
+		
+		boolean actual = matcher.matchesSafely(mock(Person.class), Description.NONE);
+		
+		assertThat(actual, is(true));
+		verify(submatcher, never()).matches(anyObject());
+	}
+	
+	@Test
+	public void matchesSafelyWhenFinalNullAndMatchPolicyReturnsTrue()
+	{
+		Matcher<String> submatcher = mock(Matcher.class);
+		HasValueMatcher<Person, String> matcher = new HasValueMatcher<Person, String>(newAddressCityPath(),
+			submatcher, NullPolicy.MATCH);
+		
+		boolean actual = matcher.matchesSafely(newPersonWithAddress(), Description.NONE);
+		
+		assertThat(actual, is(true));
+		verify(submatcher, never()).matches(anyObject());
+	}
+	
+	@Test
+	public void matchesSafelyWhenFinalNullAndMismatchPolicyReturnsFalse()
+	{
+		Matcher<String> submatcher = mock(Matcher.class);
+		when(submatcher.matches(null)).thenReturn(true);
+		HasValueMatcher<Person, String> matcher = new HasValueMatcher<Person, String>(newAddressCityPath(),
+			submatcher, NullPolicy.MISMATCH);
+		
+		boolean actual = matcher.matchesSafely(newPersonWithAddress(), Description.NONE);
+		
+		assertThat(actual, is(false));
+		verify(submatcher, never()).matches(anyObject());
+	}
+	
+	@Test
+	public void matchesSafelyWhenFinalNullAndMismatchPolicyAppendsMismatch()
+	{
+		HasValueMatcher<Person, String> matcher = new HasValueMatcher<Person, String>(newAddressCityPath(),
+			mock(Matcher.class), NullPolicy.MISMATCH);
+		StringDescription mismatchDescription = new StringDescription();
+		
+		matcher.matchesSafely(newPersonWithAddress(), mismatchDescription);
+		
+		assertThat(mismatchDescription.toString(), is("getAddress().getCity() was null"));
+	}
+	
+	@Test
+	public void matchesSafelyWhenFinalNullAndDefaultPolicyInvokesSubmatcher()
+	{
+		Matcher<String> submatcher = mock(Matcher.class);
+		when(submatcher.matches(null)).thenReturn(true);
+		HasValueMatcher<Person, String> matcher = new HasValueMatcher<Person, String>(newAddressCityPath(),
+			submatcher);
+		
+		boolean actual = matcher.matchesSafely(newPersonWithAddress(), Description.NONE);
+		
+		assertThat(actual, is(true));
+	}
+	
+	@Test
+	public void matchesSafelyWithNullDescriptionDoesNotDescribeMismatch()
+	{
+		Matcher<Object> submatcher = mock(Matcher.class);
+		HasValueMatcher<Person, Object> matcher = new HasValueMatcher<Person, Object>(newInvocation(), submatcher);
+		
+		matcher.matchesSafely(mock(Person.class), Description.NONE);
+		
+		verify(submatcher, never()).describeMismatch(anyObject(), any(Description.class));
+	}
+	
+	@Test
+	public void matchesEachReturnsMatchingIndexes()
+	{
+		Name name = mock(Name.class);
+		HasValueMatcher<Person, Name> matcher = new HasValueMatcher<Person, Name>(new MethodInvocation(Person.GET_NAME),
+			is(name));
+		
+		BitSet actual = matcher.matchesEach(Arrays.asList(newPersonWithName(name), newPersonWithName(null),
+			newPersonWithName(name)));
+		
+		assertThat(actual, is(bitSetOf(0, 2)));
+	}
+	
+	@Test
+	public void matchesEachWhenNullDoesNotMatch()
+	{
+		HasValueMatcher<Person, Object> matcher = new HasValueMatcher<Person, Object>(
+			new MethodInvocation(Person.GET_NAME), anything());
+		
+		BitSet actual = matcher.matchesEach(Arrays.asList(newPersonWithName(null), null));
+		
+		assertThat(actual, is(bitSetOf(0)));
+	}
+	
+	@Test
+	public void matchesEachWhenInvokedMethodThrowsExceptionDoesNotMatch()
+	{
+		HasValueMatcher<Person, Object> matcher = new HasValueMatcher<Person, Object>(
+			new MethodInvocation(Person.GET_NAME), anything());
+		Person person = mock(Person.class);
+		when(person.getName()).thenThrow(new RuntimeException());
+		
+		BitSet actual = matcher.matchesEach(new Person[] {person, newPersonWithName(null)});
+		
+		assertThat(actual, is(bitSetOf(1)));
+	}
+	
+	@Test
+	public void matchesEachWhenChainedAndNullDoesNotMatch()
+	{
+		HasValueMatcher<Person, String> matcher = new HasValueMatcher<Person, String>(newAddressCityPath(),
+			mock(Matcher.class));
+		
+		BitSet actual = matcher.matchesEach(Collections.singletonList(mock(Person.class)));
+		
+		assertThat(actual, is(new BitSet()));
+	}
+	
+	@Test
+	public void matchesEachWhenMethodInaccessibleThrowsException() throws NoSuchMethodException
+	{
+		Method method = InaccessibleValue.class.getDeclaredMethod("getValue");
+		HasValueMatcher<InaccessibleValue, Object> matcher = new HasValueMatcher<InaccessibleValue, Object>(
+			new MethodInvocation(method), mockMatcher());
+		
+		thrown.expect(IllegalStateException.class);
+		thrown.expectMessage("Cannot access method: " + method);
+		thrown.expectCause(instanceOf(IllegalAccessException.class));
+		
+		matcher.matchesEach(Collections.singletonList(new InaccessibleValue()));
+	}
+	
+	@Test
+	public void matchesWhenMethodInaccessibleThrowsException() throws NoSuchMethodException
+	{
+		Method method = InaccessibleValue.class.getDeclaredMethod("getValue");
+		HasValueMatcher<InaccessibleValue, Object> matcher = new HasValueMatcher<InaccessibleValue, Object>(
+			new MethodInvocation(method), mockMatcher());
+		
+		thrown.expect(IllegalStateException.class);
+		thrown.expectMessage("Cannot access method: " + method);
+		thrown.expectCause(instanceOf(IllegalAccessException.class));
+		
+		matcher.matches(new InaccessibleValue());
+	}
+	
+	@Test
+	public void describeMismatchWhenMethodInaccessibleThrowsException() throws NoSuchMethodException
+	{
+		Method method = InaccessibleValue.class.getDeclaredMethod("getValue");
+		HasValueMatcher<InaccessibleValue, Object> matcher = new HasValueMatcher<InaccessibleValue, Object>(
+			new MethodInvocation(method), mockMatcher());
+		
+		thrown.expect(IllegalStateException.class);
+		thrown.expectMessage("Cannot access method: " + method);
+		thrown.expectCause(instanceOf(IllegalAccessException.class));
+		
+		matcher.describeMismatch(new InaccessibleValue(), new StringDescription());
+	}
+	
+	@Test
+	public void matchesEachWithNullThrowsException()
+	{
+		HasValueMatcher<Person, Object> matcher = new HasValueMatcher<Person, Object>(newInvocation(), mockMatcher());
+		
+		thrown.expect(NullPointerException.class);
+		thrown.expectMessage("actuals");
+		
+		matcher.matchesEach((Iterable<Person>) null);
+	}
+	
+	@Test
+	public void countMismatchesReturnsMismatchCount()
+	{
+		Name name = mock(Name.class);
+		HasValueMatcher<Person, Name> matcher = new HasValueMatcher<Person, Name>(new MethodInvocation(Person.GET_NAME),
+			is(name));
+		
+		int actual = matcher.countMismatches(Arrays.asList(newPersonWithName(null), newPersonWithName(name), null));
+		
+		assertThat(actual, is(2));
+	}
+	
+	@Test
+	public void countMismatchesWhenAllMatchReturnsZero()
+	{
+		HasValueMatcher<Person, Object> matcher = new HasValueMatcher<Person, Object>(
+			new MethodInvocation(Person.GET_NAME), anything());
+		
+		int actual = matcher.countMismatches(new Person[] {newPersonWithName(null), newPersonWithName(null)});
+		
+		assertThat(actual, is(0));
+	}
+	
+	@Test
+	public void indexOfFirstMismatchReturnsIndex()
+	{
+		Name name = mock(Name.class);
+		HasValueMatcher<Person, Name> matcher = new HasValueMatcher<Person, Name>(new MethodInvocation(Person.GET_NAME),
+			is(name));
+		
+		int actual = matcher.indexOfFirstMismatch(Arrays.asList(newPersonWithName(name), newPersonWithName(null),
+			newPersonWithName(null)));
+		
+		assertThat(actual, is(1));
+	}
+	
+	@Test
+	public void indexOfFirstMismatchStopsAtMismatch()
+	{
+		Name name = mock(Name.class);
+		HasValueMatcher<Person, Name> matcher = new HasValueMatcher<Person, Name>(new MethodInvocation(Person.GET_NAME),
+			is(name));
+		Person person = mock(Person.class);
+		
+		matcher.indexOfFirstMismatch(new Person[] {newPersonWithName(null), person});
+		
+		verify(person, never()).getName();
+	}
+	
+	@Test
+	public void indexOfFirstMismatchWhenAllMatchReturnsMinusOne()
+	{
+		HasValueMatcher<Person, Object> matcher = new HasValueMatcher<Person, Object>(
+			new MethodInvocation(Person.GET_NAME), anything());
+		
+		int actual = matcher.indexOfFirstMismatch(Arrays.asList(newPersonWithName(null), newPersonWithName(null)));
+		
+		assertThat(actual, is(-1));
+	}
+	
+	@Test
+	public void matchesEachWithSpliteratorReturnsMatchingIndexes()
+	{
+		Name name = mock(Name.class);
+		HasValueMatcher<Person, Name> matcher = new HasValueMatcher<Person, Name>(new MethodInvocation(Person.GET_NAME),
+			is(name));
+		
+		BitSet actual = matcher.matchesEach(Arrays.asList(newPersonWithName(name), newPersonWithName(null), null,
+			newPersonWithName(name)).spliterator());
+		
+		assertThat(actual, is(bitSetOf(0, 3)));
+	}
+	
+	@Test
+	public void matchesEachWithPartlyConsumedSpliteratorIndexesFromRemainingInstances()
+	{
+		HasValueMatcher<Person, Object> matcher = new HasValueMatcher<Person, Object>(
+			new MethodInvocation(Person.GET_NAME), anything());
+		Spliterator<Person> actuals = Arrays.asList(newPersonWithName(null), null, newPersonWithName(null))
+			.spliterator();
+		actuals.tryAdvance(person -> { });
+		
+		BitSet actual = matcher.matchesEach(actuals);
+		
+		assertThat(actual, is(bitSetOf(1)));
+	}
+	
+	@Test
+	public void matchesEachWithNullSpliteratorThrowsException()
+	{
+		HasValueMatcher<Person, Object> matcher = new HasValueMatcher<Person, Object>(newInvocation(), mockMatcher());
+		
+		thrown.expect(NullPointerException.class);
+		thrown.expectMessage("actuals");
+		
+		matcher.matchesEach((Spliterator<Person>) null);
+	}
+	
+	@Test
+	public void countMismatchesWithSpliteratorReturnsMismatchCount()
+	{
+		Name name = mock(Name.class);
+		HasValueMatcher<Person, Name> matcher = new HasValueMatcher<Person, Name>(new MethodInvocation(Person.GET_NAME),
+			is(name));
+		
+		int actual = matcher.countMismatches(Arrays.asList(newPersonWithName(null), newPersonWithName(name), null)
+			.spliterator());
+		
+		assertThat(actual, is(2));
+	}
+	
+	@Test
+	public void indexOfFirstMismatchWithSpliteratorReturnsIndex()
+	{
+		Name name = mock(Name.class);
+		HasValueMatcher<Person, Name> matcher = new HasValueMatcher<Person, Name>(new MethodInvocation(Person.GET_NAME),
+			is(name));
+		
+		int actual = matcher.indexOfFirstMismatch(Arrays.asList(newPersonWithName(name), newPersonWithName(null),
+			newPersonWithName(null)).spliterator());
+		
+		assertThat(actual, is(1));
+	}
+	
+	@Test
+	public void indexOfFirstMismatchWithSpliteratorLeavesInstancesAfterMismatch()
+	{
+		Name name = mock(Name.class);
+		HasValueMatcher<Person, Name> matcher = new HasValueMatcher<Person, Name>(new MethodInvocation(Person.GET_NAME),
+			is(name));
+		Spliterator<Person> actuals = Arrays.asList(newPersonWithName(null), mock(Person.class), mock(Person.class))
+			.spliterator();
+		
+		matcher.indexOfFirstMismatch(actuals);
+		
+		assertThat(actuals.estimateSize(), is(2L));
+	}
+	
+	@Test
+	public void indexOfFirstMismatchWithSpliteratorWhenAllMatchReturnsMinusOne()
+	{
+		HasValueMatcher<Person, Object> matcher = new HasValueMatcher<Person, Object>(
+			new MethodInvocation(Person.GET_NAME), anything());
+		
+		int actual = matcher.indexOfFirstMismatch(Arrays.asList(newPersonWithName(null), newPersonWithName(null))
+			.spliterator());
+		
+		assertThat(actual, is(-1));
+	}
+	
 	@Test
 	public void describeToAppendsDescription()
 	{
@@ -221,6 +633,18 @@ public class HasValueMatcherTest
 		assertThat(description.toString(), is("has value x y"));
 	}
 
+	@Test
+	public void describeToWhenMatchPolicyAppendsDescription()
+	{
+		HasValueMatcher<Person, String> matcher = new HasValueMatcher<Person, String>(newAddressCityPath(),
+			CoreMatchers.equalTo("x"), NullPolicy.MATCH);
+		StringDescription description = new StringDescription();
+		
+		matcher.describeTo(description);
+		
+		assertThat(description.toString(), is("has value getAddress().getCity() \"x\" or null"));
+	}
+
 	@Test
 	public void hasValueReturnsMatcher()
 	{
@@ -252,6 +676,66 @@ public class HasValueMatcherTest
 		assertThat(actual.getSubmatcher(), is((Object) submatcher));
 	}
 	
+	@Test
+	public void hasValueUnsetsSpy()
+	{
+		SpyHolder.setSpy(mockSpy());
+		
+		hasValue(null, mockMatcher());
+		
+		assertThat(SpyHolder.hasSpy(), is(false));
+	}
+	
+	@Test
+	public void hasValueWhenMatcherCacheEnabledReturnsCachedMatcher()
+	{
+		Matcher<Object> submatcher = anything();
+		SubmatcherRuntime.setMatcherCacheMaximumSize(1);
+		
+		try
+		{
+			HasValueMatcher<Person, Object> matcher = hasValue(on(Person.class).getName(), submatcher);
+			
+			HasValueMatcher<Person, Object> actual = hasValue(on(Person.class).getName(), submatcher);
+			
+			assertThat(actual, is(sameInstance(matcher)));
+		}
+		finally
+		{
+			SubmatcherRuntime.setMatcherCacheMaximumSize(0);
+		}
+	}
+	
+	@Test
+	public void hasValueWhenMatcherCacheDisabledReturnsNewMatcher()
+	{
+		Matcher<Object> submatcher = anything();
+		HasValueMatcher<Person, Object> matcher = hasValue(on(Person.class).getName(), submatcher);
+		
+		HasValueMatcher<Person, Object> actual = hasValue(on(Person.class).getName(), submatcher);
+		
+		assertThat(actual, is(not(sameInstance(matcher))));
+	}
+	
+	@Test
+	public void hasValueWithNullPolicyReturnsMatcherWithNullPolicy()
+	{
+		SpyHolder.setSpy(mockSpy());
+		
+		HasValueMatcher<?, ?> actual = hasValue(null, mockMatcher(), NullPolicy.MISMATCH);
+		
+		assertThat(actual.getNullPolicy(), is(NullPolicy.MISMATCH));
+	}
+	
+	@Test
+	public void hasValueWithNullNullPolicyThrowsException()
+	{
+		thrown.expect(NullPointerException.class);
+		thrown.expectMessage("nullPolicy");
+		
+		hasValue(null, mockMatcher(), null);
+	}
+	
 	@Test
 	public void hasValueWithNullSubmatcherThrowsException()
 	{
@@ -277,7 +761,29 @@ public class HasValueMatcherTest
 	{
 		Person actual = on(Person.class);
 		
-		assertThat(((Factory) actual).getCallback(0), is(instanceOf(Spy.class)));
+		actual.getName();
+		assertThat(SpyHolder.getSpy().getInvocation().getMethod(), is(Person.GET_NAME));
+	}
+	
+	@Test
+	public void onAfterHasValueReturnsSameSpy()
+	{
+		Person person = on(Person.class);
+		hasValue(person.getName(), mockMatcher());
+		
+		Person actual = on(Person.class);
+		
+		assertThat(actual, is(sameInstance(person)));
+	}
+	
+	@Test
+	public void onWhenPreviousSpyNotTakenReturnsDifferentSpy()
+	{
+		Person person = on(Person.class);
+		
+		Person actual = on(Person.class);
+		
+		assertThat(actual, is(not(sameInstance(person))));
 	}
 	
 	@Test
@@ -293,6 +799,18 @@ public class HasValueMatcherTest
 	// private methods
 	// ----------------------------------------------------------------------------------------------------------------
 
+	private static BitSet bitSetOf(int... indexes)
+	{
+		BitSet bitSet = new BitSet();
+		
+		for (int index : indexes)
+		{
+			bitSet.set(index);
+		}
+		
+		return bitSet;
+	}
+	
 	private static Person newPersonWithName(Name name)
 	{
 		Person person = mock(Person.class);
@@ -302,6 +820,19 @@ public class HasValueMatcherTest
 		return person;
 	}
 
+	private static Person newPersonWithAddress()
+	{
+		Person person = mock(Person.class);
+		when(person.getAddress()).thenReturn(mock(Address.class));
+		return person;
+	}
+
+	private static PropertyPath<Person, String> newAddressCityPath()
+	{
+		return new PropertyPath<Person, String>(Arrays.asList(new MethodInvocation(Person.GET_ADDRESS),
+			new MethodInvocation(Address.GET_CITY)));
+	}
+	
 	private static MethodInvocation newInvocation()
 	{
 		return new MethodInvocation(someMethod());
@@ -325,7 +856,10 @@ public class HasValueMatcherTest
 	private static Spy<Person> mockSpy(Method invokedMethod)
 	{
 		Spy<Person> spy = mock(Spy.class);
-		when(spy.getInvocation()).thenReturn(new MethodInvocation(invokedMethod));
+		MethodInvocation invocation = new MethodInvocation(invokedMethod);
+		when(spy.getInvocation()).thenReturn(invocation);
+		when(spy.getInvocations()).thenReturn(Collections.singletonList(invocation));
+		doReturn(new PropertyPath<Person, Object>(invocation)).when(spy).getPath();
 		return spy;
 	}
 
@@ -341,4 +875,19 @@ public class HasValueMatcherTest
 			}
 		};
 	}
+
+	// ----------------------------------------------------------------------------------------------------------------
+	// types
+	// ----------------------------------------------------------------------------------------------------------------
+
+	/**
+	 * Type whose getter cannot be invoked reflectively from outside it.
+	 */
+	public static class InaccessibleValue
+	{
+		private Object getValue()
+		{
+			return null;
+		}
+	}
 }
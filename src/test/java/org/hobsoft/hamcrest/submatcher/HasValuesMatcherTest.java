@@ -0,0 +1,369 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hobsoft.hamcrest.submatcher;
+
+import java.lang.reflect.Method;
+import java.util.Collections;
+
+import org.hamcrest.Description;
+import org.hamcrest.Matcher;
+import org.hamcrest.StringDescription;
+import org.hobsoft.hamcrest.submatcher.HasValueMatcherTest.InaccessibleValue;
+import org.hobsoft.hamcrest.submatcher.test.Address;
+import org.hobsoft.hamcrest.submatcher.test.Person;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import static org.hamcrest.CoreMatchers.anything;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hobsoft.hamcrest.submatcher.HasValueMatcher.hasValue;
+import static org.hobsoft.hamcrest.submatcher.HasValueMatcher.on;
+import static org.hobsoft.hamcrest.submatcher.HasValuesMatcher.hasValues;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests {@code HasValuesMatcher}.
+ */
+public class HasValuesMatcherTest
+{
+	// ----------------------------------------------------------------------------------------------------------------
+	// fields
+	// ----------------------------------------------------------------------------------------------------------------
+
+	private SpyHolderRule spyHolderRule = new SpyHolderRule();
+	
+	private ExpectedException thrown = ExpectedException.none();
+
+	// ----------------------------------------------------------------------------------------------------------------
+	// JUnit methods
+	// ----------------------------------------------------------------------------------------------------------------
+
+	@Rule
+	public SpyHolderRule getSpyHolderRule()
+	{
+		return spyHolderRule;
+	}
+
+	@Rule
+	public ExpectedException getThrown()
+	{
+		return thrown;
+	}
+
+	// ----------------------------------------------------------------------------------------------------------------
+	// tests
+	// ----------------------------------------------------------------------------------------------------------------
+
+	@Test
+	public void hasValuesReturnsMatcherWithMatchers()
+	{
+		HasValueMatcher<Object, Object> matcher = hasValue(on(Person.class).getAge(), anything());
+		
+		HasValuesMatcher<Person> actual = hasValues(matcher);
+		
+		assertThat(actual.getMatchers().get(0), is(sameInstance((Object) matcher)));
+	}
+	
+	@Test
+	public void hasValuesWithEqualPathsSharesPath()
+	{
+		HasValuesMatcher<Person> actual = hasValues(
+			hasValue(on(Person.class).getAddress(), anything()),
+			hasValue(on(Person.class).getAddress(), anything())
+		);
+		
+		assertThat(actual.getPathCount(), is(1));
+	}
+	
+	@Test
+	public void hasValuesWithDifferentPathsDoesNotSharePath()
+	{
+		HasValuesMatcher<Person> actual = hasValues(
+			hasValue(on(Person.class).getAddress(), anything()),
+			hasValue(on(Person.class).getAge(), anything())
+		);
+		
+		assertThat(actual.getPathCount(), is(2));
+	}
+	
+	@Test
+	public void hasValuesWithCommonPathPrefixSharesInvocation()
+	{
+		HasValuesMatcher<Person> actual = hasValues(
+			hasValue(on(Person.class).getAddress().getCity(), anything()),
+			hasValue(on(Person.class).getAddress().getNumber(), anything())
+		);
+		
+		assertThat(actual.getInvocationCount(), is(3));
+	}
+	
+	@Test
+	public void hasValuesWithNullMatchersThrowsException()
+	{
+		thrown.expect(NullPointerException.class);
+		thrown.expectMessage("matchers");
+		
+		hasValues((HasValueMatcher<Object, Object>[]) null);
+	}
+	
+	@Test
+	public void hasValuesWithNullMatcherThrowsException()
+	{
+		thrown.expect(NullPointerException.class);
+		thrown.expectMessage("matcher");
+		
+		hasValues((HasValueMatcher<Object, Object>) null);
+	}
+	
+	@Test
+	public void matchesWithEqualPathsInvokesMethodOnce()
+	{
+		Matcher<Person> matcher = hasValues(
+			hasValue(on(Person.class).getAddress(), anything()),
+			hasValue(on(Person.class).getAddress(), anything())
+		);
+		Person person = mock(Person.class);
+		
+		matcher.matches(person);
+		
+		verify(person, times(1)).getAddress();
+	}
+	
+	@Test
+	public void matchesWithCommonPathPrefixInvokesParentMethodOnce()
+	{
+		Matcher<Person> matcher = hasValues(
+			hasValue(on(Person.class).getAddress().getCity(), anything()),
+			hasValue(on(Person.class).getAddress().getNumber(), anything())
+		);
+		Address address = mock(Address.class);
+		Person person = newPerson(address, 1);
+		
+		matcher.matches(person);
+		
+		verify(person, times(1)).getAddress();
+		verify(address).getCity();
+		verify(address).getNumber();
+	}
+	
+	@Test
+	public void matchesWithCommonPathPrefixWhenAllMatchReturnsTrue()
+	{
+		Address address = mock(Address.class);
+		when(address.getCity()).thenReturn("x");
+		when(address.getNumber()).thenReturn(1);
+		Matcher<Person> matcher = hasValues(
+			hasValue(on(Person.class).getAddress().getCity(), equalTo("x")),
+			hasValue(on(Person.class).getAddress().getNumber(), equalTo(1))
+		);
+		
+		boolean actual = matcher.matches(newPerson(address, 1));
+		
+		assertThat(actual, is(true));
+	}
+	
+	@Test
+	public void matchesWhenAllMatchReturnsTrue()
+	{
+		Address address = mock(Address.class);
+		Matcher<Person> matcher = hasValues(
+			hasValue(on(Person.class).getAddress(), equalTo(address)),
+			hasValue(on(Person.class).getAge(), equalTo(1))
+		);
+		
+		boolean actual = matcher.matches(newPerson(address, 1));
+		
+		assertThat(actual, is(true));
+	}
+	
+	@Test
+	public void matchesWhenOneDoesNotMatchReturnsFalse()
+	{
+		Address address = mock(Address.class);
+		Matcher<Person> matcher = hasValues(
+			hasValue(on(Person.class).getAddress(), equalTo(address)),
+			hasValue(on(Person.class).getAge(), equalTo(1))
+		);
+		
+		boolean actual = matcher.matches(newPerson(address, 2));
+		
+		assertThat(actual, is(false));
+	}
+	
+	@Test
+	public void matchesWhenOneDoesNotMatchDoesNotDescribeMismatch()
+	{
+		Matcher<Integer> submatcher = mock(Matcher.class);
+		Matcher<Person> matcher = hasValues(
+			hasValue(on(Person.class).getAge(), submatcher)
+		);
+		
+		matcher.matches(newPerson(null, 2));
+		
+		verify(submatcher, never()).describeMismatch(any(), any(Description.class));
+	}
+	
+	@Test
+	public void describeMismatchWhenOneDoesNotMatchAppendsMismatch()
+	{
+		Matcher<Person> matcher = hasValues(
+			hasValue(on(Person.class).getAge(), equalTo(1))
+		);
+		StringDescription mismatchDescription = new StringDescription();
+		
+		matcher.describeMismatch(newPerson(null, 2), mismatchDescription);
+		
+		assertThat(mismatchDescription.toString(), is("has value getAge() <1> was <2>"));
+	}
+	
+	@Test
+	public void matchesWhenNullAndMatchPolicyReturnsTrue()
+	{
+		Matcher<Person> matcher = hasValues(
+			hasValue(on(Person.class).getAddress().getCity(), equalTo("x"), NullPolicy.MATCH)
+		);
+		
+		boolean actual = matcher.matches(mock(Person.class));
+		
+		assertThat(actual, is(true));
+	}
+	
+	@Test
+	public void describeMismatchWhenNullAppendsMismatch()
+	{
+		Matcher<Person> matcher = hasValues(
+			hasValue(on(Person.class).getAddress().getCity(), equalTo("x"))
+		);
+		StringDescription mismatchDescription = new StringDescription();
+		
+		matcher.describeMismatch(mock(Person.class), mismatchDescription);
+		
+		assertThat(mismatchDescription.toString(), is("has value getAddress().getCity() \"x\" getAddress() was null"));
+	}
+	
+	@Test
+	public void describeMismatchWhenCommonPathPrefixNullAppendsMismatch()
+	{
+		Matcher<Person> matcher = hasValues(
+			hasValue(on(Person.class).getAddress().getCity(), equalTo("x"), NullPolicy.MATCH),
+			hasValue(on(Person.class).getAddress().getNumber(), equalTo(1))
+		);
+		StringDescription mismatchDescription = new StringDescription();
+		
+		matcher.describeMismatch(mock(Person.class), mismatchDescription);
+		
+		assertThat(mismatchDescription.toString(), is("has value getAddress().getNumber() <1> getAddress() was null"));
+	}
+	
+	@Test
+	public void describeMismatchWhenCommonPathPrefixThrowsExceptionAppendsMismatch()
+	{
+		Matcher<Person> matcher = hasValues(
+			hasValue(on(Person.class).getAddress().getCity(), anything()),
+			hasValue(on(Person.class).getAddress().getNumber(), anything())
+		);
+		Person person = mock(Person.class);
+		RuntimeException exception = new RuntimeException();
+		when(person.getAddress()).thenThrow(exception);
+		StringDescription mismatchDescription = new StringDescription();
+		
+		matcher.describeMismatch(person, mismatchDescription);
+		
+		assertThat(mismatchDescription.toString(), is("has value getAddress().getCity() ANYTHING threw <" + exception
+			+ ">"));
+	}
+	
+	@Test
+	public void describeMismatchWhenMethodThrowsExceptionAppendsMismatch()
+	{
+		Matcher<Person> matcher = hasValues(
+			hasValue(on(Person.class).getAge(), anything())
+		);
+		Person person = mock(Person.class);
+		RuntimeException exception = new RuntimeException();
+		when(person.getAge()).thenThrow(exception);
+		StringDescription mismatchDescription = new StringDescription();
+		
+		matcher.describeMismatch(person, mismatchDescription);
+		
+		assertThat(mismatchDescription.toString(), is("has value getAge() ANYTHING threw <" + exception + ">"));
+	}
+	
+	@Test
+	public void matchesWhenMethodInaccessibleThrowsException() throws NoSuchMethodException
+	{
+		Method method = InaccessibleValue.class.getDeclaredMethod("getValue");
+		Matcher<InaccessibleValue> matcher = new HasValuesMatcher<InaccessibleValue>(
+			Collections.<HasValueMatcher<? super InaccessibleValue, ?>>singletonList(
+				new HasValueMatcher<InaccessibleValue, Object>(new MethodInvocation(method), anything())
+			)
+		);
+		
+		thrown.expect(IllegalStateException.class);
+		thrown.expectMessage("Cannot access method: " + method);
+		thrown.expectCause(instanceOf(IllegalAccessException.class));
+		
+		matcher.matches(new InaccessibleValue());
+	}
+	
+	@Test
+	public void describeMismatchWhenMethodInaccessibleThrowsException() throws NoSuchMethodException
+	{
+		Method method = InaccessibleValue.class.getDeclaredMethod("getValue");
+		Matcher<InaccessibleValue> matcher = new HasValuesMatcher<InaccessibleValue>(
+			Collections.<HasValueMatcher<? super InaccessibleValue, ?>>singletonList(
+				new HasValueMatcher<InaccessibleValue, Object>(new MethodInvocation(method), anything())
+			)
+		);
+		
+		thrown.expect(IllegalStateException.class);
+		thrown.expectMessage("Cannot access method: " + method);
+		thrown.expectCause(instanceOf(IllegalAccessException.class));
+		
+		matcher.describeMismatch(new InaccessibleValue(), new StringDescription());
+	}
+	
+	@Test
+	public void describeToAppendsDescription()
+	{
+		Matcher<Person> matcher = hasValues(
+			hasValue(on(Person.class).getAge(), equalTo(1)),
+			hasValue(on(Person.class).getAge(), equalTo(2))
+		);
+		
+		assertThat(StringDescription.toString(matcher), is("(has value getAge() <1> and has value getAge() <2>)"));
+	}
+	
+	// ----------------------------------------------------------------------------------------------------------------
+	// private methods
+	// ----------------------------------------------------------------------------------------------------------------
+
+	private static Person newPerson(Address address, int age)
+	{
+		Person person = mock(Person.class);
+		when(person.getAddress()).thenReturn(address);
+		when(person.getAge()).thenReturn(age);
+		return person;
+	}
+}
@@ -0,0 +1,61 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hobsoft.hamcrest.submatcher;
+
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Tests {@code ItemSample}.
+ */
+public class ItemSampleTest
+{
+	// ----------------------------------------------------------------------------------------------------------------
+	// tests
+	// ----------------------------------------------------------------------------------------------------------------
+
+	@Test
+	public void mergeReturnsSummedCount()
+	{
+		ItemSample actual = new ItemSample(2, new int[] {0, 1}).merge(new ItemSample(3, new int[] {5}), 10);
+		
+		assertThat(actual.getCount(), is(5));
+	}
+	
+	@Test
+	public void mergeReturnsIndexesInOrder()
+	{
+		ItemSample actual = new ItemSample(2, new int[] {0, 1}).merge(new ItemSample(1, new int[] {5}), 10);
+		
+		assertThat(actual.getIndexes(), is(new int[] {0, 1, 5}));
+	}
+	
+	@Test
+	public void mergeReturnsIndexesWithinLimit()
+	{
+		ItemSample actual = new ItemSample(2, new int[] {0, 1}).merge(new ItemSample(2, new int[] {5, 6}), 3);
+		
+		assertThat(actual.getIndexes(), is(new int[] {0, 1, 5}));
+	}
+	
+	@Test
+	public void mergeWhenEmptyReturnsNextIndexes()
+	{
+		ItemSample actual = new ItemSample().merge(new ItemSample(1, new int[] {5}), 3);
+		
+		assertThat(actual.getIndexes(), is(new int[] {5}));
+	}
+}
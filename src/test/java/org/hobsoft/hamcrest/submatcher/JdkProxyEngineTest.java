@@ -0,0 +1,165 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hobsoft.hamcrest.submatcher;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+import org.hobsoft.hamcrest.submatcher.test.Library;
+import org.hobsoft.hamcrest.submatcher.test.Name;
+import org.hobsoft.hamcrest.submatcher.test.Person;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests {@code JdkProxyEngine}.
+ */
+public class JdkProxyEngineTest
+{
+	// ----------------------------------------------------------------------------------------------------------------
+	// tests
+	// ----------------------------------------------------------------------------------------------------------------
+
+	@Test
+	public void supportsWithInterfaceReturnsTrue()
+	{
+		boolean actual = new JdkProxyEngine().supports(Person.class);
+		
+		assertThat(actual, is(true));
+	}
+	
+	@Test
+	public void supportsWithClassReturnsFalse()
+	{
+		boolean actual = new JdkProxyEngine().supports(Library.class);
+		
+		assertThat(actual, is(false));
+	}
+	
+	@Test
+	public void createFactoryReturnsFactoryWithUnknownBytecodeLength()
+	{
+		ProxyFactory actual = new JdkProxyEngine().createFactory(Person.class);
+		
+		assertThat(actual.getBytecodeLength(), is(-1));
+	}
+	
+	@Test
+	public void createFactoryThenNewInstanceReturnsProxy()
+	{
+		ProxyFactory factory = new JdkProxyEngine().createFactory(Person.class);
+		
+		Object actual = factory.newInstance(mock(SpyInterceptor.class));
+		
+		assertThat(actual, is(instanceOf(Person.class)));
+	}
+	
+	@Test
+	public void createFactoryThenNewInstanceThenMethodInvokesInterceptor()
+	{
+		SpyInterceptor interceptor = mock(SpyInterceptor.class);
+		Person proxy = (Person) new JdkProxyEngine().createFactory(Person.class).newInstance(interceptor);
+		
+		proxy.getNameWithArgument("x");
+		
+		verify(interceptor).intercept(Person.GET_NAME_WITH_ARGUMENT, new Object[] {"x"});
+	}
+	
+	@Test
+	public void createFactoryThenNewInstanceThenMethodWithoutArgumentsInvokesInterceptorWithEmptyArguments()
+	{
+		SpyInterceptor interceptor = mock(SpyInterceptor.class);
+		Person proxy = (Person) new JdkProxyEngine().createFactory(Person.class).newInstance(interceptor);
+		
+		proxy.getName();
+		
+		verify(interceptor).intercept(Person.GET_NAME, new Object[0]);
+	}
+	
+	@Test
+	public void createFactoryThenNewInstanceThenMethodReturnsInterceptorValue()
+	{
+		SpyInterceptor interceptor = mock(SpyInterceptor.class);
+		Name name = mock(Name.class);
+		when(interceptor.intercept(any(Method.class), any(Object[].class))).thenReturn(name);
+		Person proxy = (Person) new JdkProxyEngine().createFactory(Person.class).newInstance(interceptor);
+		
+		Name actual = proxy.getName();
+		
+		assertThat(actual, is(sameInstance(name)));
+	}
+	
+	@Test
+	public void createFactoryThenNewInstanceThenMethodWithPrimitiveReturnTypeReturnsZero()
+	{
+		Person proxy = (Person) new JdkProxyEngine().createFactory(Person.class)
+			.newInstance(mock(SpyInterceptor.class));
+		
+		int actual = proxy.getAge();
+		
+		assertThat(actual, is(0));
+	}
+	
+	@Test
+	public void createFactoryThenNewInstanceThenMethodWithNullReturnsNull()
+	{
+		Person proxy = (Person) new JdkProxyEngine().createFactory(Person.class)
+			.newInstance(mock(SpyInterceptor.class));
+		
+		Name actual = proxy.getName();
+		
+		assertThat(actual, is(nullValue()));
+	}
+	
+	@Test
+	public void createFactoryWithNonPublicInterfaceThenNewInstanceReturnsProxy()
+	{
+		ProxyFactory factory = new JdkProxyEngine().createFactory(NonPublicType.class);
+		
+		Object actual = factory.newInstance(mock(SpyInterceptor.class));
+		
+		assertThat(actual, is(instanceOf(NonPublicType.class)));
+	}
+	
+	@Test
+	public void createFactoryThenGetProxyTypeReturnsProxyClass()
+	{
+		ProxyFactory factory = new JdkProxyEngine().createFactory(Person.class);
+		
+		Class<?> actual = factory.getProxyType();
+		
+		assertThat(Proxy.isProxyClass(actual), is(true));
+	}
+	
+	// ----------------------------------------------------------------------------------------------------------------
+	// types
+	// ----------------------------------------------------------------------------------------------------------------
+
+	/**
+	 * Interface whose proxy class is not public.
+	 */
+	interface NonPublicType
+	{
+		String getValue();
+	}
+}
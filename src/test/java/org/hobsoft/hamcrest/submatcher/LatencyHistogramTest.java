@@ -0,0 +1,152 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hobsoft.hamcrest.submatcher;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import static org.hamcrest.Matchers.allOf;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Tests {@code LatencyHistogram}.
+ */
+public class LatencyHistogramTest
+{
+	// ----------------------------------------------------------------------------------------------------------------
+	// fields
+	// ----------------------------------------------------------------------------------------------------------------
+
+	private ExpectedException thrown = ExpectedException.none();
+
+	// ----------------------------------------------------------------------------------------------------------------
+	// JUnit methods
+	// ----------------------------------------------------------------------------------------------------------------
+
+	@Rule
+	public ExpectedException getThrown()
+	{
+		return thrown;
+	}
+
+	// ----------------------------------------------------------------------------------------------------------------
+	// tests
+	// ----------------------------------------------------------------------------------------------------------------
+
+	@Test
+	public void getCountReturnsRecordedCount()
+	{
+		LatencyHistogram histogram = new LatencyHistogram();
+		histogram.record(1);
+		histogram.record(1000);
+		
+		assertThat(histogram.getCount(), is(2L));
+	}
+	
+	@Test
+	public void getValueAtPercentileWhenSmallValuesReturnsExactValue()
+	{
+		LatencyHistogram histogram = new LatencyHistogram();
+		histogram.record(1);
+		histogram.record(2);
+		histogram.record(3);
+		
+		assertThat(histogram.getValueAtPercentile(50), is(2L));
+	}
+	
+	@Test
+	public void getValueAtPercentileReturnsValueWithinPrecision()
+	{
+		LatencyHistogram histogram = new LatencyHistogram();
+		
+		for (int value = 1; value <= 1000; value++)
+		{
+			histogram.record(value * 1000L);
+		}
+		
+		assertThat(histogram.getValueAtPercentile(99), is(allOf(greaterThanOrEqualTo(990000L),
+			lessThanOrEqualTo(990000L * 9 / 8))));
+	}
+	
+	@Test
+	public void getValueAtPercentileWhenEmptyReturnsZero()
+	{
+		assertThat(new LatencyHistogram().getValueAtPercentile(50), is(0L));
+	}
+	
+	@Test
+	public void getValueAtPercentileWithInvalidPercentileThrowsException()
+	{
+		thrown.expect(IllegalArgumentException.class);
+		thrown.expectMessage("percentile must be between 0 and 100: 101.0");
+		
+		new LatencyHistogram().getValueAtPercentile(101);
+	}
+	
+	@Test
+	public void getMaximumReturnsHighestValueOfHighestBucket()
+	{
+		LatencyHistogram histogram = new LatencyHistogram();
+		histogram.record(16);
+		histogram.record(5);
+		
+		assertThat(histogram.getMaximum(), is(17L));
+	}
+	
+	@Test
+	public void recordWithNegativeValueRecordsZero()
+	{
+		LatencyHistogram histogram = new LatencyHistogram();
+		
+		histogram.record(-1);
+		
+		assertThat(histogram.getMaximum(), is(0L));
+	}
+	
+	@Test
+	public void recordWithMaximumValueRecordsValue()
+	{
+		LatencyHistogram histogram = new LatencyHistogram();
+		
+		histogram.record(Long.MAX_VALUE);
+		
+		assertThat(histogram.getMaximum(), is(Long.MAX_VALUE));
+	}
+	
+	@Test
+	public void resetClearsCounts()
+	{
+		LatencyHistogram histogram = new LatencyHistogram();
+		histogram.record(1);
+		
+		histogram.reset();
+		
+		assertThat(histogram.getCount(), is(0L));
+	}
+	
+	@Test
+	public void getHighestValueOfIndexContainsValue()
+	{
+		for (long value = 1; value > 0 && value < Long.MAX_VALUE / 3; value = value * 3 + 1)
+		{
+			long highestValue = LatencyHistogram.getHighestValue(LatencyHistogram.getIndex(value));
+			
+			assertThat(highestValue, is(allOf(greaterThanOrEqualTo(value), lessThanOrEqualTo(value + value / 8))));
+		}
+	}
+}
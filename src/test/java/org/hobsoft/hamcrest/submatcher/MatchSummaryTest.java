@@ -0,0 +1,95 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hobsoft.hamcrest.submatcher;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Tests {@code MatchSummary}.
+ */
+public class MatchSummaryTest
+{
+	// ----------------------------------------------------------------------------------------------------------------
+	// fields
+	// ----------------------------------------------------------------------------------------------------------------
+
+	private ExpectedException thrown = ExpectedException.none();
+
+	// ----------------------------------------------------------------------------------------------------------------
+	// JUnit methods
+	// ----------------------------------------------------------------------------------------------------------------
+
+	@Rule
+	public ExpectedException getThrown()
+	{
+		return thrown;
+	}
+
+	// ----------------------------------------------------------------------------------------------------------------
+	// tests
+	// ----------------------------------------------------------------------------------------------------------------
+
+	@Test
+	public void constructorWithDifferentSizedSamplesThrowsException()
+	{
+		thrown.expect(IllegalArgumentException.class);
+		thrown.expectMessage("mismatchedItems and mismatchDescriptions must be the same size");
+		
+		new MatchSummary<String>(0, 1, Arrays.asList("x"), Collections.<String>emptyList());
+	}
+	
+	@Test
+	public void getCountReturnsSum()
+	{
+		MatchSummary<String> summary = new MatchSummary<String>(1, 2, Collections.<String>emptyList(),
+			Collections.<String>emptyList());
+		
+		assertThat(summary.getCount(), is(3L));
+	}
+	
+	@Test
+	public void allMatchWhenNoMismatchesReturnsTrue()
+	{
+		MatchSummary<String> summary = new MatchSummary<String>(1, 0, Collections.<String>emptyList(),
+			Collections.<String>emptyList());
+		
+		assertThat(summary.allMatch(), is(true));
+	}
+	
+	@Test
+	public void allMatchWhenMismatchesReturnsFalse()
+	{
+		MatchSummary<String> summary = new MatchSummary<String>(1, 1, Collections.<String>emptyList(),
+			Collections.<String>emptyList());
+		
+		assertThat(summary.allMatch(), is(false));
+	}
+	
+	@Test
+	public void toStringReturnsCounts()
+	{
+		MatchSummary<String> summary = new MatchSummary<String>(1, 2, Collections.<String>emptyList(),
+			Collections.<String>emptyList());
+		
+		assertThat(summary.toString(), is("matches=1, mismatches=2"));
+	}
+}
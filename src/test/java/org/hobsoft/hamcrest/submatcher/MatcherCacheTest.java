@@ -0,0 +1,245 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hobsoft.hamcrest.submatcher;
+
+import java.lang.reflect.Method;
+import java.util.Collections;
+
+import org.hamcrest.Matcher;
+import org.hobsoft.hamcrest.submatcher.test.Person;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import static org.hamcrest.CoreMatchers.allOf;
+import static org.hamcrest.CoreMatchers.anything;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Tests {@code MatcherCache}.
+ */
+public class MatcherCacheTest
+{
+	// ----------------------------------------------------------------------------------------------------------------
+	// fields
+	// ----------------------------------------------------------------------------------------------------------------
+
+	private ExpectedException thrown = ExpectedException.none();
+	
+	// ----------------------------------------------------------------------------------------------------------------
+	// JUnit methods
+	// ----------------------------------------------------------------------------------------------------------------
+
+	@Rule
+	public ExpectedException getThrown()
+	{
+		return thrown;
+	}
+
+	// ----------------------------------------------------------------------------------------------------------------
+	// tests
+	// ----------------------------------------------------------------------------------------------------------------
+
+	@Test
+	public void constructorWithNegativeMaximumSizeThrowsException()
+	{
+		thrown.expect(IllegalArgumentException.class);
+		thrown.expectMessage("maximumSize must not be negative: -1");
+		
+		new MatcherCache(-1);
+	}
+	
+	@Test
+	public void getReturnsMatcherWithPathAndSubmatcher()
+	{
+		PropertyPath<Person, Object> path = newPath(Person.GET_NAME);
+		Matcher<Object> submatcher = anything();
+		
+		HasValueMatcher<Person, Object> actual = new MatcherCache(1).get(path, submatcher);
+		
+		assertThat(actual.getPath(), is(sameInstance(path)));
+		assertThat(actual.getSubmatcher(), is(sameInstance(submatcher)));
+	}
+	
+	@Test
+	public void getWithEqualPathAndSubmatcherReturnsCachedMatcher()
+	{
+		MatcherCache cache = new MatcherCache(1);
+		Matcher<Object> submatcher = anything();
+		HasValueMatcher<Person, Object> matcher = cache.get(newPath(Person.GET_NAME), submatcher);
+		
+		HasValueMatcher<Person, Object> actual = cache.get(newPath(Person.GET_NAME), submatcher);
+		
+		assertThat(actual, is(sameInstance(matcher)));
+	}
+	
+	@Test
+	public void getWithDifferentPathReturnsNewMatcher()
+	{
+		MatcherCache cache = new MatcherCache(2);
+		Matcher<Object> submatcher = anything();
+		HasValueMatcher<Person, Object> matcher = cache.get(newPath(Person.GET_NAME), submatcher);
+		
+		HasValueMatcher<Person, Object> actual = cache.get(newPath(Person.GET_AGE), submatcher);
+		
+		assertThat(actual, is(not(sameInstance(matcher))));
+	}
+	
+	@Test
+	public void getWithDifferentSubmatcherReturnsNewMatcher()
+	{
+		MatcherCache cache = new MatcherCache(2);
+		HasValueMatcher<Person, Object> matcher = cache.get(newPath(Person.GET_NAME), anything("x"));
+		
+		HasValueMatcher<Person, Object> actual = cache.get(newPath(Person.GET_NAME), anything("y"));
+		
+		assertThat(actual, is(not(sameInstance(matcher))));
+	}
+	
+	@Test
+	public void getWithStructurallyEqualSubmatcherReturnsCachedMatcher()
+	{
+		MatcherCache cache = new MatcherCache(1);
+		HasValueMatcher<Person, Object> matcher = cache.get(newPath(Person.GET_NAME), equalTo((Object) "x"));
+		
+		HasValueMatcher<Person, Object> actual = cache.get(newPath(Person.GET_NAME), equalTo((Object) "x"));
+		
+		assertThat(actual, is(sameInstance(matcher)));
+	}
+	
+	@Test
+	public void getWithStructurallyEqualNestedMatcherReturnsCachedMatcher()
+	{
+		MatcherCache cache = new MatcherCache(1);
+		HasValueMatcher<Person, Object> matcher = cache.get(newPath(Person.GET_NAME),
+			allOf(equalTo((Object) "x"), anything()));
+		
+		HasValueMatcher<Person, Object> actual = cache.get(newPath(Person.GET_NAME),
+			allOf(equalTo((Object) "x"), anything()));
+		
+		assertThat(actual, is(sameInstance(matcher)));
+	}
+	
+	@Test
+	public void getWithEqualSubmatcherValuesOfDifferentClassesReturnsNewMatcher()
+	{
+		MatcherCache cache = new MatcherCache(2);
+		HasValueMatcher<Person, Object> matcher = cache.get(newPath(Person.GET_NAME), equalTo((Object) 1));
+		
+		HasValueMatcher<Person, Object> actual = cache.get(newPath(Person.GET_NAME), equalTo((Object) 1L));
+		
+		assertThat(actual, is(not(sameInstance(matcher))));
+	}
+	
+	@Test
+	public void getWithDifferentNullPolicyReturnsNewMatcher()
+	{
+		MatcherCache cache = new MatcherCache(2);
+		Matcher<Object> submatcher = anything();
+		HasValueMatcher<Person, Object> matcher = cache.get(newPath(Person.GET_NAME), submatcher);
+		
+		HasValueMatcher<Person, Object> actual = cache.get(newPath(Person.GET_NAME), submatcher, NullPolicy.MATCH);
+		
+		assertThat(actual, is(not(sameInstance(matcher))));
+		assertThat(actual.getNullPolicy(), is(NullPolicy.MATCH));
+	}
+	
+	@Test
+	public void getWhenDisabledReturnsNewMatcher()
+	{
+		MatcherCache cache = new MatcherCache();
+		Matcher<Object> submatcher = anything();
+		HasValueMatcher<Person, Object> matcher = cache.get(newPath(Person.GET_NAME), submatcher);
+		
+		HasValueMatcher<Person, Object> actual = cache.get(newPath(Person.GET_NAME), submatcher);
+		
+		assertThat(actual, is(not(sameInstance(matcher))));
+		assertThat(cache.getStatistics().getRequestCount(), is(0L));
+	}
+	
+	@Test
+	public void getWhenFullEvictsLeastRecentlyUsedMatcher()
+	{
+		MatcherCache cache = new MatcherCache(2);
+		Matcher<Object> submatcher = anything();
+		HasValueMatcher<Person, Object> name = cache.get(newPath(Person.GET_NAME), submatcher);
+		HasValueMatcher<Person, Object> age = cache.get(newPath(Person.GET_AGE), submatcher);
+		cache.get(newPath(Person.GET_NAME), submatcher);
+		
+		cache.get(newPath(Person.GET_ADDRESS), submatcher);
+		
+		assertThat(cache.size(), is(2));
+		assertThat(cache.get(newPath(Person.GET_NAME), submatcher), is(sameInstance(name)));
+		assertThat(cache.get(newPath(Person.GET_AGE), submatcher), is(not(sameInstance(age))));
+	}
+	
+	@Test
+	public void getStatisticsReturnsHitsAndMisses()
+	{
+		MatcherCache cache = new MatcherCache(1);
+		Matcher<Object> submatcher = anything();
+		cache.get(newPath(Person.GET_NAME), submatcher);
+		cache.get(newPath(Person.GET_NAME), submatcher);
+		
+		CacheStatistics actual = cache.getStatistics();
+		
+		assertThat(actual.getHitCount(), is(1L));
+		assertThat(actual.getMissCount(), is(1L));
+	}
+	
+	@Test
+	public void setMaximumSizeEvictsExcessMatchers()
+	{
+		MatcherCache cache = new MatcherCache(2);
+		cache.get(newPath(Person.GET_NAME), anything());
+		cache.get(newPath(Person.GET_AGE), anything());
+		
+		cache.setMaximumSize(1);
+		
+		assertThat(cache.size(), is(1));
+	}
+	
+	@Test
+	public void setMaximumSizeWithNegativeThrowsException()
+	{
+		thrown.expect(IllegalArgumentException.class);
+		thrown.expectMessage("maximumSize must not be negative: -1");
+		
+		new MatcherCache().setMaximumSize(-1);
+	}
+	
+	@Test
+	public void clearRemovesMatchers()
+	{
+		MatcherCache cache = new MatcherCache(1);
+		cache.get(newPath(Person.GET_NAME), anything());
+		
+		cache.clear();
+		
+		assertThat(cache.size(), is(0));
+	}
+	
+	// ----------------------------------------------------------------------------------------------------------------
+	// private methods
+	// ----------------------------------------------------------------------------------------------------------------
+
+	private static PropertyPath<Person, Object> newPath(Method method)
+	{
+		return new PropertyPath<Person, Object>(Collections.singletonList(new MethodInvocation(method)));
+	}
+}
@@ -0,0 +1,187 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hobsoft.hamcrest.submatcher;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+
+import org.hobsoft.hamcrest.submatcher.test.Address;
+import org.hobsoft.hamcrest.submatcher.test.Person;
+import org.junit.Rule;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Tests {@code MatcherMetrics}.
+ */
+public class MatcherMetricsTest
+{
+	// ----------------------------------------------------------------------------------------------------------------
+	// fields
+	// ----------------------------------------------------------------------------------------------------------------
+
+	private MetricsListenerRule metricsListenerRule = new MetricsListenerRule();
+
+	// ----------------------------------------------------------------------------------------------------------------
+	// JUnit methods
+	// ----------------------------------------------------------------------------------------------------------------
+
+	@Rule
+	public MetricsListenerRule getMetricsListenerRule()
+	{
+		return metricsListenerRule;
+	}
+
+	// ----------------------------------------------------------------------------------------------------------------
+	// tests
+	// ----------------------------------------------------------------------------------------------------------------
+
+	@Test
+	public void invocationCompletedRecordsInvocation()
+	{
+		MatcherMetrics metrics = new MatcherMetrics();
+		
+		metrics.invocationCompleted(new MethodInvocation(Person.GET_NAME), 10, false);
+		metrics.invocationCompleted(new MethodInvocation(Person.GET_NAME), 20, true);
+		
+		LatencyStatistics actual = metrics.getInvocationStatistics().get(0);
+		assertThat(actual.getName(), is("Person.getName()"));
+		assertThat(actual.getCount(), is(2L));
+		assertThat(actual.getExceptionCount(), is(1L));
+		assertThat(actual.getTotalNanos(), is(30L));
+		assertThat(actual.getMaximumNanos(), is(21L));
+	}
+	
+	@Test
+	public void evaluationCompletedRecordsEvaluation()
+	{
+		MatcherMetrics metrics = new MatcherMetrics();
+		PropertyPath<Person, String> path = newPath();
+		
+		metrics.evaluationCompleted(path, 10, true, false);
+		metrics.evaluationCompleted(path, 10, false, false);
+		metrics.evaluationCompleted(path, 10, false, true);
+		
+		LatencyStatistics actual = metrics.getEvaluationStatistics().get(0);
+		assertThat(actual.getName(), is("Person.getAddress().getCity()"));
+		assertThat(actual.getCount(), is(3L));
+		assertThat(actual.getMatchCount(), is(1L));
+		assertThat(actual.getMismatchCount(), is(2L));
+		assertThat(actual.getExceptionCount(), is(1L));
+	}
+	
+	@Test
+	public void getInvocationStatisticsOrdersByDescendingTotalTime()
+	{
+		MatcherMetrics metrics = new MatcherMetrics();
+		metrics.invocationCompleted(new MethodInvocation(Person.GET_NAME), 10, false);
+		metrics.invocationCompleted(new MethodInvocation(Person.GET_AGE), 20, false);
+		
+		List<LatencyStatistics> actual = metrics.getInvocationStatistics();
+		
+		assertThat(actual.get(0).getName(), is("Person.getAge()"));
+		assertThat(actual.get(1).getName(), is("Person.getName()"));
+	}
+	
+	@Test
+	public void resetClearsStatistics()
+	{
+		MatcherMetrics metrics = new MatcherMetrics();
+		metrics.invocationCompleted(new MethodInvocation(Person.GET_NAME), 10, false);
+		metrics.evaluationCompleted(newPath(), 10, true, false);
+		
+		metrics.reset();
+		
+		assertThat(metrics.getInvocationStatistics().isEmpty(), is(true));
+		assertThat(metrics.getEvaluationStatistics().isEmpty(), is(true));
+	}
+	
+	@Test
+	public void setEnabledWithTrueSetsListener()
+	{
+		MatcherMetrics metrics = new MatcherMetrics();
+		
+		metrics.setEnabled(true);
+		
+		assertThat(Instrumentation.getListener(), is(sameInstance((Object) metrics)));
+		assertThat(metrics.isEnabled(), is(true));
+	}
+	
+	@Test
+	public void setEnabledWithFalseRemovesListener()
+	{
+		MatcherMetrics metrics = new MatcherMetrics();
+		metrics.setEnabled(true);
+		
+		metrics.setEnabled(false);
+		
+		assertThat(Instrumentation.getListener(), is(nullValue()));
+	}
+	
+	@Test
+	public void setEnabledWithFalseWhenOtherListenerKeepsListener()
+	{
+		MatcherMetricsListener listener = mock(MatcherMetricsListener.class);
+		Instrumentation.setListener(listener);
+		
+		new MatcherMetrics().setEnabled(false);
+		
+		assertThat(Instrumentation.getListener(), is(sameInstance(listener)));
+	}
+	
+	@Test
+	public void registerMatcherMetricsRegistersMXBean() throws JMException
+	{
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		SubmatcherRuntime.getMatcherMetrics().invocationCompleted(new MethodInvocation(Person.GET_NAME), 10, false);
+		
+		SubmatcherRuntime.registerMatcherMetrics();
+		
+		CompositeData[] actual = (CompositeData[]) server.getAttribute(new ObjectName(MatcherMetricsMXBean.OBJECT_NAME),
+			"InvocationStatistics");
+		assertThat(actual[0].get("name"), is((Object) "Person.getName()"));
+	}
+	
+	@Test
+	public void registerMatcherMetricsTwiceRegistersOnce() throws JMException
+	{
+		SubmatcherRuntime.registerMatcherMetrics();
+		
+		SubmatcherRuntime.registerMatcherMetrics();
+		
+		assertThat(ManagementFactory.getPlatformMBeanServer().isRegistered(
+			new ObjectName(MatcherMetricsMXBean.OBJECT_NAME)), is(true));
+	}
+	
+	// ----------------------------------------------------------------------------------------------------------------
+	// private methods
+	// ----------------------------------------------------------------------------------------------------------------
+
+	private static PropertyPath<Person, String> newPath()
+	{
+		return new PropertyPath<Person, String>(Arrays.asList(new MethodInvocation(Person.GET_ADDRESS),
+			new MethodInvocation(Address.GET_CITY)));
+	}
+}
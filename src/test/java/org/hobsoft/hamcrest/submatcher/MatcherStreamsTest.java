@@ -0,0 +1,191 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hobsoft.hamcrest.submatcher;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import org.hamcrest.Description;
+import org.hamcrest.Matcher;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.startsWith;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hobsoft.hamcrest.submatcher.MatcherStreams.matching;
+import static org.hobsoft.hamcrest.submatcher.MatcherStreams.partitioningByMatches;
+import static org.hobsoft.hamcrest.submatcher.MatcherStreams.summarizingMatches;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Tests {@code MatcherStreams}.
+ */
+public class MatcherStreamsTest
+{
+	// ----------------------------------------------------------------------------------------------------------------
+	// fields
+	// ----------------------------------------------------------------------------------------------------------------
+
+	private ExpectedException thrown = ExpectedException.none();
+
+	// ----------------------------------------------------------------------------------------------------------------
+	// JUnit methods
+	// ----------------------------------------------------------------------------------------------------------------
+
+	@Rule
+	public ExpectedException getThrown()
+	{
+		return thrown;
+	}
+
+	// ----------------------------------------------------------------------------------------------------------------
+	// tests
+	// ----------------------------------------------------------------------------------------------------------------
+
+	@Test
+	public void matchingWhenMatchesReturnsTrue()
+	{
+		assertThat(matching(startsWith("x")).test("xy"), is(true));
+	}
+	
+	@Test
+	public void matchingWhenMismatchesReturnsFalse()
+	{
+		assertThat(matching(startsWith("x")).test("yx"), is(false));
+	}
+	
+	@Test
+	public void matchingWithNullMatcherThrowsException()
+	{
+		thrown.expect(NullPointerException.class);
+		thrown.expectMessage("matcher");
+		
+		matching(null);
+	}
+	
+	@Test
+	public void matchingFiltersStream()
+	{
+		List<String> actual = Stream.of("xa", "yb", "xc").filter(matching(startsWith("x")))
+			.collect(Collectors.toList());
+		
+		assertThat(actual, is(Arrays.asList("xa", "xc")));
+	}
+	
+	@Test
+	public void partitioningByMatchesPartitionsStream()
+	{
+		Map<Boolean, List<String>> actual = Stream.of("xa", "yb", "xc").collect(partitioningByMatches(startsWith("x")));
+		
+		assertThat(actual.get(true), is(Arrays.asList("xa", "xc")));
+		assertThat(actual.get(false), is(Arrays.asList("yb")));
+	}
+	
+	@Test
+	public void summarizingMatchesCountsMatchesAndMismatches()
+	{
+		MatchSummary<String> actual = Stream.of("xa", "yb", "xc").collect(summarizingMatches(startsWith("x")));
+		
+		assertThat(actual.getMatchCount(), is(2L));
+		assertThat(actual.getMismatchCount(), is(1L));
+	}
+	
+	@Test
+	public void summarizingMatchesDescribesMismatches()
+	{
+		MatchSummary<String> actual = Stream.of("xa", "yb", "xc").collect(summarizingMatches(startsWith("x")));
+		
+		assertThat(actual.getMismatchedItems(), is(Arrays.asList("yb")));
+		assertThat(actual.getMismatchDescriptions(), is(Arrays.asList("was \"yb\"")));
+	}
+	
+	@Test
+	public void summarizingMatchesSamplesFirstMismatches()
+	{
+		MatchSummary<String> actual = Stream.of("ya", "yb", "yc").collect(summarizingMatches(startsWith("x"), 2));
+		
+		assertThat(actual.getMismatchCount(), is(3L));
+		assertThat(actual.getMismatchedItems(), is(Arrays.asList("ya", "yb")));
+	}
+	
+	@Test
+	public void summarizingMatchesWithZeroSampleSizeDoesNotDescribeMismatches()
+	{
+		Matcher<Object> matcher = mock(Matcher.class);
+		
+		MatchSummary<Object> actual = Stream.of((Object) "x").collect(summarizingMatches(matcher, 0));
+		
+		assertThat(actual.getMismatchCount(), is(1L));
+		verify(matcher, never()).describeMismatch(any(), any(Description.class));
+	}
+	
+	@Test
+	public void summarizingMatchesWithParallelStreamCountsMatchesAndMismatches()
+	{
+		MatchSummary<Integer> actual = IntStream.range(0, 100000).boxed().parallel()
+			.collect(summarizingMatches(lessThan(60000)));
+		
+		assertThat(actual.getMatchCount(), is(60000L));
+		assertThat(actual.getMismatchCount(), is(40000L));
+	}
+	
+	@Test
+	public void summarizingMatchesWithParallelStreamSamplesFirstMismatchesInEncounterOrder()
+	{
+		MatchSummary<Integer> actual = IntStream.range(0, 100000).boxed().parallel()
+			.collect(summarizingMatches(lessThan(60000), 3));
+		
+		assertThat(actual.getMismatchedItems(), is(Arrays.asList(60000, 60001, 60002)));
+	}
+	
+	@Test
+	public void summarizingMatchesWithParallelStreamDescribesOnlySampledMismatches()
+	{
+		Matcher<Object> matcher = mock(Matcher.class);
+		
+		IntStream.range(0, 100000).boxed().parallel()
+			.collect(summarizingMatches(matcher, 3));
+		
+		verify(matcher, times(3)).describeMismatch(any(), any(Description.class));
+	}
+	
+	@Test
+	public void summarizingMatchesWithNullMatcherThrowsException()
+	{
+		thrown.expect(NullPointerException.class);
+		thrown.expectMessage("matcher");
+		
+		summarizingMatches(null);
+	}
+	
+	@Test
+	public void summarizingMatchesWithNegativeSampleSizeThrowsException()
+	{
+		thrown.expect(IllegalArgumentException.class);
+		thrown.expectMessage("sampleSize must not be negative: -1");
+		
+		summarizingMatches(startsWith("x"), -1);
+	}
+}
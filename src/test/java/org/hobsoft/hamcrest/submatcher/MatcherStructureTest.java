@@ -0,0 +1,164 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hobsoft.hamcrest.submatcher;
+
+import java.util.Arrays;
+import java.util.LinkedList;
+
+import org.hamcrest.BaseMatcher;
+import org.hamcrest.Description;
+import org.hamcrest.Matcher;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.allOf;
+import static org.hamcrest.CoreMatchers.anything;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.Matchers.closeTo;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Tests {@code MatcherStructure}.
+ */
+public class MatcherStructureTest
+{
+	// ----------------------------------------------------------------------------------------------------------------
+	// tests
+	// ----------------------------------------------------------------------------------------------------------------
+
+	@Test
+	public void equalsWithSameMatcherReturnsTrue()
+	{
+		Matcher<Object> matcher = new MutableMatcher();
+		
+		assertThat(MatcherStructure.equals(matcher, matcher), is(true));
+	}
+	
+	@Test
+	public void equalsWithEqualValueMatchersReturnsTrue()
+	{
+		assertThat(MatcherStructure.equals(equalTo("x"), equalTo("x")), is(true));
+	}
+	
+	@Test
+	public void equalsWithDifferentValueMatchersReturnsFalse()
+	{
+		assertThat(MatcherStructure.equals(equalTo("x"), equalTo("y")), is(false));
+	}
+	
+	@Test
+	public void equalsWithEqualValuesOfDifferentClassesReturnsFalse()
+	{
+		assertThat(MatcherStructure.equals(equalTo((Object) 1), equalTo((Object) 1L)), is(false));
+	}
+	
+	@Test
+	public void equalsWithDifferentMatcherClassesReturnsFalse()
+	{
+		assertThat(MatcherStructure.equals(equalTo((Object) "x"), anything("x")), is(false));
+	}
+	
+	@Test
+	public void equalsWithEqualNestedMatchersReturnsTrue()
+	{
+		Matcher<Object> matcher1 = allOf(equalTo((Object) "x"), anything());
+		Matcher<Object> matcher2 = allOf(equalTo((Object) "x"), anything());
+		
+		assertThat(MatcherStructure.equals(matcher1, matcher2), is(true));
+	}
+	
+	@Test
+	public void equalsWithDifferentNestedMatchersReturnsFalse()
+	{
+		Matcher<Object> matcher1 = allOf(equalTo((Object) "x"), anything());
+		Matcher<Object> matcher2 = allOf(equalTo((Object) "y"), anything());
+		
+		assertThat(MatcherStructure.equals(matcher1, matcher2), is(false));
+	}
+	
+	@Test
+	public void equalsWithEqualPrimitiveFieldsReturnsTrue()
+	{
+		assertThat(MatcherStructure.equals(closeTo(1, 0.1), closeTo(1, 0.1)), is(true));
+	}
+	
+	@Test
+	public void equalsWithDifferentPrimitiveFieldsReturnsFalse()
+	{
+		assertThat(MatcherStructure.equals(closeTo(1, 0.1), closeTo(1, 0.2)), is(false));
+	}
+	
+	@Test
+	public void equalsWithEqualObjectArraysReturnsTrue()
+	{
+		assertThat(MatcherStructure.equals(equalTo(new Object[] {"x"}), equalTo(new Object[] {"x"})), is(true));
+	}
+	
+	@Test
+	public void equalsWithPrimitiveArraysReturnsFalse()
+	{
+		assertThat(MatcherStructure.equals(equalTo(new int[] {1}), equalTo(new int[] {1})), is(false));
+	}
+	
+	@Test
+	public void equalsWithEqualListsOfDifferentClassesReturnsFalse()
+	{
+		Matcher<Object> matcher1 = equalTo((Object) Arrays.asList("x"));
+		Matcher<Object> matcher2 = equalTo((Object) new LinkedList<String>(Arrays.asList("x")));
+		
+		assertThat(MatcherStructure.equals(matcher1, matcher2), is(false));
+	}
+	
+	@Test
+	public void equalsWithMutableMatchersReturnsFalse()
+	{
+		assertThat(MatcherStructure.equals(new MutableMatcher(), new MutableMatcher()), is(false));
+	}
+	
+	@Test
+	public void hashCodeWithEqualNestedMatchersReturnsEqualHashCodes()
+	{
+		Matcher<Double> matcher1 = allOf(equalTo(1.0), closeTo(1, 0.1));
+		Matcher<Double> matcher2 = allOf(equalTo(1.0), closeTo(1, 0.1));
+		
+		assertThat(MatcherStructure.hashCode(matcher1), is(MatcherStructure.hashCode(matcher2)));
+	}
+	
+	@Test
+	public void hashCodeWithDifferentValueMatchersReturnsDifferentHashCodes()
+	{
+		assertThat(MatcherStructure.hashCode(equalTo("x")), is(not(MatcherStructure.hashCode(equalTo("y")))));
+	}
+	
+	// ----------------------------------------------------------------------------------------------------------------
+	// types
+	// ----------------------------------------------------------------------------------------------------------------
+
+	private static class MutableMatcher extends BaseMatcher<Object>
+	{
+		private int matchCount;
+		
+		public boolean matches(Object item)
+		{
+			matchCount++;
+			return true;
+		}
+		
+		public void describeTo(Description description)
+		{
+			description.appendText("mutable ").appendValue(matchCount);
+		}
+	}
+}
@@ -13,19 +13,27 @@
  */
 package org.hobsoft.hamcrest.submatcher;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.InvocationTargetException;
+import java.util.Collections;
 
 import org.hamcrest.CoreMatchers;
 import org.hamcrest.Matchers;
 import org.hamcrest.StringDescription;
 import org.hobsoft.hamcrest.submatcher.test.Name;
 import org.hobsoft.hamcrest.submatcher.test.Person;
+import org.hobsoft.hamcrest.submatcher.test.RecordingMetricsListener;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
 
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
 import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -41,6 +49,8 @@ public class MethodInvocationTest
 
 	private ExpectedException thrown = ExpectedException.none();
 	
+	private MetricsListenerRule metricsListenerRule = new MetricsListenerRule();
+	
 	// ----------------------------------------------------------------------------------------------------------------
 	// JUnit methods
 	// ----------------------------------------------------------------------------------------------------------------
@@ -50,6 +60,12 @@ public class MethodInvocationTest
 	{
 		return thrown;
 	}
+	
+	@Rule
+	public MetricsListenerRule getMetricsListenerRule()
+	{
+		return metricsListenerRule;
+	}
 
 	// ----------------------------------------------------------------------------------------------------------------
 	// tests
@@ -89,6 +105,110 @@ public class MethodInvocationTest
 		new MethodInvocation(Person.GET_NAME, (Object[]) null);
 	}
 	
+	@Test
+	public void equalsWithEqualInvocationReturnsTrue()
+	{
+		MethodInvocation invocation1 = new MethodInvocation(Person.GET_NAME_WITH_ARGUMENT, "x");
+		MethodInvocation invocation2 = new MethodInvocation(Person.GET_NAME_WITH_ARGUMENT, "x");
+		
+		boolean actual = invocation1.equals(invocation2);
+		
+		assertThat(actual, is(true));
+	}
+	
+	@Test
+	public void equalsWithDifferentMethodReturnsFalse()
+	{
+		MethodInvocation invocation = new MethodInvocation(Person.GET_NAME);
+		
+		boolean actual = invocation.equals(new MethodInvocation(Person.GET_AGE));
+		
+		assertThat(actual, is(false));
+	}
+	
+	@Test
+	public void equalsWithDifferentArgumentsReturnsFalse()
+	{
+		MethodInvocation invocation1 = new MethodInvocation(Person.GET_NAME_WITH_ARGUMENT, "x");
+		MethodInvocation invocation2 = new MethodInvocation(Person.GET_NAME_WITH_ARGUMENT, "y");
+		
+		boolean actual = invocation1.equals(invocation2);
+		
+		assertThat(actual, is(false));
+	}
+	
+	@Test
+	public void equalsWithNullReturnsFalse()
+	{
+		MethodInvocation invocation = new MethodInvocation(Person.GET_NAME);
+		Object object = null;
+		
+		boolean actual = invocation.equals(object);
+		
+		assertThat(actual, is(false));
+	}
+	
+	@Test
+	public void hashCodeWithEqualInvocationReturnsEqualHashCode()
+	{
+		MethodInvocation invocation = new MethodInvocation(Person.GET_NAME_WITH_ARGUMENT, "x");
+		
+		int actual = new MethodInvocation(Person.GET_NAME_WITH_ARGUMENT, "x").hashCode();
+		
+		assertThat(actual, is(invocation.hashCode()));
+	}
+	
+	@Test
+	public void constructorWithoutArgumentsSharesArguments()
+	{
+		MethodInvocation invocation = new MethodInvocation(Person.GET_NAME);
+		
+		Object[] actual = new MethodInvocation(Person.GET_AGE, new Object[0]).getArguments();
+		
+		assertThat(actual, is(sameInstance(invocation.getArguments())));
+	}
+	
+	@Test
+	public void equalsWithSameInvocationReturnsTrue()
+	{
+		MethodInvocation invocation = new MethodInvocation(Person.GET_NAME);
+		
+		boolean actual = invocation.equals(invocation);
+		
+		assertThat(actual, is(true));
+	}
+	
+	@Test
+	public void internReturnsInvocation()
+	{
+		MethodInvocation invocation = new MethodInvocation(Person.GET_NAME_WITH_ARGUMENT, "intern");
+		
+		MethodInvocation actual = invocation.intern();
+		
+		assertThat(actual, is(sameInstance(invocation)));
+	}
+	
+	@Test
+	public void internWithEqualInvocationReturnsCanonicalInvocation()
+	{
+		MethodInvocation invocation = new MethodInvocation(Person.GET_NAME_WITH_ARGUMENTS, "intern", "x").intern();
+		
+		MethodInvocation actual = new MethodInvocation(Person.GET_NAME_WITH_ARGUMENTS, "intern", "x").intern();
+		
+		assertThat(actual, is(sameInstance(invocation)));
+	}
+	
+	@Test
+	public void internWithDifferentArgumentsReturnsInvocation()
+	{
+		new MethodInvocation(Person.GET_NAME_WITH_ARGUMENTS, "intern", "x").intern();
+		MethodInvocation invocation = new MethodInvocation(Person.GET_NAME_WITH_ARGUMENTS, "intern", "y");
+		
+		MethodInvocation actual = invocation.intern();
+		
+		assertThat(actual, is(sameInstance(invocation)));
+	}
+	
 	@Test
 	public void describeToAppendsDescription()
 	{
@@ -156,4 +276,213 @@ public class MethodInvocationTest
 		
 		assertThat(actual, CoreMatchers.<Object>is(name));
 	}
+	
+	@Test
+	public void invokeTwiceReturnsValue() throws IllegalAccessException, InvocationTargetException
+	{
+		MethodInvocation invocation = new MethodInvocation(Person.GET_NAME_WITH_ARGUMENT, "x");
+		Person instance = mock(Person.class);
+		Name name = mock(Name.class);
+		when(instance.getNameWithArgument("x")).thenReturn(name);
+		invocation.invoke(instance);
+		
+		Object actual = invocation.invoke(instance);
+		
+		assertThat(actual, CoreMatchers.<Object>is(name));
+	}
+	
+	@Test
+	public void invokeWithPrimitiveReturnsBoxedValue() throws IllegalAccessException, InvocationTargetException
+	{
+		MethodInvocation invocation = new MethodInvocation(Person.GET_AGE);
+		Person instance = mock(Person.class);
+		when(instance.getAge()).thenReturn(1);
+		
+		Object actual = invocation.invoke(instance);
+		
+		assertThat(actual, CoreMatchers.<Object>is(1));
+	}
+	
+	@Test
+	public void invokeWhenListenerNotifiesListener() throws IllegalAccessException, InvocationTargetException
+	{
+		MethodInvocation invocation = new MethodInvocation(Person.GET_NAME);
+		MatcherMetricsListener listener = mock(MatcherMetricsListener.class);
+		SubmatcherRuntime.setMetricsListener(listener);
+		
+		invocation.invoke(mock(Person.class));
+		
+		verify(listener).invocationCompleted(eq(invocation), anyLong(), eq(false));
+	}
+	
+	@Test
+	public void invokeWhenListenerInOtherPackageNotifiesListener()
+		throws IllegalAccessException, InvocationTargetException
+	{
+		RecordingMetricsListener listener = new RecordingMetricsListener();
+		SubmatcherRuntime.setMetricsListener(listener);
+		
+		new MethodInvocation(Person.GET_NAME).invoke(mock(Person.class));
+		
+		assertThat(listener.getInvocations(), is(Collections.singletonList("Person.getName()")));
+	}
+	
+	@Test
+	public void getArgumentsReturnsCopy()
+	{
+		MethodInvocation invocation = new MethodInvocation(Person.GET_NAME_WITH_ARGUMENT, "x");
+		
+		invocation.getArguments()[0] = "y";
+		
+		assertThat(invocation.getArguments()[0], is((Object) "x"));
+	}
+	
+	@Test
+	public void invokeWhenListenerAndThrowsNotifiesListener() throws IllegalAccessException
+	{
+		MethodInvocation invocation = new MethodInvocation(Person.GET_NAME);
+		Person instance = mock(Person.class);
+		when(instance.getName()).thenThrow(new IllegalStateException());
+		MatcherMetricsListener listener = mock(MatcherMetricsListener.class);
+		SubmatcherRuntime.setMetricsListener(listener);
+		
+		try
+		{
+			invocation.invoke(instance);
+		}
+		catch (InvocationTargetException exception)
+		{
+			// expected
+		}
+		
+		verify(listener).invocationCompleted(eq(invocation), anyLong(), eq(true));
+	}
+	
+	@Test
+	public void invokeWhenMethodThrowsExceptionThrowsInvocationTargetException()
+		throws IllegalAccessException, InvocationTargetException
+	{
+		MethodInvocation invocation = new MethodInvocation(Person.GET_NAME);
+		Person instance = mock(Person.class);
+		RuntimeException exception = new RuntimeException();
+		when(instance.getName()).thenThrow(exception);
+		
+		thrown.expect(InvocationTargetException.class);
+		thrown.expectCause(is(exception));
+		
+		invocation.invoke(instance);
+	}
+	
+	@Test
+	public void invokeWithIncompatibleInstanceThrowsException() throws IllegalAccessException, InvocationTargetException
+	{
+		MethodInvocation invocation = new MethodInvocation(Person.GET_NAME);
+		
+		thrown.expect(IllegalArgumentException.class);
+		
+		invocation.invoke(new Object());
+	}
+	
+	@Test
+	public void invokeWithNonPublicTypeReturnsValue()
+		throws NoSuchMethodException, IllegalAccessException, InvocationTargetException
+	{
+		MethodInvocation invocation = new MethodInvocation(NonPublicType.class.getMethod("getValue"));
+		
+		Object actual = invocation.invoke(new NonPublicType());
+		
+		assertThat(actual, CoreMatchers.<Object>is("x"));
+	}
+	
+	@Test
+	public void acceptsWithCompatibleInstanceReturnsTrue()
+	{
+		MethodInvocation invocation = new MethodInvocation(Person.GET_NAME);
+		
+		boolean actual = invocation.accepts(mock(Person.class));
+		
+		assertThat(actual, is(true));
+	}
+	
+	@Test
+	public void acceptsWithIncompatibleInstanceReturnsFalse()
+	{
+		MethodInvocation invocation = new MethodInvocation(Person.GET_NAME);
+		
+		boolean actual = invocation.accepts(new Object());
+		
+		assertThat(actual, is(false));
+	}
+	
+	@Test
+	public void acceptsWithNullReturnsFalse()
+	{
+		MethodInvocation invocation = new MethodInvocation(Person.GET_NAME);
+		
+		boolean actual = invocation.accepts(null);
+		
+		assertThat(actual, is(false));
+	}
+	
+	@Test
+	public void invokeAcceptedReturnsValue() throws IllegalAccessException, InvocationTargetException
+	{
+		MethodInvocation invocation = new MethodInvocation(Person.GET_NAME);
+		Person person = mock(Person.class);
+		Name name = mock(Name.class);
+		when(person.getName()).thenReturn(name);
+		
+		Object actual = invocation.invokeAccepted(person);
+		
+		assertThat(actual, CoreMatchers.<Object>is(name));
+	}
+	
+	@Test
+	public void compileReturnsHandleWithReturnType()
+	{
+		MethodHandle actual = new MethodInvocation(Person.GET_AGE).compile(int.class);
+		
+		assertThat(actual.type(), is(MethodType.methodType(int.class, Object.class)));
+	}
+	
+	@Test
+	public void compileWithWiderReturnTypeReturnsHandleWithReturnType()
+	{
+		MethodHandle actual = new MethodInvocation(Person.GET_AGE).compile(long.class);
+		
+		assertThat(actual.type(), is(MethodType.methodType(long.class, Object.class)));
+	}
+	
+	@Test
+	public void compileWithIncompatibleReturnTypeReturnsNull()
+	{
+		MethodHandle actual = new MethodInvocation(Person.GET_HEIGHT).compile(int.class);
+		
+		assertThat(actual, is(nullValue()));
+	}
+	
+	@Test
+	public void compileWithNonPublicTypeReturnsNull() throws NoSuchMethodException
+	{
+		MethodInvocation invocation = new MethodInvocation(NonPublicType.class.getMethod("getValue"));
+		
+		MethodHandle actual = invocation.compile(Object.class);
+		
+		assertThat(actual, is(nullValue()));
+	}
+	
+	// ----------------------------------------------------------------------------------------------------------------
+	// types
+	// ----------------------------------------------------------------------------------------------------------------
+
+	/**
+	 * Type whose methods cannot be looked up publicly.
+	 */
+	static class NonPublicType
+	{
+		public String getValue()
+		{
+			return "x";
+		}
+	}
 }
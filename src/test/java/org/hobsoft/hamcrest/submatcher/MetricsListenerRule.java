@@ -0,0 +1,33 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hobsoft.hamcrest.submatcher;
+
+import org.junit.rules.ExternalResource;
+
+/**
+ * JUnit rule to remove the metrics listener and reset the shared metrics after tests.
+ */
+public class MetricsListenerRule extends ExternalResource
+{
+	// ----------------------------------------------------------------------------------------------------------------
+	// ExternalResource methods
+	// ----------------------------------------------------------------------------------------------------------------
+
+	@Override
+	protected void after()
+	{
+		Instrumentation.setListener(null);
+		Instrumentation.getMetrics().reset();
+	}
+}
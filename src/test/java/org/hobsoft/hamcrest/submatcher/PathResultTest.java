@@ -0,0 +1,124 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hobsoft.hamcrest.submatcher;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Tests {@code PathResult}.
+ */
+public class PathResultTest
+{
+	// ----------------------------------------------------------------------------------------------------------------
+	// fields
+	// ----------------------------------------------------------------------------------------------------------------
+
+	private ExpectedException thrown = ExpectedException.none();
+
+	// ----------------------------------------------------------------------------------------------------------------
+	// JUnit methods
+	// ----------------------------------------------------------------------------------------------------------------
+
+	@Rule
+	public ExpectedException getThrown()
+	{
+		return thrown;
+	}
+
+	// ----------------------------------------------------------------------------------------------------------------
+	// tests
+	// ----------------------------------------------------------------------------------------------------------------
+
+	@Test
+	public void valueReturnsCompleteResult()
+	{
+		PathResult<String> actual = PathResult.value("x");
+		
+		assertThat(actual.isComplete(), is(true));
+		assertThat(actual.getValue(), is("x"));
+		assertThat(actual.isNull(), is(false));
+		assertThat(actual.getNullLength(), is(0));
+		assertThat(actual.getException(), is(nullValue()));
+	}
+	
+	@Test
+	public void nullValueWhenCompleteReturnsCompleteNullResult()
+	{
+		PathResult<String> actual = PathResult.nullValue(2, true);
+		
+		assertThat(actual.isComplete(), is(true));
+		assertThat(actual.getValue(), is(nullValue()));
+		assertThat(actual.isNull(), is(true));
+		assertThat(actual.getNullLength(), is(2));
+	}
+	
+	@Test
+	public void nullValueWhenIncompleteReturnsIncompleteNullResult()
+	{
+		PathResult<String> actual = PathResult.nullValue(1, false);
+		
+		assertThat(actual.isComplete(), is(false));
+		assertThat(actual.isNull(), is(true));
+		assertThat(actual.getNullLength(), is(1));
+	}
+	
+	@Test
+	public void nullValueWithZeroLengthThrowsException()
+	{
+		thrown.expect(IllegalArgumentException.class);
+		thrown.expectMessage("length must be positive: 0");
+		
+		PathResult.nullValue(0, false);
+	}
+	
+	@Test
+	public void exceptionReturnsIncompleteResult()
+	{
+		RuntimeException exception = new RuntimeException();
+		
+		PathResult<String> actual = PathResult.exception(exception);
+		
+		assertThat(actual.isComplete(), is(false));
+		assertThat(actual.isNull(), is(false));
+		assertThat(actual.getException(), is(sameInstance((Throwable) exception)));
+	}
+	
+	@Test
+	public void exceptionWithNullThrowsException()
+	{
+		thrown.expect(NullPointerException.class);
+		thrown.expectMessage("exception");
+		
+		PathResult.exception(null);
+	}
+	
+	@Test
+	public void toStringWhenValueReturnsValue()
+	{
+		assertThat(PathResult.value("x").toString(), is("value=x"));
+	}
+	
+	@Test
+	public void toStringWhenIntermediateNullReturnsNullLength()
+	{
+		assertThat(PathResult.nullValue(1, false).toString(), is("nullLength=1"));
+	}
+}
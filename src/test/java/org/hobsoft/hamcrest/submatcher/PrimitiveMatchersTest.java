@@ -0,0 +1,291 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hobsoft.hamcrest.submatcher;
+
+import org.hamcrest.StringDescription;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hobsoft.hamcrest.submatcher.PrimitiveMatchers.doubleCloseTo;
+import static org.hobsoft.hamcrest.submatcher.PrimitiveMatchers.doubleGreaterThan;
+import static org.hobsoft.hamcrest.submatcher.PrimitiveMatchers.doubleLessThan;
+import static org.hobsoft.hamcrest.submatcher.PrimitiveMatchers.intEqualTo;
+import static org.hobsoft.hamcrest.submatcher.PrimitiveMatchers.intGreaterThan;
+import static org.hobsoft.hamcrest.submatcher.PrimitiveMatchers.intLessThan;
+import static org.hobsoft.hamcrest.submatcher.PrimitiveMatchers.longEqualTo;
+import static org.hobsoft.hamcrest.submatcher.PrimitiveMatchers.longGreaterThan;
+import static org.hobsoft.hamcrest.submatcher.PrimitiveMatchers.longLessThan;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Tests {@code PrimitiveMatchers}.
+ */
+public class PrimitiveMatchersTest
+{
+	// ----------------------------------------------------------------------------------------------------------------
+	// tests
+	// ----------------------------------------------------------------------------------------------------------------
+
+	@Test
+	public void intEqualToWhenMatchesReturnsTrue()
+	{
+		IntMatcher matcher = intEqualTo(1);
+		
+		boolean actual = matcher.matches(1);
+		
+		assertThat(actual, is(true));
+	}
+	
+	@Test
+	public void intEqualToWhenDoesNotMatchReturnsFalse()
+	{
+		IntMatcher matcher = intEqualTo(1);
+		
+		boolean actual = matcher.matches(2);
+		
+		assertThat(actual, is(false));
+	}
+	
+	@Test
+	public void intEqualToDescribeToAppendsDescription()
+	{
+		IntMatcher matcher = intEqualTo(1);
+		
+		assertThat(StringDescription.toString(matcher), is("<1>"));
+	}
+	
+	@Test
+	public void intGreaterThanWhenMatchesReturnsTrue()
+	{
+		IntMatcher matcher = intGreaterThan(1);
+		
+		boolean actual = matcher.matches(2);
+		
+		assertThat(actual, is(true));
+	}
+	
+	@Test
+	public void intGreaterThanWhenDoesNotMatchReturnsFalse()
+	{
+		IntMatcher matcher = intGreaterThan(1);
+		
+		boolean actual = matcher.matches(1);
+		
+		assertThat(actual, is(false));
+	}
+	
+	@Test
+	public void intGreaterThanDescribeToAppendsDescription()
+	{
+		IntMatcher matcher = intGreaterThan(1);
+		
+		assertThat(StringDescription.toString(matcher), is("a value greater than <1>"));
+	}
+	
+	@Test
+	public void intLessThanWhenMatchesReturnsTrue()
+	{
+		IntMatcher matcher = intLessThan(1);
+		
+		boolean actual = matcher.matches(0);
+		
+		assertThat(actual, is(true));
+	}
+	
+	@Test
+	public void intLessThanWhenDoesNotMatchReturnsFalse()
+	{
+		IntMatcher matcher = intLessThan(1);
+		
+		boolean actual = matcher.matches(1);
+		
+		assertThat(actual, is(false));
+	}
+	
+	@Test
+	public void intLessThanDescribeToAppendsDescription()
+	{
+		IntMatcher matcher = intLessThan(1);
+		
+		assertThat(StringDescription.toString(matcher), is("a value less than <1>"));
+	}
+	
+	@Test
+	public void longEqualToWhenMatchesReturnsTrue()
+	{
+		LongMatcher matcher = longEqualTo(1L);
+		
+		boolean actual = matcher.matches(1L);
+		
+		assertThat(actual, is(true));
+	}
+	
+	@Test
+	public void longEqualToWhenDoesNotMatchReturnsFalse()
+	{
+		LongMatcher matcher = longEqualTo(1L);
+		
+		boolean actual = matcher.matches(2L);
+		
+		assertThat(actual, is(false));
+	}
+	
+	@Test
+	public void longEqualToDescribeToAppendsDescription()
+	{
+		LongMatcher matcher = longEqualTo(1L);
+		
+		assertThat(StringDescription.toString(matcher), is("<1L>"));
+	}
+	
+	@Test
+	public void longGreaterThanWhenMatchesReturnsTrue()
+	{
+		LongMatcher matcher = longGreaterThan(1L);
+		
+		boolean actual = matcher.matches(2L);
+		
+		assertThat(actual, is(true));
+	}
+	
+	@Test
+	public void longGreaterThanWhenDoesNotMatchReturnsFalse()
+	{
+		LongMatcher matcher = longGreaterThan(1L);
+		
+		boolean actual = matcher.matches(1L);
+		
+		assertThat(actual, is(false));
+	}
+	
+	@Test
+	public void longGreaterThanDescribeToAppendsDescription()
+	{
+		LongMatcher matcher = longGreaterThan(1L);
+		
+		assertThat(StringDescription.toString(matcher), is("a value greater than <1L>"));
+	}
+	
+	@Test
+	public void longLessThanWhenMatchesReturnsTrue()
+	{
+		LongMatcher matcher = longLessThan(1L);
+		
+		boolean actual = matcher.matches(0L);
+		
+		assertThat(actual, is(true));
+	}
+	
+	@Test
+	public void longLessThanWhenDoesNotMatchReturnsFalse()
+	{
+		LongMatcher matcher = longLessThan(1L);
+		
+		boolean actual = matcher.matches(1L);
+		
+		assertThat(actual, is(false));
+	}
+	
+	@Test
+	public void longLessThanDescribeToAppendsDescription()
+	{
+		LongMatcher matcher = longLessThan(1L);
+		
+		assertThat(StringDescription.toString(matcher), is("a value less than <1L>"));
+	}
+	
+	@Test
+	public void doubleCloseToWhenMatchesReturnsTrue()
+	{
+		DoubleMatcher matcher = doubleCloseTo(1.0, 0.5);
+		
+		boolean actual = matcher.matches(1.5);
+		
+		assertThat(actual, is(true));
+	}
+	
+	@Test
+	public void doubleCloseToWhenDoesNotMatchReturnsFalse()
+	{
+		DoubleMatcher matcher = doubleCloseTo(1.0, 0.5);
+		
+		boolean actual = matcher.matches(1.6);
+		
+		assertThat(actual, is(false));
+	}
+	
+	@Test
+	public void doubleCloseToDescribeToAppendsDescription()
+	{
+		DoubleMatcher matcher = doubleCloseTo(1.0, 0.5);
+		
+		assertThat(StringDescription.toString(matcher), is("a numeric value within <0.5> of <1.0>"));
+	}
+	
+	@Test
+	public void doubleGreaterThanWhenMatchesReturnsTrue()
+	{
+		DoubleMatcher matcher = doubleGreaterThan(1.0);
+		
+		boolean actual = matcher.matches(1.5);
+		
+		assertThat(actual, is(true));
+	}
+	
+	@Test
+	public void doubleGreaterThanWhenDoesNotMatchReturnsFalse()
+	{
+		DoubleMatcher matcher = doubleGreaterThan(1.0);
+		
+		boolean actual = matcher.matches(1.0);
+		
+		assertThat(actual, is(false));
+	}
+	
+	@Test
+	public void doubleGreaterThanDescribeToAppendsDescription()
+	{
+		DoubleMatcher matcher = doubleGreaterThan(1.0);
+		
+		assertThat(StringDescription.toString(matcher), is("a value greater than <1.0>"));
+	}
+	
+	@Test
+	public void doubleLessThanWhenMatchesReturnsTrue()
+	{
+		DoubleMatcher matcher = doubleLessThan(1.0);
+		
+		boolean actual = matcher.matches(0.5);
+		
+		assertThat(actual, is(true));
+	}
+	
+	@Test
+	public void doubleLessThanWhenDoesNotMatchReturnsFalse()
+	{
+		DoubleMatcher matcher = doubleLessThan(1.0);
+		
+		boolean actual = matcher.matches(1.0);
+		
+		assertThat(actual, is(false));
+	}
+	
+	@Test
+	public void doubleLessThanDescribeToAppendsDescription()
+	{
+		DoubleMatcher matcher = doubleLessThan(1.0);
+		
+		assertThat(StringDescription.toString(matcher), is("a value less than <1.0>"));
+	}
+}
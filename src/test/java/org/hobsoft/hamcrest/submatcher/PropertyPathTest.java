@@ -0,0 +1,440 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hobsoft.hamcrest.submatcher;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.hamcrest.CoreMatchers;
+import org.hamcrest.Matcher;
+import org.hamcrest.StringDescription;
+import org.hobsoft.hamcrest.submatcher.test.Address;
+import org.hobsoft.hamcrest.submatcher.test.Name;
+import org.hobsoft.hamcrest.submatcher.test.Person;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hobsoft.hamcrest.submatcher.HasValueMatcher.on;
+import static org.hobsoft.hamcrest.submatcher.PropertyPath.path;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests {@code PropertyPath}.
+ */
+public class PropertyPathTest
+{
+	// ----------------------------------------------------------------------------------------------------------------
+	// fields
+	// ----------------------------------------------------------------------------------------------------------------
+
+	private SpyHolderRule spyHolderRule = new SpyHolderRule();
+	
+	private ExpectedException thrown = ExpectedException.none();
+
+	// ----------------------------------------------------------------------------------------------------------------
+	// JUnit methods
+	// ----------------------------------------------------------------------------------------------------------------
+
+	@Rule
+	public SpyHolderRule getSpyHolderRule()
+	{
+		return spyHolderRule;
+	}
+
+	@Rule
+	public ExpectedException getThrown()
+	{
+		return thrown;
+	}
+
+	// ----------------------------------------------------------------------------------------------------------------
+	// tests
+	// ----------------------------------------------------------------------------------------------------------------
+
+	@Test
+	public void constructorWithNullInvocationThrowsException()
+	{
+		thrown.expect(NullPointerException.class);
+		thrown.expectMessage("invocation");
+		
+		new PropertyPath<Person, Name>((MethodInvocation) null);
+	}
+	
+	@Test
+	public void constructorWithNullInvocationsThrowsException()
+	{
+		thrown.expect(NullPointerException.class);
+		thrown.expectMessage("invocations");
+		
+		new PropertyPath<Person, Name>((List<MethodInvocation>) null);
+	}
+	
+	@Test
+	public void constructorWithEmptyInvocationsThrowsException()
+	{
+		thrown.expect(IllegalArgumentException.class);
+		thrown.expectMessage("invocations must not be empty");
+		
+		new PropertyPath<Person, Name>(Collections.<MethodInvocation>emptyList());
+	}
+	
+	@Test
+	public void equalsWithEqualPathReturnsTrue()
+	{
+		boolean actual = newAddressCityPath().equals(newAddressCityPath());
+		
+		assertThat(actual, is(true));
+	}
+	
+	@Test
+	public void equalsWithDifferentPathReturnsFalse()
+	{
+		PropertyPath<Person, Name> path = new PropertyPath<Person, Name>(new MethodInvocation(Person.GET_NAME));
+		
+		boolean actual = newAddressCityPath().equals(path);
+		
+		assertThat(actual, is(false));
+	}
+	
+	@Test
+	public void hashCodeWithEqualPathReturnsEqualHashCode()
+	{
+		int actual = newAddressCityPath().hashCode();
+		
+		assertThat(actual, is(newAddressCityPath().hashCode()));
+	}
+	
+	@Test
+	public void describeToAppendsDescription()
+	{
+		PropertyPath<Person, Name> path = new PropertyPath<Person, Name>(new MethodInvocation(Person.GET_NAME));
+		
+		assertThat(StringDescription.toString(path), is("getName()"));
+	}
+	
+	@Test
+	public void describeToWhenChainedAppendsDescription()
+	{
+		PropertyPath<Person, String> path = newAddressCityPath();
+		
+		assertThat(StringDescription.toString(path), is("getAddress().getCity()"));
+	}
+	
+	@Test
+	public void pathReturnsPathWithInvocation()
+	{
+		PropertyPath<Person, Name> actual = path(on(Person.class).getName());
+		
+		assertThat(actual.getInvocation().getMethod(), is(Person.GET_NAME));
+	}
+	
+	@Test
+	public void pathWhenChainedReturnsPathWithInvocations()
+	{
+		PropertyPath<Person, String> actual = path(on(Person.class).getAddress().getCity());
+		
+		assertThat(actual.getInvocations().size(), is(2));
+		assertThat(actual.getInvocations().get(0).getMethod(), is(Person.GET_ADDRESS));
+		assertThat(actual.getInvocations().get(1).getMethod(), is(Address.GET_CITY));
+	}
+	
+	@Test
+	public void pathUnsetsSpy()
+	{
+		path(on(Person.class).getName());
+		
+		assertThat(SpyHolder.hasSpy(), is(false));
+	}
+	
+	@Test
+	public void pathWhenNullSpyThrowsException()
+	{
+		thrown.expect(IllegalStateException.class);
+		thrown.expectMessage("on() must be invoked before path()");
+		
+		path(null);
+	}
+	
+	@Test
+	public void hasValueReturnsMatcherWithPath()
+	{
+		PropertyPath<Person, Name> path = new PropertyPath<Person, Name>(new MethodInvocation(Person.GET_NAME));
+		
+		HasValueMatcher<Person, Name> actual = path.hasValue(equalTo(mock(Name.class)));
+		
+		assertThat(actual.getPath(), is(path));
+	}
+	
+	@Test
+	public void hasValueTwiceReturnsMatchersWithSamePath()
+	{
+		PropertyPath<Person, Name> path = path(on(Person.class).getName());
+		Name name = mock(Name.class);
+		Person person = newPersonWithName(name);
+		
+		Matcher<Person> matcher1 = path.hasValue(equalTo(name));
+		Matcher<Person> matcher2 = path.hasValue(equalTo(mock(Name.class)));
+		
+		assertThat(matcher1.matches(person), is(true));
+		assertThat(matcher2.matches(person), is(false));
+	}
+	
+	@Test
+	public void invokeReturnsValue() throws Exception
+	{
+		PropertyPath<Person, Name> path = new PropertyPath<Person, Name>(new MethodInvocation(Person.GET_NAME));
+		Name name = mock(Name.class);
+		
+		Object actual = path.invoke(newPersonWithName(name));
+		
+		assertThat(actual, CoreMatchers.<Object>is(name));
+	}
+	
+	@Test
+	public void invokeWhenChainedReturnsValue() throws Exception
+	{
+		Address address = mock(Address.class);
+		when(address.getCity()).thenReturn("x");
+		Person person = mock(Person.class);
+		when(person.getAddress()).thenReturn(address);
+		
+		Object actual = newAddressCityPath().invoke(person);
+		
+		assertThat(actual, CoreMatchers.<Object>is("x"));
+	}
+	
+	@Test
+	public void invokeWhenChainedAndNullThrowsExceptionWithLength() throws Exception
+	{
+		try
+		{
+			newAddressCityPath().invoke(mock(Person.class));
+			fail();
+		}
+		catch (NullPropertyException exception)
+		{
+			assertThat(exception.getLength(), is(1));
+		}
+	}
+	
+	@Test
+	public void evaluateReturnsValue()
+	{
+		Address address = mock(Address.class);
+		when(address.getCity()).thenReturn("x");
+		Person person = mock(Person.class);
+		when(person.getAddress()).thenReturn(address);
+		
+		PathResult<String> actual = newAddressCityPath().evaluate(person);
+		
+		assertThat(actual.isComplete(), is(true));
+		assertThat(actual.getValue(), is("x"));
+	}
+	
+	@Test
+	public void evaluateWhenIntermediateNullReturnsIncompleteResultWithLength()
+	{
+		PathResult<String> actual = newAddressCityPath().evaluate(mock(Person.class));
+		
+		assertThat(actual.isComplete(), is(false));
+		assertThat(actual.getNullLength(), is(1));
+	}
+	
+	@Test
+	public void evaluateWhenIntermediateNullTwiceReturnsSameResult()
+	{
+		PropertyPath<Person, String> path = newAddressCityPath();
+		PathResult<String> result = path.evaluate(mock(Person.class));
+		
+		PathResult<String> actual = path.evaluate(mock(Person.class));
+		
+		assertThat(actual, is(sameInstance(result)));
+	}
+	
+	@Test
+	public void evaluateWhenFinalNullReturnsCompleteResultWithLength()
+	{
+		Person person = mock(Person.class);
+		when(person.getAddress()).thenReturn(mock(Address.class));
+		
+		PathResult<String> actual = newAddressCityPath().evaluate(person);
+		
+		assertThat(actual.isComplete(), is(true));
+		assertThat(actual.getValue(), is(nullValue()));
+		assertThat(actual.getNullLength(), is(2));
+	}
+	
+	@Test
+	public void evaluateWhenMethodThrowsExceptionReturnsResultWithException()
+	{
+		Person person = mock(Person.class);
+		RuntimeException exception = new RuntimeException();
+		when(person.getAddress()).thenThrow(exception);
+		
+		PathResult<String> actual = newAddressCityPath().evaluate(person);
+		
+		assertThat(actual.isComplete(), is(false));
+		assertThat(actual.getException(), is(sameInstance((Throwable) exception)));
+	}
+	
+	@Test
+	public void evaluateWithNullThrowsException()
+	{
+		thrown.expect(NullPointerException.class);
+		thrown.expectMessage("instance");
+		
+		newAddressCityPath().evaluate(null);
+	}
+	
+	@Test
+	public void followWhenIntermediateNullReturnsResultWithNullLength() throws Exception
+	{
+		PropertyPath<Person, String> path = newAddressCityPath();
+		
+		Object actual = path.follow(mock(Person.class));
+		
+		assertThat(path.getNullLength(actual), is(1));
+	}
+	
+	@Test
+	public void getNullLengthWithOtherPathResultReturnsZero()
+	{
+		PropertyPath<Person, String> path = newAddressCityPath();
+		
+		int actual = path.getNullLength(PathResult.nullValue(1, false));
+		
+		assertThat(actual, is(0));
+	}
+	
+	@Test
+	public void hasValueWithNullPolicyReturnsMatcherWithNullPolicy()
+	{
+		PropertyPath<Person, String> path = newAddressCityPath();
+		
+		HasValueMatcher<Person, String> actual = path.hasValue(CoreMatchers.equalTo("x"), NullPolicy.MATCH);
+		
+		assertThat(actual.getNullPolicy(), is(NullPolicy.MATCH));
+	}
+	
+	@Test
+	public void invokeParentReturnsInstance() throws Exception
+	{
+		PropertyPath<Person, Name> path = new PropertyPath<Person, Name>(new MethodInvocation(Person.GET_NAME));
+		Person person = mock(Person.class);
+		
+		Object actual = path.invokeParent(person);
+		
+		assertThat(actual, CoreMatchers.<Object>is(person));
+	}
+	
+	@Test
+	public void invokeParentWhenChainedReturnsParentValue() throws Exception
+	{
+		Address address = mock(Address.class);
+		Person person = mock(Person.class);
+		when(person.getAddress()).thenReturn(address);
+		
+		Object actual = newAddressCityPath().invokeParent(person);
+		
+		assertThat(actual, CoreMatchers.<Object>is(address));
+	}
+	
+	@Test
+	public void invokeParentWhenChainedAndNullThrowsExceptionWithLength() throws Exception
+	{
+		try
+		{
+			newAddressCityPath().invokeParent(mock(Person.class));
+			fail();
+		}
+		catch (NullPropertyException exception)
+		{
+			assertThat(exception.getLength(), is(1));
+		}
+	}
+	
+	@Test
+	public void toFieldsReturnsPathWithFieldInvocations()
+	{
+		PropertyPath<Person, String> actual = newAddressCityPath().toFields();
+		
+		assertThat(actual.getInvocations().get(0), is(instanceOf(FieldInvocation.class)));
+		assertThat(actual.getInvocations().get(1), is(instanceOf(FieldInvocation.class)));
+	}
+	
+	@Test
+	public void toFieldsWithArgumentReturnsPathWithMethodInvocation()
+	{
+		PropertyPath<Person, Name> path = new PropertyPath<Person, Name>(
+			new MethodInvocation(Person.GET_NAME_WITH_ARGUMENT, "x"));
+		
+		PropertyPath<Person, Name> actual = path.toFields();
+		
+		assertThat(actual.getInvocation(), is(not(instanceOf(FieldInvocation.class))));
+	}
+	
+	@Test
+	public void toFieldsReturnsUnequalPath()
+	{
+		PropertyPath<Person, String> path = newAddressCityPath();
+		
+		boolean actual = path.toFields().equals(path);
+		
+		assertThat(actual, is(false));
+	}
+	
+	@Test
+	public void acceptsWithCompatibleInstanceReturnsTrue()
+	{
+		boolean actual = newAddressCityPath().accepts(mock(Person.class));
+		
+		assertThat(actual, is(true));
+	}
+	
+	@Test
+	public void acceptsWithIncompatibleInstanceReturnsFalse()
+	{
+		boolean actual = newAddressCityPath().accepts(new Object());
+		
+		assertThat(actual, is(false));
+	}
+	
+	// ----------------------------------------------------------------------------------------------------------------
+	// private methods
+	// ----------------------------------------------------------------------------------------------------------------
+
+	private static PropertyPath<Person, String> newAddressCityPath()
+	{
+		return new PropertyPath<Person, String>(Arrays.asList(new MethodInvocation(Person.GET_ADDRESS),
+			new MethodInvocation(Address.GET_CITY)));
+	}
+	
+	private static Person newPersonWithName(Name name)
+	{
+		Person person = mock(Person.class);
+		when(person.getName()).thenReturn(name);
+		return person;
+	}
+}
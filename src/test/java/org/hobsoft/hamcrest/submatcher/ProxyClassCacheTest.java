@@ -0,0 +1,422 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hobsoft.hamcrest.submatcher;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.hobsoft.hamcrest.submatcher.test.Address;
+import org.hobsoft.hamcrest.submatcher.test.Name;
+import org.hobsoft.hamcrest.submatcher.test.Person;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests {@code ProxyClassCache}.
+ */
+public class ProxyClassCacheTest
+{
+	// ----------------------------------------------------------------------------------------------------------------
+	// fields
+	// ----------------------------------------------------------------------------------------------------------------
+
+	private ExpectedException thrown = ExpectedException.none();
+	
+	// ----------------------------------------------------------------------------------------------------------------
+	// JUnit methods
+	// ----------------------------------------------------------------------------------------------------------------
+
+	@Rule
+	public ExpectedException getThrown()
+	{
+		return thrown;
+	}
+
+	// ----------------------------------------------------------------------------------------------------------------
+	// tests
+	// ----------------------------------------------------------------------------------------------------------------
+
+	@Test
+	public void constructorWithZeroMaximumSizeThrowsException()
+	{
+		thrown.expect(IllegalArgumentException.class);
+		thrown.expectMessage("maximumSize must be positive: 0");
+		
+		new ProxyClassCache(0);
+	}
+	
+	@Test
+	public void getReturnsFactoryForType()
+	{
+		ProxyFactory actual = new ProxyClassCache().get(Person.class);
+		
+		assertThat(actual.newInstance(mock(SpyInterceptor.class)), is(instanceOf(Person.class)));
+	}
+	
+	@Test
+	public void getTwiceReturnsSameFactory()
+	{
+		ProxyClassCache cache = new ProxyClassCache();
+		ProxyFactory factory = cache.get(Person.class);
+		
+		ProxyFactory actual = cache.get(Person.class);
+		
+		assertThat(actual, is(sameInstance(factory)));
+	}
+	
+	@Test
+	public void getWhenProfilingRecordsGeneration() throws IOException
+	{
+		ProxyClassCache cache = new ProxyClassCache();
+		cache.getProfiler().setEnabled(true);
+		
+		cache.get(Person.class);
+		
+		assertThat(toJson(cache.getProfiler()), containsString("\"type\": \"" + Person.class.getName() + "\""));
+	}
+	
+	@Test
+	public void getWhenNotProfilingDoesNotRecordGeneration() throws IOException
+	{
+		ProxyClassCache cache = new ProxyClassCache();
+		
+		cache.get(Person.class);
+		
+		assertThat(toJson(cache.getProfiler()), not(containsString(Person.class.getName())));
+	}
+	
+	@Test
+	public void getWithDifferentTypesReturnsDifferentFactories()
+	{
+		ProxyClassCache cache = new ProxyClassCache();
+		ProxyFactory factory = cache.get(Person.class);
+		
+		ProxyFactory actual = cache.get(Name.class);
+		
+		assertThat(actual, is(not(sameInstance(factory))));
+	}
+	
+	@Test
+	public void getReturnsFactoryFromHighestPriorityEngine()
+	{
+		ProxyFactory factory = mock(ProxyFactory.class);
+		ProxyEngine engine1 = mockEngine(1, mock(ProxyFactory.class));
+		ProxyEngine engine2 = mockEngine(2, factory);
+		ProxyClassCache cache = new ProxyClassCache(1, Arrays.asList(engine1, engine2));
+		
+		ProxyFactory actual = cache.get(Person.class);
+		
+		assertThat(actual, is(sameInstance(factory)));
+	}
+	
+	@Test
+	public void getReturnsFactoryFromSupportingEngine()
+	{
+		ProxyFactory factory = mock(ProxyFactory.class);
+		ProxyEngine engine1 = mockEngine(1, factory);
+		ProxyEngine engine2 = mockEngine(2, mock(ProxyFactory.class));
+		when(engine2.supports(Person.class)).thenReturn(false);
+		ProxyClassCache cache = new ProxyClassCache(1, Arrays.asList(engine1, engine2));
+		
+		ProxyFactory actual = cache.get(Person.class);
+		
+		assertThat(actual, is(sameInstance(factory)));
+	}
+	
+	@Test
+	public void getWhenNoSupportingEngineThrowsException()
+	{
+		ProxyClassCache cache = new ProxyClassCache(1, Collections.<ProxyEngine>emptyList());
+		
+		thrown.expect(IllegalArgumentException.class);
+		thrown.expectMessage("No proxy engine supports type: " + Person.class.getName());
+		
+		cache.get(Person.class);
+	}
+	
+	@Test
+	public void getEnginesReturnsEnginesByPriority()
+	{
+		ProxyEngine engine1 = mockEngine(1, mock(ProxyFactory.class));
+		ProxyEngine engine2 = mockEngine(2, mock(ProxyFactory.class));
+		
+		List<ProxyEngine> actual = new ProxyClassCache(1, Arrays.asList(engine1, engine2)).getEngines();
+		
+		assertThat(actual, is(Arrays.asList(engine2, engine1)));
+	}
+	
+	@Test
+	public void getEnginesWhenDefaultReturnsServiceEngines()
+	{
+		List<ProxyEngine> engines = new ProxyClassCache().getEngines();
+		
+		assertThat(engines.get(0), is(instanceOf(GeneratedProxyEngine.class)));
+		assertThat(engines.get(1), is(instanceOf(JdkProxyEngine.class)));
+		assertThat(engines.get(2), is(instanceOf(CglibProxyEngine.class)));
+	}
+	
+	@Test
+	public void getWithNullThrowsException()
+	{
+		thrown.expect(NullPointerException.class);
+		thrown.expectMessage("type");
+		
+		new ProxyClassCache().get(null);
+	}
+	
+	@Test
+	public void getWhenAbsentCountsMiss()
+	{
+		ProxyClassCache cache = new ProxyClassCache();
+		
+		cache.get(Person.class);
+		
+		assertThat(cache.getStatistics().getMissCount(), is(1L));
+		assertThat(cache.getStatistics().getHitCount(), is(0L));
+	}
+	
+	@Test
+	public void getWhenPresentCountsHit()
+	{
+		ProxyClassCache cache = new ProxyClassCache();
+		cache.get(Person.class);
+		
+		cache.get(Person.class);
+		
+		assertThat(cache.getStatistics().getMissCount(), is(1L));
+		assertThat(cache.getStatistics().getHitCount(), is(1L));
+	}
+	
+	@Test
+	public void getWhenFullEvictsEntry()
+	{
+		ProxyClassCache cache = new ProxyClassCache(1);
+		cache.get(Person.class);
+		
+		cache.get(Name.class);
+		
+		assertThat(cache.size(), is(1));
+	}
+	
+	@Test
+	public void getWhenFullEvictsLeastRecentlyUsedEntry()
+	{
+		ProxyClassCache cache = new ProxyClassCache(2);
+		cache.get(Person.class);
+		cache.get(Name.class);
+		cache.get(Person.class);
+		
+		cache.get(Address.class);
+		
+		cache.get(Person.class);
+		assertThat(cache.getStatistics().getMissCount(), is(3L));
+		cache.get(Name.class);
+		assertThat(cache.getStatistics().getMissCount(), is(4L));
+	}
+	
+	@Test
+	public void getWhenConcurrentlyAbsentCreatesFactoryOnce() throws InterruptedException, ExecutionException
+	{
+		ProxyEngine engine = mockEngine(1, mock(ProxyFactory.class));
+		when(engine.createFactory(Person.class)).thenAnswer(invocation ->
+		{
+			// widen the window for concurrent misses
+			Thread.sleep(50);
+			return mock(ProxyFactory.class);
+		});
+		ProxyClassCache cache = new ProxyClassCache(1, Collections.singletonList(engine));
+		int threadCount = 4;
+		ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+		
+		try
+		{
+			CountDownLatch start = new CountDownLatch(1);
+			Callable<ProxyFactory> get = () ->
+			{
+				start.await();
+				return cache.get(Person.class);
+			};
+			List<Future<ProxyFactory>> factories = new ArrayList<Future<ProxyFactory>>();
+			
+			for (int index = 0; index < threadCount; index++)
+			{
+				factories.add(executor.submit(get));
+			}
+			
+			start.countDown();
+			
+			for (Future<ProxyFactory> factory : factories)
+			{
+				assertThat(factory.get(), is(sameInstance(factories.get(0).get())));
+			}
+		}
+		finally
+		{
+			executor.shutdown();
+		}
+		
+		verify(engine, times(1)).createFactory(Person.class);
+	}
+	
+	@Test
+	public void getDoesNotPreventTypeFromBeingCollected() throws IOException, InterruptedException
+	{
+		ProxyClassCache cache = new ProxyClassCache(1, Collections.<ProxyEngine>singletonList(new TypeHoldingEngine()));
+		WeakReference<Class<?>> type = new WeakReference<Class<?>>(defineCopy(CollectableType.class));
+		cache.get(type.get());
+		
+		for (int attempt = 0; attempt < 10 && type.get() != null; attempt++)
+		{
+			System.gc();
+			Thread.sleep(10);
+		}
+		
+		assertThat(type.get(), is(nullValue()));
+	}
+	
+	@Test
+	public void clearRemovesEntries()
+	{
+		ProxyClassCache cache = new ProxyClassCache();
+		cache.get(Person.class);
+		
+		cache.clear();
+		
+		assertThat(cache.size(), is(0));
+	}
+	
+	// ----------------------------------------------------------------------------------------------------------------
+	// private methods
+	// ----------------------------------------------------------------------------------------------------------------
+
+	private static ProxyEngine mockEngine(int priority, ProxyFactory factory)
+	{
+		ProxyEngine engine = mock(ProxyEngine.class);
+		when(engine.getPriority()).thenReturn(priority);
+		when(engine.supports(Person.class)).thenReturn(true);
+		when(engine.createFactory(Person.class)).thenReturn(factory);
+		return engine;
+	}
+	
+	private static Class<?> defineCopy(Class<?> type) throws IOException
+	{
+		String resourceName = type.getName().replace('.', '/') + ".class";
+		
+		try (InputStream in = type.getClassLoader().getResourceAsStream(resourceName))
+		{
+			ByteArrayOutputStream bytecode = new ByteArrayOutputStream();
+			byte[] buffer = new byte[4096];
+			int length;
+			
+			while ((length = in.read(buffer)) != -1)
+			{
+				bytecode.write(buffer, 0, length);
+			}
+			
+			return new DefiningClassLoader().define(type.getName(), bytecode.toByteArray());
+		}
+	}
+	
+	private static String toJson(ProxyProfiler profiler) throws IOException
+	{
+		StringBuilder json = new StringBuilder();
+		profiler.writeJson(json);
+		return json.toString();
+	}
+	
+	// ----------------------------------------------------------------------------------------------------------------
+	// types
+	// ----------------------------------------------------------------------------------------------------------------
+
+	/**
+	 * Type that is copied into its own class loader so that it can be collected.
+	 */
+	public static class CollectableType
+	{
+		// no members
+	}
+	
+	/**
+	 * Class loader that defines the classes it is given.
+	 */
+	private static final class DefiningClassLoader extends ClassLoader
+	{
+		public Class<?> define(String name, byte[] bytecode)
+		{
+			return defineClass(name, bytecode, 0, bytecode.length);
+		}
+	}
+	
+	/**
+	 * Proxy engine whose factories strongly reference their type, as generated proxy classes do.
+	 */
+	private static final class TypeHoldingEngine implements ProxyEngine
+	{
+		public String getName()
+		{
+			return "typeHolding";
+		}
+		
+		public int getPriority()
+		{
+			return 0;
+		}
+		
+		public boolean supports(Class<?> type)
+		{
+			return true;
+		}
+		
+		public ProxyFactory createFactory(Class<?> type)
+		{
+			return new ProxyFactory()
+			{
+				public Class<?> getProxyType()
+				{
+					return type;
+				}
+				
+				public Object newInstance(SpyInterceptor interceptor)
+				{
+					throw new UnsupportedOperationException();
+				}
+			};
+		}
+	}
+}
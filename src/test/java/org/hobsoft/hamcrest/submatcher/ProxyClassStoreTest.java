@@ -0,0 +1,295 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hobsoft.hamcrest.submatcher;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+
+import org.hobsoft.hamcrest.submatcher.test.Address;
+import org.hobsoft.hamcrest.submatcher.test.Person;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
+
+import net.sf.cglib.core.ReflectUtils;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Tests {@code ProxyClassStore}.
+ */
+public class ProxyClassStoreTest
+{
+	// ----------------------------------------------------------------------------------------------------------------
+	// fields
+	// ----------------------------------------------------------------------------------------------------------------
+
+	private ExpectedException thrown = ExpectedException.none();
+	
+	private TemporaryFolder folder = new TemporaryFolder();
+
+	// ----------------------------------------------------------------------------------------------------------------
+	// JUnit methods
+	// ----------------------------------------------------------------------------------------------------------------
+
+	@Rule
+	public ExpectedException getThrown()
+	{
+		return thrown;
+	}
+	
+	@Rule
+	public TemporaryFolder getFolder()
+	{
+		return folder;
+	}
+
+	// ----------------------------------------------------------------------------------------------------------------
+	// tests
+	// ----------------------------------------------------------------------------------------------------------------
+
+	@Test
+	public void constructorWithNullDirectoryThrowsException()
+	{
+		thrown.expect(NullPointerException.class);
+		thrown.expectMessage("directory");
+		
+		new ProxyClassStore(null);
+	}
+	
+	@Test
+	public void getKeyReturnsHexDigest()
+	{
+		String actual = new ProxyClassStore(folder.getRoot()).getKey(Person.class);
+		
+		assertThat(actual.matches("[0-9a-f]{64}"), is(true));
+	}
+	
+	@Test
+	public void getKeyTwiceReturnsSameKey()
+	{
+		ProxyClassStore store = new ProxyClassStore(folder.getRoot());
+		String key = store.getKey(Person.class);
+		
+		String actual = store.getKey(Person.class);
+		
+		assertThat(actual, is(key));
+	}
+	
+	@Test
+	public void getKeyWithDifferentTypesReturnsDifferentKeys()
+	{
+		ProxyClassStore store = new ProxyClassStore(folder.getRoot());
+		String key = store.getKey(Person.class);
+		
+		String actual = store.getKey(Address.class);
+		
+		assertThat(actual, is(not(key)));
+	}
+	
+	@Test
+	public void getKeyWithDifferentLibraryVersionsReturnsDifferentKeys()
+	{
+		String key = new ProxyClassStore(folder.getRoot(), "1.0", "3.1").getKey(Person.class);
+		
+		String actual = new ProxyClassStore(folder.getRoot(), "1.1", "3.1").getKey(Person.class);
+		
+		assertThat(actual, is(not(key)));
+	}
+	
+	@Test
+	public void getKeyWithDifferentCglibVersionsReturnsDifferentKeys()
+	{
+		String key = new ProxyClassStore(folder.getRoot(), "1.0", "3.1").getKey(Person.class);
+		
+		String actual = new ProxyClassStore(folder.getRoot(), "1.0", "3.2").getKey(Person.class);
+		
+		assertThat(actual, is(not(key)));
+	}
+	
+	@Test
+	public void getKeyWithUnknownLibraryVersionReturnsNull()
+	{
+		String actual = new ProxyClassStore(folder.getRoot(), null, "3.1").getKey(Person.class);
+		
+		assertThat(actual, is(nullValue()));
+	}
+	
+	@Test
+	public void getKeyWithUnknownCglibVersionReturnsNull()
+	{
+		String actual = new ProxyClassStore(folder.getRoot(), "1.0", null).getKey(Person.class);
+		
+		assertThat(actual, is(nullValue()));
+	}
+	
+	@Test
+	public void getLibraryVersionReturnsBuildVersion()
+	{
+		String actual = new ProxyClassStore(folder.getRoot()).getLibraryVersion();
+		
+		assertThat(actual.matches("\\d+\\.\\d+\\.\\d+(-SNAPSHOT)?"), is(true));
+	}
+	
+	@Test
+	public void getCglibVersionReturnsVersionOnClassPath()
+	{
+		String jarName = new File(ReflectUtils.class.getProtectionDomain().getCodeSource().getLocation().getPath())
+			.getName();
+		
+		String actual = new ProxyClassStore(folder.getRoot()).getCglibVersion();
+		
+		assertThat(jarName, is("cglib-" + actual + ".jar"));
+	}
+	
+	@Test
+	public void getKeyWithBootstrapTypeReturnsKey()
+	{
+		String actual = new ProxyClassStore(folder.getRoot()).getKey(Object.class);
+		
+		assertThat(actual, is(notNullValue()));
+	}
+	
+	@Test
+	public void loadWhenMissingReturnsNull()
+	{
+		Class<?> actual = new ProxyClassStore(folder.getRoot()).load("x", getClass().getClassLoader());
+		
+		assertThat(actual, is(nullValue()));
+	}
+	
+	@Test
+	public void loadWhenCorruptReturnsNull() throws IOException
+	{
+		Files.write(new File(folder.getRoot(), "x.proxy").toPath(), new byte[] {1, 2, 3});
+		
+		Class<?> actual = new ProxyClassStore(folder.getRoot()).load("x", getClass().getClassLoader());
+		
+		assertThat(actual, is(nullValue()));
+	}
+	
+	@Test
+	public void saveThenLoadWhenDefinedReturnsDefinedClass() throws IOException
+	{
+		ProxyClassStore store = new ProxyClassStore(folder.getRoot());
+		store.save("x", StoredType.class.getName(), readBytecode(StoredType.class));
+		
+		Class<?> actual = store.load("x", getClass().getClassLoader());
+		
+		assertThat(actual, is(sameInstance((Object) StoredType.class)));
+	}
+	
+	@Test
+	public void saveThenLoadWhenUndefinedDefinesClass() throws IOException
+	{
+		ProxyClassStore store = new ProxyClassStore(folder.getRoot());
+		store.save("x", StoredType.class.getName(), readBytecode(StoredType.class));
+		ClassLoader classLoader = new HidingClassLoader(getClass().getClassLoader(), StoredType.class.getName());
+		
+		Class<?> actual = store.load("x", classLoader);
+		
+		assertThat(actual.getName(), is(StoredType.class.getName()));
+		assertThat(actual.getClassLoader(), is(sameInstance(classLoader)));
+	}
+	
+	@Test
+	public void saveWhenDirectoryMissingCreatesDirectory() throws IOException
+	{
+		File directory = new File(folder.getRoot(), "x");
+		ProxyClassStore store = new ProxyClassStore(directory);
+		
+		store.save("y", StoredType.class.getName(), readBytecode(StoredType.class));
+		
+		assertThat(new File(directory, "y.proxy").isFile(), is(true));
+	}
+	
+	@Test
+	public void saveTwiceReplacesClass() throws IOException
+	{
+		ProxyClassStore store = new ProxyClassStore(folder.getRoot());
+		store.save("x", "y", new byte[] {1, 2, 3});
+		
+		store.save("x", StoredType.class.getName(), readBytecode(StoredType.class));
+		
+		assertThat(store.load("x", getClass().getClassLoader()), is(sameInstance((Object) StoredType.class)));
+		assertThat(folder.getRoot().list().length, is(1));
+	}
+
+	// ----------------------------------------------------------------------------------------------------------------
+	// private methods
+	// ----------------------------------------------------------------------------------------------------------------
+
+	private static byte[] readBytecode(Class<?> type) throws IOException
+	{
+		String resourceName = type.getName().replace('.', '/') + ".class";
+		
+		try (InputStream in = type.getClassLoader().getResourceAsStream(resourceName))
+		{
+			byte[] bytes = new byte[in.available()];
+			int length = 0;
+			
+			while (length < bytes.length)
+			{
+				length += in.read(bytes, length, bytes.length - length);
+			}
+			
+			return bytes;
+		}
+	}
+
+	// ----------------------------------------------------------------------------------------------------------------
+	// types
+	// ----------------------------------------------------------------------------------------------------------------
+
+	/**
+	 * Type whose bytecode is stored.
+	 */
+	public static class StoredType
+	{
+		// no members
+	}
+	
+	/**
+	 * Class loader that cannot load a class until it is defined in it.
+	 */
+	private static final class HidingClassLoader extends ClassLoader
+	{
+		private final String hiddenClassName;
+		
+		public HidingClassLoader(ClassLoader parent, String hiddenClassName)
+		{
+			super(parent);
+			this.hiddenClassName = hiddenClassName;
+		}
+		
+		@Override
+		protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException
+		{
+			if (name.equals(hiddenClassName) && findLoadedClass(name) == null)
+			{
+				throw new ClassNotFoundException(name);
+			}
+			
+			return super.loadClass(name, resolve);
+		}
+	}
+}
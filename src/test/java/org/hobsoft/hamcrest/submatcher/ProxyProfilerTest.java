@@ -0,0 +1,187 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hobsoft.hamcrest.submatcher;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.hobsoft.hamcrest.submatcher.test.Address;
+import org.hobsoft.hamcrest.submatcher.test.Person;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Tests {@code ProxyProfiler}.
+ */
+public class ProxyProfilerTest
+{
+	// ----------------------------------------------------------------------------------------------------------------
+	// fields
+	// ----------------------------------------------------------------------------------------------------------------
+
+	private ExpectedException thrown = ExpectedException.none();
+
+	// ----------------------------------------------------------------------------------------------------------------
+	// JUnit methods
+	// ----------------------------------------------------------------------------------------------------------------
+
+	@Rule
+	public ExpectedException getThrown()
+	{
+		return thrown;
+	}
+
+	// ----------------------------------------------------------------------------------------------------------------
+	// tests
+	// ----------------------------------------------------------------------------------------------------------------
+
+	@Test
+	public void isEnabledReturnsFalse()
+	{
+		assertThat(new ProxyProfiler().isEnabled(), is(false));
+	}
+	
+	@Test
+	public void writeJsonWhenEmptyWritesTotals() throws IOException
+	{
+		StringBuilder actual = new StringBuilder();
+		
+		new ProxyProfiler().writeJson(actual);
+		
+		assertThat(actual.toString(), is("{\"proxyCount\": 0, \"generationNanos\": 0, \"bytecodeLength\": 0, "
+			+ "\"types\": []}\n"));
+	}
+	
+	@Test
+	public void writeJsonWhenGenerationWritesType() throws IOException
+	{
+		ProxyProfiler profiler = new ProxyProfiler();
+		profiler.recordGeneration(Person.class, "x", 10, 100);
+		StringBuilder actual = new StringBuilder();
+		
+		profiler.writeJson(actual);
+		
+		assertThat(actual.toString(), is("{\"proxyCount\": 1, \"generationNanos\": 10, \"bytecodeLength\": 100, "
+			+ "\"types\": [\n"
+			+ "  {\"type\": \"" + Person.class.getName() + "\", \"engine\": \"x\", \"generationCount\": 1, "
+			+ "\"generationNanos\": 10, \"bytecodeLength\": 100, \"spyCount\": 0}\n"
+			+ "]}\n"));
+	}
+	
+	@Test
+	public void writeJsonWhenUnknownBytecodeLengthWritesTotalOfKnownLengths() throws IOException
+	{
+		ProxyProfiler profiler = new ProxyProfiler();
+		profiler.recordGeneration(Person.class, "x", 10, -1);
+		profiler.recordGeneration(Address.class, "x", 10, 100);
+		StringBuilder actual = new StringBuilder();
+		
+		profiler.writeJson(actual);
+		
+		assertThat(actual.toString(), containsString("\"bytecodeLength\": 100, \"types\""));
+		assertThat(actual.toString(), containsString("\"bytecodeLength\": -1, "));
+	}
+	
+	@Test
+	public void writeJsonWritesMostExpensiveTypeFirst() throws IOException
+	{
+		ProxyProfiler profiler = new ProxyProfiler();
+		profiler.recordGeneration(Person.class, "x", 10, 100);
+		profiler.recordGeneration(Address.class, "x", 20, 100);
+		StringBuilder actual = new StringBuilder();
+		
+		profiler.writeJson(actual);
+		
+		assertThat(actual.indexOf(Address.class.getName()) < actual.indexOf(Person.class.getName()), is(true));
+	}
+	
+	@Test
+	public void writeJsonWhenSpyWritesSpyCount() throws IOException
+	{
+		ProxyProfiler profiler = new ProxyProfiler();
+		profiler.setEnabled(true);
+		profiler.recordSpy(Person.class);
+		profiler.recordSpy(Person.class);
+		StringBuilder actual = new StringBuilder();
+		
+		profiler.writeJson(actual);
+		
+		assertThat(actual.toString(), containsString("\"engine\": null, \"generationCount\": 0, "
+			+ "\"generationNanos\": 0, \"bytecodeLength\": -1, \"spyCount\": 2}"));
+	}
+	
+	@Test
+	public void recordSpyWhenDisabledDoesNotRecord() throws IOException
+	{
+		ProxyProfiler profiler = new ProxyProfiler();
+		profiler.recordSpy(Person.class);
+		StringBuilder actual = new StringBuilder();
+		
+		profiler.writeJson(actual);
+		
+		assertThat(actual.toString(), not(containsString(Person.class.getName())));
+	}
+	
+	@Test
+	public void writeJsonEscapesStrings() throws IOException
+	{
+		ProxyProfiler profiler = new ProxyProfiler();
+		profiler.recordGeneration(Person.class, "\"\\\n", 10, 100);
+		StringBuilder actual = new StringBuilder();
+		
+		profiler.writeJson(actual);
+		
+		assertThat(actual.toString(), containsString("\"engine\": \"\\\"\\\\\\u000a\""));
+	}
+	
+	@Test
+	public void writeJsonWithNullThrowsException() throws IOException
+	{
+		thrown.expect(NullPointerException.class);
+		thrown.expectMessage("out");
+		
+		new ProxyProfiler().writeJson(null);
+	}
+	
+	@Test
+	public void resetClearsProfile() throws IOException
+	{
+		ProxyProfiler profiler = new ProxyProfiler();
+		profiler.recordGeneration(Person.class, "x", 10, 100);
+		StringBuilder actual = new StringBuilder();
+		
+		profiler.reset();
+		
+		profiler.writeJson(actual);
+		assertThat(actual.toString(), not(containsString(Person.class.getName())));
+	}
+	
+	@Test
+	public void writeJsonOnShutdownEnablesProfiling() throws IOException
+	{
+		File file = File.createTempFile("proxyProfile", ".json");
+		file.deleteOnExit();
+		ProxyProfiler profiler = new ProxyProfiler();
+		
+		profiler.writeJsonOnShutdown(file);
+		
+		assertThat(profiler.isEnabled(), is(true));
+	}
+}
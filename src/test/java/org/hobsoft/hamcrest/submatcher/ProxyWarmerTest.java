@@ -0,0 +1,242 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hobsoft.hamcrest.submatcher;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+import org.hamcrest.core.IsEqual;
+import org.hobsoft.hamcrest.submatcher.test.Address;
+import org.hobsoft.hamcrest.submatcher.test.Name;
+import org.hobsoft.hamcrest.submatcher.test.Person;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import static org.hamcrest.CoreMatchers.hasItem;
+import static org.hamcrest.CoreMatchers.hasItems;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Tests {@code ProxyWarmer}.
+ */
+public class ProxyWarmerTest
+{
+	// ----------------------------------------------------------------------------------------------------------------
+	// fields
+	// ----------------------------------------------------------------------------------------------------------------
+
+	private ExpectedException thrown = ExpectedException.none();
+
+	// ----------------------------------------------------------------------------------------------------------------
+	// JUnit methods
+	// ----------------------------------------------------------------------------------------------------------------
+
+	@Rule
+	public ExpectedException getThrown()
+	{
+		return thrown;
+	}
+
+	// ----------------------------------------------------------------------------------------------------------------
+	// tests
+	// ----------------------------------------------------------------------------------------------------------------
+
+	@Test
+	public void constructorWithNullProxyClassCacheThrowsException()
+	{
+		thrown.expect(NullPointerException.class);
+		thrown.expectMessage("proxyClassCache");
+		
+		new ProxyWarmer(null, ForkJoinPool.commonPool());
+	}
+	
+	@Test
+	public void constructorWithNullPoolThrowsException()
+	{
+		thrown.expect(NullPointerException.class);
+		thrown.expectMessage("pool");
+		
+		new ProxyWarmer(new ProxyClassCache(), null);
+	}
+	
+	@Test
+	public void constructorWithNegativeMaximumWarmedInvocationsThrowsException()
+	{
+		thrown.expect(IllegalArgumentException.class);
+		thrown.expectMessage("maximumWarmedInvocations must not be negative: -1");
+		
+		new ProxyWarmer(new ProxyClassCache(), ForkJoinPool.commonPool(), ProxyWarmer.newConcurrentSet(), -1);
+	}
+	
+	@Test
+	public void warmUpKeepsCompiledGetters()
+	{
+		Set<MethodInvocation> warmedInvocations = ProxyWarmer.newConcurrentSet();
+		ProxyWarmer warmer = new ProxyWarmer(new ProxyClassCache(), ForkJoinPool.commonPool(), warmedInvocations, 10);
+		
+		warmer.warmUp(Collections.singleton(Address.class));
+		
+		assertThat(warmedInvocations, hasItem(new MethodInvocation(Address.GET_CITY)));
+	}
+	
+	@Test
+	public void warmUpKeepsCanonicalGetters()
+	{
+		Set<MethodInvocation> warmedInvocations = ProxyWarmer.newConcurrentSet();
+		ProxyWarmer warmer = new ProxyWarmer(new ProxyClassCache(), ForkJoinPool.commonPool(), warmedInvocations, 10);
+		warmer.warmUp(Collections.singleton(Address.class));
+		System.gc();
+		
+		MethodInvocation actual = new MethodInvocation(Address.GET_CITY).intern();
+		
+		assertThat(actual, is(sameInstance(find(warmedInvocations, actual))));
+	}
+	
+	@Test
+	public void warmUpWhenMaximumWarmedInvocationsReachedDoesNotKeepGetters()
+	{
+		Set<MethodInvocation> warmedInvocations = ProxyWarmer.newConcurrentSet();
+		ProxyWarmer warmer = new ProxyWarmer(new ProxyClassCache(), ForkJoinPool.commonPool(), warmedInvocations, 0);
+		
+		warmer.warmUp(Collections.singleton(Address.class));
+		
+		assertThat(warmedInvocations.isEmpty(), is(true));
+	}
+	
+	@Test
+	public void warmUpCachesProxyFactoryForType()
+	{
+		ProxyClassCache proxyClassCache = new ProxyClassCache();
+		
+		new ProxyWarmer(proxyClassCache, ForkJoinPool.commonPool()).warmUp(Collections.singleton(Address.class));
+		
+		assertThat(proxyClassCache.size(), is(1));
+	}
+	
+	@Test
+	public void warmUpReturnsNumberOfTypesProxiedIncludingGetterReturnTypes()
+	{
+		ProxyWarmer warmer = new ProxyWarmer(new ProxyClassCache(), ForkJoinPool.commonPool());
+		
+		int actual = warmer.warmUp(Collections.singleton(Person.class));
+		
+		// Person, Name and Address
+		assertThat(actual, is(3));
+	}
+	
+	@Test
+	public void warmUpCachesProxyFactoriesForGetterReturnTypes()
+	{
+		ProxyClassCache proxyClassCache = new ProxyClassCache();
+		ProxyFactory nameFactory = proxyClassCache.get(Name.class);
+		
+		new ProxyWarmer(proxyClassCache, ForkJoinPool.commonPool()).warmUp(Collections.singleton(Person.class));
+		
+		assertThat(proxyClassCache.getStatistics().getHitCount(), is(1L));
+		assertThat(proxyClassCache.get(Name.class), is(nameFactory));
+	}
+	
+	@Test
+	public void warmUpWithUnproxiableTypeSkipsType()
+	{
+		ProxyWarmer warmer = new ProxyWarmer(new ProxyClassCache(), ForkJoinPool.commonPool());
+		
+		int actual = warmer.warmUp(Arrays.<Class<?>>asList(String.class, Address.class));
+		
+		assertThat(actual, is(1));
+	}
+	
+	@Test
+	public void warmUpWithNullTypesThrowsException()
+	{
+		thrown.expect(NullPointerException.class);
+		thrown.expectMessage("types");
+		
+		new ProxyWarmer(new ProxyClassCache(), ForkJoinPool.commonPool()).warmUp(null);
+	}
+	
+	@Test
+	public void warmUpWithNullTypeThrowsException()
+	{
+		thrown.expect(NullPointerException.class);
+		thrown.expectMessage("type");
+		
+		ProxyWarmer warmer = new ProxyWarmer(new ProxyClassCache(), ForkJoinPool.commonPool());
+		
+		warmer.warmUp(Collections.<Class<?>>singleton(null));
+	}
+	
+	@Test
+	public void findClassesWithDirectoryReturnsClasses() throws IOException
+	{
+		ClassLoader classLoader = getClass().getClassLoader();
+		
+		List<Class<?>> actual = ProxyWarmer.findClasses(classLoader, Person.class.getPackage().getName());
+		
+		assertThat(actual, hasItems(Person.class, Address.class, Name.class));
+	}
+	
+	@Test
+	public void findClassesWithDirectoryDoesNotReturnSubpackageClasses() throws IOException
+	{
+		ClassLoader classLoader = getClass().getClassLoader();
+		
+		List<Class<?>> actual = ProxyWarmer.findClasses(classLoader, getClass().getPackage().getName());
+		
+		assertThat(actual, not(hasItem(Person.class)));
+	}
+	
+	@Test
+	public void findClassesWithJarReturnsClasses() throws IOException
+	{
+		ClassLoader classLoader = getClass().getClassLoader();
+		
+		List<Class<?>> actual = ProxyWarmer.findClasses(classLoader, IsEqual.class.getPackage().getName());
+		
+		assertThat(actual, hasItem(IsEqual.class));
+	}
+	
+	@Test
+	public void findClassesWithUnknownPackageReturnsEmptyList() throws IOException
+	{
+		List<Class<?>> actual = ProxyWarmer.findClasses(getClass().getClassLoader(), "x.y");
+		
+		assertThat(actual.isEmpty(), is(true));
+	}
+	
+	// ----------------------------------------------------------------------------------------------------------------
+	// private methods
+	// ----------------------------------------------------------------------------------------------------------------
+	
+	private static MethodInvocation find(Set<MethodInvocation> invocations, MethodInvocation invocation)
+	{
+		for (MethodInvocation element : invocations)
+		{
+			if (element.equals(invocation))
+			{
+				return element;
+			}
+		}
+		
+		return null;
+	}
+}
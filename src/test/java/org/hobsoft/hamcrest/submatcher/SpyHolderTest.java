@@ -13,12 +13,16 @@
  */
 package org.hobsoft.hamcrest.submatcher;
 
+import java.util.concurrent.atomic.AtomicBoolean;
+
 import org.hamcrest.CoreMatchers;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
 
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
 import static org.junit.Assert.assertThat;
 import static org.mockito.Mockito.mock;
 
@@ -95,4 +99,109 @@ public class SpyHolderTest
 		
 		assertThat(SpyHolder.getSpy(), CoreMatchers.<Object>is(spy));
 	}
+	
+	@Test
+	public void setSpyDoesNotSetPropertyForOtherThreads() throws InterruptedException
+	{
+		SpyHolder.setSpy(mock(Spy.class));
+		final AtomicBoolean actual = new AtomicBoolean(true);
+		
+		Thread thread = new Thread(new Runnable()
+		{
+			public void run()
+			{
+				actual.set(SpyHolder.hasSpy());
+			}
+		});
+		thread.start();
+		thread.join();
+		
+		assertThat(actual.get(), is(false));
+	}
+	
+	@Test
+	public void takeSpyReturnsSpy()
+	{
+		Spy<Object> spy = mock(Spy.class);
+		SpyHolder.setSpy(spy);
+		
+		Spy<?> actual = SpyHolder.takeSpy();
+		
+		assertThat(actual, CoreMatchers.<Object>is(spy));
+	}
+	
+	@Test
+	public void takeSpyUnsetsProperty()
+	{
+		SpyHolder.setSpy(mock(Spy.class));
+		
+		SpyHolder.takeSpy();
+		
+		assertThat(SpyHolder.hasSpy(), is(false));
+	}
+	
+	@Test
+	public void takeSpyAfterPushSpyReturnsSpiesInReverseOrder()
+	{
+		Spy<Object> spy1 = mock(Spy.class);
+		Spy<Object> spy2 = mock(Spy.class);
+		SpyHolder.pushSpy(spy1);
+		SpyHolder.pushSpy(spy2);
+		
+		Spy<?> actual1 = SpyHolder.takeSpy();
+		Spy<?> actual2 = SpyHolder.takeSpy();
+		
+		assertThat(actual1, CoreMatchers.<Object>is(spy2));
+		assertThat(actual2, CoreMatchers.<Object>is(spy1));
+	}
+	
+	@Test
+	public void pushSpyWhenFullDiscardsOldestSpy()
+	{
+		Spy<Object> oldest = mock(Spy.class);
+		SpyHolder.pushSpy(oldest);
+		
+		for (int index = 0; index < 16; index++)
+		{
+			SpyHolder.pushSpy(mock(Spy.class));
+		}
+		
+		for (int index = 0; index < 16; index++)
+		{
+			assertThat(SpyHolder.takeSpy(), is(not(sameInstance((Object) oldest))));
+		}
+		assertThat(SpyHolder.hasSpy(), is(false));
+	}
+	
+	@Test
+	public void pushSpyAfterTakeSpyReturnsNewSpy()
+	{
+		SpyHolder.pushSpy(mock(Spy.class));
+		SpyHolder.takeSpy();
+		Spy<Object> spy = mock(Spy.class);
+		
+		SpyHolder.pushSpy(spy);
+		
+		assertThat(SpyHolder.getSpy(), CoreMatchers.<Object>is(spy));
+	}
+	
+	@Test
+	public void pushSpyWithNullThrowsException()
+	{
+		thrown.expect(NullPointerException.class);
+		thrown.expectMessage("spy");
+		
+		SpyHolder.pushSpy(null);
+	}
+	
+	@Test
+	public void takeSpyWhenUnsetThrowsException()
+	{
+		SpyHolder.setSpy(null);
+
+		thrown.expect(IllegalStateException.class);
+		thrown.expectMessage("Spy has not been set");
+		
+		SpyHolder.takeSpy();
+	}
 }
@@ -0,0 +1,155 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hobsoft.hamcrest.submatcher;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.hobsoft.hamcrest.submatcher.test.Person;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Tests {@code SpyPool}.
+ */
+public class SpyPoolTest
+{
+	// ----------------------------------------------------------------------------------------------------------------
+	// fields
+	// ----------------------------------------------------------------------------------------------------------------
+
+	private ExpectedException thrown = ExpectedException.none();
+	
+	// ----------------------------------------------------------------------------------------------------------------
+	// JUnit methods
+	// ----------------------------------------------------------------------------------------------------------------
+
+	@Rule
+	public ExpectedException getThrown()
+	{
+		return thrown;
+	}
+
+	// ----------------------------------------------------------------------------------------------------------------
+	// tests
+	// ----------------------------------------------------------------------------------------------------------------
+
+	@Test
+	public void acquireReturnsSpyForType()
+	{
+		Spy<Person> actual = SpyPool.acquire(Person.class);
+		
+		assertThat(actual.getType(), is((Object) Person.class));
+	}
+	
+	@Test
+	public void acquireWithNullThrowsException()
+	{
+		thrown.expect(NullPointerException.class);
+		thrown.expectMessage("type");
+		
+		SpyPool.acquire(null);
+	}
+	
+	@Test
+	public void acquireAfterReleaseReturnsSameSpy()
+	{
+		Spy<Person> spy = SpyPool.acquire(Person.class);
+		SpyPool.release(spy);
+		
+		Spy<Person> actual = SpyPool.acquire(Person.class);
+		
+		assertThat(actual, is(sameInstance(spy)));
+	}
+	
+	@Test
+	public void acquireAfterReleaseResetsInvocations()
+	{
+		Spy<Person> spy = SpyPool.acquire(Person.class);
+		spy.getProxy().getName();
+		SpyPool.release(spy);
+		
+		Spy<Person> actual = SpyPool.acquire(Person.class);
+		
+		assertThat(actual.getInvocations().isEmpty(), is(true));
+	}
+	
+	@Test
+	public void acquireWhenNotReleasedReturnsDifferentSpy()
+	{
+		Spy<Person> spy = SpyPool.acquire(Person.class);
+		
+		Spy<Person> actual = SpyPool.acquire(Person.class);
+		
+		assertThat(actual, is(not(sameInstance(spy))));
+	}
+	
+	@Test
+	public void acquireWhenNotReleasedDoesNotResetSpy()
+	{
+		Spy<Person> spy = SpyPool.acquire(Person.class);
+		spy.getProxy().getName();
+		
+		SpyPool.acquire(Person.class);
+		
+		assertThat(spy.getInvocation().getMethod(), is(Person.GET_NAME));
+	}
+	
+	@Test
+	public void acquireAfterReleaseOfOtherSpyWhenNotReleasedReturnsOtherSpy()
+	{
+		SpyPool.release(SpyPool.acquire(Person.class));
+		SpyPool.acquire(Person.class);
+		Spy<Person> spy = SpyPool.acquire(Person.class);
+		SpyPool.release(spy);
+		
+		Spy<Person> actual = SpyPool.acquire(Person.class);
+		
+		assertThat(actual, is(sameInstance(spy)));
+	}
+	
+	@Test
+	public void acquireOnOtherThreadReturnsDifferentSpy() throws InterruptedException
+	{
+		Spy<Person> spy = SpyPool.acquire(Person.class);
+		SpyPool.release(spy);
+		final AtomicReference<Spy<Person>> actual = new AtomicReference<Spy<Person>>();
+		
+		Thread thread = new Thread(new Runnable()
+		{
+			public void run()
+			{
+				actual.set(SpyPool.acquire(Person.class));
+			}
+		});
+		thread.start();
+		thread.join();
+		
+		assertThat(actual.get(), is(not(sameInstance(spy))));
+	}
+	
+	@Test
+	public void releaseWithNullThrowsException()
+	{
+		thrown.expect(NullPointerException.class);
+		thrown.expectMessage("spy");
+		
+		SpyPool.release(null);
+	}
+}
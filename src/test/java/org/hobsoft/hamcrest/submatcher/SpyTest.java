@@ -13,7 +13,12 @@
  */
 package org.hobsoft.hamcrest.submatcher;
 
+import java.lang.reflect.Proxy;
+
 import org.hamcrest.Matchers;
+import org.hobsoft.hamcrest.submatcher.test.Address;
+import org.hobsoft.hamcrest.submatcher.test.Book;
+import org.hobsoft.hamcrest.submatcher.test.Library;
 import org.hobsoft.hamcrest.submatcher.test.Name;
 import org.hobsoft.hamcrest.submatcher.test.Person;
 import org.junit.Rule;
@@ -23,6 +28,7 @@ import org.junit.rules.ExpectedException;
 import static org.hamcrest.CoreMatchers.instanceOf;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
 import static org.junit.Assert.assertThat;
 
 /**
@@ -68,15 +74,71 @@ public class SpyTest
 	}
 
 	@Test
-	public void createThenMethodReturnsNull()
+	public void createWithInterfaceReturnsDynamicProxy()
+	{
+		Person actual = new Spy<Person>(Person.class).create();
+		
+		assertThat(Proxy.isProxyClass(actual.getClass()), is(true));
+	}
+	
+	@Test
+	public void createWithClassReturnsSubclassProxy()
+	{
+		Object actual = new Spy<Object>(Object.class).create();
+		
+		assertThat(Proxy.isProxyClass(actual.getClass()), is(false));
+	}
+	
+	@Test
+	public void createThenMethodReturnsSpy()
 	{
 		Spy<Person> spy = new Spy<Person>(Person.class);
 		
 		Name actual = spy.create().getName();
 		
+		assertThat(actual, is(instanceOf(Name.class)));
+	}
+	
+	@Test
+	public void createThenMethodWithFinalReturnTypeReturnsNull()
+	{
+		Spy<Address> spy = new Spy<Address>(Address.class);
+		
+		String actual = spy.create().getCity();
+		
+		assertThat(actual, is(nullValue()));
+	}
+	
+	@Test
+	public void createThenMethodWithUninitializableReturnTypeReturnsNull()
+	{
+		Spy<UninitializableHolder> spy = new Spy<UninitializableHolder>(UninitializableHolder.class);
+		
+		Uninitializable actual = spy.create().getValue();
+		
 		assertThat(actual, is(nullValue()));
 	}
 	
+	@Test
+	public void createThenMethodWithUninitializableReturnTypeSetsInvokedMethod() throws NoSuchMethodException
+	{
+		Spy<UninitializableHolder> spy = new Spy<UninitializableHolder>(UninitializableHolder.class);
+		
+		spy.create().getValue();
+		
+		assertThat(spy.getInvocation().getMethod(), is(UninitializableHolder.class.getMethod("getValue")));
+	}
+	
+	@Test
+	public void createThenMethodWithPrimitiveReturnTypeReturnsZero()
+	{
+		Spy<Person> spy = new Spy<Person>(Person.class);
+		
+		int actual = spy.create().getAge();
+		
+		assertThat(actual, is(0));
+	}
+	
 	@Test
 	public void createThenMethodSetsInvokedMethod()
 	{
@@ -96,4 +158,245 @@ public class SpyTest
 		
 		assertThat(spy.getInvocation().getArguments(), is(Matchers.<Object>arrayContaining("x")));
 	}
+	
+	@Test
+	public void createThenChainedMethodsSetsInvokedMethods()
+	{
+		Spy<Person> spy = new Spy<Person>(Person.class);
+		
+		spy.create().getAddress().getCity();
+		
+		assertThat(spy.getInvocations().size(), is(2));
+		assertThat(spy.getInvocations().get(0).getMethod(), is(Person.GET_ADDRESS));
+		assertThat(spy.getInvocations().get(1).getMethod(), is(Address.GET_CITY));
+	}
+	
+	@Test
+	public void createThenMethodsOnSameSpySetsLastInvokedMethod()
+	{
+		Spy<Person> spy = new Spy<Person>(Person.class);
+		Person person = spy.create();
+		
+		person.getAddress();
+		person.getName();
+		
+		assertThat(spy.getInvocations().size(), is(1));
+		assertThat(spy.getInvocation().getMethod(), is(Person.GET_NAME));
+	}
+	
+	@Test
+	public void createWhenGeneratedSpyReturnsGeneratedSpy()
+	{
+		Book actual = new Spy<Book>(Book.class).create();
+		
+		assertThat(actual, is(instanceOf(GeneratedSpy.class)));
+	}
+	
+	@Test
+	public void createWhenGeneratedSpyThenMethodSetsInvokedMethod()
+	{
+		Spy<Book> spy = new Spy<Book>(Book.class);
+		
+		spy.create().getTitle();
+		
+		assertThat(spy.getInvocation().getMethod(), is(Book.GET_TITLE));
+	}
+	
+	@Test
+	public void createWhenGeneratedSpyThenMethodWithPrimitiveReturnTypeReturnsZero()
+	{
+		Spy<Book> spy = new Spy<Book>(Book.class);
+		
+		int actual = spy.create().getPages();
+		
+		assertThat(actual, is(0));
+	}
+	
+	@Test
+	public void createWhenGeneratedSpyThenChainedMethodsSetsInvokedMethods()
+	{
+		Spy<Book> spy = new Spy<Book>(Book.class);
+		
+		spy.create().getAuthor().getName();
+		
+		assertThat(spy.getInvocations().size(), is(2));
+		assertThat(spy.getInvocations().get(0).getMethod(), is(Book.GET_AUTHOR));
+		assertThat(spy.getInvocations().get(1).getMethod(), is(Person.GET_NAME));
+	}
+	
+	@Test
+	public void createWhenGeneratedClassSpyThenMethodWithArgumentSetsInvokedMethodArguments()
+	{
+		Spy<Library> spy = new Spy<Library>(Library.class);
+		
+		spy.create().getBook("x");
+		
+		assertThat(spy.getInvocation().getArguments(), is(Matchers.<Object>arrayContaining("x")));
+	}
+	
+	@Test
+	public void createWhenGeneratedClassSpyThenConcreteMethodSetsInvokedMethod() throws NoSuchMethodException
+	{
+		Spy<Library> spy = new Spy<Library>(Library.class);
+		
+		spy.create().getName();
+		
+		assertThat(spy.getInvocation().getMethod(), is(Library.class.getMethod("getName")));
+	}
+	
+	@Test
+	public void createThenMethodTwiceReturnsSameSpy()
+	{
+		Person person = new Spy<Person>(Person.class).create();
+		
+		Name name = person.getName();
+		Name actual = person.getNameWithArgument("x");
+		
+		assertThat(actual, is(sameInstance(name)));
+	}
+	
+	@Test
+	public void createThenChainedMethodsTwiceSetsInvokedMethods()
+	{
+		Spy<Person> spy = new Spy<Person>(Person.class);
+		Person person = spy.create();
+		person.getAddress().getCity();
+		
+		person.getAddress().getCity();
+		
+		assertThat(spy.getInvocations().size(), is(2));
+		assertThat(spy.getInvocations().get(0).getMethod(), is(Person.GET_ADDRESS));
+		assertThat(spy.getInvocations().get(1).getMethod(), is(Address.GET_CITY));
+	}
+	
+	@Test
+	public void getProxyReturnsInstance()
+	{
+		Person actual = new Spy<Person>(Person.class).getProxy();
+		
+		assertThat(actual, is(instanceOf(Person.class)));
+	}
+	
+	@Test
+	public void getProxyTwiceReturnsSameInstance()
+	{
+		Spy<Person> spy = new Spy<Person>(Person.class);
+		Person proxy = spy.getProxy();
+		
+		Person actual = spy.getProxy();
+		
+		assertThat(actual, is(sameInstance(proxy)));
+	}
+	
+	@Test
+	public void resetClearsInvocations()
+	{
+		Spy<Person> spy = new Spy<Person>(Person.class);
+		spy.getProxy().getAddress().getCity();
+		
+		spy.reset();
+		
+		assertThat(spy.getInvocations().isEmpty(), is(true));
+	}
+	
+	@Test
+	public void resetThenChainedMethodsSetsInvokedMethods()
+	{
+		Spy<Person> spy = new Spy<Person>(Person.class);
+		spy.getProxy().getName();
+		spy.reset();
+		
+		spy.getProxy().getAddress().getCity();
+		
+		assertThat(spy.getInvocations().size(), is(2));
+		assertThat(spy.getInvocations().get(0).getMethod(), is(Person.GET_ADDRESS));
+		assertThat(spy.getInvocations().get(1).getMethod(), is(Address.GET_CITY));
+	}
+	
+	@Test
+	public void getInvocationWhenNoMethodInvokedReturnsNull()
+	{
+		Spy<Person> spy = new Spy<Person>(Person.class);
+		
+		spy.create();
+		
+		assertThat(spy.getInvocation(), is(nullValue()));
+	}
+	
+	@Test
+	public void getPathReturnsPathOfInvokedMethods()
+	{
+		Spy<Person> spy = new Spy<Person>(Person.class);
+		spy.getProxy().getAddress().getCity();
+		
+		PropertyPath<?, ?> actual = spy.getPath();
+		
+		assertThat(actual.getInvocations(), is(spy.getInvocations()));
+	}
+	
+	@Test
+	public void getPathWhenSameChainedGettersInvokedTwiceReturnsSameInstance()
+	{
+		Spy<Person> spy = new Spy<Person>(Person.class);
+		spy.getProxy().getAddress().getCity();
+		PropertyPath<?, ?> path = spy.getPath();
+		spy.reset();
+		
+		spy.getProxy().getAddress().getCity();
+		
+		assertThat(spy.getPath(), is(sameInstance((Object) path)));
+	}
+	
+	@Test
+	public void getPathWhenChainedGetterAfterDifferentParentReturnsPathOfInvokedMethods()
+	{
+		Spy<Library> spy = new Spy<Library>(Library.class);
+		spy.getProxy().getBook("x").getTitle();
+		
+		spy.getProxy().getBook("y").getTitle();
+		
+		PropertyPath<?, ?> actual = spy.getPath();
+		assertThat(actual.getInvocations().get(0).getArguments(), is(Matchers.<Object>arrayContaining("y")));
+		assertThat(actual.getInvocations().get(1).getMethod(), is(Book.GET_TITLE));
+	}
+	
+	@Test
+	public void getPathWhenMethodWithArgumentInvokedTwiceReturnsEqualPath()
+	{
+		Spy<Person> spy = new Spy<Person>(Person.class);
+		spy.getProxy().getNameWithArgument("x");
+		PropertyPath<?, ?> path = spy.getPath();
+		
+		spy.getProxy().getNameWithArgument("x");
+		
+		assertThat(spy.getPath(), is((Object) path));
+	}
+	
+	// ----------------------------------------------------------------------------------------------------------------
+	// types
+	// ----------------------------------------------------------------------------------------------------------------
+
+	/**
+	 * Type with a method whose return type cannot be proxied.
+	 */
+	public static class UninitializableHolder
+	{
+		public Uninitializable getValue()
+		{
+			return null;
+		}
+	}
+	
+	/**
+	 * Type whose initialization fails with a {@code LinkageError}, as does a proxy of it.
+	 */
+	public static class Uninitializable
+	{
+		private static final Object VALUE = fail();
+		
+		private static Object fail()
+		{
+			throw new IllegalStateException();
+		}
+	}
 }
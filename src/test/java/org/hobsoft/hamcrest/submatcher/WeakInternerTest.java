@@ -0,0 +1,107 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hobsoft.hamcrest.submatcher;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Tests {@code WeakInterner}.
+ */
+public class WeakInternerTest
+{
+	// ----------------------------------------------------------------------------------------------------------------
+	// fields
+	// ----------------------------------------------------------------------------------------------------------------
+
+	private ExpectedException thrown = ExpectedException.none();
+	
+	// ----------------------------------------------------------------------------------------------------------------
+	// JUnit methods
+	// ----------------------------------------------------------------------------------------------------------------
+
+	@Rule
+	public ExpectedException getThrown()
+	{
+		return thrown;
+	}
+
+	// ----------------------------------------------------------------------------------------------------------------
+	// tests
+	// ----------------------------------------------------------------------------------------------------------------
+
+	@Test
+	public void internReturnsInstance()
+	{
+		WeakInterner<String> interner = new WeakInterner<String>();
+		String instance = new String("x");
+		
+		String actual = interner.intern(instance);
+		
+		assertThat(actual, is(sameInstance(instance)));
+	}
+	
+	@Test
+	public void internWithEqualInstanceReturnsCanonicalInstance()
+	{
+		WeakInterner<String> interner = new WeakInterner<String>();
+		String instance = new String("x");
+		interner.intern(instance);
+		
+		String actual = interner.intern(new String("x"));
+		
+		assertThat(actual, is(sameInstance(instance)));
+	}
+	
+	@Test
+	public void internWithDifferentInstanceReturnsInstance()
+	{
+		WeakInterner<String> interner = new WeakInterner<String>();
+		interner.intern(new String("x"));
+		String instance = new String("y");
+		
+		String actual = interner.intern(instance);
+		
+		assertThat(actual, is(sameInstance(instance)));
+	}
+	
+	@Test
+	public void internWithNullThrowsException()
+	{
+		thrown.expect(NullPointerException.class);
+		thrown.expectMessage("instance");
+		
+		new WeakInterner<String>().intern(null);
+	}
+	
+	@Test
+	public void sizeReturnsInternedCount()
+	{
+		WeakInterner<String> interner = new WeakInterner<String>();
+		String instance1 = new String("x");
+		String instance2 = new String("y");
+		interner.intern(instance1);
+		interner.intern(instance2);
+		interner.intern(new String("x"));
+		
+		int actual = interner.size();
+		
+		assertThat(actual, is(2));
+	}
+}
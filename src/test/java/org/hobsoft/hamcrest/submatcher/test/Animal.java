@@ -0,0 +1,88 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hobsoft.hamcrest.submatcher.test;
+
+import java.lang.reflect.Method;
+
+/**
+ * Simple data holder for unit tests that counts reads of its getters.
+ */
+public class Animal
+{
+	// ----------------------------------------------------------------------------------------------------------------
+	// constants
+	// ----------------------------------------------------------------------------------------------------------------
+
+	public static final Method GET_NAME = Methods.getQuietly(Animal.class, "getName");
+	
+	public static final Method IS_TAME = Methods.getQuietly(Animal.class, "isTame");
+	
+	public static final Method GET_MOTHER = Methods.getQuietly(Animal.class, "getMother");
+	
+	// ----------------------------------------------------------------------------------------------------------------
+	// fields
+	// ----------------------------------------------------------------------------------------------------------------
+
+	private final String name;
+	
+	private final boolean tame;
+	
+	private final Animal mother;
+	
+	private int getterCount;
+	
+	// ----------------------------------------------------------------------------------------------------------------
+	// constructors
+	// ----------------------------------------------------------------------------------------------------------------
+
+	public Animal(String name, boolean tame, Animal mother)
+	{
+		this.name = name;
+		this.tame = tame;
+		this.mother = mother;
+	}
+	
+	// ----------------------------------------------------------------------------------------------------------------
+	// public methods
+	// ----------------------------------------------------------------------------------------------------------------
+
+	public String getName()
+	{
+		getterCount++;
+		return name;
+	}
+	
+	public boolean isTame()
+	{
+		getterCount++;
+		return tame;
+	}
+	
+	public Animal getMother()
+	{
+		getterCount++;
+		return mother;
+	}
+	
+	public String getNameWithPrefix(String prefix)
+	{
+		getterCount++;
+		return prefix + name;
+	}
+	
+	public int getGetterCount()
+	{
+		return getterCount;
+	}
+}
@@ -0,0 +1,79 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hobsoft.hamcrest.submatcher.test;
+
+/**
+ * Spy for {@code Book} as generated by {@code SubmatchableProcessor}, which is built after this module.
+ */
+@SuppressWarnings({"rawtypes", "unchecked", "deprecation", "serial"})
+final class Book$$SubmatcherSpy implements org.hobsoft.hamcrest.submatcher.test.Book, org.hobsoft.hamcrest.submatcher.GeneratedSpy
+{
+	private static final java.lang.Object[] NO_ARGUMENTS = new java.lang.Object[0];
+
+	private static final java.lang.reflect.Method METHOD_0 = method$(org.hobsoft.hamcrest.submatcher.test.Book.class, "getTitle");
+
+	private static final java.lang.reflect.Method METHOD_1 = method$(org.hobsoft.hamcrest.submatcher.test.Book.class, "getPages");
+
+	private static final java.lang.reflect.Method METHOD_2 = method$(org.hobsoft.hamcrest.submatcher.test.Book.class, "getAuthor");
+
+	private org.hobsoft.hamcrest.submatcher.SpyInterceptor interceptor;
+
+	public void setInterceptor(org.hobsoft.hamcrest.submatcher.SpyInterceptor interceptor)
+	{
+		this.interceptor = interceptor;
+	}
+
+	@Override
+	public java.lang.String getTitle()
+	{
+		return (java.lang.String) interceptor.intercept(METHOD_0, NO_ARGUMENTS);
+	}
+
+	@Override
+	public int getPages()
+	{
+		java.lang.Object value = interceptor.intercept(METHOD_1, NO_ARGUMENTS);
+		return (value != null) ? (java.lang.Integer) value : (int) 0;
+	}
+
+	@Override
+	public org.hobsoft.hamcrest.submatcher.test.Person getAuthor()
+	{
+		return (org.hobsoft.hamcrest.submatcher.test.Person) interceptor.intercept(METHOD_2, NO_ARGUMENTS);
+	}
+
+	private static java.lang.reflect.Method method$(java.lang.Class<?> type, java.lang.String name, java.lang.Class<?>... parameterTypes)
+	{
+		for (java.lang.Class<?> declaringType = type; declaringType != null; declaringType = declaringType.getSuperclass())
+		{
+			try
+			{
+				return declaringType.getDeclaredMethod(name, parameterTypes);
+			}
+			catch (java.lang.NoSuchMethodException exception)
+			{
+				// try superclass
+			}
+		}
+
+		try
+		{
+			return type.getMethod(name, parameterTypes);
+		}
+		catch (java.lang.NoSuchMethodException exception)
+		{
+			throw new java.lang.NoSuchMethodError(exception.getMessage());
+		}
+	}
+}
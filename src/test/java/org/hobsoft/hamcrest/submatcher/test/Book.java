@@ -0,0 +1,43 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hobsoft.hamcrest.submatcher.test;
+
+import java.lang.reflect.Method;
+
+import org.hobsoft.hamcrest.submatcher.Submatchable;
+
+/**
+ * Simple type with a generated spy for unit tests.
+ */
+@Submatchable
+public interface Book
+{
+	// ----------------------------------------------------------------------------------------------------------------
+	// constants
+	// ----------------------------------------------------------------------------------------------------------------
+
+	Method GET_TITLE = Methods.getQuietly(Book.class, "getTitle");
+	
+	Method GET_AUTHOR = Methods.getQuietly(Book.class, "getAuthor");
+	
+	// ----------------------------------------------------------------------------------------------------------------
+	// public methods
+	// ----------------------------------------------------------------------------------------------------------------
+
+	String getTitle();
+	
+	int getPages();
+	
+	Person getAuthor();
+}
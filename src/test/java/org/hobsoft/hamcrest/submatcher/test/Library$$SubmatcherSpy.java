@@ -0,0 +1,75 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hobsoft.hamcrest.submatcher.test;
+
+/**
+ * Spy for {@code Library} as generated by {@code SubmatchableProcessor}, which is built after this module.
+ */
+@SuppressWarnings({"rawtypes", "unchecked", "deprecation", "serial"})
+final class Library$$SubmatcherSpy extends org.hobsoft.hamcrest.submatcher.test.Library implements org.hobsoft.hamcrest.submatcher.GeneratedSpy
+{
+	private static final java.lang.Object[] NO_ARGUMENTS = new java.lang.Object[0];
+
+	private static final java.lang.reflect.Method METHOD_0 = method$(org.hobsoft.hamcrest.submatcher.test.Library.class, "getName");
+
+	private static final java.lang.reflect.Method METHOD_1 = method$(org.hobsoft.hamcrest.submatcher.test.Library.class, "getBook", java.lang.String.class);
+
+	private org.hobsoft.hamcrest.submatcher.SpyInterceptor interceptor;
+
+	Library$$SubmatcherSpy()
+	{
+		super((java.lang.String) null);
+	}
+
+	public void setInterceptor(org.hobsoft.hamcrest.submatcher.SpyInterceptor interceptor)
+	{
+		this.interceptor = interceptor;
+	}
+
+	@Override
+	public java.lang.String getName()
+	{
+		return (java.lang.String) interceptor.intercept(METHOD_0, NO_ARGUMENTS);
+	}
+
+	@Override
+	public org.hobsoft.hamcrest.submatcher.test.Book getBook(java.lang.String p0)
+	{
+		return (org.hobsoft.hamcrest.submatcher.test.Book) interceptor.intercept(METHOD_1, new java.lang.Object[] {p0});
+	}
+
+	private static java.lang.reflect.Method method$(java.lang.Class<?> type, java.lang.String name, java.lang.Class<?>... parameterTypes)
+	{
+		for (java.lang.Class<?> declaringType = type; declaringType != null; declaringType = declaringType.getSuperclass())
+		{
+			try
+			{
+				return declaringType.getDeclaredMethod(name, parameterTypes);
+			}
+			catch (java.lang.NoSuchMethodException exception)
+			{
+				// try superclass
+			}
+		}
+
+		try
+		{
+			return type.getMethod(name, parameterTypes);
+		}
+		catch (java.lang.NoSuchMethodException exception)
+		{
+			throw new java.lang.NoSuchMethodError(exception.getMessage());
+		}
+	}
+}
@@ -31,6 +31,14 @@ public interface Person
 	Method GET_NAME_WITH_ARGUMENTS = Methods.getQuietly(Person.class, "getNameWithArguments", String.class,
 		String.class);
 	
+	Method GET_AGE = Methods.getQuietly(Person.class, "getAge");
+	
+	Method GET_ADDRESS = Methods.getQuietly(Person.class, "getAddress");
+	
+	Method GET_ID = Methods.getQuietly(Person.class, "getId");
+	
+	Method GET_HEIGHT = Methods.getQuietly(Person.class, "getHeight");
+	
 	// ----------------------------------------------------------------------------------------------------------------
 	// public methods
 	// ----------------------------------------------------------------------------------------------------------------
@@ -42,4 +50,10 @@ public interface Person
 	Name getNameWithArguments(String arg1, String arg2);
 
 	int getAge();
+	
+	Address getAddress();
+	
+	long getId();
+	
+	double getHeight();
 }
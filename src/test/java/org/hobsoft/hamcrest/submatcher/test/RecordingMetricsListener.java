@@ -0,0 +1,66 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hobsoft.hamcrest.submatcher.test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.hamcrest.StringDescription;
+import org.hobsoft.hamcrest.submatcher.Invocation;
+import org.hobsoft.hamcrest.submatcher.MatcherMetricsListener;
+import org.hobsoft.hamcrest.submatcher.PropertyPath;
+
+/**
+ * Metrics listener outside the library's package that records the descriptions of what it is notified of.
+ */
+public class RecordingMetricsListener implements MatcherMetricsListener
+{
+	// ----------------------------------------------------------------------------------------------------------------
+	// fields
+	// ----------------------------------------------------------------------------------------------------------------
+
+	private final List<String> invocations = Collections.synchronizedList(new ArrayList<String>());
+	
+	private final List<String> evaluations = Collections.synchronizedList(new ArrayList<String>());
+
+	// ----------------------------------------------------------------------------------------------------------------
+	// MatcherMetricsListener methods
+	// ----------------------------------------------------------------------------------------------------------------
+
+	public void invocationCompleted(Invocation invocation, long nanos, boolean threw)
+	{
+		invocations.add(invocation.getMethod().getDeclaringClass().getSimpleName() + "."
+			+ StringDescription.toString(invocation));
+	}
+	
+	public void evaluationCompleted(PropertyPath<?, ?> path, long nanos, boolean matches, boolean threw)
+	{
+		evaluations.add(StringDescription.toString(path));
+	}
+
+	// ----------------------------------------------------------------------------------------------------------------
+	// public methods
+	// ----------------------------------------------------------------------------------------------------------------
+
+	public List<String> getInvocations()
+	{
+		return invocations;
+	}
+	
+	public List<String> getEvaluations()
+	{
+		return evaluations;
+	}
+}